@@ -0,0 +1,79 @@
+package Benchmark;
+
+import Model.BuildService;
+import Model.ConcurrentInventory;
+import Model.InHouse;
+import Model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BuildService builds on a ConcurrentInventory from 1 and from 8 threads.
+ * The products share a small pool of parts, so builds keep competing for the same part locks.
+ * Stock is reset before each iteration, so no build is ever short.
+ * @author Andrew Burk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuildBenchmark {
+    private static final int PARTS_PER_PRODUCT = 4;
+    private static final int PART_STOCK = 1_000_000_000;
+
+    @Param({ "50", "1000" })
+    public int parts;
+
+    private ConcurrentInventory inv;
+    private BuildService service;
+    private Product[] products;
+
+    /**
+     * Fills a fresh Inventory with the parts and 200 products using them.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        inv = new ConcurrentInventory(Runnable::run);
+        Random random = new Random(17);
+        for (int id = 1; id <= parts; id++) {
+            inv.addPart(new InHouse(id, "Part " + id, 1.0, PART_STOCK, 10, Integer.MAX_VALUE, id));
+        }
+        products = new Product[200];
+        for (int i = 0; i < products.length; i++) {
+            products[i] = new Product(i + 1, "Product " + (i + 1), 10.0, 0, 0, Integer.MAX_VALUE);
+            inv.addProduct(products[i]);
+            for (int p = 0; p < PARTS_PER_PRODUCT; p++) {
+                products[i].addAssociatedPart(inv.lookupPart(1 + random.nextInt(parts)), 1 + random.nextInt(3));
+            }
+        }
+        service = new BuildService(inv);
+    }
+
+    @Benchmark
+    public BuildService.BuildResult build() {
+        return service.build(products[ThreadLocalRandom.current().nextInt(products.length)], 1);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public BuildService.BuildResult buildContended() {
+        return build();
+    }
+}
@@ -0,0 +1,120 @@
+package Benchmark;
+
+import Model.InHouse;
+import Model.Inventory;
+import Model.Outsourced;
+import Model.Part;
+import Model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic catalog for the JMH benchmarks.
+ * Parts mix InHouse and Outsourced, names are a word from a small vocabulary and the id ("Gear 1042"),
+ * so name searches hit the same shapes of text as real data. Stock is always between min and max.
+ * The same seed always gives the same catalog, so runs are comparable between builds.
+ * @author Andrew Burk
+ */
+public class CatalogGenerator {
+    private static final String[] WORDS = { "Bolt", "Nut", "Washer", "Gear", "Spring", "Bearing", "Shaft", "Bracket",
+            "Valve", "Sensor", "Cable", "Panel", "Hinge", "Gasket", "Pulley", "Rivet" };
+    private static final String[] VENDORS = { "Acme", "Globex", "Initech", "Umbrella", "Hooli", "Vandelay" };
+    //One product per this many parts, each built from PARTS_PER_PRODUCT parts.
+    private static final int PARTS_PER_PRODUCT_RATIO = 10;
+    private static final int PARTS_PER_PRODUCT = 4;
+
+    private final Random random;
+    private final double outsourcedShare;
+
+    /**
+     * Constructor for CatalogGenerator - One part in four is outsourced.
+     * @param seed random seed
+     */
+    public CatalogGenerator(long seed) {
+        this(seed, 0.25);
+    }
+
+    /**
+     * Constructor for CatalogGenerator - Called when new CatalogGenerator object is created.
+     * @param seed random seed
+     * @param outsourcedShare share of the parts that are Outsourced, 0 to 1
+     */
+    public CatalogGenerator(long seed, double outsourcedShare) {
+        this.random = new Random(seed);
+        this.outsourcedShare = outsourcedShare;
+    }
+
+    /**
+     * @param id part id
+     * @return an InHouse or Outsourced part
+     */
+    public Part part(int id) {
+        String name = nameOf(id);
+        double price = (100 + random.nextInt(50_000)) / 100.0;
+        int min = random.nextInt(20);
+        int max = min + 10 + random.nextInt(500);
+        int stock = min + random.nextInt(max - min + 1);
+        if (random.nextDouble() < outsourcedShare) {
+            return new Outsourced(id, name, price, stock, min, max, VENDORS[random.nextInt(VENDORS.length)]);
+        }
+        return new InHouse(id, name, price, stock, min, max, 100 + random.nextInt(900));
+    }
+
+    /**
+     * @param firstId id of the first part, the rest follow in order
+     * @param count number of parts
+     * @return the parts
+     */
+    public List<Part> parts(int firstId, int count) {
+        List<Part> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            parts.add(part(firstId + i));
+        }
+        return parts;
+    }
+
+    /**
+     * @param id product id
+     * @param parts parts to pick the associated parts from
+     * @param partCount number of associated parts
+     * @return a product with the parts associated
+     */
+    public Product product(int id, List<Part> parts, int partCount) {
+        int min = random.nextInt(5);
+        int max = min + 10 + random.nextInt(200);
+        Product product = new Product(id, "Assembly " + id, (1_000 + random.nextInt(100_000)) / 100.0,
+                min + random.nextInt(max - min + 1), min, max);
+        for (int i = 0; i < partCount && !parts.isEmpty(); i++) {
+            product.addAssociatedPart(parts.get(random.nextInt(parts.size())), 1 + random.nextInt(4));
+        }
+        return product;
+    }
+
+    /**
+     * Builds an Inventory of parts with ids 1 to partCount and one product per ten parts.
+     * @param partCount number of parts
+     * @return the Inventory
+     */
+    public Inventory inventory(int partCount) {
+        Inventory inv = new Inventory();
+        List<Part> parts = parts(1, partCount);
+        inv.addParts(parts);
+        int productCount = Math.max(1, partCount / PARTS_PER_PRODUCT_RATIO);
+        List<Product> products = new ArrayList<>(productCount);
+        for (int id = 1; id <= productCount; id++) {
+            products.add(product(id, parts, PARTS_PER_PRODUCT));
+        }
+        inv.addProducts(products);
+        return inv;
+    }
+
+    /**
+     * @param id part id
+     * @return the name the generator gives the part
+     */
+    public static String nameOf(int id) {
+        return WORDS[id % WORDS.length] + " " + id;
+    }
+}
@@ -0,0 +1,92 @@
+package Benchmark;
+
+import Model.ConcurrentInventory;
+import Model.Part;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 4 writer threads and 4 reader threads on one ConcurrentInventory of 1K to 1M parts.
+ * The writers replace a random part or delete one from anywhere in the list and add it back,
+ * the readers look parts up by id and search them by name, so each shows what the other costs it.
+ * The UI views are updated on the writing thread, as if there were no JavaFX thread to hand them to.
+ * @author Andrew Burk
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class ConcurrentInventoryBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int size;
+
+    private ConcurrentInventory inv;
+    private CatalogGenerator generator;
+
+    /**
+     * Fills the Inventory.
+     */
+    @Setup
+    public void setUp() {
+        generator = new CatalogGenerator(42);
+        inv = new ConcurrentInventory(Runnable::run);
+        inv.addParts(generator.parts(1, size));
+    }
+
+    @Benchmark
+    @Group("replace")
+    @GroupThreads(4)
+    public boolean replacePart() {
+        int id = randomId();
+        return inv.replacePart(id, generator.part(id));
+    }
+
+    @Benchmark
+    @Group("replace")
+    @GroupThreads(4)
+    public Part replaceReaders() {
+        return inv.lookupPart(randomId());
+    }
+
+    @Benchmark
+    @Group("deleteAndAdd")
+    @GroupThreads(4)
+    public boolean deleteAndAddPart() {
+        Part part = inv.lookupPart(randomId());
+        //Another writer may hold the same part between its delete and add.
+        if (part == null || !inv.deletePart(part)) {
+            return false;
+        }
+        inv.addPart(part);
+        return true;
+    }
+
+    @Benchmark
+    @Group("deleteAndAdd")
+    @GroupThreads(4)
+    public List<Part> deleteAndAddReaders() {
+        return inv.lookupPart(CatalogGenerator.nameOf(randomId()), false, true);
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(size);
+    }
+}
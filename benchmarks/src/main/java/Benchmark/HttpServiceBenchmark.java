@@ -0,0 +1,113 @@
+package Benchmark;
+
+import Model.ConcurrentInventory;
+import Server.InventoryServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests to the headless service from 8 client threads over kept alive HTTP/1.1 connections,
+ * against an InventoryServer on a free local port over a catalog of 100K parts.
+ * putPartBatch sends 100 part updates as one /batch request, to compare with 100 single putPart calls.
+ * @author Andrew Burk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class HttpServiceBenchmark {
+    private static final int BATCH_LINES = 100;
+
+    @Param({ "100000" })
+    public int size;
+
+    private InventoryServer server;
+    private HttpClient client;
+    private String base;
+
+    /**
+     * Starts the server over the catalog.
+     * @throws IOException failed to start the server
+     */
+    @Setup
+    public void setUp() throws IOException {
+        ConcurrentInventory inv = new ConcurrentInventory(Runnable::run);
+        CatalogGenerator generator = new CatalogGenerator(42, 0);
+        inv.addParts(generator.parts(1, size));
+        server = new InventoryServer(inv, new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+        base = "http://127.0.0.1:" + server.getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public String getPart() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(base + "/parts/" + randomId())).GET().build());
+    }
+
+    @Benchmark
+    public String searchParts() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(base + "/parts?limit=20&search=Gear+" + randomId())).GET().build());
+    }
+
+    @Benchmark
+    public String putPart() throws IOException, InterruptedException {
+        int id = randomId();
+        return send(HttpRequest.newBuilder(URI.create(base + "/parts/" + id)).PUT(HttpRequest.BodyPublishers.ofString(partJson(id))).build());
+    }
+
+    @Benchmark
+    public String putPartBatch() throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder();
+        for (int line = 0; line < BATCH_LINES; line++) {
+            int id = randomId();
+            body.append("{\"method\":\"PUT\",\"path\":\"/parts/").append(id).append("\",\"body\":").append(partJson(id)).append("}\n");
+        }
+        return send(HttpRequest.newBuilder(URI.create(base + "/batch")).POST(HttpRequest.BodyPublishers.ofString(body.toString())).build());
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(size);
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode() + " " + response.body());
+        }
+        return response.body();
+    }
+
+    private static String partJson(int id) {
+        return "{\"name\":\"" + CatalogGenerator.nameOf(id) + "\",\"price\":1.99,\"stock\":" + (1 + ThreadLocalRandom.current().nextInt(100))
+                + ",\"min\":1,\"max\":100,\"machineId\":" + (id % 500) + "}";
+    }
+}
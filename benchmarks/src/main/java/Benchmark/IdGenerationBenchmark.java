@@ -0,0 +1,74 @@
+package Benchmark;
+
+import Model.Inventory;
+import Model.Part;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * New id generation for parts and products, as done by the Add Part and Add Product screens,
+ * for catalogs of 1K to 10M parts. maxIdScan is the scan over every part the screens used before
+ * the id sequences, kept as the baseline the sequences are measured against.
+ * @author Andrew Burk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class IdGenerationBenchmark {
+
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    public int size;
+
+    private Inventory inv;
+
+    /**
+     * Builds the catalog, which seeds the id sequences.
+     */
+    @Setup
+    public void setUp() {
+        inv = new CatalogGenerator(42).inventory(size);
+    }
+
+    @Benchmark
+    public int nextPartId() {
+        return inv.getPartIdSequence().next();
+    }
+
+    @Benchmark
+    public int nextProductId() {
+        return inv.getProductIdSequence().next();
+    }
+
+    /**
+     * Part ids taken by four screens or importers at once.
+     */
+    @Benchmark
+    @Threads(4)
+    public int nextPartIdContended() {
+        return inv.getPartIdSequence().next();
+    }
+
+    @Benchmark
+    public int maxIdScan() {
+        int maxNumber = 0;
+        for (Part part : inv.getAllParts()) {
+            maxNumber = Math.max(maxNumber, part.getId());
+        }
+        return ++maxNumber;
+    }
+}
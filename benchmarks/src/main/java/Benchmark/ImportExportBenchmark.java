@@ -0,0 +1,125 @@
+package Benchmark;
+
+import Model.Inventory;
+import Storage.InventoryExporter;
+import Storage.InventoryImporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk import into an empty Inventory and export of the imported Inventory, for files of 100K to 10M rows
+ * in both formats. The file holds 80% parts, 10% products and 10% associations, each product after its parts.
+ * Each call is one whole file, timed once per iteration.
+ * @author Andrew Burk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class ImportExportBenchmark {
+
+    @Param({ "100000", "1000000", "10000000" })
+    public int rows;
+
+    @Param({ "csv", "jsonl" })
+    public String format;
+
+    private Path input;
+    private Path output;
+    private Inventory imported;
+
+    /**
+     * Writes the file imported and imports it once for the export.
+     * @throws IOException failed to write or read the temporary files
+     */
+    @Setup
+    public void setUp() throws IOException {
+        input = Files.createTempFile("inventory-import", "." + format);
+        output = Files.createTempFile("inventory-export", "." + format);
+        generate(input, rows, format.equals("csv"));
+        imported = importFile();
+    }
+
+    /**
+     * Deletes the temporary files.
+     * @throws IOException failed to delete them
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(input);
+        Files.deleteIfExists(output);
+    }
+
+    /**
+     * Imports the file with one parsing thread per processor.
+     */
+    @Benchmark
+    public Inventory importFile() throws IOException {
+        Inventory inv = new Inventory();
+        new InventoryImporter(inv, Runtime.getRuntime().availableProcessors()).importFile(input);
+        return inv;
+    }
+
+    @Benchmark
+    public long exportFile() throws IOException {
+        return new InventoryExporter(imported).exportFile(output);
+    }
+
+    private static void generate(Path file, int rows, boolean csv) throws IOException {
+        int products = rows / 10;
+        int associations = rows / 10;
+        int parts = rows - products - associations;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int id = 1; id <= parts; id++) {
+                boolean outsourced = id % 2 == 0;
+                String extra = outsourced ? "Vendor " + (id % 50) : String.valueOf(id % 500);
+                if (csv) {
+                    out.write((outsourced ? "Outsourced," : "InHouse,") + id + "," + CatalogGenerator.nameOf(id) + ",1.99,10,1,100," + extra);
+                } else {
+                    out.write("{\"type\":\"" + (outsourced ? "Outsourced" : "InHouse") + "\",\"id\":" + id + ",\"name\":\""
+                            + CatalogGenerator.nameOf(id) + "\",\"price\":1.99,\"stock\":10,\"min\":1,\"max\":100,"
+                            + (outsourced ? "\"companyName\":\"" + extra + "\"}" : "\"machineId\":" + extra + "}"));
+                }
+                out.newLine();
+            }
+            for (int id = 1; id <= products; id++) {
+                if (csv) {
+                    out.write("Product," + id + ",Assembly " + id + ",19.99,5,1,50");
+                } else {
+                    out.write("{\"type\":\"Product\",\"id\":" + id + ",\"name\":\"Assembly " + id
+                            + "\",\"price\":19.99,\"stock\":5,\"min\":1,\"max\":50}");
+                }
+                out.newLine();
+            }
+            for (int i = 0; i < associations; i++) {
+                int productId = 1 + i % Math.max(products, 1);
+                int partId = 1 + (int) ((i * 7919L) % Math.max(parts, 1));
+                if (csv) {
+                    out.write("Association," + productId + "," + partId);
+                } else {
+                    out.write("{\"type\":\"Association\",\"productId\":" + productId + ",\"partId\":" + partId + "}");
+                }
+                out.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package Benchmark;
+
+import Model.Inventory;
+import Model.Part;
+import Model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups by id and by name on Inventory parts and products, for catalogs of 1K to 10M parts.
+ * Each call looks up the next of 1024 ids or names picked at random from the catalog.
+ * @author Andrew Burk
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class InventoryLookupBenchmark {
+    private static final int KEYS = 1024;
+
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    public int size;
+
+    private Inventory inv;
+    private final int[] partIds = new int[KEYS];
+    private final String[] partNames = new String[KEYS];
+    private final int[] productIds = new int[KEYS];
+    private final String[] productNames = new String[KEYS];
+    private int next;
+
+    /**
+     * Builds the catalog and picks the keys looked up.
+     */
+    @Setup
+    public void setUp() {
+        inv = new CatalogGenerator(42).inventory(size);
+        Random random = new Random(7);
+        int productCount = inv.getAllProducts().size();
+        for (int i = 0; i < KEYS; i++) {
+            partIds[i] = 1 + random.nextInt(size);
+            partNames[i] = CatalogGenerator.nameOf(partIds[i]);
+            productIds[i] = 1 + random.nextInt(productCount);
+            productNames[i] = "Assembly " + productIds[i];
+        }
+    }
+
+    private int nextKey() {
+        next = (next + 1) & (KEYS - 1);
+        return next;
+    }
+
+    @Benchmark
+    public Part lookupPartById() {
+        return inv.lookupPart(partIds[nextKey()]);
+    }
+
+    @Benchmark
+    public List<Part> lookupPartByName() {
+        return inv.lookupPart(partNames[nextKey()]);
+    }
+
+    @Benchmark
+    public Product lookupProductById() {
+        return inv.lookupProduct(productIds[nextKey()]);
+    }
+
+    @Benchmark
+    public List<Product> lookupProductByName() {
+        return inv.lookupProduct(productNames[nextKey()]);
+    }
+}
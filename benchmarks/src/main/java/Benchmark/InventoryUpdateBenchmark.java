@@ -0,0 +1,89 @@
+package Benchmark;
+
+import Model.Inventory;
+import Model.Part;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding, deleting and replacing parts in Inventories of 1K to 10M parts.
+ * Every call leaves the catalog the size it started at, so the size holds for the whole run.
+ * @author Andrew Burk
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class InventoryUpdateBenchmark {
+    private static final int KEYS = 1024;
+
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    public int size;
+
+    private Inventory inv;
+    private CatalogGenerator generator;
+    private final int[] partIds = new int[KEYS];
+    private Part extraPart;
+    private int next;
+
+    /**
+     * Builds the catalog, picks the parts replaced and makes the part added and deleted.
+     */
+    @Setup
+    public void setUp() {
+        generator = new CatalogGenerator(42);
+        inv = generator.inventory(size);
+        Random random = new Random(7);
+        for (int i = 0; i < KEYS; i++) {
+            partIds[i] = 1 + random.nextInt(size);
+        }
+        extraPart = generator.part(size + 1);
+    }
+
+    /**
+     * Adds a part to the end of the list and deletes it again.
+     */
+    @Benchmark
+    public boolean addThenDeletePart() {
+        inv.addPart(extraPart);
+        return inv.deletePart(extraPart);
+    }
+
+    /**
+     * Deletes a part from anywhere in the list and adds it back at the end.
+     */
+    @Benchmark
+    public Part deleteThenAddPart() {
+        Part part = inv.lookupPart(partIds[nextKey()]);
+        inv.deletePart(part);
+        inv.addPart(part);
+        return part;
+    }
+
+    /**
+     * Replaces a part with a new part of the same id, as the Modify Part screen does.
+     */
+    @Benchmark
+    public boolean updatePart() {
+        return inv.updatePart(generator.part(partIds[nextKey()]));
+    }
+
+    private int nextKey() {
+        next = (next + 1) & (KEYS - 1);
+        return next;
+    }
+}
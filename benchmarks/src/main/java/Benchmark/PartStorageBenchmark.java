@@ -0,0 +1,105 @@
+package Benchmark;
+
+import Model.CompactPartStorage;
+import Model.OffHeapPartStorage;
+import Model.Part;
+import Model.PartStorage;
+import javafx.collections.FXCollections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The part list of the Inventory, an ObservableList of Part objects, against a CompactPartStorage
+ * and an OffHeapPartStorage holding the same 1M or 10M parts, one in four outsourced to one of 50 vendors.
+ * fill times filling an empty list, run it with -prof gc for the bytes allocated per part.
+ * The scans read the stock of every part through get, and through stockAt for the storages.
+ * @author Andrew Burk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class PartStorageBenchmark {
+
+    @Param({ "1000000", "10000000" })
+    public int size;
+
+    @Param({ "objects", "compact", "offheap" })
+    public String storage;
+
+    private Part[] source;
+    private List<Part> parts;
+
+    /**
+     * Generates the parts once, the storages copy them in.
+     */
+    @Setup(Level.Trial)
+    public void generate() {
+        CatalogGenerator generator = new CatalogGenerator(42);
+        source = new Part[size];
+        for (int i = 0; i < size; i++) {
+            source[i] = generator.part(i + 1);
+        }
+        parts = fill();
+    }
+
+    @Benchmark
+    public List<Part> fill() {
+        List<Part> filled = newList();
+        for (Part part : source) {
+            filled.add(part);
+        }
+        return filled;
+    }
+
+    @Benchmark
+    public long scanStockThroughGet() {
+        long stock = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            stock += parts.get(i).getStock();
+        }
+        return stock;
+    }
+
+    /**
+     * Reads the stock column without a Part per row, the Part objects are read through get.
+     */
+    @Benchmark
+    public long scanStockColumn() {
+        if (!(parts instanceof PartStorage)) {
+            return scanStockThroughGet();
+        }
+        PartStorage columns = (PartStorage) parts;
+        long stock = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            stock += columns.stockAt(i);
+        }
+        return stock;
+    }
+
+    private List<Part> newList() {
+        switch (storage) {
+            case "compact":
+                return new CompactPartStorage(size);
+            case "offheap":
+                return new OffHeapPartStorage(size);
+            default:
+                return FXCollections.observableArrayList();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package Benchmark;
+
+import Model.Part;
+import Model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Associating and removing parts on a product that already holds 1K to 10M associated parts.
+ * @author Andrew Burk
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class ProductBenchmark {
+    private static final int KEYS = 1024;
+
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    public int size;
+
+    private Product product;
+    private List<Part> parts;
+    private final Part[] extraParts = new Part[KEYS];
+    private final int[] associated = new int[KEYS];
+    private int next;
+
+    /**
+     * Builds the product and the parts associated and removed.
+     */
+    @Setup
+    public void setUp() {
+        CatalogGenerator generator = new CatalogGenerator(42);
+        parts = generator.parts(1, size);
+        product = new Product(1, "Assembly 1", 99.99, 5, 0, 100);
+        product.addAssociatedParts(parts);
+        Random random = new Random(7);
+        for (int i = 0; i < KEYS; i++) {
+            extraParts[i] = generator.part(size + 1 + i);
+            associated[i] = random.nextInt(size);
+        }
+    }
+
+    /**
+     * Associates a part not on the product and removes it again.
+     */
+    @Benchmark
+    public boolean addThenDeleteAssociatedPart() {
+        Part part = extraParts[nextKey()];
+        product.addAssociatedPart(part);
+        return product.deleteAssociatedPart(part);
+    }
+
+    /**
+     * Removes a part from anywhere in the associated parts and associates it again.
+     */
+    @Benchmark
+    public boolean deleteThenAddAssociatedPart() {
+        Part part = parts.get(associated[nextKey()]);
+        boolean deleted = product.deleteAssociatedPart(part);
+        product.addAssociatedPart(part);
+        return deleted;
+    }
+
+    private int nextKey() {
+        next = (next + 1) & (KEYS - 1);
+        return next;
+    }
+}
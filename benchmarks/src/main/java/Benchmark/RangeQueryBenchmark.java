@@ -0,0 +1,111 @@
+package Benchmark;
+
+import Model.Inventory;
+import Model.Part;
+import Model.StockItem;
+import Model.StockQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price and stock range queries through Inventory.queryParts and queryProducts against filtering
+ * getAllParts and getAllProducts by hand, for whole results and for the first 10, on catalogs of 1K to 1M parts.
+ * updatePart times a replace while the indexes are built, so each replace also moves the part in them.
+ * @author Andrew Burk
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class RangeQueryBenchmark {
+    private static final int KEYS = 1024;
+    //Generated prices run from $1 to $500 and stock from 0 to about 530.
+    private static final StockQuery CHEAP_AND_LOW = new StockQuery().priceBelow(5).stockBelow(20);
+    private static final StockQuery WIDE = new StockQuery().priceAtLeast(1).stockAtLeast(1);
+    private static final StockQuery PRODUCTS_PRICED = new StockQuery().priceBetween(400, 410);
+
+    @Param({ "1000", "100000", "1000000" })
+    public int size;
+
+    private Inventory inv;
+    private CatalogGenerator generator;
+    private final int[] partIds = new int[KEYS];
+    private int next;
+
+    /**
+     * Builds the catalog and the indexes.
+     */
+    @Setup
+    public void setUp() {
+        generator = new CatalogGenerator(42);
+        inv = generator.inventory(size);
+        inv.queryParts(new StockQuery()).count();
+        inv.queryProducts(new StockQuery()).count();
+        Random random = new Random(7);
+        for (int i = 0; i < KEYS; i++) {
+            partIds[i] = 1 + random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public long cheapAndLowIndexed() {
+        return inv.queryParts(CHEAP_AND_LOW).count();
+    }
+
+    @Benchmark
+    public long cheapAndLowScan() {
+        return scan(inv.getAllParts(), CHEAP_AND_LOW, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public long wideFirst10Indexed() {
+        return inv.queryParts(WIDE).limit(10).count();
+    }
+
+    @Benchmark
+    public long wideFirst10Scan() {
+        return scan(inv.getAllParts(), WIDE, 10);
+    }
+
+    @Benchmark
+    public long productsPricedIndexed() {
+        return inv.queryProducts(PRODUCTS_PRICED).count();
+    }
+
+    @Benchmark
+    public long productsPricedScan() {
+        return scan(inv.getAllProducts(), PRODUCTS_PRICED, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public boolean updatePart() {
+        next = (next + 1) & (KEYS - 1);
+        Part part = generator.part(partIds[next]);
+        return inv.replacePart(part.getId(), part);
+    }
+
+    private static <T extends StockItem> long scan(List<T> items, StockQuery query, long limit) {
+        long found = 0;
+        for (T item : items) {
+            if (query.matches(item) && ++found == limit) {
+                break;
+            }
+        }
+        return found;
+    }
+}
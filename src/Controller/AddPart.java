@@ -4,15 +4,9 @@ import Model.InHouse;
 import Model.Inventory;
 import Model.Outsourced;
 import Model.Part;
-import javafx.collections.ObservableList;
+import Model.StockItemValidator;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.stage.Stage;
-import java.io.IOException;
 
 /**
  * Add Part Controller Class
@@ -20,7 +14,7 @@ import java.io.IOException;
  * @author Andrew Burk
  */
 
-public class AddPart {
+public class AddPart implements ScreenNavigator.Screen {
     public TextField partIdentifier;
     public TextField partMax;
     public TextField partMin;
@@ -32,6 +26,7 @@ public class AddPart {
     public RadioButton toggleInHouse;
     public RadioButton toggleOutsourced;
     private Inventory inv;
+    private ScreenNavigator navigator;
 
     /**
      * This function is called when the user clicks the "Cancel" button.
@@ -44,74 +39,67 @@ public class AddPart {
 
     /**
      * This function is called when the user clicks the "Save" button.
-     * This will check the text boxes for valid input from user and alert user if any errors are found.
+     * This will check the text boxes through the StockItemValidator and alert user of all errors found.
      * This will then save the part to the Inventory Object.
      * This will close the "Add Part" stage and reopen the "Main Screen" stage.
      * @param actionEvent Event object passed by JavaFX
      */
     public void buttonClickSave(ActionEvent actionEvent) {
-        //Error checking
-        String errorMessage = "";
-        if (partName.getText().trim().isEmpty()) {
-            errorMessage = "Must include Part Name";
-        } else if (!partInv.getText().trim().matches("\\d+")){
-            errorMessage = "Stock must be greater than 0";
-        } else if (!partCost.getText().trim().matches("\\d+(\\.\\d+)?")){
-            errorMessage = "Must Enter a Cost";
-        } else if (!partMax.getText().trim().matches("\\d+")) {
-            errorMessage = "Maximum must be greater than 0";
-        } else if (!partMin.getText().trim().matches("\\d+")){
-            errorMessage = "Minimum must be greater than 0";
-        } else if (Integer.parseInt(partMax.getText().trim()) < Integer.parseInt(partMin.getText().trim())) {
-            errorMessage = "Maximum must be greater than Minimum";
-        } else if (Integer.parseInt(partInv.getText().trim()) > Integer.parseInt(partMax.getText().trim())) {
-            errorMessage = "Inventory Level Must Be Less Than Max.";
-        } else if (Integer.parseInt(partInv.getText().trim()) < Integer.parseInt(partMin.getText().trim())) {
-            errorMessage = "Inventory Level Must Be More Than Min.";
-        } else if (toggleOutsourced.isSelected() && partIdentifier.getText().trim().isEmpty()) {
-            errorMessage = "Must Enter a Company Name";
-        } else if (toggleInHouse.isSelected() && !partIdentifier.getText().trim().matches("\\d+")) {
-            errorMessage = "Invalid Machine Id";
-        }
+        //Error checking, every field parsed once and every error reported together.
+        StockItemValidator.Validation validation = StockItemValidator.validatePart(partName.getText(), partInv.getText(),
+                partCost.getText(), partMin.getText(), partMax.getText(), partIdentifier.getText(), toggleInHouse.isSelected());
 
-        if (errorMessage.contentEquals("")) {
+        if (validation.isValid()) {
             //No Errors was found.
             if (toggleInHouse.isSelected()) {
-                Part newPart = new InHouse(generatePartId(),partName.getText().trim(),Double.parseDouble(partCost.getText().trim()),Integer.parseInt(partInv.getText().trim()),Integer.parseInt(partMin.getText().trim()),Integer.parseInt(partMax.getText().trim()),Integer.parseInt(partIdentifier.getText().trim()));
+                Part newPart = new InHouse(generatePartId(),validation.getName(),validation.getPrice(),validation.getStock(),validation.getMin(),validation.getMax(),validation.getMachineId());
                 inv.addPart(newPart);
             } else {
-                Part newPart = new Outsourced(generatePartId(),partName.getText().trim(),Double.parseDouble(partCost.getText().trim()),Integer.parseInt(partInv.getText().trim()),Integer.parseInt(partMin.getText().trim()),Integer.parseInt(partMax.getText().trim()),partIdentifier.getText().trim());
+                Part newPart = new Outsourced(generatePartId(),validation.getName(),validation.getPrice(),validation.getStock(),validation.getMin(),validation.getMax(),validation.getCompanyName());
                 inv.addPart(newPart);
             }
             openMainScreen(actionEvent);
         } else {
             //Error was found - Display Error Dialog Box
-            Alert alert = new Alert(Alert.AlertType.ERROR,errorMessage);
+            Alert alert = new Alert(Alert.AlertType.ERROR,validation.getMessage());
             alert.showAndWait();
         }
     }
 
     /**
      * This will close the "Add Part" stage and reopen the "Main Screen" stage.
-     * This will also pass the Inventory inv object back to Main Controller.
+     * The main screen is kept by the navigator and shows the Inventory changes already.
      * @param actionEvent Event object passed by JavaFX
      */
     public void openMainScreen(ActionEvent actionEvent) {
-        try {
-            FXMLLoader loader= new FXMLLoader(getClass().getResource("/Views/Main.fxml"));
-            Parent root = loader.load();
-
-            MainController mainControllerObject = loader.getController();
-            mainControllerObject.passInInventory(inv);
+        navigator.show(ScreenNavigator.View.MAIN);
+    }
 
-            Scene scene = new Scene(root);
-            Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-            stage.setScene(scene);
-            stage.setResizable(false);
-            stage.show();
-        } catch (IOException e) {
+    /**
+     * Called by the ScreenNavigator once, when the "Add Part" stage is first loaded.
+     * @param navigator Navigator used to go back to the "Main Screen" stage.
+     * @param inventoryObject Main Inventory Object.
+     */
+    @Override
+    public void attach(ScreenNavigator navigator, Inventory inventoryObject) {
+        this.navigator = navigator;
+        passInInventory(inventoryObject);
+    }
 
-        }
+    /**
+     * Called by the ScreenNavigator each time the "Add Part" stage is opened again.
+     * Clears the text boxes and selects "InHouse," as on a new stage.
+     */
+    @Override
+    public void reset() {
+        partName.clear();
+        partInv.clear();
+        partCost.clear();
+        partMax.clear();
+        partMin.clear();
+        partIdentifier.clear();
+        toggleInHouse.setSelected(true);
+        partIdentifierLabel.setText("Machine Id");
     }
 
     /**
@@ -142,7 +130,7 @@ public class AddPart {
 
     /**
      * Generates a new part id for new parts.
-     * Finds the existing maximum part id then adds 1.
+     * Takes the next id from the Inventory part id sequence, which is kept past the existing maximum part id.
      *
      * *******************************
      *
@@ -159,15 +147,7 @@ public class AddPart {
      * @return New part id (int)
      */
     public int generatePartId(){
-        ObservableList<Part> allParts = inv.getAllParts();
-        int maxNumber = 0;
-        for (Part myPart : allParts){
-            if (maxNumber < myPart.getId()){
-                maxNumber = myPart.getId();
-            }
-        }
-
-        //Corrected maxNumber to increment before return.
-        return ++maxNumber; //Increments before returns
+        //Sequence increments before it returns, same as the corrected ++maxNumber.
+        return inv.getPartIdSequence().next();
     }
 }
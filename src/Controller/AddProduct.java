@@ -1,19 +1,11 @@
 package Controller;
 
 import Model.*;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyEvent;
-import javafx.stage.Stage;
-import java.io.IOException;
 import java.net.URL;
 import java.util.Optional;
 import java.util.ResourceBundle;
@@ -24,7 +16,7 @@ import java.util.ResourceBundle;
  * @author Andrew Burk
  */
 
-public class AddProduct implements Initializable {
+public class AddProduct implements Initializable, ScreenNavigator.Screen {
     public TextField searchPart;
     public TableColumn partTablePartID;
     public TableColumn partTablePartName;
@@ -42,8 +34,9 @@ public class AddProduct implements Initializable {
     public TextField productMax;
     public TextField productMin;
     private Inventory inv;
-    private ObservableList<Part> partInventory = FXCollections.observableArrayList();
-    private ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+    private ScreenNavigator navigator;
+    private InventoryView<Part> partsView;
+    private AssociatedPartList associatedParts = new AssociatedPartList();
 
     /**
      * Overrides JavaFX initialize class.
@@ -53,8 +46,7 @@ public class AddProduct implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        //Links FXML Parts table to Part Class
-        listOfParts.setItems(partInventory);
+        //Links FXML Parts table to Part Class, its items are set once the Inventory is passed in
         partTablePartID.setCellValueFactory(new PropertyValueFactory<>("id"));
         partTablePartName.setCellValueFactory(new PropertyValueFactory<>("name"));
         partTableInvLevel.setCellValueFactory(new PropertyValueFactory<>("stock"));
@@ -70,26 +62,43 @@ public class AddProduct implements Initializable {
 
     /**
      * This will close the "Add Product" stage and reopen the "Main Screen" stage.
-     * This will also pass the Inventory inv object back to Main Controller.
+     * The main screen is kept by the navigator and shows the Inventory changes already.
      * @param actionEvent Event object passed by JavaFX
      */
     public void openMainScreen(ActionEvent actionEvent) {
-        try {
-            FXMLLoader loader= new FXMLLoader(getClass().getResource("/Views/Main.fxml"));
-            Parent root = loader.load();
-
-            MainController mainControllerObject = loader.getController();
-            mainControllerObject.passInInventory(inv);
-            Scene scene = new Scene(root);
-            Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-            stage.setScene(scene);
-            stage.setResizable(false);
-            stage.show();
-        } catch (IOException e) {
+        navigator.show(ScreenNavigator.View.MAIN);
+    }
 
-        }
+
+    /**
+     * Called by the ScreenNavigator once, when the "Add Product" stage is first loaded.
+     * @param navigator Navigator used to go back to the "Main Screen" stage.
+     * @param inventoryObject Main Inventory Object.
+     */
+    @Override
+    public void attach(ScreenNavigator navigator, Inventory inventoryObject) {
+        this.navigator = navigator;
+        passInInventory(inventoryObject);
     }
 
+    /**
+     * Called by the ScreenNavigator each time the "Add Product" stage is opened again.
+     * Clears the text boxes, the search and the associated parts, then fills the parts table again.
+     */
+    @Override
+    public void reset() {
+        productName.clear();
+        productInv.clear();
+        productCost.clear();
+        productMax.clear();
+        productMin.clear();
+        SearchExecutor.getInstance().cancel(searchPart);
+        searchPart.clear();
+        associatedParts.clear();
+        listOfParts.getSelectionModel().clearSelection();
+        listOfAssociatedParts.getSelectionModel().clearSelection();
+        populatePartsTable();
+    }
 
     /**
      * This handles the passing the Inventory inv object from the Main Controller.
@@ -102,47 +111,50 @@ public class AddProduct implements Initializable {
     }
 
     /**
-     * Populated the parts inventory observable list which is linked to parts table view.
-     * This will in turn populate the parts table.
+     * Shows the Inventory part list in the parts table, through an InventoryView like the main screen,
+     * so only the rows on screen are read. The associated parts are hidden in the view instead of copying the rest.
      */
     private void populatePartsTable() {
         //Fills in the table with Inventory Data
-        partInventory.setAll(inv.getAllParts());
-        partInventory = removeAssociatedPartsFromList(partInventory);
+        if (partsView == null) {
+            partsView = InventoryView.ofParts(inv);
+            partsView.setHidden(associatedParts);
+            listOfParts.setSortPolicy(table -> MainController.sortView(partsView, listOfParts, partTablePartID, partTablePartName, partTableInvLevel, partTableCost));
+            listOfParts.setItems(partsView);
+        }
+        partsView.setFilter("");
     }
 
     /**
      * Search Box Typing Event: User types in SearchBox Parts (Auto updates as user types)
+     * The lookup is debounced and runs in the background through the shared SearchExecutor.
      * @param keyEvent keyEvent object passed from JavaFX.
      */
     public void searchPart(KeyEvent keyEvent) {
-        if(searchPart.getText().trim().isEmpty()){
+        String searchText = searchPart.getText().trim();
+        if(searchText.isEmpty()){
             //Empty load default list
+            SearchExecutor.getInstance().cancel(searchPart);
             populatePartsTable();
         } else {
-            //Is text Int or String?
-            String searchText = searchPart.getText().trim();
-            try {
-                int num=Integer.parseInt(searchText);
-                partInventory.setAll(inv.lookupPart(num));
-            } catch(NumberFormatException ex) {
-                partInventory.setAll(inv.lookupPart(searchText));
-            }
-            partInventory = removeAssociatedPartsFromList(partInventory);
+            findParts(searchText);
         }
     }
 
     /**
-     * Filters part list to remove any parts that is associated with product.
-     * @param list Part list to be filtered.
-     * @returns Modified part list without associated parts already bind to product.
-    */
-
-    private ObservableList<Part> removeAssociatedPartsFromList(ObservableList<Part> list){
-        for (Part iterationPart : associatedParts){
-            list.remove(iterationPart);
-        }
-        return list;
+     * Runs the part lookup off the JavaFX Application Thread, through the Inventory indexes.
+     * The matching parts are read from the Inventory back on the FX thread.
+     * @param searchText Part id or part of the name.
+     */
+    private void findParts(String searchText) {
+        SearchExecutor.getInstance().submit(searchPart, () -> partsView.search(searchText), found -> {
+            if (found.isCurrent()) {
+                partsView.show(searchText, found.getSlots());
+            } else {
+                //The parts changed during the search, the slots no longer match the list.
+                findParts(searchText);
+            }
+        });
     }
 
     /**
@@ -159,8 +171,8 @@ public class AddProduct implements Initializable {
             alert.showAndWait();
             return;
         }
-        partInventory.remove(selectedPart);
         associatedParts.add(selectedPart);
+        partsView.refresh();
 
     }
 
@@ -182,59 +194,36 @@ public class AddProduct implements Initializable {
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "Are you sure you would like to remove this part?");
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            partInventory.add(selectedPart);
             associatedParts.remove(selectedPart);
+            partsView.refresh();
         }
     }
 
     /**
      * Used to generate the New Product ID.
-     * Finds the maximum then adds 1.
+     * Takes the next id from the Inventory product id sequence.
      * @return int
      */
     public int generateProductId(){
-        ObservableList<Product> allProducts = inv.getAllProducts();
-        int maxNumber = 0;
-        for (Product myProduct : allProducts){
-            if (maxNumber < myProduct.getId()){
-                maxNumber = myProduct.getId();
-            }
-        }
-        return ++maxNumber; //Increments before returns
+        return inv.getProductIdSequence().next();
     }
 
     /**
      * This function is called when the user clicks the "Save" button.
-     * This will check the text boxes for valid input from user and alert user if any errors are found.
+     * This will check the text boxes through the StockItemValidator and alert user of all errors found.
      * This will then save the product to the Inventory Object, then adds all associated parts to object.
      * This will close the "Add Product" stage and reopen the "Main Screen" stage.
      * @param actionEvent Event object passed by JavaFX
      */
     public void buttonClickSave(ActionEvent actionEvent) {
-        //Error checking
-        String errorMessage = "";
-        if (productName.getText().trim().isEmpty()) {
-            errorMessage = "Must include Part Name";
-        } else if (!productInv.getText().trim().matches("\\d+")){
-            errorMessage = "Stock must be greater than 0";
-        } else if (!productCost.getText().trim().matches("\\d+(\\.\\d+)?")){
-            errorMessage = "Must Enter a Cost";
-        } else if (!productMax.getText().trim().matches("\\d+")) {
-            errorMessage = "Maximum must be greater than 0";
-        } else if (!productMin.getText().trim().matches("\\d+")){
-            errorMessage = "Minimum must be greater than 0";
-        } else if (Integer.parseInt(productMax.getText().trim()) < Integer.parseInt(productMin.getText().trim())) {
-            errorMessage = "Maximum must be greater than Minimum";
-        } else if (Integer.parseInt(productInv.getText().trim()) > Integer.parseInt(productMax.getText().trim())) {
-            errorMessage = "Inventory Level Must Be Less Than Max.";
-        } else if (Integer.parseInt(productInv.getText().trim()) < Integer.parseInt(productMin.getText().trim())) {
-            errorMessage = "Inventory Level Must Be More Than Min.";
-        }
+        //Error checking, every field parsed once and every error reported together.
+        StockItemValidator.Validation validation = StockItemValidator.validateProduct(productName.getText(), productInv.getText(),
+                productCost.getText(), productMin.getText(), productMax.getText());
 
-        if (errorMessage.contentEquals("")) {
+        if (validation.isValid()) {
             //No Errors was found.
 
-            Product newProduct = new Product(generateProductId(),productName.getText().trim(),Double.parseDouble(productCost.getText().trim()),Integer.parseInt(productInv.getText().trim()),Integer.parseInt(productMin.getText().trim()),Integer.parseInt(productMax.getText().trim()));
+            Product newProduct = new Product(generateProductId(),validation.getName(),validation.getPrice(),validation.getStock(),validation.getMin(),validation.getMax());
             inv.addProduct(newProduct);
             for (Part myPart : associatedParts) {
                 newProduct.addAssociatedPart(myPart);
@@ -242,7 +231,7 @@ public class AddProduct implements Initializable {
             openMainScreen(actionEvent);
         } else {
             //Error was found - Display Error Dialog Box
-            Alert alert = new Alert(Alert.AlertType.ERROR,errorMessage);
+            Alert alert = new Alert(Alert.AlertType.ERROR,validation.getMessage());
             alert.showAndWait();
         }
     }
@@ -2,23 +2,16 @@ package Controller;
 
 import Model.*;
 import javafx.application.Platform;
-import javafx.collections.FXCollections;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.InputMethodEvent;
 import javafx.scene.input.KeyEvent;
-import javafx.stage.Stage;
 
-import javax.swing.*;
-import java.awt.event.MouseEvent;
-import java.io.IOException;
 import java.net.URL;
 import java.util.Optional;
 import java.util.ResourceBundle;
@@ -29,23 +22,27 @@ import java.util.ResourceBundle;
  * @author Andrew Burk
  */
 
-public class MainController implements Initializable {
+public class MainController implements Initializable, ScreenNavigator.Screen {
     public TextField searchPart;
     public TextField searchProduct;
-    public TableColumn productTableProductID;
-    public TableColumn productTableProductName;
-    public TableColumn productTableInvLevel;
-    public TableColumn productTableCost;
-    public TableView listOfProducts;
+    public TableColumn<Product, Integer> productTableProductID;
+    public TableColumn<Product, String> productTableProductName;
+    public TableColumn<Product, Integer> productTableInvLevel;
+    public TableColumn<Product, Double> productTableCost;
+    public TableColumn<Product, Integer> productTableCanBuild;
+    public TableView<Product> listOfProducts;
     private Inventory inv;
-    public TableView listOfParts;
-    public TableColumn partTablePartID;
-    public TableColumn partTablePartName;
-    public TableColumn partTableInvLevel;
-    public TableColumn partTableCost;
+    private ScreenNavigator navigator;
+    public TableView<Part> listOfParts;
+    public TableColumn<Part, Integer> partTablePartID;
+    public TableColumn<Part, String> partTablePartName;
+    public TableColumn<Part, Integer> partTableInvLevel;
+    public TableColumn<Part, Double> partTableCost;
+    public Label belowMinLabel;
 
-    private ObservableList<Part> partInventory = FXCollections.observableArrayList();
-    private ObservableList<Product> productInventory = FXCollections.observableArrayList();
+    //Windowed views of the Inventory lists, searches and column sorts run through the Inventory indexes.
+    private InventoryView<Part> partsView;
+    private InventoryView<Product> productsView;
 
     /**
      * Overrides JavaFX initialize class.
@@ -56,18 +53,77 @@ public class MainController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         //Links FXML Parts table to Part Class
-        listOfParts.setItems(partInventory);
         partTablePartID.setCellValueFactory(new PropertyValueFactory<>("id"));
         partTablePartName.setCellValueFactory(new PropertyValueFactory<>("name"));
         partTableInvLevel.setCellValueFactory(new PropertyValueFactory<>("stock"));
         partTableCost.setCellValueFactory(new PropertyValueFactory<>("price"));
 
         //Links FXML Product table to Product Class
-        listOfProducts.setItems(productInventory);
         productTableProductID.setCellValueFactory(new PropertyValueFactory<>("id"));
         productTableProductName.setCellValueFactory(new PropertyValueFactory<>("name"));
         productTableInvLevel.setCellValueFactory(new PropertyValueFactory<>("stock"));
         productTableCost.setCellValueFactory(new PropertyValueFactory<>("price"));
+        //Buildable units come from the Inventory's calculator, which keeps them current as stock changes.
+        productTableCanBuild.setSortable(false);
+        productTableCanBuild.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(buildableUnits(cell.getValue())));
+        productTableCanBuild.setCellFactory(column -> new TableCell<Product, Integer>() {
+            @Override
+            protected void updateItem(Integer units, boolean empty) {
+                super.updateItem(units, empty);
+                setText(empty || units == null ? null : units.toString());
+                setTooltip(empty || units == null ? null : bottleneckTooltip(getTableRow().getItem()));
+            }
+        });
+    }
+
+    /**
+     * @return units of the product that can be built, or null if it has no parts
+     */
+    private Integer buildableUnits(Product product) {
+        if (inv == null) {
+            return null;
+        }
+        int units = inv.getBuildability().getBuildableUnits(product.getId());
+        return units == BuildabilityCalculator.NO_PARTS ? null : units;
+    }
+
+    private Tooltip bottleneckTooltip(Product product) {
+        BuildabilityCalculator.Buildability buildability = product == null ? null : inv.getBuildability().getBuildability(product.getId());
+        if (buildability == null || buildability.getBottleneckPartId() == BuildabilityCalculator.NO_PARTS) {
+            return null;
+        }
+        Part part = inv.lookupPart(buildability.getBottleneckPartId());
+        return new Tooltip("Limited by part " + buildability.getBottleneckPartId() + (part == null ? " (deleted)" : " " + part.getName()));
+    }
+
+    /**
+     * Called by the ScreenNavigator once, when the "Main Screen" stage is first loaded.
+     * @param navigator Navigator used to open the other stages.
+     * @param inventoryObject Main Inventory Object.
+     */
+    @Override
+    public void attach(ScreenNavigator navigator, Inventory inventoryObject) {
+        this.navigator = navigator;
+        passInInventory(inventoryObject);
+    }
+
+    /**
+     * Called by the ScreenNavigator each time the "Main Screen" stage is opened again.
+     * The tables already follow the Inventory, this clears the searches and selections
+     * and redraws the rows so the buildable units are read again. Column sorts are kept.
+     */
+    @Override
+    public void reset() {
+        SearchExecutor.getInstance().cancel(searchPart);
+        SearchExecutor.getInstance().cancel(searchProduct);
+        searchPart.clear();
+        searchProduct.clear();
+        populatePartsTable();
+        populateProductTable();
+        listOfParts.getSelectionModel().clearSelection();
+        listOfProducts.getSelectionModel().clearSelection();
+        listOfParts.refresh();
+        listOfProducts.refresh();
     }
 
     /**
@@ -79,24 +135,72 @@ public class MainController implements Initializable {
         inv = inventoryObject;
         populatePartsTable();
         populateProductTable();
+        showBelowMin();
     }
 
     /**
-     * Populated the parts inventory observable list which is linked to parts table view.
-     * This will in turn populate the parts table.
+     * Binds the low stock label to the Inventory's reorder monitor, it follows stock changes without rescanning.
+     */
+    private void showBelowMin() {
+        ObservableList<ReorderMonitor.StockAlert> belowMin = inv.getReorderMonitor().getBelowMinView();
+        belowMinLabel.textProperty().bind(Bindings.createStringBinding(() -> {
+            if (belowMin.isEmpty()) {
+                return "All stock is at or above minimum.";
+            }
+            return belowMin.size() + " item(s) below minimum, most urgent: " + belowMin.get(0);
+        }, belowMin));
+    }
+
+    /**
+     * Shows the Inventory part list in the parts table.
+     * The table reads the list through an InventoryView instead of a copy, so only the rows on screen are read
+     * and Inventory changes (including batches, see Inventory.batch) reach the table as they happen.
+     * Column sorts are handed to the view, which sorts through the Inventory instead of the table sorting the items.
      */
     private void populatePartsTable() {
         //Fills in the table with Inventory Data
-        partInventory.setAll(inv.getAllParts());
+        if (partsView == null) {
+            partsView = InventoryView.ofParts(inv);
+            listOfParts.setSortPolicy(table -> sortView(partsView, listOfParts, partTablePartID, partTablePartName, partTableInvLevel, partTableCost));
+        }
+        partsView.setFilter("");
+        listOfParts.setItems(partsView);
     }
 
     /**
-     * Populated the product inventory observable list which is linked to product table view.
-     * This will in turn populate the product table.
+     * Shows the Inventory product list in the product table, see populatePartsTable.
      */
     private void populateProductTable() {
         //Fills in the table with Inventory Data
-        productInventory.setAll(inv.getAllProducts());
+        if (productsView == null) {
+            productsView = InventoryView.ofProducts(inv);
+            listOfProducts.setSortPolicy(table -> sortView(productsView, listOfProducts, productTableProductID, productTableProductName, productTableInvLevel, productTableCost));
+        }
+        productsView.setFilter("");
+        listOfProducts.setItems(productsView);
+    }
+
+    /**
+     * Sort policy of the tables over an InventoryView, also used by the product screens' parts tables.
+     * Sorts the view by the first column in the table's sort order.
+     * @return false for a column the Inventory cannot sort by, the table then drops the sort
+     */
+    static <E extends StockItem> boolean sortView(InventoryView<E> view, TableView<E> table, TableColumn<E, ?> id,
+                                                          TableColumn<E, ?> name, TableColumn<E, ?> stock, TableColumn<E, ?> price) {
+        if (table.getSortOrder().isEmpty()) {
+            view.setSort(null, false);
+            return true;
+        }
+        TableColumn<E, ?> column = table.getSortOrder().get(0);
+        InventoryColumn sortBy = column == id ? InventoryColumn.ID
+                : column == name ? InventoryColumn.NAME
+                : column == stock ? InventoryColumn.STOCK
+                : column == price ? InventoryColumn.PRICE : null;
+        if (sortBy == null) {
+            return false;
+        }
+        view.setSort(sortBy, column.getSortType() == TableColumn.SortType.DESCENDING);
+        return true;
     }
 
     /**
@@ -108,24 +212,11 @@ public class MainController implements Initializable {
 
     /**
      * Main Screen Event: User clicks Add Part Button.
-     * Closes main stage and opens the Add Part stage.
-     * Then passes the Inventory object into the new stage.
+     * Closes main stage and opens the Add Part stage, kept by the navigator once loaded.
      * @param actionEvent actionEvent passed in from JavaFX.
      */
     public void addPart(ActionEvent actionEvent) {
-        try {
-            FXMLLoader loader= new FXMLLoader(getClass().getResource("/Views/AddPart.fxml"));
-            Parent root = loader.load();
-            AddPart AddPartObject = loader.getController();
-            AddPartObject.passInInventory(inv);
-            Scene scene = new Scene(root);
-            Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-            stage.setScene(scene);
-            stage.setResizable(false);
-            stage.show();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        navigator.show(ScreenNavigator.View.ADD_PART);
     }
 
     /**
@@ -135,7 +226,7 @@ public class MainController implements Initializable {
      * @param actionEvent actionEvent passed in from JavaFX.
      */
     public void modifyPart(ActionEvent actionEvent) {
-        Part selectedPart = (Part)listOfParts.getSelectionModel().getSelectedItem();
+        Part selectedPart = listOfParts.getSelectionModel().getSelectedItem();
         if (selectedPart == null){
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Error");
@@ -144,41 +235,41 @@ public class MainController implements Initializable {
             return;
         }
 
-        try {
-            FXMLLoader loader= new FXMLLoader(getClass().getResource("/Views/ModifyPart.fxml"));
-            Parent root = loader.load();
-            ModifyPart ModifyPartObject = loader.getController();
-            ModifyPartObject.passInInventory(inv,selectedPart);
-            Scene scene = new Scene(root);
-            Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-            stage.setScene(scene);
-            stage.setResizable(false);
-            stage.show();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        ModifyPart ModifyPartObject = navigator.show(ScreenNavigator.View.MODIFY_PART);
+        ModifyPartObject.passInInventory(inv,selectedPart);
     }
 
     /**
      * Main Screen Event: User clicks Delete Part Button.
      * Confirms delete of product.
      * Removes object from Inventory Product List.
+     * Refuses parts still associated with a product, found through the where-used index.
      * @param actionEvent actionEvent passed in from JavaFX.
      */
     public void deletePart(ActionEvent actionEvent) {
-        Part selectedPart = (Part)listOfParts.getSelectionModel().getSelectedItem();
+        Part selectedPart = listOfParts.getSelectionModel().getSelectedItem();
         if (selectedPart == null){
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Error");
             alert.setContentText("You must select a record to delete.");
             alert.showAndWait();
             return;
+        } else if (inv.isPartInUse(selectedPart.getId())){
+            //Where-used index lookup, no scan of the products.
+            StringBuilder products = new StringBuilder();
+            for (Product product : inv.lookupProductsUsingPart(selectedPart.getId())) {
+                products.append("\n").append(product.getId()).append(" - ").append(product.getName());
+            }
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setContentText("You cannot delete Parts that are associated with a product. Used by:" + products);
+            alert.showAndWait();
+            return;
         }
 
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "Are you sure you would like to delete this record?");
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            partInventory.remove(selectedPart);
             inv.deletePart(selectedPart);
         }
     }
@@ -190,7 +281,7 @@ public class MainController implements Initializable {
      * @param actionEvent actionEvent passed in from JavaFX.
      */
     public void deleteProduct(ActionEvent actionEvent) {
-        Product selectedProduct = (Product) listOfProducts.getSelectionModel().getSelectedItem();
+        Product selectedProduct = listOfProducts.getSelectionModel().getSelectedItem();
         if (selectedProduct == null){
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Error");
@@ -208,31 +299,17 @@ public class MainController implements Initializable {
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "Are you sure you would like to delete this record?");
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            productInventory.remove(selectedProduct);
             inv.deleteProduct(selectedProduct);
         }
     }
 
     /**
      * Main Screen Event: User clicks Add Product Button.
-     * Closes main stage and opens the add product stage.
-     * Then passes the Inventory object into the new stage.
+     * Closes main stage and opens the add product stage, kept by the navigator once loaded.
      * @param actionEvent actionEvent passed in from JavaFX.
      */
     public void addProduct(ActionEvent actionEvent) {
-        try {
-            FXMLLoader loader= new FXMLLoader(getClass().getResource("/Views/AddProduct.fxml"));
-            Parent root = loader.load();
-            AddProduct AddProductObject = loader.getController();
-            AddProductObject.passInInventory(inv);
-            Scene scene = new Scene(root);
-            Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-            stage.setScene(scene);
-            stage.setResizable(false);
-            stage.show();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        navigator.show(ScreenNavigator.View.ADD_PRODUCT);
     }
 
     /**
@@ -242,7 +319,7 @@ public class MainController implements Initializable {
      * @param actionEvent actionEvent passed in from JavaFX.
      */
     public void modifyProduct(ActionEvent actionEvent) {
-            Product selectedProduct = (Product) listOfProducts.getSelectionModel().getSelectedItem();
+            Product selectedProduct = listOfProducts.getSelectionModel().getSelectedItem();
             if (selectedProduct == null){
                 Alert alert = new Alert(Alert.AlertType.ERROR);
                 alert.setTitle("Error");
@@ -251,59 +328,69 @@ public class MainController implements Initializable {
                 return;
             }
 
-            try {
-                FXMLLoader loader= new FXMLLoader(getClass().getResource("/Views/ModifyProduct.fxml"));
-                Parent root = loader.load();
-                ModifyProduct ModifyProductObject = loader.getController();
-                ModifyProductObject.passInInventory(inv,selectedProduct);
-                Scene scene = new Scene(root);
-                Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-                stage.setScene(scene);
-                stage.setResizable(false);
-                stage.show();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            ModifyProduct ModifyProductObject = navigator.show(ScreenNavigator.View.MODIFY_PRODUCT);
+            ModifyProductObject.passInInventory(inv,selectedProduct);
     }
 
     /**
      * Search Box Typing Event: User types in SearchBox Parts (Auto updates as user types)
+     * The lookup is debounced and runs in the background through the shared SearchExecutor.
      * @param keyEvent keyEvent object passed from JavaFX.
      */
     public void searchPart(KeyEvent keyEvent) {
-        if(searchPart.getText().trim().isEmpty()){
-           //Empty load default list
+        String searchText = searchPart.getText().trim();
+        if(searchText.isEmpty()){
+            //Empty load default list
+            SearchExecutor.getInstance().cancel(searchPart);
             populatePartsTable();
         } else {
-            //Is text Int or String?
-            String searchText = searchPart.getText().trim();
-            try {
-                int num=Integer.parseInt(searchText);
-                partInventory.setAll(inv.lookupPart(num));
-            } catch(NumberFormatException ex) {
-                partInventory.setAll(inv.lookupPart(searchText));
-            }
+            searchParts(searchText);
         }
      }
 
+    /**
+     * Searches the parts through the Inventory indexes in the background, the table is only changed on the FX thread.
+     * @param searchText Part id or part of the name.
+     */
+    private void searchParts(String searchText) {
+        SearchExecutor.getInstance().submit(searchPart, () -> partsView.search(searchText), found -> {
+            if (found.isCurrent()) {
+                partsView.show(searchText, found.getSlots());
+            } else {
+                //The parts changed during the search, the slots no longer match the list.
+                searchParts(searchText);
+            }
+        });
+    }
+
     /**
      * Main Screen Event: User types in SearchBox Products (Auto updates as user types)
+     * The lookup is debounced and runs in the background through the shared SearchExecutor.
      * @param keyEvent keyEvent object passed in from JavaFX
      */
     public void searchProduct(KeyEvent keyEvent) {
-        if(searchProduct.getText().trim().isEmpty()){
+        String searchText = searchProduct.getText().trim();
+        if(searchText.isEmpty()){
             //Empty load default list
+            SearchExecutor.getInstance().cancel(searchProduct);
             populateProductTable();
         } else {
-            //Is text Int or String?
-            String searchText = searchProduct.getText().trim();
-            try {
-                int num=Integer.parseInt(searchText);
-                productInventory.setAll(inv.lookupProduct(num));
-            } catch(NumberFormatException ex) {
-                productInventory.setAll(inv.lookupProduct(searchText));
-            }
+            searchProducts(searchText);
         }
     }
 
+    /**
+     * Searches the products in the background, see searchParts.
+     * @param searchText Product id or part of the name.
+     */
+    private void searchProducts(String searchText) {
+        SearchExecutor.getInstance().submit(searchProduct, () -> productsView.search(searchText), found -> {
+            if (found.isCurrent()) {
+                productsView.show(searchText, found.getSlots());
+            } else {
+                searchProducts(searchText);
+            }
+        });
+    }
+
 }
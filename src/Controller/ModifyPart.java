@@ -4,19 +4,13 @@ import Model.InHouse;
 import Model.Inventory;
 import Model.Outsourced;
 import Model.Part;
-import javafx.collections.ObservableList;
+import Model.StockItemValidator;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import javafx.scene.control.RadioButton;
 import javafx.scene.control.TextField;
-import javafx.stage.Stage;
 
-import java.io.IOException;
 
 /**
  * Modify Part Controller Class
@@ -24,7 +18,7 @@ import java.io.IOException;
  * @author Andrew Burk
  */
 
-public class ModifyPart {
+public class ModifyPart implements ScreenNavigator.Screen {
     public TextField partID;
     public TextField partName;
     public TextField partInv;
@@ -36,6 +30,7 @@ public class ModifyPart {
     public RadioButton toggleInHouse;
     public Label partIdentifierLabel;
     private Inventory inv;
+    private ScreenNavigator navigator;
     private Part selectedPart;
 
     /**
@@ -49,85 +44,62 @@ public class ModifyPart {
 
     /**
      * This function is called when the user clicks the "Save" button.
-     * This will check the text boxes for valid input from user and alert user if any errors are found.
+     * This will check the text boxes through the StockItemValidator and alert user of all errors found.
      * This will then save the part to the Inventory Object.
      * This will close the "Add Part" stage and reopen the "Main Screen" stage.
      * @param actionEvent Event object passed by JavaFX
      */
     public void buttonClickSave(ActionEvent actionEvent) {
 
-        //Error checking
-        String errorMessage = "";
-        if (partName.getText().trim().isEmpty()) {
-            errorMessage = "Must include Part Name";
-        } else if (!partInv.getText().trim().matches("\\d+")){
-            errorMessage = "Stock must be greater than 0";
-        } else if (!partCost.getText().trim().matches("\\d+(\\.\\d+)?")){
-            errorMessage = "Must Enter a Cost";
-        } else if (!partMax.getText().trim().matches("\\d+")) {
-            errorMessage = "Maximum must be greater than 0";
-        } else if (!partMin.getText().trim().matches("\\d+")){
-            errorMessage = "Minimum must be greater than 0";
-        } else if (Integer.parseInt(partMax.getText().trim()) < Integer.parseInt(partMin.getText().trim())) {
-            errorMessage = "Maximum must be greater than Minimum";
-        } else if (Integer.parseInt(partInv.getText().trim()) > Integer.parseInt(partMax.getText().trim())) {
-            errorMessage = "Inventory Level Must Be Less Than Max.";
-        } else if (Integer.parseInt(partInv.getText().trim()) < Integer.parseInt(partMin.getText().trim())) {
-            errorMessage = "Inventory Level Must Be More Than Min.";
-        } else if (toggleOutsourced.isSelected() && partIdentifier.getText().trim().isEmpty()) {
-            errorMessage = "Must Enter a Company Name";
-        } else if (toggleInHouse.isSelected() && !partIdentifier.getText().trim().matches("\\d+")) {
-            errorMessage = "Invalid Machine Id";
-        }
+        //Error checking, every field parsed once and every error reported together.
+        StockItemValidator.Validation validation = StockItemValidator.validatePart(partName.getText(), partInv.getText(),
+                partCost.getText(), partMin.getText(), partMax.getText(), partIdentifier.getText(), toggleInHouse.isSelected());
 
-        if (errorMessage.contentEquals("")) {
+        if (validation.isValid()) {
             //No Errors was found, okay to update part.
-
-            //Locate selected part in Inventory Index.
-            ObservableList<Part> allParts = inv.getAllParts();
-            int arrayIndex = -1; // Declared outside of for loop, used to grab array for modification.
-
-            for (int i = 0; i < allParts.size(); i++){
-                if (allParts.get(i).equals(selectedPart)){
-                    arrayIndex = i;
-                }
-            }
-
+            //Inventory locates the selected part through its id index.
             if (toggleInHouse.isSelected()) {
-                Part newPart = new InHouse(selectedPart.getId(),partName.getText().trim(),Double.parseDouble(partCost.getText().trim()),Integer.parseInt(partInv.getText().trim()),Integer.parseInt(partMin.getText().trim()),Integer.parseInt(partMax.getText().trim()),Integer.parseInt(partIdentifier.getText().trim()));
-                inv.updatePart(arrayIndex,newPart);
+                Part newPart = new InHouse(selectedPart.getId(),validation.getName(),validation.getPrice(),validation.getStock(),validation.getMin(),validation.getMax(),validation.getMachineId());
+                inv.replacePart(selectedPart.getId(),newPart);
             } else {
-                Part newPart = new Outsourced(selectedPart.getId(),partName.getText().trim(),Double.parseDouble(partCost.getText().trim()),Integer.parseInt(partInv.getText().trim()),Integer.parseInt(partMin.getText().trim()),Integer.parseInt(partMax.getText().trim()),partIdentifier.getText().trim());
-                inv.updatePart(arrayIndex,newPart);
+                Part newPart = new Outsourced(selectedPart.getId(),validation.getName(),validation.getPrice(),validation.getStock(),validation.getMin(),validation.getMax(),validation.getCompanyName());
+                inv.replacePart(selectedPart.getId(),newPart);
             }
             openMainScreen(actionEvent);
         } else {
             //Error was found - Display Error Dialog Box
-            Alert alert = new Alert(Alert.AlertType.ERROR,errorMessage);
+            Alert alert = new Alert(Alert.AlertType.ERROR,validation.getMessage());
             alert.showAndWait();
         }
     }
 
     /**
      * This will close the "Modift Part" stage and reopen the "Main Screen" stage.
-     * This will also pass the Inventory inv object back to Main Controller.
+     * The main screen is kept by the navigator and shows the Inventory changes already.
      * @param actionEvent Event object passed by JavaFX
      */
     public void openMainScreen(ActionEvent actionEvent) {
-        try {
-            FXMLLoader loader= new FXMLLoader(getClass().getResource("/Views/Main.fxml"));
-            Parent root = loader.load();
-
-            MainController mainControllerObject = loader.getController();
-            mainControllerObject.passInInventory(inv);
-            Scene scene = new Scene(root);
-            Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-            stage.setScene(scene);
-            stage.setResizable(false);
-            stage.show();
-        } catch (IOException e) {
+        navigator.show(ScreenNavigator.View.MAIN);
+    }
 
-        }
+    /**
+     * Called by the ScreenNavigator once, when the "Modify Part" stage is first loaded.
+     * @param navigator Navigator used to go back to the "Main Screen" stage.
+     * @param inventoryObject Main Inventory Object.
+     */
+    @Override
+    public void attach(ScreenNavigator navigator, Inventory inventoryObject) {
+        this.navigator = navigator;
+        inv = inventoryObject;
+    }
+
+    /**
+     * Called by the ScreenNavigator each time the "Modify Part" stage is opened again.
+     * Nothing to clear, passInInventory fills every field from the selected part.
+     */
+    @Override
+    public void reset() {
+        selectedPart = null;
     }
 
     /**
@@ -1,20 +1,12 @@
 package Controller;
 
 import Model.*;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyEvent;
-import javafx.stage.Stage;
 
-import java.io.IOException;
 import java.net.URL;
 import java.util.Optional;
 import java.util.ResourceBundle;
@@ -25,7 +17,7 @@ import java.util.ResourceBundle;
  * @author Andrew Burk
  */
 
-public class ModifyProduct implements Initializable {
+public class ModifyProduct implements Initializable, ScreenNavigator.Screen {
     public TextField searchPart;
     public TableColumn partTablePartID;
     public TableColumn partTablePartName;
@@ -44,8 +36,9 @@ public class ModifyProduct implements Initializable {
     public TextField productMin;
     public TextField productID;
     private Inventory inv;
-    private ObservableList<Part> partInventory = FXCollections.observableArrayList();
-    private ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+    private ScreenNavigator navigator;
+    private InventoryView<Part> partsView;
+    private AssociatedPartList associatedParts = new AssociatedPartList();
     private Product selectedProduct;
 
     /**
@@ -56,8 +49,7 @@ public class ModifyProduct implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        //Links FXML Parts table to Part Class
-        listOfParts.setItems(partInventory);
+        //Links FXML Parts table to Part Class, its items are set once the Inventory is passed in
         partTablePartID.setCellValueFactory(new PropertyValueFactory<>("id"));
         partTablePartName.setCellValueFactory(new PropertyValueFactory<>("name"));
         partTableInvLevel.setCellValueFactory(new PropertyValueFactory<>("stock"));
@@ -74,24 +66,35 @@ public class ModifyProduct implements Initializable {
 
     /**
      * This will close the "Modify Part" stage and reopen the "Main Screen" stage.
-     * This will also pass the Inventory inv object back to Main Controller.
+     * The main screen is kept by the navigator and shows the Inventory changes already.
      * @param actionEvent Event object passed by JavaFX
      */
     public void openMainScreen(ActionEvent actionEvent) {
-        try {
-            FXMLLoader loader= new FXMLLoader(getClass().getResource("/Views/Main.fxml"));
-            Parent root = loader.load();
+        navigator.show(ScreenNavigator.View.MAIN);
+    }
 
-            MainController mainControllerObject = loader.getController();
-            mainControllerObject.passInInventory(inv);
-            Scene scene = new Scene(root);
-            Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-            stage.setScene(scene);
-            stage.setResizable(false);
-            stage.show();
-        } catch (IOException e) {
+    /**
+     * Called by the ScreenNavigator once, when the "Modify Product" stage is first loaded.
+     * @param navigator Navigator used to go back to the "Main Screen" stage.
+     * @param inventoryObject Main Inventory Object.
+     */
+    @Override
+    public void attach(ScreenNavigator navigator, Inventory inventoryObject) {
+        this.navigator = navigator;
+        inv = inventoryObject;
+    }
 
-        }
+    /**
+     * Called by the ScreenNavigator each time the "Modify Product" stage is opened again.
+     * Clears the search, passInInventory fills the rest from the selected product.
+     */
+    @Override
+    public void reset() {
+        SearchExecutor.getInstance().cancel(searchPart);
+        searchPart.clear();
+        listOfParts.getSelectionModel().clearSelection();
+        listOfAssociatedParts.getSelectionModel().clearSelection();
+        selectedProduct = null;
     }
 
     /**
@@ -123,47 +126,50 @@ public class ModifyProduct implements Initializable {
     }
 
     /**
-     * Populated the parts inventory observable list which is linked to parts table view.
-     * This will in turn populate the parts table.
+     * Shows the Inventory part list in the parts table, through an InventoryView like the main screen,
+     * so only the rows on screen are read. The associated parts are hidden in the view instead of copying the rest.
      */
     private void populatePartsTable() {
         //Fills in the table with Inventory Data
-        partInventory.setAll(inv.getAllParts());
-        partInventory = removeAssociatedPartsFromList(partInventory);
+        if (partsView == null) {
+            partsView = InventoryView.ofParts(inv);
+            partsView.setHidden(associatedParts);
+            listOfParts.setSortPolicy(table -> MainController.sortView(partsView, listOfParts, partTablePartID, partTablePartName, partTableInvLevel, partTableCost));
+            listOfParts.setItems(partsView);
+        }
+        partsView.setFilter("");
     }
 
     /**
      * Search Box Typing Event: User types in SearchBox Parts (Auto updates as user types)
+     * The lookup is debounced and runs in the background through the shared SearchExecutor.
      * @param keyEvent keyEvent object passed from JavaFX.
      */
     public void searchPart(KeyEvent keyEvent) {
-        if(searchPart.getText().trim().isEmpty()){
+        String searchText = searchPart.getText().trim();
+        if(searchText.isEmpty()){
             //Empty load default list
+            SearchExecutor.getInstance().cancel(searchPart);
             populatePartsTable();
         } else {
-            //Is text Int or String?
-            String searchText = searchPart.getText().trim();
-            try {
-                int num=Integer.parseInt(searchText);
-                partInventory.setAll(inv.lookupPart(num));
-            } catch(NumberFormatException ex) {
-                partInventory.setAll(inv.lookupPart(searchText));
-            }
-            partInventory = removeAssociatedPartsFromList(partInventory);
+            findParts(searchText);
         }
     }
 
     /**
-     * Filters part list to remove any parts that is associated with product.
-     * @param list Part list to be filtered.
-     * @returns Modified part list without associated parts already bind to product.
+     * Runs the part lookup off the JavaFX Application Thread, through the Inventory indexes.
+     * The matching parts are read from the Inventory back on the FX thread.
+     * @param searchText Part id or part of the name.
      */
-
-    private ObservableList<Part> removeAssociatedPartsFromList(ObservableList<Part> list){
-        for (Part iterationPart : associatedParts){
-            list.remove(iterationPart);
-        }
-        return list;
+    private void findParts(String searchText) {
+        SearchExecutor.getInstance().submit(searchPart, () -> partsView.search(searchText), found -> {
+            if (found.isCurrent()) {
+                partsView.show(searchText, found.getSlots());
+            } else {
+                //The parts changed during the search, the slots no longer match the list.
+                findParts(searchText);
+            }
+        });
     }
 
     /**
@@ -180,8 +186,8 @@ public class ModifyProduct implements Initializable {
             alert.showAndWait();
             return;
         }
-        partInventory.remove(selectedPart);
         associatedParts.add(selectedPart);
+        partsView.refresh();
 
     }
 
@@ -203,64 +209,42 @@ public class ModifyProduct implements Initializable {
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "Are you sure you would like to remove this part?");
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            partInventory.add(selectedPart);
             associatedParts.remove(selectedPart);
+            partsView.refresh();
         }
     }
 
     /**
      * This function is called when the user clicks the "Save" button.
-     * This will check the text boxes for valid input from user and alert user if any errors are found.
+     * This will check the text boxes through the StockItemValidator and alert user of all errors found.
      * This will then save the product to the Inventory Object, then adds all associated parts to object.
      * This will close the "Modify Product" stage and reopen the "Main Screen" stage.
      * @param actionEvent Event object passed by JavaFX
      */
     public void buttonClickSave(ActionEvent actionEvent) {
-        //Error checking
-        String errorMessage = "";
-        if (productName.getText().trim().isEmpty()) {
-            errorMessage = "Must include Part Name";
-        } else if (!productInv.getText().trim().matches("\\d+")){
-            errorMessage = "Stock must be greater than 0";
-        } else if (!productCost.getText().trim().matches("\\d+(\\.\\d+)?")){
-            errorMessage = "Must Enter a Cost";
-        } else if (!productMax.getText().trim().matches("\\d+")) {
-            errorMessage = "Maximum must be greater than 0";
-        } else if (!productMin.getText().trim().matches("\\d+")){
-            errorMessage = "Minimum must be greater than 0";
-        } else if (Integer.parseInt(productMax.getText().trim()) < Integer.parseInt(productMin.getText().trim())) {
-            errorMessage = "Maximum must be greater than Minimum";
-        } else if (Integer.parseInt(productInv.getText().trim()) > Integer.parseInt(productMax.getText().trim())) {
-            errorMessage = "Inventory Level Must Be Less Than Max.";
-        } else if (Integer.parseInt(productInv.getText().trim()) < Integer.parseInt(productMin.getText().trim())) {
-            errorMessage = "Inventory Level Must Be More Than Min.";
-        }
+        //Error checking, every field parsed once and every error reported together.
+        StockItemValidator.Validation validation = StockItemValidator.validateProduct(productName.getText(), productInv.getText(),
+                productCost.getText(), productMin.getText(), productMax.getText());
 
-        if (errorMessage.contentEquals("")) {
-            //No Errors was found, okay to update part.
+        if (validation.isValid()) {
+            //No Errors was found, okay to update product.
+            //Inventory locates the selected product through its id index.
 
-            //Locate selected part in Inventory Index.
-            ObservableList<Product> allProducts = inv.getAllProducts();
-            int arrayIndex = -1; // Declared outside of for loop, used to grab array for modification.
+            Product newProduct = new Product(selectedProduct.getId(),validation.getName(),validation.getPrice(),validation.getStock(),validation.getMin(),validation.getMax());
 
-            for (int i = 0; i < allProducts.size(); i++){
-                if (allProducts.get(i).equals(selectedProduct)){
-                    arrayIndex = i;
-                }
-            }
-
-
-            Product newProduct = new Product(selectedProduct.getId(),productName.getText().trim(),Double.parseDouble(productCost.getText().trim()),Integer.parseInt(productInv.getText().trim()),Integer.parseInt(productMin.getText().trim()),Integer.parseInt(productMax.getText().trim()));
-
-            inv.updateProduct(arrayIndex,newProduct);
+            inv.replaceProduct(selectedProduct.getId(),newProduct);
             //Attach associatedParts to Updated Object.
             for (Part myPart : associatedParts) {
-                newProduct.addAssociatedPart(myPart);
+                newProduct.addAssociatedPart(myPart, Math.max(1, selectedProduct.getAssociatedPartQuantity(myPart)));
+            }
+            //Keep the bill of materials sub-assemblies of the product being replaced.
+            for (Product subAssembly : selectedProduct.getAllSubAssemblies()) {
+                newProduct.addSubAssembly(subAssembly, selectedProduct.getSubAssemblyQuantity(subAssembly));
             }
             openMainScreen(actionEvent);
         } else {
             //Error was found - Display Error Dialog Box
-            Alert alert = new Alert(Alert.AlertType.ERROR,errorMessage);
+            Alert alert = new Alert(Alert.AlertType.ERROR,validation.getMessage());
             alert.showAndWait();
         }
     }
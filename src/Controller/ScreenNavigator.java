@@ -0,0 +1,141 @@
+package Controller;
+
+import Model.Inventory;
+import Util.LatencyHistogram;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.util.EnumMap;
+
+/**
+ * Screen Navigator Class
+ * Switches the stage between the screens in Views.
+ * Each view is loaded from its .fxml file the first time it is shown, its scene and controller are then kept
+ * and shown again on later visits, so a screen switch only resets the form instead of parsing FXML and rebuilding the tables.
+ * Screen switches are timed up to the end of the first layout of the new scene, first loads and cached switches apart.
+ * Use it on the JavaFX Application Thread.
+ * @author Andrew Burk
+ */
+public class ScreenNavigator {
+
+    /**
+     * The screens of the program.
+     */
+    public enum View {
+        MAIN("/Views/Main.fxml", 1040, 490),
+        ADD_PART("/Views/AddPart.fxml", -1, -1),
+        MODIFY_PART("/Views/ModifyPart.fxml", -1, -1),
+        ADD_PRODUCT("/Views/AddProduct.fxml", -1, -1),
+        MODIFY_PRODUCT("/Views/ModifyProduct.fxml", -1, -1);
+
+        private final String fxml;
+        private final double width;
+        private final double height;
+
+        View(String fxml, double width, double height) {
+            this.fxml = fxml;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * Controller of a screen shown through the navigator.
+     */
+    public interface Screen {
+
+        /**
+         * Called once, after the view is loaded.
+         * @param navigator the navigator, used to switch screens
+         * @param inv Main Inventory Object
+         */
+        void attach(ScreenNavigator navigator, Inventory inv);
+
+        /**
+         * Called each time the cached screen is shown again, puts the form back as it was when first loaded.
+         */
+        void reset();
+    }
+
+    private final Stage stage;
+    private final Inventory inv;
+    private final EnumMap<View, Scene> scenes = new EnumMap<>(View.class);
+    private final EnumMap<View, Screen> controllers = new EnumMap<>(View.class);
+    private final LatencyHistogram loadTimes = new LatencyHistogram("screen load");
+    private final LatencyHistogram switchTimes = new LatencyHistogram("screen switch");
+
+    /**
+     * Constructor for ScreenNavigator - Called when new ScreenNavigator object is created.
+     * @param stage the stage the screens are shown on
+     * @param inv Main Inventory Object, passed to each screen when loaded
+     */
+    public ScreenNavigator(Stage stage, Inventory inv) {
+        this.stage = stage;
+        this.inv = inv;
+    }
+
+    /**
+     * Shows a screen, loading it the first time and resetting it after that.
+     * @param view the screen to show
+     * @param <C> the controller type of the screen
+     * @return the screen's controller
+     * @throws IllegalStateException the view could not be loaded
+     */
+    @SuppressWarnings("unchecked")
+    public <C extends Screen> C show(View view) {
+        long start = System.nanoTime();
+        Scene scene = scenes.get(view);
+        Screen controller;
+        LatencyHistogram times;
+        if (scene == null) {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource(view.fxml));
+            Parent root;
+            try {
+                root = loader.load();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to load " + view.fxml, e);
+            }
+            controller = loader.getController();
+            controller.attach(this, inv);
+            scene = new Scene(root, view.width, view.height);
+            scenes.put(view, scene);
+            controllers.put(view, controller);
+            times = loadTimes;
+        } else {
+            controller = controllers.get(view);
+            controller.reset();
+            times = switchTimes;
+        }
+
+        //Time it up to the first layout pass of the scene, when it is ready to be drawn.
+        Scene shown = scene;
+        Runnable[] timer = new Runnable[1];
+        timer[0] = () -> {
+            times.recordSince(start);
+            shown.removePostLayoutPulseListener(timer[0]);
+        };
+        scene.addPostLayoutPulseListener(timer[0]);
+
+        stage.setScene(scene);
+        stage.setResizable(false);
+        stage.show();
+        return (C) controller;
+    }
+
+    /**
+     * @return time taken by screen switches that loaded the view
+     */
+    public LatencyHistogram getLoadTimes() {
+        return loadTimes;
+    }
+
+    /**
+     * @return time taken by screen switches to a cached view
+     */
+    public LatencyHistogram getSwitchTimes() {
+        return switchTimes;
+    }
+}
@@ -0,0 +1,170 @@
+package Controller;
+
+import Util.LatencyHistogram;
+import Util.ThreadPools;
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Search Executor Class
+ * Shared search pipeline for the search boxes of every screen.
+ * Keystrokes are debounced, a newer query cancels the older one for the same search box,
+ * the lookup runs off the JavaFX Application Thread and only the newest result is published back with Platform.runLater.
+ * Queries must not read the Inventory lists directly, which are changed on the FX thread, they search through Inventory.searchPartSlots or searchProductSlots.
+ * A query that throws is reported on the FX thread.
+ * @author Andrew Burk
+ */
+public class SearchExecutor {
+    private static final long DEBOUNCE_MILLIS = 150;
+    private static final SearchExecutor sharedExecutor = new SearchExecutor(DEBOUNCE_MILLIS);
+
+    private final long debounceMillis;
+    private final ScheduledExecutorService debounceTimer;
+    private final ExecutorService queryRunner;
+    private final ConcurrentHashMap<Object, PendingSearch> pendingSearches = new ConcurrentHashMap<>();
+    private final LatencyHistogram queryTimes = new LatencyHistogram("search");
+
+    /**
+     * Constructor for SearchExecutor - Called when new SearchExecutor object is created.
+     * @param debounceMillis quiet time after the last keystroke before the search runs
+     */
+    public SearchExecutor(long debounceMillis) {
+        this.debounceMillis = debounceMillis;
+        debounceTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-debounce");
+            thread.setDaemon(true);
+            return thread;
+        });
+        //Virtual threads when the JDK has them (21+).
+        queryRunner = ThreadPools.newPerTaskExecutor("search-query");
+    }
+
+    /**
+     * @return the executor shared by all of the screens
+     */
+    public static SearchExecutor getInstance() {
+        return sharedExecutor;
+    }
+
+    /**
+     * Schedules a search for a search box, replacing any search still pending for the same box.
+     * @param searchBox the search box (or any key) the search belongs to
+     * @param query the lookup to run in the background
+     * @param publish receives the result on the JavaFX Application Thread
+     * @param <T> the result type
+     */
+    public <T> void submit(Object searchBox, Supplier<T> query, Consumer<T> publish) {
+        submit(searchBox, query, publish, SearchExecutor::showFailure);
+    }
+
+    /**
+     * Schedules a search for a search box, see submit. A query that throws is reported instead of published,
+     * unless a newer search has replaced it.
+     * @param searchBox the search box (or any key) the search belongs to
+     * @param query the lookup to run in the background
+     * @param publish receives the result on the JavaFX Application Thread
+     * @param failed receives the exception thrown by the query on the JavaFX Application Thread
+     * @param <T> the result type
+     */
+    public <T> void submit(Object searchBox, Supplier<T> query, Consumer<T> publish, Consumer<RuntimeException> failed) {
+        PendingSearch search = new PendingSearch();
+        PendingSearch previous = pendingSearches.put(searchBox, search);
+        if (previous != null) {
+            previous.cancel();
+        }
+        search.timer = debounceTimer.schedule(() -> {
+            if (!isCurrent(searchBox, search)) {
+                return;
+            }
+            search.running = queryRunner.submit(() -> run(searchBox, search, query, publish, failed));
+        }, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels the pending search for a search box, used when the search box is cleared.
+     * @param searchBox the search box the search belongs to
+     */
+    public void cancel(Object searchBox) {
+        PendingSearch previous = pendingSearches.remove(searchBox);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * @return the query time histogram
+     */
+    public LatencyHistogram getQueryTimes() {
+        return queryTimes;
+    }
+
+    private <T> void run(Object searchBox, PendingSearch search, Supplier<T> query, Consumer<T> publish,
+                         Consumer<RuntimeException> failed) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = query.get();
+        } catch (RuntimeException e) {
+            if (isCurrent(searchBox, search)) {
+                Platform.runLater(() -> {
+                    if (pendingSearches.remove(searchBox, search)) {
+                        failed.accept(e);
+                    }
+                });
+            }
+            return;
+        }
+        queryTimes.recordSince(start);
+        if (!isCurrent(searchBox, search) || Thread.currentThread().isInterrupted()) {
+            return; //A newer keystroke has already replaced this search.
+        }
+        Platform.runLater(() -> {
+            //Checked again on the FX thread, a newer search may have finished in between.
+            if (pendingSearches.remove(searchBox, search)) {
+                publish.accept(result);
+            }
+        });
+    }
+
+    /**
+     * Default report of a failed search, the same error dialog the screens use.
+     */
+    private static void showFailure(RuntimeException e) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setContentText("The search failed: " + e);
+        alert.show();
+    }
+
+    private boolean isCurrent(Object searchBox, PendingSearch search) {
+        return pendingSearches.get(searchBox) == search;
+    }
+
+    /**
+     * One scheduled search, tracks the debounce timer and the running query so both can be cancelled.
+     */
+    private static class PendingSearch {
+        private volatile Future<?> timer;
+        private volatile Future<?> running;
+
+        private void cancel() {
+            Future<?> scheduled = timer;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            Future<?> query = running;
+            if (query != null) {
+                query.cancel(true);
+            }
+        }
+    }
+}
@@ -1,21 +1,25 @@
 package Main;
 
-import Controller.MainController;
+import Controller.ScreenNavigator;
 import Model.*;
+import Storage.InventoryStore;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.nio.file.Paths;
+
 /**
  * Main Class for Inventory Project for WGU Inventory Project.
  * @author Andrew Burk
  */
 public class Main extends Application {
+    private InventoryStore store;
 
     /**
      *  Stage function called my JavaFX, program starts here.
+     *  The Inventory is recovered from the data directory (system property inventory.data, default "data").
+     *  Dummy data is only loaded the first time, when the directory is empty.
+     *  Screens are switched through one ScreenNavigator, which keeps each screen once loaded.
      *  @param primaryStage Primary Stage created and returned from JavaFX.
      *  @exception Exception Failed to load stage.
      */
@@ -23,7 +27,32 @@ public class Main extends Application {
       @Override
     public void start(Stage primaryStage) throws Exception{
         //Inventory Container
-        Inventory inv = new Inventory();
+        store = InventoryStore.open(Paths.get(System.getProperty("inventory.data", "data")));
+        Inventory inv = store.getInventory();
+        if (!store.isRecovered()) {
+            addDummyData(inv);
+        }
+
+        primaryStage.setTitle("Inventory Management System - WGU Assessment - By Andrew Burk");
+        new ScreenNavigator(primaryStage, inv).show(ScreenNavigator.View.MAIN);
+    }
+
+    /**
+     *  Called by JavaFX when the program exits, writes a final snapshot of the Inventory.
+     *  @exception Exception Failed to save the Inventory.
+     */
+    @Override
+    public void stop() throws Exception {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     *  Loads the dummy data used on the first run.
+     *  @param inv Inventory to fill.
+     */
+    private void addDummyData(Inventory inv) {
         //Dummy Data
         Part test1 = new InHouse(1, "Part 1", 1.99, 18, 1, 100, 104);
         Part test2 = new InHouse(2, "Part 2", 2.99, 19, 1, 100, 105);
@@ -43,16 +72,6 @@ public class Main extends Application {
         Product prod3 = new Product(300, "Product 3", 9.99, 30, 5, 100);
         inv.addProduct(prod3);
         prod3.addAssociatedPart(test2);
-
-        FXMLLoader loader= new FXMLLoader(getClass().getResource("/Views/Main.fxml"));
-        Parent root = loader.load();
-
-        MainController mainControllerObject = loader.getController();
-        mainControllerObject.passInInventory(inv);
-
-        primaryStage.setTitle("Inventory Management System - WGU Assessment - By Andrew Burk");
-        primaryStage.setScene(new Scene(root,1040,490));
-        primaryStage.show();
     }
 
     /**
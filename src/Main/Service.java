@@ -0,0 +1,67 @@
+package Main;
+
+import Model.ConcurrentInventory;
+import Server.InventoryServer;
+import Storage.InventoryImporter;
+import Util.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+
+/**
+ * Headless entry point, serves the Inventory over HTTP/JSON without JavaFX or a display.
+ * The Inventory starts empty, or loaded from a bulk import file (.csv or .jsonl), and lives in memory.
+ * The route timings are printed when the service is stopped.
+ * Run with: java -cp inventory.jar Main.Service [--port 8080] [--bind 127.0.0.1] [--import file]
+ * @author Andrew Burk
+ */
+public class Service {
+
+    /**
+     * Main function for the service.
+     * @param args --port, --bind and --import options
+     * @throws IOException failed to read the import file or bind the port
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        int port = 8080;
+        String bind = "127.0.0.1";
+        String importFile = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--bind":
+                    bind = args[i + 1];
+                    break;
+                case "--import":
+                    importFile = args[i + 1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        //No JavaFX thread here, the unused UI views are updated in place by whichever thread made the change.
+        ConcurrentInventory inv = new ConcurrentInventory(Runnable::run);
+        if (importFile != null) {
+            long start = System.nanoTime();
+            InventoryImporter importer = new InventoryImporter(inv);
+            importer.importFile(Paths.get(importFile));
+            System.out.printf("Imported %,d parts and %,d products in %d ms%n",
+                    importer.getPartCount(), importer.getProductCount(), (System.nanoTime() - start) / 1_000_000);
+        }
+
+        InventoryServer server = new InventoryServer(inv, new InetSocketAddress(bind, port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            for (LatencyHistogram times : server.getRouteTimes().values()) {
+                System.out.println(times);
+            }
+        }, "inventory-shutdown"));
+        server.start();
+        System.out.println("Inventory service listening on http://" + bind + ":" + server.getPort());
+    }
+}
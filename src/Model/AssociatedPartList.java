@@ -0,0 +1,236 @@
+package Model;
+
+import javafx.collections.ModifiableObservableListBase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Observable list of the parts associated with a product, usable directly as table items. Parts must not be null.
+ * The parts sit in slots in list order, each part is hashed to the slots holding it,
+ * so contains is O(1) and filtering the available parts against it is one pass over them with a hash lookup per part.
+ * A remove only empties its slot, a tree of live slot counts (Fenwick tree) turns a slot into a list index
+ * and back in O(log n), so remove and indexOf of a part never scan the list.
+ * The slots are packed again once half of them are empty, or before an insert in the middle of the list.
+ * An index has to be found for every change event, so a remove cannot be O(1) in any ordered list.
+ * @author Andrew Burk
+ */
+public class AssociatedPartList extends ModifiableObservableListBase<Part> implements RandomAccess {
+    private Part[] slots = new Part[8];
+    //Fenwick tree over the slots, 1 for a slot holding a part and 0 for an empty one.
+    private int[] live = new int[9];
+    private int used;
+    private int empty;
+    private final HashMap<Part, SlotList> slotsOf = new HashMap<>();
+
+    /**
+     * @param o the object to look for
+     * @return true:false if the part is in the list, in constant time
+     */
+    @Override
+    public boolean contains(Object o) {
+        return slotsOf.containsKey(o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        SlotList found = slotsOf.get(o);
+        return found == null ? -1 : indexOfSlot(found.at[0]);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        SlotList found = slotsOf.get(o);
+        return found == null ? -1 : indexOfSlot(found.at[found.size - 1]);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public Part get(int index) {
+        return slots[slotOf(index)];
+    }
+
+    @Override
+    public int size() {
+        return used - empty;
+    }
+
+    @Override
+    protected void doAdd(int index, Part part) {
+        Objects.requireNonNull(part, "Associated part must not be null");
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        }
+        if (index < size()) {
+            //Slots after the insert would all move, pack and shift them once.
+            pack(index, part);
+            return;
+        }
+        if (used == slots.length) {
+            slots = Arrays.copyOf(slots, used * 2);
+            rebuildTree();
+        }
+        int slot = used++;
+        slots[slot] = part;
+        addLive(slot, 1);
+        slotsOf.computeIfAbsent(part, key -> new SlotList()).add(slot);
+    }
+
+    @Override
+    protected Part doSet(int index, Part part) {
+        Objects.requireNonNull(part, "Associated part must not be null");
+        int slot = slotOf(index);
+        Part old = slots[slot];
+        slots[slot] = part;
+        unlink(old, slot);
+        slotsOf.computeIfAbsent(part, key -> new SlotList()).add(slot);
+        return old;
+    }
+
+    @Override
+    protected Part doRemove(int index) {
+        int slot = slotOf(index);
+        Part old = slots[slot];
+        slots[slot] = null;
+        addLive(slot, -1);
+        empty++;
+        unlink(old, slot);
+        if (empty > 16 && empty * 2 > used) {
+            pack(-1, null);
+        }
+        return old;
+    }
+
+    private void unlink(Part part, int slot) {
+        SlotList held = slotsOf.get(part);
+        held.remove(slot);
+        if (held.size == 0) {
+            slotsOf.remove(part);
+        }
+    }
+
+    /**
+     * @return the slot holding the part at a list index
+     */
+    private int slotOf(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        }
+        if (empty == 0) {
+            return index;
+        }
+        //Walk down the tree to the slot with index + 1 live slots up to and including it.
+        int slot = 0;
+        int remaining = index + 1;
+        for (int step = Integer.highestOneBit(slots.length); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next <= slots.length && live[next] < remaining) {
+                slot = next;
+                remaining -= live[next];
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * @return the list index of a slot holding a part
+     */
+    private int indexOfSlot(int slot) {
+        if (empty == 0) {
+            return slot;
+        }
+        int count = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            count += live[i];
+        }
+        return count - 1;
+    }
+
+    private void addLive(int slot, int delta) {
+        for (int i = slot + 1; i < live.length; i += i & -i) {
+            live[i] += delta;
+        }
+    }
+
+    private void rebuildTree() {
+        live = new int[slots.length + 1];
+        for (int i = 1; i <= slots.length; i++) {
+            if (slots[i - 1] != null) {
+                live[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent <= slots.length) {
+                live[parent] += live[i];
+            }
+        }
+    }
+
+    /**
+     * Moves the parts down over the empty slots, inserting a part at a list index on the way if one is given.
+     * @param insertAt list index to insert at, or -1
+     * @param inserted the part to insert
+     */
+    private void pack(int insertAt, Part inserted) {
+        Part[] packed = new Part[Math.max(8, Integer.highestOneBit(Math.max(1, size() + 1)) * 2)];
+        int count = 0;
+        for (int slot = 0; slot < used; slot++) {
+            if (count == insertAt) {
+                packed[count++] = inserted;
+                insertAt = -1;
+            }
+            if (slots[slot] != null) {
+                packed[count++] = slots[slot];
+            }
+        }
+        if (count == insertAt) {
+            packed[count++] = inserted;
+        }
+        slots = packed;
+        used = count;
+        empty = 0;
+        slotsOf.clear();
+        for (int slot = 0; slot < used; slot++) {
+            slotsOf.computeIfAbsent(slots[slot], key -> new SlotList()).add(slot);
+        }
+        rebuildTree();
+    }
+
+    /**
+     * Slots holding one part in ascending order, nearly always just one.
+     */
+    private static class SlotList {
+        private int[] at = new int[1];
+        private int size;
+
+        private void add(int slot) {
+            if (size == at.length) {
+                at = Arrays.copyOf(at, size * 2);
+            }
+            int i = size++;
+            for (; i > 0 && at[i - 1] > slot; i--) {
+                at[i] = at[i - 1];
+            }
+            at[i] = slot;
+        }
+
+        private void remove(int slot) {
+            int i = 0;
+            while (at[i] != slot) {
+                i++;
+            }
+            System.arraycopy(at, i + 1, at, i, size - i - 1);
+            size--;
+        }
+    }
+}
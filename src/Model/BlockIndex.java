@@ -0,0 +1,382 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * One sorted column of the RangeIndex, the price or stock of every part or product.
+ * Entries are ordered by value then id and each also carries the other column (the stock in a price index,
+ * the price in a stock index), so a query on both is filtered here without reading the items.
+ * Entries sit in blocks of up to 128 held in parallel arrays, found by a binary search over the first entry
+ * of each block then one inside the block, so an add or remove copies one block and a range walk reads arrays in order.
+ * Blocks are never changed once built, a write builds a new block and publishes a new level holding a copy
+ * of the block array, so readers need no lock and a walk reads the entries as they were when it began.
+ * The copy is one reference per 128 entries.
+ * Writes must come from one thread at a time, the Inventory events do.
+ * @author Andrew Burk
+ */
+final class BlockIndex {
+    private static final int BLOCK = 128;
+    //Blocks are built 3/4 full so adds split them rarely.
+    private static final int BUILD_FILL = BLOCK * 3 / 4;
+    private static final Level EMPTY = new Level(new Block[0], new double[0], new int[0]);
+
+    private volatile Level level = EMPTY;
+    private volatile int entries;
+
+    /**
+     * Constructor for BlockIndex - Called when new BlockIndex object is created.
+     * @param values the values, sorted
+     * @param ids the ids, sorted within equal values
+     * @param others the other column of each entry
+     */
+    BlockIndex(double[] values, int[] ids, double[] others) {
+        Block[] built = new Block[(values.length + BUILD_FILL - 1) / BUILD_FILL];
+        for (int b = 0; b < built.length; b++) {
+            int from = b * BUILD_FILL;
+            int to = Math.min(values.length, from + BUILD_FILL);
+            built[b] = new Block(Arrays.copyOfRange(values, from, to), Arrays.copyOfRange(ids, from, to),
+                    Arrays.copyOfRange(others, from, to), to - from);
+        }
+        level = Level.of(built);
+        entries = values.length;
+    }
+
+    /**
+     * @param value the price or stock
+     * @param id the item id
+     * @param other the other column
+     */
+    void add(double value, int id, double other) {
+        entries++;
+        Level current = level;
+        Block[] blocks = current.blocks;
+        if (blocks.length == 0) {
+            level = Level.of(new Block[]{new Block(new double[]{value}, new int[]{id}, new double[]{other}, 1)});
+            return;
+        }
+        int b = current.blockFor(value, id);
+        Block block = blocks[b];
+        Block grown = block.inserted(block.lowerBound(value, id), value, id, other);
+        if (grown.size < BLOCK) {
+            level = current.replacing(b, grown);
+            return;
+        }
+        //Full, split in two and publish a new level.
+        Block[] split = new Block[blocks.length + 1];
+        System.arraycopy(blocks, 0, split, 0, b);
+        System.arraycopy(blocks, b + 1, split, b + 2, blocks.length - b - 1);
+        int half = grown.size / 2;
+        split[b] = grown.slice(0, half);
+        split[b + 1] = grown.slice(half, grown.size);
+        level = Level.of(split);
+    }
+
+    /**
+     * Removes one entry with the value and id, the one whose other column matches when there are several.
+     * @param value the price or stock
+     * @param id the item id
+     * @param other the other column
+     * @return true:false if an entry was removed
+     */
+    boolean remove(double value, int id, double other) {
+        Level current = level;
+        long found = current.find(value, id, other);
+        if (found < 0) {
+            return false;
+        }
+        entries--;
+        Block[] blocks = current.blocks;
+        int b = (int) (found >>> 32);
+        Block block = blocks[b];
+        if (block.size > 1) {
+            level = current.replacing(b, block.removed((int) found));
+            return true;
+        }
+        Block[] shrunk = new Block[blocks.length - 1];
+        System.arraycopy(blocks, 0, shrunk, 0, b);
+        System.arraycopy(blocks, b + 1, shrunk, b, blocks.length - b - 1);
+        level = Level.of(shrunk);
+        return true;
+    }
+
+    /**
+     * Changes the other column of one entry, after a stock change in a price index.
+     * @param value the price or stock
+     * @param id the item id
+     * @param oldOther the other column before
+     * @param newOther the other column after
+     */
+    void setOther(double value, int id, double oldOther, double newOther) {
+        Level current = level;
+        long found = current.find(value, id, oldOther);
+        if (found >= 0) {
+            int b = (int) (found >>> 32);
+            level = current.replacing(b, current.blocks[b].withOther((int) found, newOther));
+        }
+    }
+
+    /**
+     * Counts the blocks the range covers instead of the entries, exact when it lies in one block.
+     * @param from lowest value, inclusive
+     * @param to highest value, exclusive
+     * @return about the number of entries with a value in the range
+     */
+    long estimate(double from, double to) {
+        Level current = level;
+        Block[] blocks = current.blocks;
+        int first = current.firstBlockReaching(from);
+        int last = current.firstBlockReaching(to);
+        long count = blocks.length == 0 ? 0 : (long) (last - first) * entries / blocks.length;
+        if (first < blocks.length) {
+            count -= blocks[first].lowerBound(from, Integer.MIN_VALUE);
+        }
+        if (last < blocks.length) {
+            count += blocks[last].lowerBound(to, Integer.MIN_VALUE);
+        }
+        return Math.max(0, count);
+    }
+
+    /**
+     * @param from lowest value, inclusive
+     * @param to highest value, exclusive
+     * @param otherFrom lowest other column, inclusive
+     * @param otherTo highest other column, exclusive
+     * @return ids of the entries in both ranges, in value order, read as the iterator advances
+     */
+    PrimitiveIterator.OfInt ids(double from, double to, double otherFrom, double otherTo) {
+        return new Walk(level, from, to, otherFrom, otherTo);
+    }
+
+    private static int compare(double value, int id, double otherValue, int otherId) {
+        int order = Double.compare(value, otherValue);
+        return order != 0 ? order : Integer.compare(id, otherId);
+    }
+
+    /**
+     * The blocks in order with the first entry each had when the level was made, kept in their own arrays
+     * so the search over blocks reads no block. A block keeps its first entry unless it is removed, and every entry
+     * still in the block is above it while every entry of the block before is below it, so it still separates them.
+     * A write that keeps the blocks in place shares the first entries with the level before, they are only
+     * read again when a block splits or empties.
+     */
+    private static final class Level {
+        private final Block[] blocks;
+        private final double[] firstValues;
+        private final int[] firstIds;
+
+        private Level(Block[] blocks, double[] firstValues, int[] firstIds) {
+            this.blocks = blocks;
+            this.firstValues = firstValues;
+            this.firstIds = firstIds;
+        }
+
+        private static Level of(Block[] blocks) {
+            double[] firstValues = new double[blocks.length];
+            int[] firstIds = new int[blocks.length];
+            for (int b = 0; b < blocks.length; b++) {
+                firstValues[b] = blocks[b].values[0];
+                firstIds[b] = blocks[b].ids[0];
+            }
+            return new Level(blocks, firstValues, firstIds);
+        }
+
+        /**
+         * @return a level with one block swapped for its changed copy
+         */
+        private Level replacing(int b, Block block) {
+            Block[] copy = blocks.clone();
+            copy[b] = block;
+            return new Level(copy, firstValues, firstIds);
+        }
+
+        /**
+         * @return the last block whose first entry is below the value and id, or 0
+         */
+        private int blockFor(double value, int id) {
+            int low = 1;
+            int high = blocks.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (compare(firstValues[mid], firstIds[mid], value, id) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low - 1;
+        }
+
+        /**
+         * @return the block holding the first entry with a value of at least the given one, the block count if none
+         */
+        private int firstBlockReaching(double value) {
+            //Last block starting below the value, entries reaching it may be at its end.
+            int b = blockFor(value, Integer.MIN_VALUE);
+            while (b < blocks.length && Double.compare(blocks[b].values[blocks[b].size - 1], value) < 0) {
+                b++;
+            }
+            return b;
+        }
+
+        /**
+         * @return the block and position of the entry packed in a long, -1 if there is none
+         */
+        private long find(double value, int id, double other) {
+            long first = -1;
+            for (int b = blockFor(value, id); b < blocks.length; b++) {
+                Block block = blocks[b];
+                for (int pos = block.lowerBound(value, id); pos < block.size; pos++) {
+                    if (compare(block.values[pos], block.ids[pos], value, id) != 0) {
+                        return first;
+                    }
+                    long at = ((long) b << 32) | pos;
+                    if (Double.compare(block.others[pos], other) == 0) {
+                        return at;
+                    }
+                    if (first < 0) {
+                        first = at;
+                    }
+                }
+            }
+            return first;
+        }
+    }
+
+    /**
+     * Up to BLOCK sorted entries, never changed after construction.
+     */
+    private static final class Block {
+        private final double[] values;
+        private final int[] ids;
+        private final double[] others;
+        private final int size;
+
+        private Block(double[] values, int[] ids, double[] others, int size) {
+            this.values = values;
+            this.ids = ids;
+            this.others = others;
+            this.size = size;
+        }
+
+        /**
+         * @return the first position whose entry is not below the value and id
+         */
+        private int lowerBound(double value, int id) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (compare(values[mid], ids[mid], value, id) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        private Block inserted(int pos, double value, int id, double other) {
+            double[] newValues = new double[size + 1];
+            int[] newIds = new int[size + 1];
+            double[] newOthers = new double[size + 1];
+            System.arraycopy(values, 0, newValues, 0, pos);
+            System.arraycopy(ids, 0, newIds, 0, pos);
+            System.arraycopy(others, 0, newOthers, 0, pos);
+            newValues[pos] = value;
+            newIds[pos] = id;
+            newOthers[pos] = other;
+            System.arraycopy(values, pos, newValues, pos + 1, size - pos);
+            System.arraycopy(ids, pos, newIds, pos + 1, size - pos);
+            System.arraycopy(others, pos, newOthers, pos + 1, size - pos);
+            return new Block(newValues, newIds, newOthers, size + 1);
+        }
+
+        private Block removed(int pos) {
+            double[] newValues = new double[size - 1];
+            int[] newIds = new int[size - 1];
+            double[] newOthers = new double[size - 1];
+            System.arraycopy(values, 0, newValues, 0, pos);
+            System.arraycopy(ids, 0, newIds, 0, pos);
+            System.arraycopy(others, 0, newOthers, 0, pos);
+            System.arraycopy(values, pos + 1, newValues, pos, size - pos - 1);
+            System.arraycopy(ids, pos + 1, newIds, pos, size - pos - 1);
+            System.arraycopy(others, pos + 1, newOthers, pos, size - pos - 1);
+            return new Block(newValues, newIds, newOthers, size - 1);
+        }
+
+        private Block withOther(int pos, double other) {
+            double[] newOthers = Arrays.copyOf(others, size);
+            newOthers[pos] = other;
+            return new Block(values, ids, newOthers, size);
+        }
+
+        private Block slice(int from, int to) {
+            return new Block(Arrays.copyOfRange(values, from, to), Arrays.copyOfRange(ids, from, to),
+                    Arrays.copyOfRange(others, from, to), to - from);
+        }
+    }
+
+    /**
+     * Walks the entries of one level from the first in the range, skipping those outside the other range.
+     */
+    private static final class Walk implements PrimitiveIterator.OfInt {
+        private final Block[] walked;
+        private final double to;
+        private final double otherFrom;
+        private final double otherTo;
+        private int block;
+        private Block current;
+        private int pos;
+        private boolean ready;
+
+        private Walk(Level level, double from, double to, double otherFrom, double otherTo) {
+            walked = level.blocks;
+            this.to = to;
+            this.otherFrom = otherFrom;
+            this.otherTo = otherTo;
+            block = level.firstBlockReaching(from);
+            if (block < walked.length) {
+                current = walked[block];
+                pos = current.lowerBound(from, Integer.MIN_VALUE);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!ready) {
+                if (block == walked.length) {
+                    return false;
+                }
+                if (pos >= current.size) {
+                    if (++block < walked.length) {
+                        current = walked[block];
+                    }
+                    pos = 0;
+                    continue;
+                }
+                if (Double.compare(current.values[pos], to) >= 0) {
+                    block = walked.length;
+                    return false;
+                }
+                double other = current.others[pos];
+                if (other >= otherFrom && other < otherTo) {
+                    ready = true;
+                } else {
+                    pos++;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return current.ids[pos++];
+        }
+    }
+}
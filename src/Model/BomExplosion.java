@@ -0,0 +1,233 @@
+package Model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Bill of materials explosion engine.
+ * Computes the total quantity of every part needed to build a number of units of a product,
+ * through its associated part quantities and any depth of nested sub-assemblies.
+ * Each product's per unit rollup is computed once and cached, a sub-assembly shared by many products
+ * is only rolled up once. Sibling sub-assemblies are rolled up in parallel on a ForkJoinPool.
+ * The cache is cleared by any product change reported to InventoryListener, so products exploded
+ * from outside the Inventory must not be changed while the engine is in use.
+ * Sub-assemblies are looked up in the Inventory by id, so a product replaced since it was nested is followed to its current version.
+ * Cycles are rejected with an IllegalArgumentException.
+ * Call on the thread that changes the Inventory, no changes may be made during an explosion.
+ * @author Andrew Burk
+ */
+public class BomExplosion implements InventoryListener {
+    private final Inventory inv;
+    private final ForkJoinPool pool;
+    private final ConcurrentHashMap<Product, ForkJoinTask<Map<Integer, Long>>> rollups = new ConcurrentHashMap<>();
+    //Products whose sub-assembly graph was already checked for cycles.
+    private final Set<Product> acyclic = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor for BomExplosion - Uses the common ForkJoinPool.
+     * @param inv the Inventory holding the products
+     */
+    public BomExplosion(Inventory inv) {
+        this(inv, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for BomExplosion - Called when new BomExplosion object is created, listens to the Inventory until closed.
+     * @param inv the Inventory holding the products
+     * @param pool the pool running the rollups
+     */
+    public BomExplosion(Inventory inv, ForkJoinPool pool) {
+        this.inv = inv;
+        this.pool = pool;
+        inv.addListener(this);
+    }
+
+    /**
+     * @param product the product to build
+     * @param units how many units to build
+     * @return part id to the total quantity needed, in part id order
+     * @throws IllegalArgumentException the product contains itself through its sub-assemblies
+     * @throws ArithmeticException a total does not fit in a long
+     */
+    public Map<Integer, Long> explode(Product product, long units) {
+        if (units < 0) {
+            throw new IllegalArgumentException("Units must not be negative");
+        }
+        Product root = resolve(product);
+        checkAcyclic(root);
+        Map<Integer, Long> perUnit = pool.invoke(ForkJoinTask.adapt(() -> rollupOf(root).join()));
+        Map<Integer, Long> totals = new TreeMap<>();
+        for (Map.Entry<Integer, Long> entry : perUnit.entrySet()) {
+            totals.put(entry.getKey(), Math.multiplyExact(entry.getValue(), units));
+        }
+        return Collections.unmodifiableMap(totals);
+    }
+
+    /**
+     * Drops the cached rollups, called automatically on product changes.
+     */
+    public void invalidate() {
+        rollups.clear();
+        acyclic.clear();
+    }
+
+    /**
+     * Stops listening to the Inventory.
+     */
+    public void close() {
+        inv.removeListener(this);
+    }
+
+    @Override
+    public void productAdded(Product product) {
+        invalidate();
+    }
+
+    @Override
+    public void productUpdated(Product oldProduct, Product newProduct) {
+        invalidate();
+    }
+
+    @Override
+    public void productDeleted(Product product) {
+        invalidate();
+    }
+
+    @Override
+    public void associatedPartAdded(Product product, Part part) {
+        invalidate();
+    }
+
+    @Override
+    public void associatedPartDeleted(Product product, Part part) {
+        invalidate();
+    }
+
+    @Override
+    public void associatedPartQuantityChanged(Product product, Part part, int quantity) {
+        invalidate();
+    }
+
+    @Override
+    public void subAssemblyAdded(Product product, Product subAssembly, int quantity) {
+        invalidate();
+    }
+
+    @Override
+    public void subAssemblyDeleted(Product product, Product subAssembly) {
+        invalidate();
+    }
+
+    /**
+     * @return the current Inventory version of a product, or the product itself if it is not in the Inventory
+     */
+    private Product resolve(Product product) {
+        Product current = inv.lookupProduct(product.getId());
+        return current != null ? current : product;
+    }
+
+    /**
+     * The first caller for a product forks its rollup, every other caller joins the same task.
+     */
+    private ForkJoinTask<Map<Integer, Long>> rollupOf(Product product) {
+        ForkJoinTask<Map<Integer, Long>> task = rollups.get(product);
+        if (task == null) {
+            Rollup created = new Rollup(product);
+            task = rollups.putIfAbsent(product, created);
+            if (task == null) {
+                task = created;
+                created.fork();
+            }
+        }
+        return task;
+    }
+
+    /**
+     * Depth first walk with the current path on a stack, meeting a product already on the path is a cycle.
+     */
+    private void checkAcyclic(Product root) {
+        if (acyclic.contains(root)) {
+            return;
+        }
+        Set<Product> onPath = new HashSet<>();
+        ArrayDeque<Product> path = new ArrayDeque<>();
+        ArrayDeque<Iterator<Product>> pending = new ArrayDeque<>();
+        path.push(root);
+        onPath.add(root);
+        pending.push(root.getAllSubAssemblies().iterator());
+        while (!path.isEmpty()) {
+            if (pending.peek().hasNext()) {
+                Product next = resolve(pending.peek().next());
+                if (onPath.contains(next)) {
+                    throw new IllegalArgumentException("Bill of materials cycle through product " + next.getId());
+                }
+                if (!acyclic.contains(next)) {
+                    path.push(next);
+                    onPath.add(next);
+                    pending.push(next.getAllSubAssemblies().iterator());
+                }
+            } else {
+                pending.pop();
+                Product done = path.pop();
+                onPath.remove(done);
+                acyclic.add(done);
+            }
+        }
+    }
+
+    /**
+     * Per unit part quantities of one product, its own parts plus its sub-assembly rollups times their quantities.
+     * A rollup that fails (a quantity overflowing a long) removes itself from the cache, so the next explosion tries again.
+     */
+    private class Rollup extends RecursiveTask<Map<Integer, Long>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Product product;
+
+        private Rollup(Product product) {
+            this.product = product;
+        }
+
+        @Override
+        protected Map<Integer, Long> compute() {
+            try {
+                return rollUp();
+            } catch (RuntimeException e) {
+                rollups.remove(product, this);
+                throw e;
+            }
+        }
+
+        private Map<Integer, Long> rollUp() {
+            List<Product> subAssemblies = product.getAllSubAssemblies();
+            List<ForkJoinTask<Map<Integer, Long>>> subRollups = new ArrayList<>(subAssemblies.size());
+            for (Product subAssembly : subAssemblies) {
+                subRollups.add(rollupOf(resolve(subAssembly)));
+            }
+
+            Map<Integer, Long> totals = new HashMap<>();
+            for (Part part : product.getAllAssociatedParts()) {
+                totals.merge(part.getId(), (long) product.getAssociatedPartQuantity(part), Math::addExact);
+            }
+            for (int i = 0; i < subAssemblies.size(); i++) {
+                long quantity = product.getSubAssemblyQuantity(subAssemblies.get(i));
+                for (Map.Entry<Integer, Long> entry : subRollups.get(i).join().entrySet()) {
+                    totals.merge(entry.getKey(), Math.multiplyExact(entry.getValue(), quantity), Math::addExact);
+                }
+            }
+            return totals;
+        }
+    }
+}
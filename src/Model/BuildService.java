@@ -0,0 +1,411 @@
+package Model;
+
+import Util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Build (kitting) transactions, turning associated part stock into product stock.
+ * A build of N units takes N times each associated part quantity and each sub-assembly quantity from stock
+ * and adds N to the product stock, all or nothing. Every item in the build is locked first, always in the same order
+ * (parts before products, then by id), so builds sharing parts wait for each other instead of deadlocking.
+ * Inside the locks the parts are reserved through the StockLedger one by one, a refused reservation releases the ones
+ * before it and the build fails with nothing changed. Then the product stock is received and the reservations consumed.
+ * Reservations are not tied to the build, another ledger user releasing them or a replaced part cutting them can leave
+ * less reserved than the build consumes. The build is then rolled back (the product receipt reversed, the parts already
+ * consumed adjusted back and the rest released) and reported as RESERVATION_LOST.
+ * The ledger's min and max rules apply, a build may not take a part below min or the product above max.
+ * Other ledger users do not take the locks, they only ever see the parts reserved and then consumed.
+ * Batch builds run every order as its own transaction, in order or on an executor, and report their throughput.
+ * Use a ConcurrentInventory when builds run on several threads.
+ * @author Andrew Burk
+ */
+public class BuildService {
+
+    /**
+     * Outcome of one build.
+     */
+    public enum Status {
+        /** The product was built. */
+        BUILT,
+        /** A part or sub-assembly does not have the stock, see getShortItem. */
+        SHORT_OF_STOCK,
+        /** The product stock would go above max. */
+        OVER_MAX,
+        /** The product has no associated parts or sub-assemblies. */
+        NOTHING_TO_BUILD_FROM,
+        /** The product is not in the Inventory. */
+        NOT_IN_INVENTORY,
+        /** Stock reserved for the build was taken before it was consumed, the build was rolled back, see getShortItem. */
+        RESERVATION_LOST
+    }
+
+    private final Inventory inv;
+    private final StockLedger ledger;
+    //One lock per item, parts and products keyed apart like the ledger counters.
+    private final ConcurrentHashMap<Long, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram buildTimes = new LatencyHistogram("build");
+    private final LongAdder built = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder unitsBuilt = new LongAdder();
+
+    /**
+     * Constructor for BuildService - Called when new BuildService object is created.
+     * @param inv the Inventory holding the parts and products, its StockLedger moves the stock
+     */
+    public BuildService(Inventory inv) {
+        this.inv = inv;
+        this.ledger = inv.getStockLedger();
+    }
+
+    /**
+     * @param product the product to build
+     * @param units units to build
+     * @return what happened, BUILT if the stock was moved
+     * @throws ArithmeticException a quantity times the units does not fit in an int
+     */
+    public BuildResult build(Product product, int units) {
+        if (units < 1) {
+            throw new IllegalArgumentException("Units must be at least 1");
+        }
+        long start = System.nanoTime();
+        BuildResult result = buildLocked(new BuildOrder(product, units));
+        buildTimes.recordSince(start);
+        if (result.getStatus() == Status.BUILT) {
+            built.increment();
+            unitsBuilt.add(units);
+        } else {
+            failed.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Builds each order in turn, each one all or nothing on its own.
+     * @param orders the products and units to build
+     * @return the result of each order and the batch throughput
+     */
+    public BatchResult buildAll(List<BuildOrder> orders) {
+        long start = System.nanoTime();
+        List<BuildResult> results = new ArrayList<>(orders.size());
+        for (BuildOrder order : orders) {
+            results.add(build(order.getProduct(), order.getUnits()));
+        }
+        return new BatchResult(results, System.nanoTime() - start);
+    }
+
+    /**
+     * Builds the orders on an executor, each one all or nothing on its own.
+     * Orders sharing parts are kept apart by the item locks, others run at the same time.
+     * @param orders the products and units to build
+     * @param executor runs the builds
+     * @return the result of each order, in order, and the batch throughput
+     * @throws InterruptedException interrupted while waiting for the builds
+     */
+    public BatchResult buildAll(List<BuildOrder> orders, ExecutorService executor) throws InterruptedException {
+        long start = System.nanoTime();
+        List<Callable<BuildResult>> builds = new ArrayList<>(orders.size());
+        for (BuildOrder order : orders) {
+            builds.add(() -> build(order.getProduct(), order.getUnits()));
+        }
+        List<BuildResult> results = new ArrayList<>(orders.size());
+        for (Future<BuildResult> future : executor.invokeAll(builds)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Build failed", e.getCause());
+            }
+        }
+        return new BatchResult(results, System.nanoTime() - start);
+    }
+
+    /**
+     * @return time taken by each build, successful or not
+     */
+    public LatencyHistogram getBuildTimes() {
+        return buildTimes;
+    }
+
+    /**
+     * @return number of builds that moved stock
+     */
+    public long getBuiltCount() {
+        return built.sum();
+    }
+
+    /**
+     * @return number of builds refused
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * @return product units built in total
+     */
+    public long getUnitsBuilt() {
+        return unitsBuilt.sum();
+    }
+
+    private BuildResult buildLocked(BuildOrder order) {
+        Product product = inv.lookupProduct(order.getProduct().getId());
+        if (product == null) {
+            return new BuildResult(order, Status.NOT_IN_INVENTORY, null);
+        }
+        //Stock needed, in lock order.
+        TreeMap<Long, Integer> needed = new TreeMap<>();
+        TreeMap<Long, StockItem> items = new TreeMap<>();
+        for (Part part : product.getAllAssociatedParts()) {
+            long key = keyOf(part);
+            needed.merge(key, Math.multiplyExact(product.getAssociatedPartQuantity(part), order.getUnits()), Math::addExact);
+            items.put(key, part);
+        }
+        for (Product subAssembly : product.getAllSubAssemblies()) {
+            long key = keyOf(subAssembly);
+            needed.put(key, Math.multiplyExact(product.getSubAssemblyQuantity(subAssembly), order.getUnits()));
+            items.put(key, subAssembly);
+        }
+        if (needed.isEmpty()) {
+            return new BuildResult(order, Status.NOTHING_TO_BUILD_FROM, null);
+        }
+
+        List<Long> lockOrder = new ArrayList<>(needed.keySet());
+        lockOrder.add(keyOf(product));
+        Collections.sort(lockOrder);
+        List<ReentrantLock> held = new ArrayList<>(lockOrder.size());
+        for (Long key : lockOrder) {
+            ReentrantLock lock = locks.computeIfAbsent(key, k -> new ReentrantLock());
+            lock.lock();
+            held.add(lock);
+        }
+        try {
+            String reference = "Build " + product.getId() + " x" + order.getUnits();
+            List<StockItem> reserved = new ArrayList<>(needed.size());
+            for (Long key : needed.keySet()) {
+                StockItem item = current(items.get(key));
+                if (item == null || !ledger.reserve(item, needed.get(key), reference)) {
+                    release(reserved, needed, reference);
+                    return new BuildResult(order, Status.SHORT_OF_STOCK, item != null ? item : items.get(key));
+                }
+                reserved.add(item);
+            }
+            if (!ledger.receive(product, order.getUnits(), reference)) {
+                release(reserved, needed, reference);
+                return new BuildResult(order, Status.OVER_MAX, null);
+            }
+            for (int i = 0; i < reserved.size(); i++) {
+                StockItem item = reserved.get(i);
+                if (!ledger.consume(item, needed.get(keyOf(item)), reference)) {
+                    rollBack(product, order.getUnits(), reserved, i, needed, reference);
+                    return new BuildResult(order, Status.RESERVATION_LOST, item);
+                }
+            }
+            return new BuildResult(order, Status.BUILT, null);
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * Undoes a build whose consumption was refused part way, the items before the refused one were consumed.
+     * @throws IllegalStateException the ledger refused to undo a step, the stock no longer adds up
+     */
+    private void rollBack(Product product, int units, List<StockItem> reserved, int refused,
+                          TreeMap<Long, Integer> needed, String reference) {
+        String undo = reference + " rolled back";
+        boolean undone = ledger.adjust(product, -units, undo);
+        for (int i = 0; i < reserved.size(); i++) {
+            StockItem item = reserved.get(i);
+            int quantity = needed.get(keyOf(item));
+            if (i < refused) {
+                undone &= ledger.adjust(item, quantity, undo);
+            } else if (i > refused) {
+                undone &= ledger.release(item, quantity, undo);
+            } else {
+                //Less than the build's share is still reserved, all of it is the build's.
+                int left = Math.min(quantity, ledger.getReserved(item));
+                if (left > 0) {
+                    undone &= ledger.release(item, left, undo);
+                }
+            }
+        }
+        if (!undone) {
+            throw new IllegalStateException(reference + " lost a reservation and could not be fully rolled back");
+        }
+    }
+
+    private void release(List<StockItem> reserved, TreeMap<Long, Integer> needed, String reference) {
+        for (StockItem item : reserved) {
+            ledger.release(item, needed.get(keyOf(item)), reference);
+        }
+    }
+
+    /**
+     * @return the Inventory's part or product with the item's id, or null if it was deleted
+     */
+    private StockItem current(StockItem item) {
+        return item instanceof Product ? inv.lookupProduct(item.getId()) : inv.lookupPart(item.getId());
+    }
+
+    private static long keyOf(StockItem item) {
+        return (item instanceof Product ? 1L << 32 : 0L) | (item.getId() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A product and the units of it to build.
+     */
+    public static final class BuildOrder {
+        private final Product product;
+        private final int units;
+
+        /**
+         * Constructor for BuildOrder - Called when new BuildOrder object is created.
+         * @param product the product to build
+         * @param units units to build, at least 1
+         */
+        public BuildOrder(Product product, int units) {
+            if (units < 1) {
+                throw new IllegalArgumentException("Units must be at least 1");
+            }
+            this.product = product;
+            this.units = units;
+        }
+
+        /**
+         * @return the product to build
+         */
+        public Product getProduct() {
+            return product;
+        }
+
+        /**
+         * @return units to build
+         */
+        public int getUnits() {
+            return units;
+        }
+    }
+
+    /**
+     * Outcome of one build order.
+     */
+    public static final class BuildResult {
+        private final BuildOrder order;
+        private final Status status;
+        private final StockItem shortItem;
+
+        private BuildResult(BuildOrder order, Status status, StockItem shortItem) {
+            this.order = order;
+            this.status = status;
+            this.shortItem = shortItem;
+        }
+
+        /**
+         * @return the order built or refused
+         */
+        public BuildOrder getOrder() {
+            return order;
+        }
+
+        /**
+         * @return what happened
+         */
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the part or sub-assembly without the stock when SHORT_OF_STOCK or RESERVATION_LOST, otherwise null
+         */
+        public StockItem getShortItem() {
+            return shortItem;
+        }
+    }
+
+    /**
+     * Results and throughput of a batch build.
+     */
+    public static final class BatchResult {
+        private final List<BuildResult> results;
+        private final long elapsedNanos;
+        private final int builtCount;
+        private final long unitsBuilt;
+
+        private BatchResult(List<BuildResult> results, long elapsedNanos) {
+            this.results = Collections.unmodifiableList(results);
+            this.elapsedNanos = elapsedNanos;
+            int count = 0;
+            long units = 0;
+            for (BuildResult result : results) {
+                if (result.getStatus() == Status.BUILT) {
+                    count++;
+                    units += result.getOrder().getUnits();
+                }
+            }
+            this.builtCount = count;
+            this.unitsBuilt = units;
+        }
+
+        /**
+         * @return the result of each order, in order
+         */
+        public List<BuildResult> getResults() {
+            return results;
+        }
+
+        /**
+         * @return orders built
+         */
+        public int getBuiltCount() {
+            return builtCount;
+        }
+
+        /**
+         * @return orders refused
+         */
+        public int getFailedCount() {
+            return results.size() - builtCount;
+        }
+
+        /**
+         * @return product units built
+         */
+        public long getUnitsBuilt() {
+            return unitsBuilt;
+        }
+
+        /**
+         * @return time taken by the whole batch
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return orders processed per second, built or not
+         */
+        public double getOrdersPerSecond() {
+            return elapsedNanos == 0 ? 0 : results.size() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return product units built per second
+         */
+        public double getUnitsPerSecond() {
+            return elapsedNanos == 0 ? 0 : unitsBuilt * 1e9 / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Buildable quantity and shortage calculator.
+ * Keeps, for every product, how many units can be built from the current part stock and which part runs out first.
+ * All products are computed once when the calculator is created, after that each change only touches
+ * the products it affects: a part stock change visits the products using the part through the Inventory
+ * where-used index, and in most cases is settled by comparing the part against the product's bottleneck
+ * without looking at the other parts. Association changes recompute only their product.
+ * Parts are read from the Inventory by id, a deleted part counts as no stock.
+ * Only associated parts are counted, sub-assemblies are not (see BomExplosion for the full part list).
+ * Results are immutable and may be read from any thread, changes are made on the thread changing the Inventory.
+ * @author Andrew Burk
+ */
+public class BuildabilityCalculator implements InventoryListener {
+    /** Buildable units of a product with no associated parts, nothing limits it. */
+    public static final int NO_PARTS = -1;
+
+    private final Inventory inv;
+    //Parts needed per unit of each product, by product id.
+    private final IntObjectHashMap<Requirement> requirements = new IntObjectHashMap<>();
+    private final ConcurrentHashMap<Integer, Buildability> results = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for BuildabilityCalculator - Called when new BuildabilityCalculator object is created.
+     * Computes every product and listens to the Inventory until closed.
+     * @param inv the Inventory holding the parts and products
+     */
+    public BuildabilityCalculator(Inventory inv) {
+        this(inv, inv.getAllProducts());
+    }
+
+    /**
+     * Constructor for BuildabilityCalculator - Used by the Inventory, which passes its own product list.
+     * @param inv the Inventory holding the parts and products
+     * @param products every product in the Inventory
+     */
+    BuildabilityCalculator(Inventory inv, List<Product> products) {
+        this.inv = inv;
+        for (Product product : products) {
+            productAdded(product);
+        }
+        inv.addListener(this);
+    }
+
+    /**
+     * @param productId the product id
+     * @return the buildable units and bottleneck of the product, or null if it is not in the Inventory
+     */
+    public Buildability getBuildability(int productId) {
+        return results.get(productId);
+    }
+
+    /**
+     * @param productId the product id
+     * @return units of the product that can be built from the current stock, NO_PARTS if it has no parts,
+     * or 0 if it is not in the Inventory
+     */
+    public int getBuildableUnits(int productId) {
+        Buildability result = results.get(productId);
+        return result == null ? 0 : result.getUnits();
+    }
+
+    /**
+     * @param productId the product id
+     * @param units units of the product wanted
+     * @return part id to the stock missing to build them, in part id order, empty if they can be built
+     */
+    public Map<Integer, Integer> getShortages(int productId, int units) {
+        Map<Integer, Integer> shortages = new TreeMap<>();
+        Requirement required = requirements.get(productId);
+        if (required == null) {
+            return shortages;
+        }
+        for (int i = 0; i < required.partIds.length; i++) {
+            long missing = (long) required.quantities[i] * units - stockOf(required.partIds[i]);
+            if (missing > 0) {
+                shortages.put(required.partIds[i], (int) Math.min(missing, Integer.MAX_VALUE));
+            }
+        }
+        return shortages;
+    }
+
+    /**
+     * Stops listening to the Inventory.
+     */
+    public void close() {
+        inv.removeListener(this);
+    }
+
+    @Override
+    public void partAdded(Part part) {
+        stockChanged(part.getId(), part.getStock());
+    }
+
+    @Override
+    public void partUpdated(Part oldPart, Part newPart) {
+        if (oldPart.getId() != newPart.getId()) {
+            stockChanged(oldPart.getId(), 0);
+        }
+        stockChanged(newPart.getId(), newPart.getStock());
+    }
+
+    @Override
+    public void partDeleted(Part part) {
+        stockChanged(part.getId(), 0);
+    }
+
+    @Override
+    public void stockChanged(StockItem item, int oldStock, int newStock) {
+        if (item instanceof Part) {
+            stockChanged(item.getId(), newStock);
+        }
+    }
+
+    @Override
+    public void productAdded(Product product) {
+        Requirement required = new Requirement(product);
+        requirements.put(product.getId(), required);
+        results.put(product.getId(), compute(product.getId(), required, 0, 0, false));
+    }
+
+    @Override
+    public void productUpdated(Product oldProduct, Product newProduct) {
+        productDeleted(oldProduct);
+        productAdded(newProduct);
+    }
+
+    @Override
+    public void productDeleted(Product product) {
+        requirements.remove(product.getId());
+        results.remove(product.getId());
+    }
+
+    @Override
+    public void associatedPartAdded(Product product, Part part) {
+        associationsChanged(product);
+    }
+
+    @Override
+    public void associatedPartDeleted(Product product, Part part) {
+        associationsChanged(product);
+    }
+
+    @Override
+    public void associatedPartQuantityChanged(Product product, Part part, int quantity) {
+        associationsChanged(product);
+    }
+
+    private void associationsChanged(Product product) {
+        if (inv.lookupProduct(product.getId()) == product) {
+            productAdded(product);
+        }
+    }
+
+    /**
+     * Updates the products using a part after its stock changed.
+     * The part lowering a product below its buildable units becomes the bottleneck, a part that is not the bottleneck
+     * going up changes nothing, only the bottleneck going up needs the product's other parts checked again.
+     */
+    private void stockChanged(int partId, int stock) {
+        for (Product product : inv.lookupProductsUsingPart(partId)) {
+            Requirement required = requirements.get(product.getId());
+            Buildability current = results.get(product.getId());
+            if (required == null || current == null) {
+                continue;
+            }
+            int quantity = required.quantityOf(partId);
+            if (quantity == 0) {
+                continue;
+            }
+            int units = unitsFrom(stock, quantity);
+            if (current.getBottleneckPartId() == partId) {
+                if (units <= current.getUnits()) {
+                    results.put(product.getId(), new Buildability(product.getId(), units, partId));
+                } else {
+                    results.put(product.getId(), compute(product.getId(), required, partId, stock, true));
+                }
+            } else if (units < current.getUnits()) {
+                results.put(product.getId(), new Buildability(product.getId(), units, partId));
+            }
+        }
+    }
+
+    /**
+     * Full computation of one product, the lowest units over its parts.
+     * @param overrideId a part whose stock is given instead of read from the Inventory, which may not have caught up yet
+     */
+    private Buildability compute(int productId, Requirement required, int overrideId, int overrideStock, boolean override) {
+        int bestUnits = NO_PARTS;
+        int bottleneck = NO_PARTS;
+        for (int i = 0; i < required.partIds.length; i++) {
+            int partId = required.partIds[i];
+            int stock = override && partId == overrideId ? overrideStock : stockOf(partId);
+            int units = unitsFrom(stock, required.quantities[i]);
+            if (bestUnits == NO_PARTS || units < bestUnits) {
+                bestUnits = units;
+                bottleneck = partId;
+            }
+        }
+        return new Buildability(productId, bestUnits, bottleneck);
+    }
+
+    private int stockOf(int partId) {
+        Part part = inv.lookupPart(partId);
+        return part == null ? 0 : Math.max(part.getStock(), 0);
+    }
+
+    private static int unitsFrom(int stock, int quantity) {
+        return Math.max(stock, 0) / quantity;
+    }
+
+    /**
+     * Part ids and the quantity of each needed per product unit, summed over repeated associations.
+     */
+    private static final class Requirement {
+        private final int[] partIds;
+        private final int[] quantities;
+        private final IntIntHashMap slots;
+
+        private Requirement(Product product) {
+            List<Part> parts = product.getAllAssociatedParts();
+            slots = new IntIntHashMap(parts.size());
+            int[] ids = new int[parts.size()];
+            int[] needed = new int[parts.size()];
+            int count = 0;
+            for (Part part : parts) {
+                int slot = slots.get(part.getId());
+                if (slot == IntIntHashMap.NOT_FOUND) {
+                    slot = count++;
+                    slots.put(part.getId(), slot);
+                    ids[slot] = part.getId();
+                }
+                needed[slot] += product.getAssociatedPartQuantity(part);
+            }
+            partIds = Arrays.copyOf(ids, count);
+            quantities = Arrays.copyOf(needed, count);
+        }
+
+        /**
+         * @return quantity of the part needed per unit, 0 if the product does not use it
+         */
+        private int quantityOf(int partId) {
+            int slot = slots.get(partId);
+            return slot == IntIntHashMap.NOT_FOUND ? 0 : quantities[slot];
+        }
+    }
+
+    /**
+     * Buildable units of one product and the part limiting them.
+     */
+    public static final class Buildability {
+        private final int productId;
+        private final int units;
+        private final int bottleneckPartId;
+
+        private Buildability(int productId, int units, int bottleneckPartId) {
+            this.productId = productId;
+            this.units = units;
+            this.bottleneckPartId = bottleneckPartId;
+        }
+
+        /**
+         * @return the product id
+         */
+        public int getProductId() {
+            return productId;
+        }
+
+        /**
+         * @return units that can be built from the current stock, or NO_PARTS
+         */
+        public int getUnits() {
+            return units;
+        }
+
+        /**
+         * @return id of the part running out first, or NO_PARTS
+         */
+        public int getBottleneckPartId() {
+            return bottleneckPartId;
+        }
+    }
+}
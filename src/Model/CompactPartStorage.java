@@ -0,0 +1,426 @@
+package Model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Part storage keeping the part fields in primitive arrays, one slot per record, instead of one object per part.
+ * Company names are kept once in a dictionary and each record holds its code, the machine id of an in house part
+ * lives in the same column. The only objects held per part are the name strings.
+ * get returns a flyweight InHouse or Outsourced reading and writing its record, created on each call and
+ * equal to every other flyweight of the same record. A part added from outside is copied into a new record,
+ * the Inventory then holds the copy (see holds). Use with new Inventory(PartStorage).
+ * Replaced and removed records are not reused, so flyweights of old parts still read what the part held,
+ * as an old Part object would. Not thread safe, like ArrayList.
+ * @author Andrew Burk
+ */
+public class CompactPartStorage extends AbstractList<Part> implements PartStorage, RandomAccess {
+    //Company code of an outsourced part without a company name.
+    private static final int NO_COMPANY = -1;
+
+    //Record columns.
+    private int[] ids;
+    private String[] names;
+    private double[] prices;
+    private int[] stocks;
+    private int[] mins;
+    private int[] maxes;
+    //Machine id of an in house part, company code of an outsourced part.
+    private int[] details;
+    private final BitSet outsourced = new BitSet();
+    private int records;
+
+    //List index to record.
+    private int[] order;
+    private int size;
+
+    private final List<String> companies = new ArrayList<>();
+    private final Map<String, Integer> companyCodes = new HashMap<>();
+
+    /**
+     * Constructor for CompactPartStorage - Called when new CompactPartStorage object is created.
+     */
+    public CompactPartStorage() {
+        this(16);
+    }
+
+    /**
+     * Constructor for CompactPartStorage - Sized for a known number of parts.
+     * @param expectedSize number of parts to hold without growing
+     */
+    public CompactPartStorage(int expectedSize) {
+        int capacity = Math.max(expectedSize, 16);
+        ids = new int[capacity];
+        names = new String[capacity];
+        prices = new double[capacity];
+        stocks = new int[capacity];
+        mins = new int[capacity];
+        maxes = new int[capacity];
+        details = new int[capacity];
+        order = new int[capacity];
+    }
+
+    @Override
+    public Part get(int index) {
+        int record = recordAt(index);
+        return outsourced.get(record) ? new OutsourcedRow(record) : new InHouseRow(record);
+    }
+
+    @Override
+    public int idAt(int index) {
+        return ids[recordAt(index)];
+    }
+
+    @Override
+    public String nameAt(int index) {
+        return names[recordAt(index)];
+    }
+
+    @Override
+    public int stockAt(int index) {
+        return stocks[recordAt(index)];
+    }
+
+    @Override
+    public double priceAt(int index) {
+        return prices[recordAt(index)];
+    }
+
+    /**
+     * A part matches its own flyweights, and a part from outside matches a record holding the same fields,
+     * so the Inventory still finds a part it was given after copying it in.
+     * @param index list index
+     * @param part the part to look for
+     * @return true:false if the part at the index is the part
+     */
+    @Override
+    public boolean holds(int index, Part part) {
+        int record = recordAt(index);
+        if (part instanceof InHouseRow) {
+            return ((InHouseRow) part).storage() == this && ((InHouseRow) part).record == record;
+        }
+        if (part instanceof OutsourcedRow) {
+            return ((OutsourcedRow) part).storage() == this && ((OutsourcedRow) part).record == record;
+        }
+        if (ids[record] != part.getId() || prices[record] != part.getPrice() || stocks[record] != part.getStock()
+                || mins[record] != part.getMin() || maxes[record] != part.getMax() || !sameName(names[record], part.getName())) {
+            return false;
+        }
+        if (part instanceof Outsourced) {
+            return outsourced.get(record) && sameName(companyName(record), ((Outsourced) part).getCompanyName());
+        }
+        return !outsourced.get(record) && part instanceof InHouse && details[record] == ((InHouse) part).getMachineId();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Part set(int index, Part part) {
+        Part old = get(index);
+        order[index] = store(part);
+        return old;
+    }
+
+    @Override
+    public void add(int index, Part part) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int record = store(part);
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size + (size >> 1));
+        }
+        System.arraycopy(order, index, order, index + 1, size - index);
+        order[index] = record;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Part remove(int index) {
+        Part old = get(index);
+        System.arraycopy(order, index + 1, order, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return number of distinct company names held
+     */
+    public int getCompanyCount() {
+        return companies.size();
+    }
+
+    /**
+     * @return number of records held, including those of replaced and removed parts
+     */
+    public int getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Copies a part into a new record.
+     */
+    private int store(Part part) {
+        if (records == ids.length) {
+            int capacity = records + (records >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            stocks = Arrays.copyOf(stocks, capacity);
+            mins = Arrays.copyOf(mins, capacity);
+            maxes = Arrays.copyOf(maxes, capacity);
+            details = Arrays.copyOf(details, capacity);
+        }
+        int record = records++;
+        ids[record] = part.getId();
+        names[record] = part.getName();
+        prices[record] = part.getPrice();
+        stocks[record] = part.getStock();
+        mins[record] = part.getMin();
+        maxes[record] = part.getMax();
+        if (part instanceof Outsourced) {
+            outsourced.set(record);
+            details[record] = companyCode(((Outsourced) part).getCompanyName());
+        } else {
+            details[record] = part instanceof InHouse ? ((InHouse) part).getMachineId() : 0;
+        }
+        return record;
+    }
+
+    private int companyCode(String companyName) {
+        if (companyName == null) {
+            return NO_COMPANY;
+        }
+        Integer code = companyCodes.get(companyName);
+        if (code == null) {
+            code = companies.size();
+            companies.add(companyName);
+            companyCodes.put(companyName, code);
+        }
+        return code;
+    }
+
+    private String companyName(int record) {
+        return details[record] == NO_COMPANY ? null : companies.get(details[record]);
+    }
+
+    private int recordAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return order[index];
+    }
+
+    private static boolean sameName(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Flyweight in house part over one record. The fields inherited from Part are not used.
+     */
+    private final class InHouseRow extends InHouse {
+        private final int record;
+
+        private InHouseRow(int record) {
+            super(0, null, 0, 0, 0, 0, 0);
+            this.record = record;
+        }
+
+        private CompactPartStorage storage() {
+            return CompactPartStorage.this;
+        }
+
+        @Override
+        public int getId() {
+            return ids[record];
+        }
+
+        @Override
+        public void setId(int id) {
+            ids[record] = id;
+        }
+
+        @Override
+        public String getName() {
+            return names[record];
+        }
+
+        @Override
+        public void setName(String name) {
+            names[record] = name;
+        }
+
+        @Override
+        public double getPrice() {
+            return prices[record];
+        }
+
+        @Override
+        public void setPrice(double price) {
+            prices[record] = price;
+        }
+
+        @Override
+        public int getStock() {
+            return stocks[record];
+        }
+
+        @Override
+        public void setStock(int stock) {
+            stocks[record] = stock;
+        }
+
+        @Override
+        public int getMin() {
+            return mins[record];
+        }
+
+        @Override
+        public void setMin(int min) {
+            mins[record] = min;
+        }
+
+        @Override
+        public int getMax() {
+            return maxes[record];
+        }
+
+        @Override
+        public void setMax(int max) {
+            maxes[record] = max;
+        }
+
+        @Override
+        public int getMachineId() {
+            return details[record];
+        }
+
+        @Override
+        public void setMachineID(int machineId) {
+            details[record] = machineId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof InHouseRow && ((InHouseRow) o).storage() == storage() && ((InHouseRow) o).record == record;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(storage()) * 31 + record;
+        }
+    }
+
+    /**
+     * Flyweight outsourced part over one record. The fields inherited from Part are not used.
+     */
+    private final class OutsourcedRow extends Outsourced {
+        private final int record;
+
+        private OutsourcedRow(int record) {
+            super(0, null, 0, 0, 0, 0, null);
+            this.record = record;
+        }
+
+        private CompactPartStorage storage() {
+            return CompactPartStorage.this;
+        }
+
+        @Override
+        public int getId() {
+            return ids[record];
+        }
+
+        @Override
+        public void setId(int id) {
+            ids[record] = id;
+        }
+
+        @Override
+        public String getName() {
+            return names[record];
+        }
+
+        @Override
+        public void setName(String name) {
+            names[record] = name;
+        }
+
+        @Override
+        public double getPrice() {
+            return prices[record];
+        }
+
+        @Override
+        public void setPrice(double price) {
+            prices[record] = price;
+        }
+
+        @Override
+        public int getStock() {
+            return stocks[record];
+        }
+
+        @Override
+        public void setStock(int stock) {
+            stocks[record] = stock;
+        }
+
+        @Override
+        public int getMin() {
+            return mins[record];
+        }
+
+        @Override
+        public void setMin(int min) {
+            mins[record] = min;
+        }
+
+        @Override
+        public int getMax() {
+            return maxes[record];
+        }
+
+        @Override
+        public void setMax(int max) {
+            maxes[record] = max;
+        }
+
+        @Override
+        public String getCompanyName() {
+            return companyName(record);
+        }
+
+        @Override
+        public void setCompanyName(String companyName) {
+            details[record] = companyCode(companyName);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof OutsourcedRow && ((OutsourcedRow) o).storage() == storage() && ((OutsourcedRow) o).record == record;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(storage()) * 31 + record;
+        }
+    }
+}
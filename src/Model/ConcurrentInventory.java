@@ -0,0 +1,708 @@
+package Model;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Thread safe Inventory for importers, servers and background jobs changing it at the same time.
+ * Id lookups are lock free, they read concurrent id maps kept in step with every change.
+ * Every change runs under one write lock, the lists, slot indexes and name indexes are shared by all ids,
+ * so striping the lock by id would not let two changes run at once. Name searches and snapshots
+ * take the read lock and run alongside each other. A batch holds the write lock throughout,
+ * so other threads see all of its changes or none of them.
+ * getAllParts and getAllProducts return views for the UI that are only changed on the UI thread
+ * (Platform.runLater by default), several changes in a row reach the view as one list change.
+ * Background threads read the lists through snapshot instead, or search the views through searchPartSlots and searchProductSlots.
+ * Association changes made on an owned Product also take the write lock.
+ * @author Andrew Burk
+ */
+public class ConcurrentInventory extends Inventory {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    private final ConcurrentHashMap<Integer, Part> partsById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Product> productsById = new ConcurrentHashMap<>();
+
+    //UI views, replayed from the change events on the UI executor.
+    private final Executor uiExecutor;
+    private final InventoryList<Part> partView = new InventoryList<>();
+    private final InventoryList<Product> productView = new InventoryList<>();
+    //Id to view slot indexes, like the Inventory slot indexes but only used on the UI executor.
+    private final SlotIndex<Part> partViewSlots = new SlotIndex<>(Part::getId);
+    private final SlotIndex<Product> productViewSlots = new SlotIndex<>(Product::getId);
+    private final Queue<Runnable> pendingViewChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean viewUpdateScheduled = new AtomicBoolean();
+    //Held for writing while the UI views change, for reading by background searches of the views.
+    private final ReentrantReadWriteLock viewLock = new ReentrantReadWriteLock();
+    private final AtomicInteger partViewChanges = new AtomicInteger();
+    private final AtomicInteger productViewChanges = new AtomicInteger();
+
+    /**
+     * Constructor for ConcurrentInventory - The UI views are updated on the JavaFX Application Thread.
+     */
+    public ConcurrentInventory(){
+        this(Platform::runLater);
+    }
+
+    /**
+     * Constructor for ConcurrentInventory - Called when new ConcurrentInventory object is created.
+     * @param uiExecutor runs the UI view updates, one at a time and in order
+     */
+    public ConcurrentInventory(Executor uiExecutor){
+        this.uiExecutor = uiExecutor;
+        super.addListener(new ViewUpdater());
+    }
+
+    @Override
+    public void addPart(Part newPart){
+        writeLock.lock();
+        try {
+            super.addPart(newPart);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void addParts(Collection<? extends Part> newParts){
+        writeLock.lock();
+        try {
+            super.addParts(newParts);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void addProduct(Product newProduct){
+        writeLock.lock();
+        try {
+            super.addProduct(newProduct);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void addProducts(Collection<? extends Product> newProducts){
+        writeLock.lock();
+        try {
+            super.addProducts(newProducts);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Lock free, never waits for a writer.
+     * @param partId the part id to lookup
+     * @return the Part object
+     */
+    @Override
+    public Part lookupPart(int partId){
+        return partsById.get(partId);
+    }
+
+    @Override
+    public ObservableList<Part> lookupPart(String partName, boolean ignoreCase, boolean prefixOnly) {
+        readLock.lock();
+        try {
+            return super.lookupPart(partName, ignoreCase, prefixOnly);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Lock free, never waits for a writer.
+     * @param productId the product id to lookup
+     * @return the Product object
+     */
+    @Override
+    public Product lookupProduct(int productId){
+        return productsById.get(productId);
+    }
+
+    @Override
+    public ObservableList<Product> lookupProduct(String productName, boolean ignoreCase, boolean prefixOnly) {
+        readLock.lock();
+        try {
+            return super.lookupProduct(productName, ignoreCase, prefixOnly);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void updatePart(int index, Part selectedPart){
+        writeLock.lock();
+        try {
+            super.updatePart(index, selectedPart);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean replacePart(int partId, Part newPart){
+        writeLock.lock();
+        try {
+            return super.replacePart(partId, newPart);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void updateProduct(int index, Product selectedProduct){
+        writeLock.lock();
+        try {
+            super.updateProduct(index, selectedProduct);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean replaceProduct(int productId, Product newProduct){
+        writeLock.lock();
+        try {
+            return super.replaceProduct(productId, newProduct);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean deletePart(Part selectedPart) {
+        writeLock.lock();
+        try {
+            return super.deletePart(selectedPart);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteProduct(Product selectedProduct) {
+        writeLock.lock();
+        try {
+            return super.deleteProduct(selectedProduct);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Applies the changes atomically, other threads wait for the whole batch.
+     * Do not call from inside a read, the read lock cannot be upgraded.
+     * @param changes the changes to make, given this Inventory
+     */
+    @Override
+    public void batch(Consumer<Inventory> changes){
+        writeLock.lock();
+        try {
+            super.batch(changes);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Association and sub-assembly changes made on an owned Product run under the write lock,
+     * so they never overlap a search or snapshot.
+     */
+    @Override
+    boolean changeAssociations(BooleanSupplier change) {
+        writeLock.lock();
+        try {
+            return super.changeAssociations(change);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    void changeStock(StockItem item, IntSupplier latestStock) {
+        writeLock.lock();
+        try {
+            super.changeStock(item, latestStock);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Product> lookupProductsUsingPart(int partId){
+        readLock.lock();
+        try {
+            return super.lookupProductsUsingPart(partId);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isPartInUse(int partId){
+        readLock.lock();
+        try {
+            return super.isPartInUse(partId);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Computed under the write lock so no change lands while the products are first read.
+     */
+    @Override
+    public BuildabilityCalculator getBuildability(){
+        writeLock.lock();
+        try {
+            return super.getBuildability();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Filled under the write lock, see getBuildability. Its below min view is changed on the UI executor.
+     */
+    @Override
+    public ReorderMonitor getReorderMonitor(){
+        writeLock.lock();
+        try {
+            return super.getReorderMonitor();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Built under the write lock, the query streams then read the indexes without a lock, each walking the level it began on.
+     */
+    @Override
+    RangeIndex rangeIndex(){
+        writeLock.lock();
+        try {
+            return super.rangeIndex();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public StockLedger getStockLedger(){
+        writeLock.lock();
+        try {
+            return super.getStockLedger();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    Executor viewExecutor(){
+        return uiExecutor;
+    }
+
+    /**
+     * Answers for the UI view, so the slots match getAllParts, call it on the UI thread.
+     * The name search still goes through the index under the read lock.
+     */
+    @Override
+    public int[] queryPartSlots(String filter, InventoryColumn sortBy, boolean descending){
+        return queryView(partView, matchingParts(filter), sortBy, descending, SlotSorter.keysOf(partView, Part::getPrice));
+    }
+
+    /**
+     * Answers for the UI view, see queryPartSlots.
+     */
+    @Override
+    public int[] queryProductSlots(String filter, InventoryColumn sortBy, boolean descending){
+        return queryView(productView, matchingProducts(filter), sortBy, descending, SlotSorter.keysOf(productView, Product::getPrice));
+    }
+
+    /**
+     * Answers for the UI view from any thread. The matches are found under the read lock first,
+     * then placed in the view under the view lock, the two locks are never held together.
+     */
+    @Override
+    public SlotSearch searchPartSlots(String filter, InventoryColumn sortBy, boolean descending){
+        List<Part> matches = matchingParts(filter);
+        viewLock.readLock().lock();
+        try {
+            int[] slots = queryView(partView, matches, sortBy, descending, SlotSorter.keysOf(partView, Part::getPrice));
+            return new SlotSearch(slots, partViewChanges::get, partViewChanges.get());
+        } finally {
+            viewLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Answers for the UI view from any thread, see searchPartSlots.
+     */
+    @Override
+    public SlotSearch searchProductSlots(String filter, InventoryColumn sortBy, boolean descending){
+        List<Product> matches = matchingProducts(filter);
+        viewLock.readLock().lock();
+        try {
+            int[] slots = queryView(productView, matches, sortBy, descending, SlotSorter.keysOf(productView, Product::getPrice));
+            return new SlotSearch(slots, productViewChanges::get, productViewChanges.get());
+        } finally {
+            viewLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the parts matching a part id or name search, or null for every part
+     */
+    private List<Part> matchingParts(String filter) {
+        if (filter == null || filter.isEmpty()) {
+            return null;
+        }
+        if (isId(filter)) {
+            Part part = lookupPart(Integer.parseInt(filter));
+            return part == null ? Collections.emptyList() : Collections.singletonList(part);
+        }
+        List<Part> found = lookupPart(filter);
+        return found == null ? Collections.emptyList() : found;
+    }
+
+    /**
+     * @return the products matching a product id or name search, or null for every product
+     */
+    private List<Product> matchingProducts(String filter) {
+        if (filter == null || filter.isEmpty()) {
+            return null;
+        }
+        if (isId(filter)) {
+            Product product = lookupProduct(Integer.parseInt(filter));
+            return product == null ? Collections.emptyList() : Collections.singletonList(product);
+        }
+        List<Product> found = lookupProduct(filter);
+        return found == null ? Collections.emptyList() : found;
+    }
+
+    /**
+     * @param matches the matching items, or null for all of them
+     * @return view slots of the matches, sorted
+     */
+    private static <E> int[] queryView(List<E> view, List<E> matches, InventoryColumn sortBy, boolean descending, SlotSorter.Keys keys) {
+        int[] slots;
+        if (matches == null) {
+            slots = SlotSorter.allSlots(view.size());
+        } else {
+            Set<E> wanted = Collections.newSetFromMap(new IdentityHashMap<>());
+            wanted.addAll(matches);
+            int[] found = new int[matches.size()];
+            int count = 0;
+            for (int i = 0; i < view.size() && count < found.length; i++) {
+                if (wanted.contains(view.get(i))) {
+                    found[count++] = i;
+                }
+            }
+            slots = Arrays.copyOf(found, count);
+        }
+        if (sortBy != null) {
+            SlotSorter.sort(slots, sortBy, descending, keys);
+        }
+        return slots;
+    }
+
+    /**
+     * Copies both lists and every product's associations under the read lock, the copies always agree with each other.
+     * @return the parts and products as they are now
+     */
+    public Snapshot snapshot() {
+        readLock.lock();
+        try {
+            List<Product> products = new ArrayList<>(super.getAllProducts());
+            Map<Product, List<Part>> associatedParts = new IdentityHashMap<>(products.size());
+            Map<Product, List<Product>> subAssemblies = new IdentityHashMap<>(products.size());
+            for (Product product : products) {
+                associatedParts.put(product, Collections.unmodifiableList(new ArrayList<>(product.getAllAssociatedParts())));
+                subAssemblies.put(product, Collections.unmodifiableList(new ArrayList<>(product.getAllSubAssemblies())));
+            }
+            return new Snapshot(new ArrayList<>(super.getAllParts()), products, associatedParts, subAssemblies);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Copies one page of the parts under the read lock, the rest of the list is not copied.
+     * @param offset index of the first part of the page
+     * @param limit most parts on the page
+     * @return the page and the part count it was taken from
+     */
+    public Page<Part> pageOfParts(int offset, int limit) {
+        readLock.lock();
+        try {
+            return Page.of(super.getAllParts(), offset, limit);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Copies one page of the products under the read lock, the rest of the list is not copied.
+     * @param offset index of the first product of the page
+     * @param limit most products on the page
+     * @return the page and the product count it was taken from
+     */
+    public Page<Product> pageOfProducts(int offset, int limit) {
+        readLock.lock();
+        try {
+            return Page.of(super.getAllProducts(), offset, limit);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * UI view of the parts, only changed on the UI executor. Read from the UI thread only.
+     * @return list of all parts
+     */
+    @Override
+    public ObservableList<Part> getAllParts() {
+        return partView;
+    }
+
+    /**
+     * UI view of the products, only changed on the UI executor. Read from the UI thread only.
+     * @return list of all products
+     */
+    @Override
+    public ObservableList<Product> getAllProducts() {
+        return productView;
+    }
+
+    private void updateView(Runnable change) {
+        pendingViewChanges.add(change);
+        if (viewUpdateScheduled.compareAndSet(false, true)) {
+            uiExecutor.execute(this::applyViewChanges);
+        }
+    }
+
+    /**
+     * Runs on the UI executor, every change queued so far becomes one change per view.
+     */
+    private void applyViewChanges() {
+        viewUpdateScheduled.set(false);
+        viewLock.writeLock().lock();
+        try {
+            partView.beginBatch();
+            productView.beginBatch();
+            try {
+                Runnable change;
+                while ((change = pendingViewChanges.poll()) != null) {
+                    change.run();
+                }
+            } finally {
+                partViewChanges.incrementAndGet();
+                productViewChanges.incrementAndGet();
+                productView.endBatch();
+                partView.endBatch();
+            }
+        } finally {
+            viewLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The id maps follow the slot indexes, so duplicate ids resolve to the same object as in Inventory.
+     * Called under the write lock.
+     */
+    private void refreshPartId(int partId) {
+        Part part = super.lookupPart(partId);
+        if (part == null) {
+            partsById.remove(partId);
+        } else {
+            partsById.put(partId, part);
+        }
+    }
+
+    private void refreshProductId(int productId) {
+        Product product = super.lookupProduct(productId);
+        if (product == null) {
+            productsById.remove(productId);
+        } else {
+            productsById.put(productId, product);
+        }
+    }
+
+    /**
+     * Keeps the id maps and UI views in step, registered before any other listener.
+     * View slots are found through the view slot indexes instead of scanning the views.
+     */
+    private class ViewUpdater implements InventoryListener {
+        @Override
+        public void partAdded(Part part) {
+            refreshPartId(part.getId());
+            updateView(() -> {
+                partViewSlots.added(part.getId(), partView.size());
+                partView.add(part);
+            });
+        }
+
+        @Override
+        public void partUpdated(Part oldPart, Part newPart) {
+            refreshPartId(oldPart.getId());
+            refreshPartId(newPart.getId());
+            updateView(() -> replaceInView(partView, partViewSlots, oldPart, newPart, Part::getId));
+        }
+
+        @Override
+        public void partDeleted(Part part) {
+            refreshPartId(part.getId());
+            updateView(() -> removeFromView(partView, partViewSlots, part, Part::getId));
+        }
+
+        @Override
+        public void productAdded(Product product) {
+            refreshProductId(product.getId());
+            updateView(() -> {
+                productViewSlots.added(product.getId(), productView.size());
+                productView.add(product);
+            });
+        }
+
+        @Override
+        public void productUpdated(Product oldProduct, Product newProduct) {
+            refreshProductId(oldProduct.getId());
+            refreshProductId(newProduct.getId());
+            updateView(() -> replaceInView(productView, productViewSlots, oldProduct, newProduct, Product::getId));
+        }
+
+        @Override
+        public void productDeleted(Product product) {
+            refreshProductId(product.getId());
+            updateView(() -> removeFromView(productView, productViewSlots, product, Product::getId));
+        }
+
+        @Override
+        public void stockChanged(StockItem item, int oldStock, int newStock) {
+            //Stock is changed in place on the items the views share, searches sorted by stock may be out of order.
+            (item instanceof Product ? productViewChanges : partViewChanges).incrementAndGet();
+        }
+    }
+
+    private static <T> void replaceInView(List<T> view, SlotIndex<T> slots, T oldItem, T newItem, ToIntFunction<T> idOf) {
+        int slot = slots.find(view, oldItem);
+        view.set(slot, newItem);
+        slots.replaced(view, slot, idOf.applyAsInt(oldItem), idOf.applyAsInt(newItem));
+    }
+
+    private static <T> void removeFromView(List<T> view, SlotIndex<T> slots, T item, ToIntFunction<T> idOf) {
+        int slot = slots.find(view, item);
+        if (slot >= 0) {
+            view.remove(slot);
+            slots.removed(view, slot, idOf.applyAsInt(item));
+        }
+    }
+
+    /**
+     * Parts, products and product associations copied at the same moment.
+     */
+    public static class Snapshot {
+        private final List<Part> parts;
+        private final List<Product> products;
+        private final Map<Product, List<Part>> associatedParts;
+        private final Map<Product, List<Product>> subAssemblies;
+
+        private Snapshot(List<Part> parts, List<Product> products, Map<Product, List<Part>> associatedParts,
+                         Map<Product, List<Product>> subAssemblies) {
+            this.parts = Collections.unmodifiableList(parts);
+            this.products = Collections.unmodifiableList(products);
+            this.associatedParts = associatedParts;
+            this.subAssemblies = subAssemblies;
+        }
+
+        /**
+         * @return the parts
+         */
+        public List<Part> getParts() {
+            return parts;
+        }
+
+        /**
+         * @return the products, their own association lists are live, read them through this snapshot
+         */
+        public List<Product> getProducts() {
+            return products;
+        }
+
+        /**
+         * @param product a product of this snapshot
+         * @return its associated parts when the snapshot was taken, empty for any other product
+         */
+        public List<Part> getAssociatedParts(Product product) {
+            return associatedParts.getOrDefault(product, Collections.emptyList());
+        }
+
+        /**
+         * @param product a product of this snapshot
+         * @return its sub-assemblies when the snapshot was taken, empty for any other product
+         */
+        public List<Product> getSubAssemblies(Product product) {
+            return subAssemblies.getOrDefault(product, Collections.emptyList());
+        }
+    }
+
+    /**
+     * One page of a list and the size of the whole list, copied at the same moment.
+     * @param <E> the item type
+     */
+    public static class Page<E> {
+        private final int total;
+        private final List<E> items;
+
+        private Page(int total, List<E> items) {
+            this.total = total;
+            this.items = Collections.unmodifiableList(items);
+        }
+
+        private static <E> Page<E> of(List<E> list, int offset, int limit) {
+            int from = Math.min(list.size(), Math.max(0, offset));
+            int to = (int) Math.min(list.size(), (long) from + Math.max(0, limit));
+            return new Page<>(list.size(), new ArrayList<>(list.subList(from, to)));
+        }
+
+        /**
+         * @return the size of the whole list
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * @return the items of the page, in list order
+         */
+        public List<E> getItems() {
+            return items;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package Model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Object Class for IdSequence
+ * Hands out unique ids for new parts or products without scanning the inventory.
+ * The sequence is seeded from the ids already loaded (see observe) and is safe to share between threads.
+ * An InventoryStore keeps the last id in its snapshots and replays the ids of logged records,
+ * so the ids of deleted records are not handed out again after a restart either.
+ * Ids handed out but never stored in the Inventory may be.
+ * @author Andrew Burk
+ */
+public class IdSequence {
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    /**
+     * @return the next unused id
+     */
+    public int next() {
+        return lastId.incrementAndGet();
+    }
+
+    /**
+     * Reserves a block of consecutive ids, used by bulk importers.
+     * @param count number of ids to reserve
+     * @return the first id of the block, the block runs to first + count - 1
+     */
+    public int nextBlock(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1");
+        }
+        return lastId.getAndAdd(count) + 1;
+    }
+
+    /**
+     * Moves the sequence past an id that is already in use.
+     * Called for every record added to the Inventory, so loading existing data seeds the sequence.
+     * @param usedId an id already in use
+     */
+    public void observe(int usedId) {
+        lastId.accumulateAndGet(usedId, Math::max);
+    }
+
+    /**
+     * @return the last id handed out or observed
+     */
+    public int getLastId() {
+        return lastId.get();
+    }
+}
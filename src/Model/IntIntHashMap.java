@@ -0,0 +1,204 @@
+package Model;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Primitive int to int hash map used for the Inventory id to list slot indexes.
+ * Open addressing with linear probing and backward shift deletes, same layout as IntObjectHashMap.
+ * Values must not be negative, get returns -1 when a key is not found.
+ * @author Andrew Burk
+ */
+public class IntIntHashMap {
+    /** Returned by get when the key is not in the map. */
+    public static final int NOT_FOUND = -1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    /**
+     * Constructor for IntIntHashMap - Creates a map with the default capacity.
+     */
+    public IntIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for IntIntHashMap - Creates a map sized for the expected number of entries.
+     * @param expectedSize the number of entries expected
+     */
+    public IntIntHashMap(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR) + 1;
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < needed && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * @param key the key to lookup
+     * @return the value for the key, or NOT_FOUND
+     */
+    public int get(int key) {
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * @param key the key to lookup
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(int key) {
+        return get(key) != NOT_FOUND;
+    }
+
+    /**
+     * @param key the key to set
+     * @param value the value to set (not negative)
+     * @return the previous value, or NOT_FOUND
+     */
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative values are not allowed");
+        }
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * @param key the key to set
+     * @param value the value to set if the key is not already mapped
+     * @return the existing value, or NOT_FOUND if the value was added
+     */
+    public int putIfAbsent(int key, int value) {
+        int existing = get(key);
+        if (existing != NOT_FOUND) {
+            return existing;
+        }
+        put(key, value);
+        return NOT_FOUND;
+    }
+
+    /**
+     * @param key the key to remove
+     * @return the removed value, or NOT_FOUND
+     */
+    public int remove(int key) {
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                int value = values[slot];
+                deleteSlot(slot);
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Changes every value in place, the keys stay where they are.
+     * @param change gives the new value from the old one (not negative)
+     */
+    public void replaceValues(IntUnaryOperator change) {
+        for (int i = 0; i < used.length; i++) {
+            if (used[i]) {
+                int value = change.applyAsInt(values[i]);
+                if (value < 0) {
+                    throw new IllegalArgumentException("Negative values are not allowed");
+                }
+                values[i] = value;
+            }
+        }
+    }
+
+    /**
+     * Removes all entries, keeping the current capacity.
+     */
+    public void clear() {
+        java.util.Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private void deleteSlot(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            int home = hash(keys[next]) & mask;
+            //Entry may move into the gap only if the gap lies between its home slot and its current slot.
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+        size--;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(newCapacity);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
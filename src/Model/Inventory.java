@@ -3,6 +3,22 @@ package Model;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
 /**
  * Object Class for Inventory
  *
@@ -13,80 +29,369 @@ import javafx.collections.ObservableList;
  * class will extend the mySQL class to including saving
  * reading from a database for persistent data storage.
  *
+ * Persistent storage is now provided by Storage.InventoryStore,
+ * which records every change reported to InventoryListener.
+ *
  * @author Andrew Burk
  */
 
 public class Inventory {
 
-    private ObservableList<Part> allParts = FXCollections.observableArrayList();
-    private ObservableList<Product> allProducts = FXCollections.observableArrayList();
+    private InventoryList<Part> allParts;
+    //Set when the parts come from a PartStorage, read for sorting without creating parts.
+    private PartStorage partStorage;
+    private InventoryList<Product> allProducts = new InventoryList<>();
+
+    //Primary key indexes (id to list slot), kept in sync by the add, update and delete methods below.
+    private SlotIndex<Part> partSlots = new SlotIndex<>(Part::getId);
+    private SlotIndex<Product> productSlots = new SlotIndex<>(Product::getId);
+    //Id generators, moved past every id added to the inventory.
+    private IdSequence partIds = new IdSequence();
+    private IdSequence productIds = new IdSequence();
+    //Name search indexes, kept in sync the same way.
+    //The part name index is null until the first name search when the parts come from a PartStorage.
+    private volatile NGramIndex<Part> partNames;
+    private NGramIndex<Product> productNames = new NGramIndex<>(Product::getName, Product::getId, this::lookupProduct, () -> allProducts);
+
+    //Where-used index (part id to the products associating it, once per association),
+    //kept in sync by the product methods and the association events of owned products.
+    private IntObjectHashMap<List<Product>> partUsers = new IntObjectHashMap<>();
+
+    private List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+    //Created on first use, then kept up to date as listeners.
+    private BuildabilityCalculator buildability;
+    private ReorderMonitor reorderMonitor;
+    private StockLedger stockLedger;
+    private RangeIndex rangeIndex;
+    //Held for writing by every change to the lists, the indexes and the stock, for reading by background searches.
+    private final ReentrantReadWriteLock searchLock = new ReentrantReadWriteLock();
+    private final Lock searchReadLock = searchLock.readLock();
+    private final Lock searchWriteLock = searchLock.writeLock();
+    //Counts the changes to each list and its stock, a background search is current until its count moves.
+    private final AtomicInteger partChanges = new AtomicInteger();
+    private final AtomicInteger productChanges = new AtomicInteger();
+    //Depth of the changes running, listeners hear changesFinished when the outermost one returns.
+    private int changeDepth;
+
+    /**
+     * Constructor for Inventory - Called when new Inventory object is created.
+     */
+    public Inventory(){
+        allParts = new InventoryList<>();
+        partNames = newPartNameIndex();
+    }
+
+    /**
+     * Constructor for Inventory - Opens an Inventory over existing part storage, such as a mapped snapshot, a CompactPartStorage or an OffHeapPartStorage.
+     * Only the ids are read up front, parts are created by the storage when first used
+     * and the name index is built on the first name search.
+     * @param partStorage the parts, changed directly by the Inventory from now on
+     */
+    public Inventory(PartStorage partStorage){
+        allParts = new InventoryList<>(partStorage);
+        this.partStorage = partStorage;
+        partSlots = new SlotIndex<>(Part::getId, partStorage.size());
+        for (int i = 0; i < partStorage.size(); i++) {
+            int id = partStorage.idAt(i);
+            partSlots.added(id, i);
+            partIds.observe(id);
+        }
+    }
 
     /**
      * @param newPart The Part to add
      */
     public void addPart(Part newPart){
-        allParts.add(newPart);
+        startChange();
+        try {
+            searchWriteLock.lock();
+            try {
+                partSlots.added(newPart.getId(), allParts.size());
+                partIds.observe(newPart.getId());
+                allParts.add(newPart);
+                if (partNames != null) {
+                    partNames.add(newPart);
+                }
+                partChanges.incrementAndGet();
+            } finally {
+                searchWriteLock.unlock();
+            }
+            for (InventoryListener listener : listeners) {
+                listener.partAdded(newPart);
+            }
+        } finally {
+            finishChange();
+        }
+    }
+
+    /**
+     * Adds many parts with a single change event on the part list, used by bulk imports.
+     * Listeners are still called once per part.
+     * @param newParts The Parts to add
+     */
+    public void addParts(Collection<? extends Part> newParts){
+        startChange();
+        try {
+            searchWriteLock.lock();
+            try {
+                int slot = allParts.size();
+                for (Part newPart : newParts) {
+                    partSlots.added(newPart.getId(), slot++);
+                    partIds.observe(newPart.getId());
+                }
+                allParts.addAll(newParts);
+                if (partNames != null) {
+                    for (Part newPart : newParts) {
+                        partNames.add(newPart);
+                    }
+                }
+                partChanges.incrementAndGet();
+            } finally {
+                searchWriteLock.unlock();
+            }
+            for (Part newPart : newParts) {
+                for (InventoryListener listener : listeners) {
+                    listener.partAdded(newPart);
+                }
+            }
+        } finally {
+            finishChange();
+        }
     }
 
     /**
      * @param newProduct The Product to add
      */
     public void addProduct(Product newProduct){
-        allProducts.add(newProduct);
+        startChange();
+        try {
+            searchWriteLock.lock();
+            try {
+                productSlots.added(newProduct.getId(), allProducts.size());
+                productIds.observe(newProduct.getId());
+                allProducts.add(newProduct);
+                productNames.add(newProduct);
+                productChanges.incrementAndGet();
+            } finally {
+                searchWriteLock.unlock();
+            }
+            addPartUsers(newProduct);
+            newProduct.setOwner(this);
+            for (InventoryListener listener : listeners) {
+                listener.productAdded(newProduct);
+            }
+        } finally {
+            finishChange();
+        }
     }
 
     /**
+     * Adds many products with a single change event on the product list, used by bulk imports.
+     * Listeners are still called once per product.
+     * @param newProducts The Products to add
+     */
+    public void addProducts(Collection<? extends Product> newProducts){
+        startChange();
+        try {
+            searchWriteLock.lock();
+            try {
+                int slot = allProducts.size();
+                for (Product newProduct : newProducts) {
+                    productSlots.added(newProduct.getId(), slot++);
+                    productIds.observe(newProduct.getId());
+                }
+                allProducts.addAll(newProducts);
+                for (Product newProduct : newProducts) {
+                    productNames.add(newProduct);
+                }
+                productChanges.incrementAndGet();
+            } finally {
+                searchWriteLock.unlock();
+            }
+            for (Product newProduct : newProducts) {
+                addPartUsers(newProduct);
+                newProduct.setOwner(this);
+                for (InventoryListener listener : listeners) {
+                    listener.productAdded(newProduct);
+                }
+            }
+        } finally {
+            finishChange();
+        }
+    }
+
+    /**
+     * Looks up the part through the id index instead of scanning the part list.
      * @param partId the part id to lookup
      * @return the Part object
      */
     public Part lookupPart(int partId){
-        if (!allParts.isEmpty()) {
-            for (int i = 0; i < allParts.size(); i++) {
-                if (allParts.get(i).getId() == partId) {
-                    return allParts.get(i);
-                }
+        int slot = partSlots.get(partId);
+        return slot == IntIntHashMap.NOT_FOUND ? null : allParts.get(slot);
+    }
+
+    /**
+     * @param partName the text the part name contains
+     * @return list of matching parts, or null if there are no parts
+     */
+    public ObservableList<Part> lookupPart(String partName) {
+        return lookupPart(partName, false, false);
+    }
+
+    /**
+     * Searches part names through the n-gram index instead of scanning the part list.
+     * @param partName the text to search for
+     * @param ignoreCase true to compare names without case
+     * @param prefixOnly true to only match names starting with the text
+     * @return list of matching parts, or null if there are no parts
+     */
+    public ObservableList<Part> lookupPart(String partName, boolean ignoreCase, boolean prefixOnly) {
+        if (allParts.isEmpty()) {
+            return null;
+        }
+        if (partName.isEmpty()) {
+            return FXCollections.observableArrayList(allParts);
+        }
+        return FXCollections.observableList(partNameIndex().search(partName, ignoreCase, prefixOnly));
+    }
+
+    /**
+     * Filters and sorts the part list through the indexes, for views that show it without copying it.
+     * Ids filter through the id index and names through the name index, sort keys are read by slot
+     * (from the PartStorage columns when there is one), so only matching parts are ever created.
+     * @param filter a part id, or text the part name contains, null or empty for every part
+     * @param sortBy the column to sort by, or null for list order
+     * @param descending true to sort high to low
+     * @return slots in getAllParts of the matching parts, in display order
+     */
+    public int[] queryPartSlots(String filter, InventoryColumn sortBy, boolean descending) {
+        int[] slots;
+        if (filter == null || filter.isEmpty()) {
+            slots = SlotSorter.allSlots(allParts.size());
+        } else if (isId(filter)) {
+            int slot = partSlots.get(Integer.parseInt(filter));
+            slots = slot == IntIntHashMap.NOT_FOUND ? new int[0] : new int[] {slot};
+        } else {
+            List<Part> matches = allParts.isEmpty() ? Collections.emptyList() : partNameIndex().search(filter, false, false);
+            slots = new int[matches.size()];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = findPartSlot(matches.get(i));
             }
+            Arrays.sort(slots);
         }
-        return null;
+        if (sortBy != null) {
+            SlotSorter.sort(slots, sortBy, descending, partStorage != null ? SlotSorter.keysOf(partStorage) : SlotSorter.keysOf(allParts, Part::getPrice));
+        }
+        return slots;
     }
-    public ObservableList<Part> lookupPart(String partName) {
-        if (!allParts.isEmpty()) {
-            ObservableList searchPartsList = FXCollections.observableArrayList();
-            for (Part p : getAllParts()) {
-                if (p.getName().contains(partName)) {
-                    searchPartsList.add(p);
-                }
+
+    /**
+     * Filters and sorts the product list through the indexes, see queryPartSlots.
+     * @param filter a product id, or text the product name contains, null or empty for every product
+     * @param sortBy the column to sort by, or null for list order
+     * @param descending true to sort high to low
+     * @return slots in getAllProducts of the matching products, in display order
+     */
+    public int[] queryProductSlots(String filter, InventoryColumn sortBy, boolean descending) {
+        int[] slots;
+        if (filter == null || filter.isEmpty()) {
+            slots = SlotSorter.allSlots(allProducts.size());
+        } else if (isId(filter)) {
+            int slot = productSlots.get(Integer.parseInt(filter));
+            slots = slot == IntIntHashMap.NOT_FOUND ? new int[0] : new int[] {slot};
+        } else {
+            List<Product> matches = productNames.search(filter, false, false);
+            slots = new int[matches.size()];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = productSlots.find(allProducts, matches.get(i));
             }
-            return searchPartsList;
+            Arrays.sort(slots);
+        }
+        if (sortBy != null) {
+            SlotSorter.sort(slots, sortBy, descending, SlotSorter.keysOf(allProducts, Product::getPrice));
+        }
+        return slots;
+    }
+
+    /**
+     * Runs queryPartSlots under the search lock, safe on any thread while the Inventory is changed on its own thread
+     * (the UI thread), the search goes through the same id and name indexes and never copies the list.
+     * @param filter a part id, or text the part name contains, null or empty for every part
+     * @param sortBy the column to sort by, or null for list order
+     * @param descending true to sort high to low
+     * @return slots in getAllParts of the matching parts, current until the part list or a part stock changes
+     */
+    public SlotSearch searchPartSlots(String filter, InventoryColumn sortBy, boolean descending) {
+        searchReadLock.lock();
+        try {
+            return new SlotSearch(queryPartSlots(filter, sortBy, descending), partChanges::get, partChanges.get());
+        } finally {
+            searchReadLock.unlock();
         }
-        return null;
     }
 
     /**
+     * Runs queryProductSlots under the search lock, see searchPartSlots.
+     * @param filter a product id, or text the product name contains, null or empty for every product
+     * @param sortBy the column to sort by, or null for list order
+     * @param descending true to sort high to low
+     * @return slots in getAllProducts of the matching products, current until the product list or a product stock changes
+     */
+    public SlotSearch searchProductSlots(String filter, InventoryColumn sortBy, boolean descending) {
+        searchReadLock.lock();
+        try {
+            return new SlotSearch(queryProductSlots(filter, sortBy, descending), productChanges::get, productChanges.get());
+        } finally {
+            searchReadLock.unlock();
+        }
+    }
+
+    /**
+     * @param filter search text
+     * @return true if the filter is an id, the same test the search boxes use
+     */
+    public static boolean isId(String filter) {
+        try {
+            Integer.parseInt(filter);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Looks up the product through the id index instead of scanning the product list.
      * @param productId the product id to lookup
      * @return the Product object
      */
     public Product lookupProduct(int productId){
-        if (!allProducts.isEmpty()) {
-            for (int i = 0; i < allProducts.size(); i++) {
-                if (allProducts.get(i).getId() == productId) {
-                    return allProducts.get(i);
-                }
-            }
-        }
-        return null;
+        int slot = productSlots.get(productId);
+        return slot == IntIntHashMap.NOT_FOUND ? null : allProducts.get(slot);
     }
+
+    /**
+     * @param productName the text the product name contains
+     * @return list of matching products, or null if there are no products
+     */
     public ObservableList<Product> lookupProduct(String productName) {
-        if (!allProducts.isEmpty()) {
-            ObservableList searchProductList = FXCollections.observableArrayList();
-            for (Product p : getAllProducts()) {
-                if (p.getName().contains(productName)) {
-                    searchProductList.add(p);
-                }
-            }
-            return searchProductList;
+        return lookupProduct(productName, false, false);
+    }
+
+    /**
+     * Searches product names through the n-gram index instead of scanning the product list.
+     * @param productName the text to search for
+     * @param ignoreCase true to compare names without case
+     * @param prefixOnly true to only match names starting with the text
+     * @return list of matching products, or null if there are no products
+     */
+    public ObservableList<Product> lookupProduct(String productName, boolean ignoreCase, boolean prefixOnly) {
+        if (allProducts.isEmpty()) {
+            return null;
         }
-        return null;
+        if (productName.isEmpty()) {
+            return FXCollections.observableArrayList(allProducts);
+        }
+        return FXCollections.observableList(productNames.search(productName, ignoreCase, prefixOnly));
     }
 
     /**
@@ -94,7 +399,51 @@ public class Inventory {
      * @param selectedPart part object to update to
      */
     public void updatePart(int index, Part selectedPart){
-        allParts.set(index, selectedPart);
+        startChange();
+        try {
+            Part oldPart;
+            searchWriteLock.lock();
+            try {
+                oldPart = allParts.set(index, selectedPart);
+                partSlots.replaced(allParts, index, oldPart.getId(), selectedPart.getId());
+                partIds.observe(selectedPart.getId());
+                if (partNames != null) {
+                    partNames.replace(oldPart, selectedPart);
+                }
+                partChanges.incrementAndGet();
+            } finally {
+                searchWriteLock.unlock();
+            }
+            for (InventoryListener listener : listeners) {
+                listener.partUpdated(oldPart, selectedPart);
+            }
+        } finally {
+            finishChange();
+        }
+    }
+
+    /**
+     * Replaces the part with the same id, found through the id index.
+     * @param selectedPart part object to update to
+     * @return true:false if a part with the id was found
+     */
+    public boolean updatePart(Part selectedPart){
+        return replacePart(selectedPart.getId(), selectedPart);
+    }
+
+    /**
+     * Replaces the part stored under an id, the new part may carry a different id.
+     * @param partId id of the part to replace
+     * @param newPart part object to replace it with
+     * @return true:false if a part with the id was found
+     */
+    public boolean replacePart(int partId, Part newPart){
+        int slot = partSlots.get(partId);
+        if (slot == IntIntHashMap.NOT_FOUND) {
+            return false;
+        }
+        updatePart(slot, newPart);
+        return true;
     }
 
     /**
@@ -102,7 +451,53 @@ public class Inventory {
      * @param selectedProduct product object to update to
      */
     public void updateProduct(int index, Product selectedProduct){
-        allProducts.set(index, selectedProduct);
+        startChange();
+        try {
+            Product oldProduct;
+            searchWriteLock.lock();
+            try {
+                oldProduct = allProducts.set(index, selectedProduct);
+                productSlots.replaced(allProducts, index, oldProduct.getId(), selectedProduct.getId());
+                productIds.observe(selectedProduct.getId());
+                productNames.replace(oldProduct, selectedProduct);
+                productChanges.incrementAndGet();
+            } finally {
+                searchWriteLock.unlock();
+            }
+            removePartUsers(oldProduct);
+            addPartUsers(selectedProduct);
+            oldProduct.setOwner(null);
+            selectedProduct.setOwner(this);
+            for (InventoryListener listener : listeners) {
+                listener.productUpdated(oldProduct, selectedProduct);
+            }
+        } finally {
+            finishChange();
+        }
+    }
+
+    /**
+     * Replaces the product with the same id, found through the id index.
+     * @param selectedProduct product object to update to
+     * @return true:false if a product with the id was found
+     */
+    public boolean updateProduct(Product selectedProduct){
+        return replaceProduct(selectedProduct.getId(), selectedProduct);
+    }
+
+    /**
+     * Replaces the product stored under an id, the new product may carry a different id.
+     * @param productId id of the product to replace
+     * @param newProduct product object to replace it with
+     * @return true:false if a product with the id was found
+     */
+    public boolean replaceProduct(int productId, Product newProduct){
+        int slot = productSlots.get(productId);
+        if (slot == IntIntHashMap.NOT_FOUND) {
+            return false;
+        }
+        updateProduct(slot, newProduct);
+        return true;
     }
 
     /**
@@ -110,10 +505,31 @@ public class Inventory {
      * @    return true or false if successful
      */
     public boolean deletePart(Part selectedPart) {
-        if (selectedPart == null)
-            return false;
-        allParts.remove(selectedPart);
-        return true;
+        startChange();
+        try {
+            if (selectedPart == null)
+                return false;
+            int slot = findPartSlot(selectedPart);
+            if (slot >= 0) {
+                searchWriteLock.lock();
+                try {
+                    allParts.remove(slot);
+                    partSlots.removed(allParts, slot, selectedPart.getId());
+                    if (partNames != null) {
+                        partNames.remove(selectedPart);
+                    }
+                    partChanges.incrementAndGet();
+                } finally {
+                    searchWriteLock.unlock();
+                }
+                for (InventoryListener listener : listeners) {
+                    listener.partDeleted(selectedPart);
+                }
+            }
+            return true;
+        } finally {
+            finishChange();
+        }
     }
 
     /**
@@ -121,13 +537,371 @@ public class Inventory {
      * @return true or false if successful
      */
     public boolean deleteProduct(Product selectedProduct) {
-        if (selectedProduct == null)
-            return false;
-        allProducts.remove(selectedProduct);
-        return true;
+        startChange();
+        try {
+            if (selectedProduct == null)
+                return false;
+            int slot = productSlots.find(allProducts, selectedProduct);
+            if (slot >= 0) {
+                searchWriteLock.lock();
+                try {
+                    allProducts.remove(slot);
+                    productSlots.removed(allProducts, slot, selectedProduct.getId());
+                    productNames.remove(selectedProduct);
+                    productChanges.incrementAndGet();
+                } finally {
+                    searchWriteLock.unlock();
+                }
+                removePartUsers(selectedProduct);
+                selectedProduct.setOwner(null);
+                for (InventoryListener listener : listeners) {
+                    listener.productDeleted(selectedProduct);
+                }
+            }
+            return true;
+        } finally {
+            finishChange();
+        }
+    }
+
+    /**
+     * Applies many changes with one change event per list.
+     * The part and product lists hold back their change events until the changes return,
+     * then each fires a single change covering the whole batch (list listeners such as tables run once).
+     * InventoryListeners are still called for every change as it happens. Batches may be nested.
+     * <pre>
+     * inv.batch(b -> {
+     *     b.addPart(part);
+     *     b.deleteProduct(product);
+     * });
+     * </pre>
+     * @param changes the changes to make, given this Inventory
+     */
+    public void batch(Consumer<Inventory> changes){
+        startChange();
+        try {
+            allParts.beginBatch();
+            allProducts.beginBatch();
+            try {
+                changes.accept(this);
+            } finally {
+                allProducts.endBatch();
+                allParts.endBatch();
+            }
+        } finally {
+            finishChange();
+        }
+    }
+
+    /**
+     * Answers which products use a part from the where-used index, without scanning the products.
+     * @param partId the part id to lookup
+     * @return the products associating a part with the id, each listed once (empty if none)
+     */
+    public List<Product> lookupProductsUsingPart(int partId){
+        List<Product> users = partUsers.get(partId);
+        if (users == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(users)));
+    }
+
+    /**
+     * Used to refuse deleting a part that products still use.
+     * @param partId the part id to check
+     * @return true:false if any product associates a part with the id
+     */
+    public boolean isPartInUse(int partId){
+        return partUsers.containsKey(partId);
+    }
+
+    private void addPartUsers(Product product) {
+        for (Part part : product.getAllAssociatedParts()) {
+            addPartUser(part, product);
+        }
+    }
+
+    private void removePartUsers(Product product) {
+        for (Part part : product.getAllAssociatedParts()) {
+            removePartUser(part, product);
+        }
+    }
+
+    private void addPartUser(Part part, Product product) {
+        List<Product> users = partUsers.get(part.getId());
+        if (users == null) {
+            users = new ArrayList<>(2);
+            partUsers.put(part.getId(), users);
+        }
+        users.add(product);
+    }
+
+    private void removePartUser(Part part, Product product) {
+        List<Product> users = partUsers.get(part.getId());
+        if (users != null && users.remove(product) && users.isEmpty()) {
+            partUsers.remove(part.getId());
+        }
+    }
+
+    /**
+     * Synchronized, as background searches may ask for it at the same time as the UI thread.
+     * @return the part name index, built now if the parts were opened from a PartStorage
+     */
+    private synchronized NGramIndex<Part> partNameIndex() {
+        if (partNames == null) {
+            NGramIndex<Part> index = newPartNameIndex();
+            for (Part part : allParts) {
+                index.add(part);
+            }
+            partNames = index;
+        }
+        return partNames;
+    }
+
+    private NGramIndex<Part> newPartNameIndex() {
+        return new NGramIndex<>(Part::getName, Part::getId, this::lookupPart, () -> allParts);
+    }
+
+    /**
+     * Finds the list slot of a part through the id index, asking the PartStorage when there is one, as it may hold a copy of the part.
+     */
+    private int findPartSlot(Part part) {
+        if (partStorage == null) {
+            return partSlots.find(allParts, part);
+        }
+        int slot = partSlots.get(part.getId());
+        if (slot != IntIntHashMap.NOT_FOUND && partStorage.holds(slot, part)) {
+            return slot;
+        }
+        if (!partSlots.isDuplicated(part.getId())) {
+            return -1;
+        }
+        for (int i = 0; i < partStorage.size(); i++) {
+            if (partStorage.holds(i, part)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void startChange() {
+        changeDepth++;
+    }
+
+    /**
+     * Ends a change, the outermost one tells the listeners it has finished, even if it threw.
+     */
+    private void finishChange() {
+        if (--changeDepth == 0) {
+            for (InventoryListener listener : listeners) {
+                listener.changesFinished();
+            }
+        }
+    }
+
+    /**
+     * @param listener listener to call after every change
+     */
+    public void addListener(InventoryListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener listener to stop calling
+     */
+    public void removeListener(InventoryListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Called by an owned Product to make an association or sub-assembly change, the change fires its own events.
+     * @param change makes the change
+     * @return the result of the change
+     */
+    boolean changeAssociations(BooleanSupplier change) {
+        startChange();
+        try {
+            return change.getAsBoolean();
+        } finally {
+            finishChange();
+        }
+    }
+
+    /**
+     * Called by an owned Product after a part is associated with it.
+     * @param product the product
+     * @param part the associated part
+     */
+    void fireAssociatedPartAdded(Product product, Part part) {
+        addPartUser(part, product);
+        for (InventoryListener listener : listeners) {
+            listener.associatedPartAdded(product, part);
+        }
+    }
+
+    /**
+     * Called by an owned Product after an associated part is removed from it.
+     * @param product the product
+     * @param part the associated part
+     */
+    void fireAssociatedPartDeleted(Product product, Part part) {
+        removePartUser(part, product);
+        for (InventoryListener listener : listeners) {
+            listener.associatedPartDeleted(product, part);
+        }
+    }
+
+    /**
+     * Called by an owned Product after the quantity of an associated part changes.
+     * @param product the product
+     * @param part the associated part
+     * @param quantity the new quantity
+     */
+    void fireAssociatedPartQuantityChanged(Product product, Part part, int quantity) {
+        for (InventoryListener listener : listeners) {
+            listener.associatedPartQuantityChanged(product, part, quantity);
+        }
+    }
+
+    /**
+     * Called by an owned Product after a sub-assembly is nested or its quantity changes.
+     * @param product the product
+     * @param subAssembly the nested product
+     * @param quantity the quantity
+     */
+    void fireSubAssemblyAdded(Product product, Product subAssembly, int quantity) {
+        for (InventoryListener listener : listeners) {
+            listener.subAssemblyAdded(product, subAssembly, quantity);
+        }
+    }
+
+    /**
+     * Called by an owned Product after a sub-assembly is removed from it.
+     * @param product the product
+     * @param subAssembly the product no longer nested
+     */
+    void fireSubAssemblyDeleted(Product product, Product subAssembly) {
+        for (InventoryListener listener : listeners) {
+            listener.subAssemblyDeleted(product, subAssembly);
+        }
+    }
+
+    /**
+     * Called by the StockLedger to set stock on a part or product in place and tell the listeners.
+     * @param item the part or product, as held by this Inventory
+     * @param latestStock reads the new stock, at the moment it is set
+     */
+    void changeStock(StockItem item, IntSupplier latestStock) {
+        startChange();
+        try {
+            int oldStock = item.getStock();
+            int stock = latestStock.getAsInt();
+            if (oldStock == stock) {
+                return;
+            }
+            searchWriteLock.lock();
+            try {
+                item.setStock(stock);
+                (item instanceof Product ? productChanges : partChanges).incrementAndGet();
+            } finally {
+                searchWriteLock.unlock();
+            }
+            for (InventoryListener listener : listeners) {
+                listener.stockChanged(item, oldStock, stock);
+            }
+        } finally {
+            finishChange();
+        }
+    }
+
+    /**
+     * Finds parts by price and stock ranges and name through sorted indexes, built on the first query
+     * and updated by the change events after that.
+     * Results come in order of the range walked (price or stock, then id), or in name search order.
+     * @param query the ranges and name to match
+     * @return the matching parts, found as the stream is read
+     */
+    public Stream<Part> queryParts(StockQuery query) {
+        return rangeIndex().parts(query);
+    }
+
+    /**
+     * Finds products by price and stock ranges and name, see queryParts.
+     * @param query the ranges and name to match
+     * @return the matching products, found as the stream is read
+     */
+    public Stream<Product> queryProducts(StockQuery query) {
+        return rangeIndex().products(query);
+    }
+
+    /**
+     * @return the price and stock indexes, built now on the first call
+     */
+    RangeIndex rangeIndex() {
+        if (rangeIndex == null) {
+            SlotSorter.Keys partKeys = partStorage != null ? SlotSorter.keysOf(partStorage) : SlotSorter.keysOf(allParts, Part::getPrice);
+            rangeIndex = new RangeIndex(this, partKeys, allParts.size(), SlotSorter.keysOf(allProducts, Product::getPrice), allProducts.size());
+        }
+        return rangeIndex;
+    }
+
+    /**
+     * Atomic reserve, release and consume of stock with a movement history, created on the first call.
+     * @return the stock ledger of this Inventory
+     */
+    public StockLedger getStockLedger() {
+        if (stockLedger == null) {
+            stockLedger = new StockLedger(this);
+        }
+        return stockLedger;
+    }
+
+    /**
+     * Buildable units of every product from the current part stock, computed on the first call
+     * and updated by the change events after that.
+     * @return the buildable quantity calculator of this Inventory
+     */
+    public BuildabilityCalculator getBuildability() {
+        if (buildability == null) {
+            buildability = new BuildabilityCalculator(this, allProducts);
+        }
+        return buildability;
+    }
+
+    /**
+     * Parts and products below their min, filled on the first call and updated by the change events after that.
+     * @return the reorder monitor of this Inventory
+     */
+    public ReorderMonitor getReorderMonitor() {
+        if (reorderMonitor == null) {
+            reorderMonitor = new ReorderMonitor(this, allParts, allProducts, viewExecutor());
+        }
+        return reorderMonitor;
+    }
+
+    /**
+     * @return runs changes to views kept for the UI, such as the reorder monitor's, right away on the changing thread
+     */
+    Executor viewExecutor() {
+        return Runnable::run;
+    }
+
+    /**
+     * @return the id generator for new parts
+     */
+    public IdSequence getPartIdSequence() {
+        return partIds;
+    }
+
+    /**
+     * @return the id generator for new products
+     */
+    public IdSequence getProductIdSequence() {
+        return productIds;
     }
 
     /**
+     * Changes must go through the Inventory methods, otherwise the id and name indexes go stale.
      * @return list of all parts
      */
     public ObservableList<Part> getAllParts() {
@@ -135,6 +909,7 @@ public class Inventory {
     }
 
     /**
+     * Changes must go through the Inventory methods, otherwise the id and name indexes go stale.
      * @return list of all products
      */
     public ObservableList<Product> getAllProducts() {
@@ -0,0 +1,12 @@
+package Model;
+
+/**
+ * Columns the Inventory can sort its part and product lists by, see Inventory.queryPartSlots.
+ * @author Andrew Burk
+ */
+public enum InventoryColumn {
+    ID,
+    NAME,
+    STOCK,
+    PRICE
+}
@@ -0,0 +1,72 @@
+package Model;
+
+import javafx.collections.ModifiableObservableListBase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Observable list used for the Inventory part and product lists.
+ * Works like FXCollections.observableList over a backing list, but changes made between
+ * beginBatch and endBatch reach the list listeners as one combined change (see Inventory.batch).
+ * @param <E> the element type (Part or Product)
+ * @author Andrew Burk
+ */
+class InventoryList<E> extends ModifiableObservableListBase<E> implements RandomAccess {
+    private final List<E> backing;
+
+    /**
+     * Constructor for InventoryList - Starts empty, backed by an ArrayList.
+     */
+    InventoryList() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Constructor for InventoryList - Called when new InventoryList object is created.
+     * @param backing the list holding the elements, changed directly from now on
+     */
+    InventoryList(List<E> backing) {
+        this.backing = backing;
+    }
+
+    /**
+     * Starts holding back change events, batches may be nested.
+     */
+    void beginBatch() {
+        beginChange();
+    }
+
+    /**
+     * Ends a batch, the outermost endBatch fires one change covering the whole batch.
+     */
+    void endBatch() {
+        endChange();
+    }
+
+    @Override
+    public E get(int index) {
+        return backing.get(index);
+    }
+
+    @Override
+    public int size() {
+        return backing.size();
+    }
+
+    @Override
+    protected void doAdd(int index, E element) {
+        backing.add(index, element);
+    }
+
+    @Override
+    protected E doSet(int index, E element) {
+        return backing.set(index, element);
+    }
+
+    @Override
+    protected E doRemove(int index) {
+        return backing.remove(index);
+    }
+}
@@ -0,0 +1,104 @@
+package Model;
+
+/**
+ * Listener Interface for Inventory changes.
+ * Inventory calls these after every add, update and delete, and a Product owned by an Inventory
+ * reports its associated part changes through the same listener.
+ * Listeners are called on the thread making the change.
+ * @author Andrew Burk
+ */
+public interface InventoryListener {
+
+    /**
+     * @param part the part added
+     */
+    default void partAdded(Part part) {
+    }
+
+    /**
+     * @param oldPart the part that was replaced
+     * @param newPart the part now in its place
+     */
+    default void partUpdated(Part oldPart, Part newPart) {
+    }
+
+    /**
+     * @param part the part deleted
+     */
+    default void partDeleted(Part part) {
+    }
+
+    /**
+     * @param product the product added
+     */
+    default void productAdded(Product product) {
+    }
+
+    /**
+     * @param oldProduct the product that was replaced
+     * @param newProduct the product now in its place
+     */
+    default void productUpdated(Product oldProduct, Product newProduct) {
+    }
+
+    /**
+     * @param product the product deleted
+     */
+    default void productDeleted(Product product) {
+    }
+
+    /**
+     * @param product the product the part was added to
+     * @param part the associated part
+     */
+    default void associatedPartAdded(Product product, Part part) {
+    }
+
+    /**
+     * @param product the product the part was removed from
+     * @param part the associated part
+     */
+    default void associatedPartDeleted(Product product, Part part) {
+    }
+
+    /**
+     * @param product the product holding the part
+     * @param part the associated part
+     * @param quantity its new quantity per product unit
+     */
+    default void associatedPartQuantityChanged(Product product, Part part, int quantity) {
+    }
+
+    /**
+     * Called when a product is nested in another, or its nested quantity changes.
+     * @param product the containing product
+     * @param subAssembly the nested product
+     * @param quantity units of the sub-assembly per product unit
+     */
+    default void subAssemblyAdded(Product product, Product subAssembly, int quantity) {
+    }
+
+    /**
+     * @param product the containing product
+     * @param subAssembly the product no longer nested
+     */
+    default void subAssemblyDeleted(Product product, Product subAssembly) {
+    }
+
+    /**
+     * Called when stock is changed in place through the StockLedger, without replacing the part or product.
+     * @param item the part or product
+     * @param oldStock the stock before
+     * @param newStock the stock now
+     */
+    default void stockChanged(StockItem item, int oldStock, int newStock) {
+    }
+
+    /**
+     * Called once the outermost change (a single add, update or delete, an association change, a batch or a bulk add)
+     * has made all of its changes and called the other listener methods for them, the Inventory is consistent again.
+     * Work that must not see half of a change, such as writing a snapshot, waits for it.
+     */
+    default void changesFinished() {
+    }
+}
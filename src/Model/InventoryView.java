@@ -0,0 +1,487 @@
+package Model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.TransformationList;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Windowed table data source over an Inventory part or product list.
+ * Rows are read from the Inventory list only when the table asks for them, so a table over millions of parts
+ * only creates the parts on screen. With no filter or sort it is the Inventory list itself and passes its changes on.
+ * Filtering and sorting are pushed down to the Inventory (queryPartSlots, queryProductSlots), which answers with the
+ * list slots to show through its id and name indexes, the view then holds nothing but that int array.
+ * While filtered or sorted, changes to the Inventory list are applied to the slots directly, an added row
+ * is tested against the filter and placed by binary search. A new filter or sort replaces every row at once,
+ * the removed rows of that change are read from the list only if a listener asks for them.
+ * Rows can also be hidden, such as the parts already associated with a product, each found through an id query
+ * and dropped from the slots, so hiding a few rows never reads the others.
+ * Use it on the thread that owns the list, the UI thread for the main screen.
+ * @param <E> the element type (Part or Product)
+ * @author Andrew Burk
+ */
+public class InventoryView<E extends StockItem> extends TransformationList<E, E> implements RandomAccess {
+
+    /**
+     * Query run by the view, the Inventory query methods.
+     */
+    public interface SlotQuery {
+
+        /**
+         * @param filter an id or text the name contains, empty for every row
+         * @param sortBy the column to sort by, or null for list order
+         * @param descending true to sort high to low
+         * @return slots in the source list to show, in display order
+         */
+        int[] query(String filter, InventoryColumn sortBy, boolean descending);
+    }
+
+    /**
+     * Query run by background searches, the Inventory search methods.
+     */
+    public interface SlotSearchQuery {
+
+        /**
+         * @param filter an id or text the name contains, empty for every row
+         * @param sortBy the column to sort by, or null for list order
+         * @param descending true to sort high to low
+         * @return slots in the source list to show, in display order, and whether they still match it
+         */
+        SlotSearch search(String filter, InventoryColumn sortBy, boolean descending);
+    }
+
+    private final SlotQuery query;
+    private final SlotSearchQuery search;
+    //Read by background searches through search(String).
+    private volatile String filter = "";
+    private volatile InventoryColumn sortBy;
+    private volatile boolean descending;
+    //Rows left out whatever the filter, contains must be fast.
+    private Collection<? extends E> hidden = Collections.emptyList();
+    //Source slots shown, null for every source row in order.
+    private int[] slots;
+    //Source slot to view index, built when first asked for.
+    private int[] viewIndexes;
+
+    /**
+     * Constructor for InventoryView - Called when new InventoryView object is created.
+     * @param source the Inventory list to show
+     * @param query answers filters and sorts with slots in the source list
+     * @param search answers the same filters and sorts from any thread
+     */
+    public InventoryView(ObservableList<E> source, SlotQuery query, SlotSearchQuery search) {
+        super(source);
+        this.query = query;
+        this.search = search;
+    }
+
+    /**
+     * @param inv the Inventory
+     * @return a view of the Inventory parts
+     */
+    public static InventoryView<Part> ofParts(Inventory inv) {
+        return new InventoryView<>(inv.getAllParts(), inv::queryPartSlots, inv::searchPartSlots);
+    }
+
+    /**
+     * @param inv the Inventory
+     * @return a view of the Inventory products
+     */
+    public static InventoryView<Product> ofProducts(Inventory inv) {
+        return new InventoryView<>(inv.getAllProducts(), inv::queryProductSlots, inv::searchProductSlots);
+    }
+
+    /**
+     * @param filter an id or text the name contains, null or empty to show every row
+     */
+    public void setFilter(String filter) {
+        this.filter = filter == null ? "" : filter;
+        refresh();
+    }
+
+    /**
+     * @param sortBy the column to sort by, or null for list order
+     * @param descending true to sort high to low
+     */
+    public void setSort(InventoryColumn sortBy, boolean descending) {
+        this.sortBy = sortBy;
+        this.descending = descending;
+        refresh();
+    }
+
+    /**
+     * Runs a filter with the current sort without showing it, safe off the UI thread.
+     * @param filter an id or text the name contains
+     * @return slots to pass to show while the search is current
+     */
+    public SlotSearch search(String filter) {
+        return search.search(filter, sortBy, descending);
+    }
+
+    /**
+     * Shows the result of search as the current filter.
+     * @param filter the filter the slots were found with
+     * @param found the slots of a current search
+     */
+    public void show(String filter, int[] found) {
+        this.filter = filter == null ? "" : filter;
+        replaceSlots(withoutHidden(found));
+    }
+
+    /**
+     * Leaves rows out of the view until the next call, the collection is read again on every refresh
+     * and by the incremental changes, so call refresh after changing it.
+     * @param hidden rows to leave out, a short collection with a fast contains, such as an AssociatedPartList
+     */
+    public void setHidden(Collection<? extends E> hidden) {
+        this.hidden = hidden == null ? Collections.emptyList() : hidden;
+        refresh();
+    }
+
+    /**
+     * @return the current filter, empty if none
+     */
+    public String getFilter() {
+        return filter;
+    }
+
+    /**
+     * Runs the current filter and sort again.
+     */
+    public void refresh() {
+        if (filter.isEmpty() && sortBy == null && hidden.isEmpty()) {
+            replaceSlots(null);
+        } else {
+            replaceSlots(withoutHidden(query.query(filter, sortBy, descending)));
+        }
+    }
+
+    /**
+     * Drops the slots of the hidden rows, found through the id query, reading only the rows it lands on.
+     */
+    private int[] withoutHidden(int[] found) {
+        if (hidden.isEmpty()) {
+            return found;
+        }
+        IntIntHashMap hiddenSlots = new IntIntHashMap(hidden.size());
+        for (E row : hidden) {
+            for (int slot : query.query(Integer.toString(row.getId()), null, false)) {
+                if (getSource().get(slot) == row) {
+                    hiddenSlots.put(slot, slot);
+                }
+            }
+        }
+        if (hiddenSlots.size() == 0) {
+            return found;
+        }
+        int[] kept = new int[found.length];
+        int count = 0;
+        for (int slot : found) {
+            if (!hiddenSlots.containsKey(slot)) {
+                kept[count++] = slot;
+            }
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    @Override
+    public E get(int index) {
+        return getSource().get(getSourceIndex(index));
+    }
+
+    @Override
+    public int size() {
+        return slots == null ? getSource().size() : slots.length;
+    }
+
+    @Override
+    public int getSourceIndex(int index) {
+        if (slots == null) {
+            return index;
+        }
+        if (index < 0 || index >= slots.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + slots.length);
+        }
+        return slots[index];
+    }
+
+    @Override
+    public int getViewIndex(int index) {
+        if (slots == null) {
+            return index;
+        }
+        if (viewIndexes == null) {
+            int[] inverse = new int[getSource().size()];
+            Arrays.fill(inverse, -1);
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] < inverse.length) {
+                    inverse[slots[i]] = i;
+                }
+            }
+            viewIndexes = inverse;
+        }
+        return index >= 0 && index < viewIndexes.length ? viewIndexes[index] : -1;
+    }
+
+    @Override
+    protected void sourceChanged(ListChangeListener.Change<? extends E> c) {
+        beginChange();
+        while (c.next()) {
+            if (slots == null) {
+                //Showing the source as it is, pass the change on.
+                if (c.wasPermutated()) {
+                    int[] permutation = new int[c.getTo() - c.getFrom()];
+                    for (int i = c.getFrom(); i < c.getTo(); i++) {
+                        permutation[i - c.getFrom()] = c.getPermutation(i);
+                    }
+                    nextPermutation(c.getFrom(), c.getTo(), permutation);
+                } else if (c.wasUpdated()) {
+                    for (int i = c.getFrom(); i < c.getTo(); i++) {
+                        nextUpdate(i);
+                    }
+                } else {
+                    if (c.wasRemoved()) {
+                        nextRemove(c.getFrom(), c.getRemoved());
+                    }
+                    if (c.wasAdded()) {
+                        nextAdd(c.getFrom(), c.getTo());
+                    }
+                }
+            } else if (c.wasPermutated() || c.wasUpdated()) {
+                //The Inventory never reorders its lists in place, start over if something else did.
+                endChange();
+                refresh();
+                return;
+            } else {
+                if (c.wasRemoved()) {
+                    removeRows(c.getFrom(), c.getRemoved());
+                }
+                if (c.wasAdded()) {
+                    addRows(c.getFrom(), c.getTo());
+                }
+            }
+        }
+        endChange();
+    }
+
+    /**
+     * Drops removed source rows from the slots and moves the slots after them down.
+     * Done here instead of querying again, the Inventory indexes are only updated after its list changes.
+     */
+    private void removeRows(int from, List<? extends E> removed) {
+        int to = from + removed.size();
+        int kept = 0;
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            if (slot >= from && slot < to) {
+                nextRemove(kept, removed.get(slot - from));
+            } else {
+                slots[kept++] = slot >= to ? slot - removed.size() : slot;
+            }
+        }
+        slots = Arrays.copyOf(slots, kept);
+        viewIndexes = null;
+    }
+
+    /**
+     * Moves the slots at or after the added source rows up, then places the added rows that match the filter
+     * by binary search among the rows shown before, reading only the rows the searches land on.
+     * The slots grow once for the whole range, an import of many rows does not copy them once per row.
+     */
+    private void addRows(int from, int to) {
+        int added = to - from;
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] >= from) {
+                slots[i] += added;
+            }
+        }
+        viewIndexes = null;
+        int[] matching = new int[added];
+        int[] places = new int[added];
+        int count = 0;
+        for (int slot = from; slot < to; slot++) {
+            E row = getSource().get(slot);
+            if (matches(row) && !hidden.contains(row)) {
+                matching[count] = slot;
+                places[count++] = placeOf(row, slot);
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        //Rows placed before the same shown row are ordered among themselves, list order already unless sorted.
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> places[a] != places[b] ? Integer.compare(places[a], places[b])
+                : compareRows(getSource().get(matching[a]), matching[a], getSource().get(matching[b]), matching[b]));
+        int[] grown = new int[slots.length + count];
+        int copied = 0;
+        int at = 0;
+        for (int i : order) {
+            int place = places[i];
+            System.arraycopy(slots, copied, grown, at, place - copied);
+            at += place - copied;
+            copied = place;
+            grown[at] = matching[i];
+            nextAdd(at, at + 1);
+            at++;
+        }
+        System.arraycopy(slots, copied, grown, at, slots.length - copied);
+        slots = grown;
+    }
+
+    /**
+     * @return the index among the rows shown where a row goes
+     */
+    private int placeOf(E row, int slot) {
+        int low = 0;
+        int high = slots.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareRows(getSource().get(slots[middle]), slots[middle], row, slot) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Same test as the Inventory queries, an exact id or text the name contains.
+     */
+    private boolean matches(E row) {
+        if (filter.isEmpty()) {
+            return true;
+        }
+        if (Inventory.isId(filter)) {
+            return row.getId() == Integer.parseInt(filter);
+        }
+        return row.getName() != null && row.getName().contains(filter);
+    }
+
+    /**
+     * Same order as the Inventory queries, the sort column then list order.
+     */
+    private int compareRows(E a, int slotA, E b, int slotB) {
+        int order = 0;
+        if (sortBy != null) {
+            switch (sortBy) {
+                case ID:
+                    order = Integer.compare(a.getId(), b.getId());
+                    break;
+                case STOCK:
+                    order = Integer.compare(a.getStock(), b.getStock());
+                    break;
+                case PRICE:
+                    order = Double.compare(a.getPrice(), b.getPrice());
+                    break;
+                default:
+                    order = nameOf(a).compareTo(nameOf(b));
+                    break;
+            }
+        }
+        if (descending) {
+            order = -order;
+        }
+        return order != 0 ? order : Integer.compare(slotA, slotB);
+    }
+
+    private static String nameOf(StockItem item) {
+        return item.getName() == null ? "" : item.getName();
+    }
+
+    /**
+     * Swaps the rows shown and reports it as one replacement of every row,
+     * without reading the old rows unless a listener asks for them.
+     */
+    private void replaceSlots(int[] next) {
+        int[] previous = slots;
+        int previousSize = size();
+        slots = next;
+        viewIndexes = null;
+        if (previousSize == 0 && size() == 0) {
+            return;
+        }
+        fireChange(new Replacement(previous, previousSize));
+    }
+
+    /**
+     * Change replacing every row of the view.
+     */
+    private class Replacement extends ListChangeListener.Change<E> {
+        private final List<E> removed;
+        private boolean started;
+
+        private Replacement(int[] previous, int previousSize) {
+            super(InventoryView.this);
+            removed = new OldRows(previous, previousSize);
+        }
+
+        @Override
+        public boolean next() {
+            if (started) {
+                return false;
+            }
+            started = true;
+            return true;
+        }
+
+        @Override
+        public void reset() {
+            started = false;
+        }
+
+        @Override
+        public int getFrom() {
+            return 0;
+        }
+
+        @Override
+        public int getTo() {
+            return size();
+        }
+
+        @Override
+        public List<E> getRemoved() {
+            return removed;
+        }
+
+        @Override
+        protected int[] getPermutation() {
+            return new int[0];
+        }
+    }
+
+    /**
+     * The rows shown before a replacement, read from the source when asked for.
+     */
+    private class OldRows extends AbstractList<E> implements RandomAccess {
+        private final int[] previous;
+        private final int previousSize;
+
+        private OldRows(int[] previous, int previousSize) {
+            this.previous = previous;
+            this.previousSize = previousSize;
+        }
+
+        @Override
+        public E get(int index) {
+            int slot = previous == null ? index : previous[index];
+            return slot < getSource().size() ? getSource().get(slot) : null;
+        }
+
+        @Override
+        public int size() {
+            return previousSize;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Incremental n-gram inverted index used for the Inventory name searches.
+ * Every name is folded to lower case and broken into all of its 1, 2 and 3 character grams,
+ * each gram keeps a posting list of the ids of the items containing it.
+ * A search intersects the posting lists of the search text grams, walking the shortest and probing the others,
+ * then confirms each candidate against the current item, so the results are exactly the same matches
+ * as String.contains (or startsWith for prefix searches).
+ * Removes only count the stale entries they leave behind, the index is rebuilt from the items once
+ * stale entries outnumber live ones. Results come back in the order the items were added to the index.
+ * @param <T> the item type (Part or Product)
+ * @author Andrew Burk
+ */
+public class NGramIndex<T> {
+    private static final int GRAM_LENGTH = 3;
+
+    private final Function<T, String> nameOf;
+    private final ToIntFunction<T> idOf;
+    private final IntFunction<T> lookup;
+    private final Supplier<? extends Iterable<T>> allItems;
+    private PostingTable postings = new PostingTable();
+    private long liveEntries;
+    private long staleEntries;
+
+    /**
+     * Constructor for NGramIndex - Called when new NGramIndex object is created.
+     * @param nameOf function returning the name to index for an item
+     * @param idOf function returning the id of an item
+     * @param lookup function returning the current item for an id, or null
+     * @param allItems supplies every current item when the index is rebuilt
+     */
+    public NGramIndex(Function<T, String> nameOf, ToIntFunction<T> idOf, IntFunction<T> lookup, Supplier<? extends Iterable<T>> allItems) {
+        this.nameOf = nameOf;
+        this.idOf = idOf;
+        this.lookup = lookup;
+        this.allItems = allItems;
+    }
+
+    /**
+     * @param item the item to add to the index
+     */
+    public void add(T item) {
+        int id = idOf.applyAsInt(item);
+        for (long gram : gramsOf(fold(nameOf(item)))) {
+            postings.getOrCreate(gram).add(id);
+            liveEntries++;
+        }
+    }
+
+    /**
+     * Marks the entries of an item as stale, they are skipped by searches until the next rebuild.
+     * Call it once the item has left the item list, a rebuild reads that list.
+     * @param item the item removed, must have the same name it was added with
+     */
+    public void remove(T item) {
+        markStale(item);
+    }
+
+    /**
+     * Replaces an item already replaced in the item list. When marking the old item stale rebuilds the index,
+     * the rebuild has read the new item from the list and it is not added again.
+     * @param oldItem the item replaced, must have the same name it was added with
+     * @param newItem the item now in the list
+     */
+    public void replace(T oldItem, T newItem) {
+        if (!markStale(oldItem)) {
+            add(newItem);
+        }
+    }
+
+    /**
+     * @return true:false if the index was rebuilt from the item list
+     */
+    private boolean markStale(T item) {
+        long entries = gramsOf(fold(nameOf(item))).length;
+        liveEntries -= entries;
+        staleEntries += entries;
+        if (staleEntries > liveEntries && staleEntries > 1024) {
+            rebuild();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes all items from the index.
+     */
+    public void clear() {
+        postings = new PostingTable();
+        liveEntries = 0;
+        staleEntries = 0;
+    }
+
+    /**
+     * Finds the items whose name contains (or starts with) the search text.
+     * The search text must not be empty, every name matches an empty search.
+     * @param text the text to search for
+     * @param ignoreCase true to compare names without case
+     * @param prefixOnly true to only match names starting with the text
+     * @return the matching items
+     */
+    public List<T> search(String text, boolean ignoreCase, boolean prefixOnly) {
+        String folded = fold(text);
+        List<T> results = new ArrayList<>();
+
+        //Short searches are a single gram, longer ones use every trigram of the search text.
+        int gramCount = folded.length() <= GRAM_LENGTH ? 1 : folded.length() - GRAM_LENGTH + 1;
+        Posting[] lists = new Posting[gramCount];
+        for (int i = 0; i < gramCount; i++) {
+            Posting posting = postings.get(encode(folded, i, Math.min(folded.length(), GRAM_LENGTH)));
+            if (posting == null) {
+                return results; //A gram nobody has, nothing can match.
+            }
+            lists[i] = posting;
+        }
+        //Walk the shortest posting list and probe the others, shortest first.
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        Posting shortest = lists[0];
+
+        //Stale entries can repeat an id, only then is a seen set needed.
+        IntIntHashMap seen = staleEntries > 0 ? new IntIntHashMap() : null;
+        for (int i = 0; i < shortest.size; i++) {
+            int id = shortest.ids[i];
+            if (seen != null && seen.put(id, 0) != IntIntHashMap.NOT_FOUND) {
+                continue;
+            }
+            boolean inAll = true;
+            for (int j = 1; j < lists.length && inAll; j++) {
+                inAll = lists[j] == lists[j - 1] || lists[j].contains(id);
+            }
+            if (!inAll) {
+                continue;
+            }
+            T candidate = lookup.apply(id);
+            if (candidate != null && matches(nameOf(candidate), text, folded, ignoreCase, prefixOnly)) {
+                results.add(candidate);
+            }
+        }
+        return results;
+    }
+
+    private void rebuild() {
+        clear();
+        for (T item : allItems.get()) {
+            add(item);
+        }
+    }
+
+    private String nameOf(T item) {
+        String name = nameOf.apply(item);
+        return name == null ? "" : name;
+    }
+
+    private static boolean matches(String name, String text, String foldedText, boolean ignoreCase, boolean prefixOnly) {
+        if (ignoreCase) {
+            String foldedName = fold(name);
+            return prefixOnly ? foldedName.startsWith(foldedText) : foldedName.contains(foldedText);
+        }
+        return prefixOnly ? name.startsWith(text) : name.contains(text);
+    }
+
+    /**
+     * Lower cases one character at a time so the folded text keeps the same length,
+     * any exact match is then also a match of the folded text.
+     * @param text the text to fold
+     * @return the folded text
+     */
+    static String fold(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @param folded the folded name
+     * @return every distinct 1, 2 and 3 character gram of the name
+     */
+    private static long[] gramsOf(String folded) {
+        long[] grams = new long[folded.length() * GRAM_LENGTH];
+        int count = 0;
+        for (int i = 0; i < folded.length(); i++) {
+            for (int length = 1; length <= GRAM_LENGTH && i + length <= folded.length(); length++) {
+                grams[count++] = encode(folded, i, length);
+            }
+        }
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Packs up to three characters and the gram length into one long key.
+     */
+    private static long encode(String text, int start, int length) {
+        long key = length;
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | text.charAt(start + i);
+        }
+        return key;
+    }
+
+    /**
+     * Open addressing table from gram key to posting list, no boxing of the keys.
+     */
+    private static class PostingTable {
+        private long[] keys = new long[64];
+        private Posting[] values = new Posting[64];
+        private int size;
+
+        private Posting get(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        private Posting getOrCreate(long key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            for (; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            Posting posting = new Posting();
+            keys[i] = key;
+            values[i] = posting;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            return posting;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Posting[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Posting[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] != null) {
+                    int i = hash(oldKeys[j]) & mask;
+                    while (values[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * Growable list of ids in the order they were added, four bytes per entry.
+     * Ids usually arrive in ascending order and are then probed in place with a binary search,
+     * otherwise through a sorted copy made on the first probe after an add.
+     */
+    private static class Posting {
+        private int[] ids = new int[4];
+        private int size;
+        private boolean ascending = true;
+        //Searches may run side by side under a read lock, the copy is published whole.
+        private volatile int[] sorted;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            if (size > 0 && id < ids[size - 1]) {
+                ascending = false;
+            }
+            ids[size++] = id;
+            sorted = null;
+        }
+
+        private boolean contains(int id) {
+            if (ascending) {
+                return Arrays.binarySearch(ids, 0, size, id) >= 0;
+            }
+            int[] copy = sorted;
+            if (copy == null) {
+                copy = Arrays.copyOf(ids, size);
+                Arrays.sort(copy);
+                sorted = copy;
+            }
+            return Arrays.binarySearch(copy, id) >= 0;
+        }
+    }
+}
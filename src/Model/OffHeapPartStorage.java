@@ -0,0 +1,537 @@
+package Model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Part storage holding every part record outside the Java heap, in direct ByteBuffers, so tens of millions of parts
+ * add nothing for the garbage collector to trace beyond a few large buffers and the int array of the list order.
+ * Each part takes one fixed width slot, slots are allocated in chunks and the slots of removed or replaced parts
+ * are kept on a free list and reused by the next adds. Names and company names are UTF-8 bytes in an append only
+ * string arena, each company name is written once and shared by its parts.
+ * get returns a flyweight InHouse or Outsourced over the slot, equal to every other flyweight of the same slot.
+ * A flyweight of a removed part reads what the part held until its slot is reused,
+ * then throws IllegalStateException instead of reading the new part. A part added from outside is copied into
+ * a slot, the Inventory then holds the copy (see holds). Use with new Inventory(PartStorage).
+ * The arena never shrinks, renamed and removed parts leave their bytes behind. The buffers are freed once the storage
+ * is no longer reachable, direct memory is limited by -XX:MaxDirectMemorySize (the heap size by default).
+ * Not thread safe, like ArrayList.
+ * @author Andrew Burk
+ */
+public class OffHeapPartStorage extends AbstractList<Part> implements PartStorage, RandomAccess {
+    //Slot layout, byte offsets of the fields.
+    private static final int ID = 0;
+    private static final int FLAGS = 4;
+    private static final int PRICE = 8;
+    private static final int STOCK = 16;
+    private static final int MIN = 20;
+    private static final int MAX = 24;
+    private static final int MACHINE_ID = 28;
+    private static final int NAME = 32;
+    private static final int COMPANY_NAME = 40;
+    private static final int NEXT_FREE = 48;
+    private static final int GENERATION = 52;
+    private static final int SLOT_BYTES = 56;
+
+    private static final int OUTSOURCED = 1;
+    private static final int SLOT_CHUNK_SHIFT = 16;
+    private static final int SLOTS_PER_CHUNK = 1 << SLOT_CHUNK_SHIFT;
+    private static final int ARENA_CHUNK_BYTES = 1 << 24;
+    //A string reference is the arena chunk, the position in it and the length, 16, 24 and 24 bits.
+    private static final int MAX_STRING_BYTES = ARENA_CHUNK_BYTES - 1;
+    private static final long NO_STRING = -1;
+    private static final int NO_SLOT = -1;
+
+    private ByteBuffer[] slotChunks = new ByteBuffer[0];
+    //Slots handed out so far, used or free.
+    private int slotCount;
+    private int freeSlot = NO_SLOT;
+    private int freeCount;
+
+    private ByteBuffer[] arenaChunks = new ByteBuffer[0];
+    private int arenaPosition;
+    private long arenaBytes;
+    private final Map<String, Long> companyNames = new HashMap<>();
+
+    //List index to slot.
+    private int[] order;
+    private int size;
+
+    /**
+     * Constructor for OffHeapPartStorage - Called when new OffHeapPartStorage object is created.
+     */
+    public OffHeapPartStorage() {
+        this(16);
+    }
+
+    /**
+     * Constructor for OffHeapPartStorage - Sized for a known number of parts, slots are still allocated as needed.
+     * @param expectedSize number of parts to hold without growing the list order
+     */
+    public OffHeapPartStorage(int expectedSize) {
+        order = new int[Math.max(expectedSize, 16)];
+    }
+
+    @Override
+    public Part get(int index) {
+        int slot = slotAt(index);
+        int generation = getInt(slot, GENERATION);
+        return (getInt(slot, FLAGS) & OUTSOURCED) != 0 ? new OutsourcedSlot(slot, generation) : new InHouseSlot(slot, generation);
+    }
+
+    @Override
+    public int idAt(int index) {
+        return getInt(slotAt(index), ID);
+    }
+
+    @Override
+    public String nameAt(int index) {
+        return readString(getLong(slotAt(index), NAME));
+    }
+
+    @Override
+    public int stockAt(int index) {
+        return getInt(slotAt(index), STOCK);
+    }
+
+    @Override
+    public double priceAt(int index) {
+        return getDouble(slotAt(index), PRICE);
+    }
+
+    /**
+     * A part matches its own flyweights, and a part from outside matches a slot holding the same fields,
+     * so the Inventory still finds a part it was given after copying it in.
+     * @param index list index
+     * @param part the part to look for
+     * @return true:false if the part at the index is the part
+     */
+    @Override
+    public boolean holds(int index, Part part) {
+        int slot = slotAt(index);
+        if (part instanceof InHouseSlot || part instanceof OutsourcedSlot) {
+            return part.equals(get(index));
+        }
+        if (getInt(slot, ID) != part.getId() || getDouble(slot, PRICE) != part.getPrice() || getInt(slot, STOCK) != part.getStock()
+                || getInt(slot, MIN) != part.getMin() || getInt(slot, MAX) != part.getMax()
+                || !sameString(readString(getLong(slot, NAME)), part.getName())) {
+            return false;
+        }
+        boolean outsourced = (getInt(slot, FLAGS) & OUTSOURCED) != 0;
+        if (part instanceof Outsourced) {
+            return outsourced && sameString(readString(getLong(slot, COMPANY_NAME)), ((Outsourced) part).getCompanyName());
+        }
+        return !outsourced && part instanceof InHouse && getInt(slot, MACHINE_ID) == ((InHouse) part).getMachineId();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Part set(int index, Part part) {
+        Part old = get(index);
+        //Take the new slot first, so the old part stays readable for the update listeners.
+        int slot = takeSlot();
+        write(slot, part);
+        freeSlot(order[index]);
+        order[index] = slot;
+        return old;
+    }
+
+    @Override
+    public void add(int index, Part part) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int slot = takeSlot();
+        write(slot, part);
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size + (size >> 1));
+        }
+        System.arraycopy(order, index, order, index + 1, size - index);
+        order[index] = slot;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Part remove(int index) {
+        Part old = get(index);
+        freeSlot(order[index]);
+        System.arraycopy(order, index + 1, order, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            freeSlot(order[i]);
+        }
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return number of slots on the free list
+     */
+    public int getFreeSlotCount() {
+        return freeCount;
+    }
+
+    /**
+     * @return bytes of string data written to the arena, including strings no longer used
+     */
+    public long getArenaBytes() {
+        return arenaBytes;
+    }
+
+    /**
+     * @return direct memory allocated for slots and the arena
+     */
+    public long getOffHeapBytes() {
+        return (long) slotChunks.length * SLOTS_PER_CHUNK * SLOT_BYTES + (long) arenaChunks.length * ARENA_CHUNK_BYTES;
+    }
+
+    /**
+     * Reuses a free slot, marking it as a new generation, or hands out the next one.
+     */
+    private int takeSlot() {
+        if (freeSlot != NO_SLOT) {
+            int slot = freeSlot;
+            freeSlot = getInt(slot, NEXT_FREE);
+            freeCount--;
+            putInt(slot, GENERATION, getInt(slot, GENERATION) + 1);
+            return slot;
+        }
+        if (slotCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Part storage is full");
+        }
+        if (slotCount >>> SLOT_CHUNK_SHIFT == slotChunks.length) {
+            slotChunks = Arrays.copyOf(slotChunks, slotChunks.length + 1);
+            slotChunks[slotChunks.length - 1] = ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        }
+        return slotCount++;
+    }
+
+    private void freeSlot(int slot) {
+        putInt(slot, NEXT_FREE, freeSlot);
+        freeSlot = slot;
+        freeCount++;
+    }
+
+    private void write(int slot, Part part) {
+        putInt(slot, ID, part.getId());
+        putDouble(slot, PRICE, part.getPrice());
+        putInt(slot, STOCK, part.getStock());
+        putInt(slot, MIN, part.getMin());
+        putInt(slot, MAX, part.getMax());
+        putLong(slot, NAME, writeString(part.getName()));
+        if (part instanceof Outsourced) {
+            putInt(slot, FLAGS, OUTSOURCED);
+            putInt(slot, MACHINE_ID, 0);
+            putLong(slot, COMPANY_NAME, companyName(((Outsourced) part).getCompanyName()));
+        } else {
+            putInt(slot, FLAGS, 0);
+            putInt(slot, MACHINE_ID, part instanceof InHouse ? ((InHouse) part).getMachineId() : 0);
+            putLong(slot, COMPANY_NAME, NO_STRING);
+        }
+    }
+
+    /**
+     * @return the arena reference of the company name, written the first time it is used
+     */
+    private long companyName(String companyName) {
+        if (companyName == null) {
+            return NO_STRING;
+        }
+        Long reference = companyNames.get(companyName);
+        if (reference == null) {
+            reference = writeString(companyName);
+            companyNames.put(companyName, reference);
+        }
+        return reference;
+    }
+
+    private long writeString(String value) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String too long for the part storage: " + bytes.length + " bytes");
+        }
+        if (arenaChunks.length == 0 || arenaPosition + bytes.length > ARENA_CHUNK_BYTES) {
+            arenaChunks = Arrays.copyOf(arenaChunks, arenaChunks.length + 1);
+            arenaChunks[arenaChunks.length - 1] = ByteBuffer.allocateDirect(ARENA_CHUNK_BYTES);
+            arenaPosition = 0;
+        }
+        int chunk = arenaChunks.length - 1;
+        arenaChunks[chunk].put(arenaPosition, bytes);
+        long reference = (long) chunk << 48 | (long) arenaPosition << 24 | bytes.length;
+        arenaPosition += bytes.length;
+        arenaBytes += bytes.length;
+        return reference;
+    }
+
+    private String readString(long reference) {
+        if (reference == NO_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) (reference & MAX_STRING_BYTES)];
+        arenaChunks[(int) (reference >>> 48)].get((int) (reference >>> 24) & MAX_STRING_BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int slotAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return order[index];
+    }
+
+    private int getInt(int slot, int field) {
+        return slotChunks[slot >>> SLOT_CHUNK_SHIFT].getInt((slot & SLOTS_PER_CHUNK - 1) * SLOT_BYTES + field);
+    }
+
+    private void putInt(int slot, int field, int value) {
+        slotChunks[slot >>> SLOT_CHUNK_SHIFT].putInt((slot & SLOTS_PER_CHUNK - 1) * SLOT_BYTES + field, value);
+    }
+
+    private long getLong(int slot, int field) {
+        return slotChunks[slot >>> SLOT_CHUNK_SHIFT].getLong((slot & SLOTS_PER_CHUNK - 1) * SLOT_BYTES + field);
+    }
+
+    private void putLong(int slot, int field, long value) {
+        slotChunks[slot >>> SLOT_CHUNK_SHIFT].putLong((slot & SLOTS_PER_CHUNK - 1) * SLOT_BYTES + field, value);
+    }
+
+    private double getDouble(int slot, int field) {
+        return slotChunks[slot >>> SLOT_CHUNK_SHIFT].getDouble((slot & SLOTS_PER_CHUNK - 1) * SLOT_BYTES + field);
+    }
+
+    private void putDouble(int slot, int field, double value) {
+        slotChunks[slot >>> SLOT_CHUNK_SHIFT].putDouble((slot & SLOTS_PER_CHUNK - 1) * SLOT_BYTES + field, value);
+    }
+
+    /**
+     * @return the slot, after checking it still holds the part the flyweight was made for
+     */
+    private int live(int slot, int generation) {
+        if (getInt(slot, GENERATION) != generation) {
+            throw new IllegalStateException("Part was removed from the storage and its slot reused");
+        }
+        return slot;
+    }
+
+    private static boolean sameString(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Flyweight in house part over one slot. The fields inherited from Part are not used.
+     */
+    private final class InHouseSlot extends InHouse {
+        private final int slot;
+        private final int generation;
+
+        private InHouseSlot(int slot, int generation) {
+            super(0, null, 0, 0, 0, 0, 0);
+            this.slot = slot;
+            this.generation = generation;
+        }
+
+        private OffHeapPartStorage storage() {
+            return OffHeapPartStorage.this;
+        }
+
+        @Override
+        public int getId() {
+            return getInt(live(slot, generation), ID);
+        }
+
+        @Override
+        public void setId(int id) {
+            putInt(live(slot, generation), ID, id);
+        }
+
+        @Override
+        public String getName() {
+            return readString(getLong(live(slot, generation), NAME));
+        }
+
+        @Override
+        public void setName(String name) {
+            putLong(live(slot, generation), NAME, writeString(name));
+        }
+
+        @Override
+        public double getPrice() {
+            return getDouble(live(slot, generation), PRICE);
+        }
+
+        @Override
+        public void setPrice(double price) {
+            putDouble(live(slot, generation), PRICE, price);
+        }
+
+        @Override
+        public int getStock() {
+            return getInt(live(slot, generation), STOCK);
+        }
+
+        @Override
+        public void setStock(int stock) {
+            putInt(live(slot, generation), STOCK, stock);
+        }
+
+        @Override
+        public int getMin() {
+            return getInt(live(slot, generation), MIN);
+        }
+
+        @Override
+        public void setMin(int min) {
+            putInt(live(slot, generation), MIN, min);
+        }
+
+        @Override
+        public int getMax() {
+            return getInt(live(slot, generation), MAX);
+        }
+
+        @Override
+        public void setMax(int max) {
+            putInt(live(slot, generation), MAX, max);
+        }
+
+        @Override
+        public int getMachineId() {
+            return getInt(live(slot, generation), MACHINE_ID);
+        }
+
+        @Override
+        public void setMachineID(int machineId) {
+            putInt(live(slot, generation), MACHINE_ID, machineId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof InHouseSlot && ((InHouseSlot) o).storage() == storage()
+                    && ((InHouseSlot) o).slot == slot && ((InHouseSlot) o).generation == generation;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(storage()) * 31 + slot) * 31 + generation;
+        }
+    }
+
+    /**
+     * Flyweight outsourced part over one slot. The fields inherited from Part are not used.
+     */
+    private final class OutsourcedSlot extends Outsourced {
+        private final int slot;
+        private final int generation;
+
+        private OutsourcedSlot(int slot, int generation) {
+            super(0, null, 0, 0, 0, 0, null);
+            this.slot = slot;
+            this.generation = generation;
+        }
+
+        private OffHeapPartStorage storage() {
+            return OffHeapPartStorage.this;
+        }
+
+        @Override
+        public int getId() {
+            return getInt(live(slot, generation), ID);
+        }
+
+        @Override
+        public void setId(int id) {
+            putInt(live(slot, generation), ID, id);
+        }
+
+        @Override
+        public String getName() {
+            return readString(getLong(live(slot, generation), NAME));
+        }
+
+        @Override
+        public void setName(String name) {
+            putLong(live(slot, generation), NAME, writeString(name));
+        }
+
+        @Override
+        public double getPrice() {
+            return getDouble(live(slot, generation), PRICE);
+        }
+
+        @Override
+        public void setPrice(double price) {
+            putDouble(live(slot, generation), PRICE, price);
+        }
+
+        @Override
+        public int getStock() {
+            return getInt(live(slot, generation), STOCK);
+        }
+
+        @Override
+        public void setStock(int stock) {
+            putInt(live(slot, generation), STOCK, stock);
+        }
+
+        @Override
+        public int getMin() {
+            return getInt(live(slot, generation), MIN);
+        }
+
+        @Override
+        public void setMin(int min) {
+            putInt(live(slot, generation), MIN, min);
+        }
+
+        @Override
+        public int getMax() {
+            return getInt(live(slot, generation), MAX);
+        }
+
+        @Override
+        public void setMax(int max) {
+            putInt(live(slot, generation), MAX, max);
+        }
+
+        @Override
+        public String getCompanyName() {
+            return readString(getLong(live(slot, generation), COMPANY_NAME));
+        }
+
+        @Override
+        public void setCompanyName(String companyName) {
+            putLong(live(slot, generation), COMPANY_NAME, companyName(companyName));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof OutsourcedSlot && ((OutsourcedSlot) o).storage() == storage()
+                    && ((OutsourcedSlot) o).slot == slot && ((OutsourcedSlot) o).generation == generation;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(storage()) * 31 + slot) * 31 + generation;
+        }
+    }
+}
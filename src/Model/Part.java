@@ -8,7 +8,7 @@ package Model;
  *
  * @author Andrew Burk
  */
-public abstract class Part {
+public abstract class Part implements StockItem {
     private int id;
     private String name;
     private double price;
@@ -0,0 +1,55 @@
+package Model;
+
+import java.util.List;
+
+/**
+ * Interface for alternative part list storage behind the Inventory, see Inventory(PartStorage).
+ * Implementations may create Part objects lazily, so the Inventory reads ids and names through
+ * idAt and nameAt when building its indexes, and the sort columns through the other At methods,
+ * instead of calling get on every record.
+ * @author Andrew Burk
+ */
+public interface PartStorage extends List<Part> {
+
+    /**
+     * @param index list index
+     * @return the id of the part at the index
+     */
+    default int idAt(int index) {
+        return get(index).getId();
+    }
+
+    /**
+     * @param index list index
+     * @return the name of the part at the index
+     */
+    default String nameAt(int index) {
+        return get(index).getName();
+    }
+
+    /**
+     * @param index list index
+     * @return the stock of the part at the index
+     */
+    default int stockAt(int index) {
+        return get(index).getStock();
+    }
+
+    /**
+     * @param index list index
+     * @return the price of the part at the index
+     */
+    default double priceAt(int index) {
+        return get(index).getPrice();
+    }
+
+    /**
+     * Used by the Inventory to find a part it was given, for storage that copies parts in.
+     * @param index list index
+     * @param part the part to look for
+     * @return true:false if the part at the index is the part
+     */
+    default boolean holds(int index, Part part) {
+        return get(index).equals(part);
+    }
+}
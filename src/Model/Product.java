@@ -3,20 +3,33 @@ package Model;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
 /**
  * Object Class for Product
  * @author Andrew Burk
  */
 
-public class Product {
+public class Product implements StockItem {
 
-    private ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+    //Ordered like the list it replaced, with O(1) membership for filtering and removes.
+    private AssociatedPartList associatedParts = new AssociatedPartList();
+    //Bill of materials: quantity per associated part (1 unless set) and nested sub-assembly products.
+    private HashMap<Part, Integer> partQuantities = new HashMap<>();
+    private ObservableList<Product> subAssemblies = FXCollections.observableArrayList();
+    private HashMap<Product, Integer> subAssemblyQuantities = new HashMap<>();
     private int id;
     private String name;
     private double price;
     private int stock;
     private int min;
     private int max;
+    private Inventory owner;
 
     /**
      * Constructor for Product - Called when new Product object is created.
@@ -125,7 +138,63 @@ public class Product {
      * @param part the part to add to part list
      */
     public void addAssociatedPart(Part part){
-        associatedParts.add(part);
+        change(() -> {
+            associatedParts.add(part);
+            if (owner != null) {
+                owner.fireAssociatedPartAdded(this, part);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Associates a part with a quantity per product unit, or changes the quantity of an associated part.
+     * @param part the part to add to part list
+     * @param quantity units of the part in one product, at least 1
+     */
+    public void addAssociatedPart(Part part, int quantity){
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+        change(() -> {
+            if (!associatedParts.contains(part)) {
+                addAssociatedPart(part);
+            }
+            if (quantity != getAssociatedPartQuantity(part)) {
+                partQuantities.put(part, quantity);
+                if (owner != null) {
+                    owner.fireAssociatedPartQuantityChanged(this, part, quantity);
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * @param part an associated part
+     * @return units of the part in one product (per association), 0 if not associated
+     */
+    public int getAssociatedPartQuantity(Part part){
+        if (!associatedParts.contains(part)) {
+            return 0;
+        }
+        return partQuantities.getOrDefault(part, 1);
+    }
+
+    /**
+     * Adds many parts with a single change event on the part list, used by bulk imports.
+     * @param parts the parts to add to part list
+     */
+    public void addAssociatedParts(Collection<? extends Part> parts){
+        change(() -> {
+            associatedParts.addAll(parts);
+            if (owner != null) {
+                for (Part part : parts) {
+                    owner.fireAssociatedPartAdded(this, part);
+                }
+            }
+            return true;
+        });
     }
 
     /**
@@ -135,14 +204,122 @@ public class Product {
     public boolean deleteAssociatedPart(Part selectedAssociatedPart){
         if (selectedAssociatedPart == null)
             return false;
-        associatedParts.remove(selectedAssociatedPart);
+        change(() -> {
+            if (associatedParts.remove(selectedAssociatedPart)) {
+                if (!associatedParts.contains(selectedAssociatedPart)) {
+                    partQuantities.remove(selectedAssociatedPart);
+                }
+                if (owner != null) {
+                    owner.fireAssociatedPartDeleted(this, selectedAssociatedPart);
+                }
+            }
+            return true;
+        });
         return true;
     }
 
+    /**
+     * Nests another product in this one, or changes the quantity of a nested product.
+     * @param subAssembly the product to nest
+     * @param quantity units of the sub-assembly in one product, at least 1
+     * @throws IllegalArgumentException the sub-assembly is this product or already contains it (a cycle)
+     */
+    public void addSubAssembly(Product subAssembly, int quantity){
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+        if (subAssembly == this || subAssembly.containsSubAssembly(this)) {
+            throw new IllegalArgumentException("Product " + subAssembly.getId() + " contains product " + id + ", nesting it would make a cycle");
+        }
+        change(() -> {
+            if (!subAssemblyQuantities.containsKey(subAssembly)) {
+                subAssemblies.add(subAssembly);
+            } else if (subAssemblyQuantities.get(subAssembly) == quantity) {
+                return false;
+            }
+            subAssemblyQuantities.put(subAssembly, quantity);
+            if (owner != null) {
+                owner.fireSubAssemblyAdded(this, subAssembly, quantity);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * @param subAssembly the nested product to remove
+     * @return true:false if it was nested in this product
+     */
+    public boolean deleteSubAssembly(Product subAssembly){
+        return change(() -> {
+            if (subAssemblyQuantities.remove(subAssembly) == null) {
+                return false;
+            }
+            subAssemblies.remove(subAssembly);
+            if (owner != null) {
+                owner.fireSubAssemblyDeleted(this, subAssembly);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * @param subAssembly a nested product
+     * @return units of it in one product, 0 if not nested
+     */
+    public int getSubAssemblyQuantity(Product subAssembly){
+        return subAssemblyQuantities.getOrDefault(subAssembly, 0);
+    }
+
+    /**
+     * @param product the product to look for
+     * @return true:false if the product is nested in this one at any depth
+     */
+    public boolean containsSubAssembly(Product product){
+        ArrayDeque<Product> pending = new ArrayDeque<>(subAssemblies);
+        Set<Product> seen = new HashSet<>();
+        while (!pending.isEmpty()) {
+            Product next = pending.pop();
+            if (next == product) {
+                return true;
+            }
+            if (seen.add(next)) {
+                pending.addAll(next.subAssemblies);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Makes an association or sub-assembly change through the Inventory holding this product,
+     * which may lock it (see ConcurrentInventory).
+     * @param change makes the change and fires its events
+     * @return the result of the change
+     */
+    private boolean change(BooleanSupplier change){
+        Inventory inventory = owner;
+        return inventory == null ? change.getAsBoolean() : inventory.changeAssociations(change);
+    }
+
+    /**
+     * Set by the Inventory holding this product, so association changes reach its listeners.
+     * @param owner the inventory holding this product, or null
+     */
+    void setOwner(Inventory owner){
+        this.owner = owner;
+    }
+
     /**
      * @return the part list
      */
     public ObservableList<Part> getAllAssociatedParts(){
         return associatedParts;
     }
+
+    /**
+     * Changes must go through addSubAssembly and deleteSubAssembly.
+     * @return the nested products
+     */
+    public ObservableList<Product> getAllSubAssemblies(){
+        return subAssemblies;
+    }
 }
@@ -0,0 +1,172 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Sorted secondary indexes on the price and stock of parts and products, answering StockQuery ranges.
+ * Each index is a BlockIndex, built once from the Inventory lists with SlotSorter
+ * and kept up to date from the change events after that (adds, updates, deletes and stock changes).
+ * Queries estimate the entries in the price and stock ranges and walk the smaller one, filtering on the other range
+ * inside the index, or walk the name search matches when there are fewer of them. Each id is looked up when the
+ * stream reaches it, so results are produced lazily and a stream stopped early reads nothing past where it stopped.
+ * Every item is checked against the whole query before it is returned. The indexes can be read while
+ * the Inventory changes them, a stream walks the entries as they were when it began.
+ * @author Andrew Burk
+ */
+final class RangeIndex implements InventoryListener {
+    private final Inventory inv;
+    private final BlockIndex partPrices;
+    private final BlockIndex partStocks;
+    private final BlockIndex productPrices;
+    private final BlockIndex productStocks;
+
+    /**
+     * Constructor for RangeIndex - Reads every part and product once, then listens to the Inventory.
+     * @param partKeys reads the part list by slot
+     * @param partCount parts in the list
+     * @param productKeys reads the product list by slot
+     * @param productCount products in the list
+     */
+    RangeIndex(Inventory inv, SlotSorter.Keys partKeys, int partCount, SlotSorter.Keys productKeys, int productCount) {
+        this.inv = inv;
+        partPrices = build(partKeys, partCount, InventoryColumn.PRICE);
+        partStocks = build(partKeys, partCount, InventoryColumn.STOCK);
+        productPrices = build(productKeys, productCount, InventoryColumn.PRICE);
+        productStocks = build(productKeys, productCount, InventoryColumn.STOCK);
+        inv.addListener(this);
+    }
+
+    /**
+     * Sorts the slots by the column then by id, and reads each entry with its other column in that order.
+     */
+    private static BlockIndex build(SlotSorter.Keys keys, int size, InventoryColumn column) {
+        boolean byPrice = column == InventoryColumn.PRICE;
+        int[] slots = SlotSorter.allSlots(size);
+        SlotSorter.sort(slots, column, false, keys);
+        double[] values = new double[size];
+        int[] ids = new int[size];
+        double[] others = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = byPrice ? keys.priceAt(slots[i]) : keys.stockAt(slots[i]);
+        }
+        //SlotSorter keeps list order for equal values, the index wants id order.
+        long[] run = new long[size];
+        for (int from = 0, to; from < size; from = to) {
+            to = from + 1;
+            while (to < size && Double.compare(values[to], values[from]) == 0) {
+                to++;
+            }
+            for (int i = from; i < to; i++) {
+                run[i] = ((long) keys.idAt(slots[i]) << 32) | (slots[i] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(run, from, to);
+            for (int i = from; i < to; i++) {
+                int slot = (int) run[i];
+                ids[i] = (int) (run[i] >> 32);
+                others[i] = byPrice ? keys.stockAt(slot) : keys.priceAt(slot);
+            }
+        }
+        return new BlockIndex(values, ids, others);
+    }
+
+    /**
+     * @param query price and stock ranges and name
+     * @return matching parts, found when the stream reaches them
+     */
+    Stream<Part> parts(StockQuery query) {
+        return query(query, partPrices, partStocks, inv::lookupPart, () -> inv.lookupPart(query.getName()));
+    }
+
+    /**
+     * @param query price and stock ranges and name
+     * @return matching products, found when the stream reaches them
+     */
+    Stream<Product> products(StockQuery query) {
+        return query(query, productPrices, productStocks, inv::lookupProduct, () -> inv.lookupProduct(query.getName()));
+    }
+
+    private static <T extends StockItem> Stream<T> query(StockQuery query, BlockIndex prices, BlockIndex stocks,
+                                                          IntFunction<T> lookup, Supplier<List<T>> nameSearch) {
+        if (query.isEmpty()) {
+            return Stream.empty();
+        }
+        double minPrice = query.getMinPrice();
+        double maxPrice = query.getMaxPrice();
+        double minStock = query.getMinStock();
+        double maxStock = query.getMaxStock();
+        long priceCount = query.hasPriceRange() || !query.hasStockRange() ? prices.estimate(minPrice, maxPrice) : Long.MAX_VALUE;
+        long stockCount = query.hasStockRange() ? stocks.estimate(minStock, maxStock) : Long.MAX_VALUE;
+        if (!query.getName().isEmpty()) {
+            //The n-gram index answers the name, walk its matches unless a range has fewer entries.
+            List<T> named = nameSearch.get();
+            if (named == null) {
+                return Stream.empty();
+            }
+            if (!(query.hasPriceRange() || query.hasStockRange()) || named.size() < Math.min(priceCount, stockCount)) {
+                return named.stream().filter(query::matches);
+            }
+        }
+        PrimitiveIterator.OfInt ids = priceCount <= stockCount
+                ? prices.ids(minPrice, maxPrice, minStock, maxStock)
+                : stocks.ids(minStock, maxStock, minPrice, maxPrice);
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(ids, Spliterator.ORDERED), false)
+                .mapToObj(lookup)
+                .filter(Objects::nonNull)
+                .filter(query::matches);
+    }
+
+    @Override
+    public void partAdded(Part part) {
+        partPrices.add(part.getPrice(), part.getId(), part.getStock());
+        partStocks.add(part.getStock(), part.getId(), part.getPrice());
+    }
+
+    @Override
+    public void partUpdated(Part oldPart, Part newPart) {
+        partDeleted(oldPart);
+        partAdded(newPart);
+    }
+
+    @Override
+    public void partDeleted(Part part) {
+        partPrices.remove(part.getPrice(), part.getId(), part.getStock());
+        partStocks.remove(part.getStock(), part.getId(), part.getPrice());
+    }
+
+    @Override
+    public void productAdded(Product product) {
+        productPrices.add(product.getPrice(), product.getId(), product.getStock());
+        productStocks.add(product.getStock(), product.getId(), product.getPrice());
+    }
+
+    @Override
+    public void productUpdated(Product oldProduct, Product newProduct) {
+        productDeleted(oldProduct);
+        productAdded(newProduct);
+    }
+
+    @Override
+    public void productDeleted(Product product) {
+        productPrices.remove(product.getPrice(), product.getId(), product.getStock());
+        productStocks.remove(product.getStock(), product.getId(), product.getPrice());
+    }
+
+    @Override
+    public void stockChanged(StockItem item, int oldStock, int newStock) {
+        boolean product = item instanceof Product;
+        BlockIndex prices = product ? productPrices : partPrices;
+        BlockIndex stocks = product ? productStocks : partStocks;
+        stocks.remove(oldStock, item.getId(), item.getPrice());
+        stocks.add(newStock, item.getId(), item.getPrice());
+        prices.setOther(item.getPrice(), item.getId(), oldStock, newStock);
+    }
+}
@@ -0,0 +1,338 @@
+package Model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reorder point engine for parts and products below their min.
+ * Items below min are kept in a tree ordered by how far below min they are, most urgent first,
+ * with an id index per class to find an item's entry. A stock change is one remove and one insert, O(log N),
+ * and items at or above min are not held at all, so nothing ever rescans the Inventory after the first fill.
+ * The below min view is an observable copy of the tree in the same order for the main screen,
+ * changed through an executor so it can be kept on the UI thread.
+ * Items falling below min are queued for an AlertSink and sent in batches, when the batch size is reached,
+ * on flushAlerts, or on a schedule. Items back at min before their batch is sent are dropped from it.
+ * @author Andrew Burk
+ */
+public class ReorderMonitor implements InventoryListener {
+
+    /**
+     * Receives alerts in batches, called on the thread that filled or flushed the batch.
+     */
+    public interface AlertSink {
+
+        /**
+         * @param alerts items below min, most urgent first
+         */
+        void send(List<StockAlert> alerts);
+    }
+
+    //Most urgent first, parts before products on a tie, then by id.
+    private static final Comparator<StockAlert> URGENCY = Comparator.comparingInt(StockAlert::getDeficit).reversed()
+            .thenComparing(StockAlert::isProduct)
+            .thenComparingInt(alert -> alert.getItem().getId());
+
+    private final Inventory inv;
+    private final Executor viewExecutor;
+    private final TreeSet<StockAlert> belowMin = new TreeSet<>(URGENCY);
+    private final IntObjectHashMap<StockAlert> partAlerts = new IntObjectHashMap<>();
+    private final IntObjectHashMap<StockAlert> productAlerts = new IntObjectHashMap<>();
+    private final ObservableList<StockAlert> view = FXCollections.observableArrayList();
+
+    private AlertSink sink;
+    private int batchSize = 1;
+    //Alerts raised since the last batch, replaced by the item's current alert when sent.
+    private final Set<StockAlert> pending = new LinkedHashSet<>();
+
+    /**
+     * Constructor for ReorderMonitor - The view is changed on the thread changing the Inventory.
+     * @param inv the Inventory to watch
+     */
+    public ReorderMonitor(Inventory inv) {
+        this(inv, Runnable::run);
+    }
+
+    /**
+     * Constructor for ReorderMonitor - Called when new ReorderMonitor object is created.
+     * Reads every part and product once, then listens to the Inventory until closed.
+     * @param inv the Inventory to watch
+     * @param viewExecutor runs the view changes, one at a time and in order
+     */
+    public ReorderMonitor(Inventory inv, Executor viewExecutor) {
+        this(inv, inv.getAllParts(), inv.getAllProducts(), viewExecutor);
+    }
+
+    /**
+     * Constructor for ReorderMonitor - Used by the Inventory, which passes its own lists.
+     */
+    ReorderMonitor(Inventory inv, List<Part> parts, List<Product> products, Executor viewExecutor) {
+        this.inv = inv;
+        this.viewExecutor = viewExecutor;
+        for (Part part : parts) {
+            track(new StockAlert(part, false), false);
+        }
+        for (Product product : products) {
+            track(new StockAlert(product, true), false);
+        }
+        List<StockAlert> initial = new ArrayList<>(belowMin);
+        viewExecutor.execute(() -> view.setAll(initial));
+        inv.addListener(this);
+    }
+
+    /**
+     * Changes must not be made to the list, it follows the Inventory.
+     * @return the items below min, most urgent first
+     */
+    public ObservableList<StockAlert> getBelowMinView() {
+        return view;
+    }
+
+    /**
+     * @return number of items below min now
+     */
+    public synchronized int getBelowMinCount() {
+        return belowMin.size();
+    }
+
+    /**
+     * @param limit most items to return
+     * @return the most urgent items below min now
+     */
+    public synchronized List<StockAlert> getMostUrgent(int limit) {
+        List<StockAlert> urgent = new ArrayList<>(Math.min(limit, belowMin.size()));
+        Iterator<StockAlert> alerts = belowMin.iterator();
+        while (urgent.size() < limit && alerts.hasNext()) {
+            urgent.add(alerts.next());
+        }
+        return urgent;
+    }
+
+    /**
+     * @param sink where alerts are sent, or null to stop sending them
+     * @param batchSize alerts collected before a batch is sent without waiting for flushAlerts
+     */
+    public synchronized void setAlertSink(AlertSink sink, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.sink = sink;
+        this.batchSize = batchSize;
+        pending.clear();
+    }
+
+    /**
+     * Sends the alerts collected so far, if any.
+     */
+    public void flushAlerts() {
+        AlertSink target;
+        List<StockAlert> batch;
+        synchronized (this) {
+            target = sink;
+            batch = takeBatch();
+        }
+        if (target != null && !batch.isEmpty()) {
+            target.send(batch);
+        }
+    }
+
+    /**
+     * Sends collected alerts on a schedule, so slow trickles of alerts still go out.
+     * @param scheduler the scheduler to run on
+     * @param period time between flushes
+     * @param unit unit of the period
+     * @return the scheduled task, cancel it to stop
+     */
+    public ScheduledFuture<?> scheduleFlush(ScheduledExecutorService scheduler, long period, TimeUnit unit) {
+        return scheduler.scheduleAtFixedRate(this::flushAlerts, period, period, unit);
+    }
+
+    /**
+     * Stops listening to the Inventory.
+     */
+    public void close() {
+        inv.removeListener(this);
+    }
+
+    @Override
+    public void partAdded(Part part) {
+        changed(null, new StockAlert(part, false));
+    }
+
+    @Override
+    public void partUpdated(Part oldPart, Part newPart) {
+        changed(new StockAlert(oldPart, false), new StockAlert(newPart, false));
+    }
+
+    @Override
+    public void partDeleted(Part part) {
+        changed(new StockAlert(part, false), null);
+    }
+
+    @Override
+    public void productAdded(Product product) {
+        changed(null, new StockAlert(product, true));
+    }
+
+    @Override
+    public void productUpdated(Product oldProduct, Product newProduct) {
+        changed(new StockAlert(oldProduct, true), new StockAlert(newProduct, true));
+    }
+
+    @Override
+    public void productDeleted(Product product) {
+        changed(new StockAlert(product, true), null);
+    }
+
+    @Override
+    public void stockChanged(StockItem item, int oldStock, int newStock) {
+        boolean product = item instanceof Product;
+        changed(new StockAlert(item, product), new StockAlert(item, product));
+    }
+
+    /**
+     * Moves one item in the tree and view, and sends a batch if this filled one.
+     */
+    private void changed(StockAlert before, StockAlert after) {
+        AlertSink target = null;
+        List<StockAlert> batch = null;
+        synchronized (this) {
+            StockAlert removed = before == null ? null : untrack(before);
+            //Only an item that was not below min before raises an alert.
+            StockAlert added = after == null ? null : track(after, removed == null);
+            if (removed != null || added != null) {
+                viewExecutor.execute(() -> {
+                    if (removed != null) {
+                        int index = Collections.binarySearch(view, removed, URGENCY);
+                        if (index >= 0) {
+                            view.remove(index);
+                        }
+                    }
+                    if (added != null) {
+                        int index = Collections.binarySearch(view, added, URGENCY);
+                        view.add(index < 0 ? -index - 1 : index, added);
+                    }
+                });
+            }
+            if (sink != null && pending.size() >= batchSize) {
+                target = sink;
+                batch = takeBatch();
+            }
+        }
+        if (target != null && !batch.isEmpty()) {
+            target.send(batch);
+        }
+    }
+
+    /**
+     * @param raise true to queue the alert for the sink
+     * @return the alert added to the tree, or null if the item is not below min
+     */
+    private StockAlert track(StockAlert alert, boolean raise) {
+        if (alert.getDeficit() <= 0) {
+            return null;
+        }
+        IntObjectHashMap<StockAlert> alerts = alert.isProduct() ? productAlerts : partAlerts;
+        StockAlert old = alerts.put(alert.getItem().getId(), alert);
+        if (old != null) {
+            belowMin.remove(old);
+        }
+        belowMin.add(alert);
+        if (sink != null && raise) {
+            pending.add(alert);
+        }
+        return alert;
+    }
+
+    /**
+     * @return the alert removed from the tree, or null if the item was not below min
+     */
+    private StockAlert untrack(StockAlert alert) {
+        IntObjectHashMap<StockAlert> alerts = alert.isProduct() ? productAlerts : partAlerts;
+        StockAlert old = alerts.remove(alert.getItem().getId());
+        if (old != null) {
+            belowMin.remove(old);
+        }
+        return old;
+    }
+
+    /**
+     * @return the pending alerts still below min, as they are now, most urgent first
+     */
+    private List<StockAlert> takeBatch() {
+        Set<StockAlert> current = new LinkedHashSet<>();
+        for (StockAlert alert : pending) {
+            IntObjectHashMap<StockAlert> alerts = alert.isProduct() ? productAlerts : partAlerts;
+            StockAlert now = alerts.get(alert.getItem().getId());
+            if (now != null) {
+                current.add(now);
+            }
+        }
+        pending.clear();
+        List<StockAlert> batch = new ArrayList<>(current);
+        batch.sort(URGENCY);
+        return batch;
+    }
+
+    /**
+     * An item below min, with the stock levels it had at the time.
+     */
+    public static final class StockAlert {
+        private final StockItem item;
+        private final boolean product;
+        private final int deficit;
+        private final int reorderQuantity;
+
+        private StockAlert(StockItem item, boolean product) {
+            this.item = item;
+            this.product = product;
+            this.deficit = item.getMin() - item.getStock();
+            this.reorderQuantity = Math.max(item.getMax() - item.getStock(), 0);
+        }
+
+        /**
+         * @return the part or product
+         */
+        public StockItem getItem() {
+            return item;
+        }
+
+        /**
+         * @return true:false if the item is a product
+         */
+        public boolean isProduct() {
+            return product;
+        }
+
+        /**
+         * @return how far the stock is below min
+         */
+        public int getDeficit() {
+            return deficit;
+        }
+
+        /**
+         * @return units to order to bring the stock back to max
+         */
+        public int getReorderQuantity() {
+            return reorderQuantity;
+        }
+
+        @Override
+        public String toString() {
+            return (product ? "Product " : "Part ") + item.getId() + " " + item.getName() + " (" + deficit + " below min)";
+        }
+    }
+}
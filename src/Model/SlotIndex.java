@@ -0,0 +1,249 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Primary key index of an Inventory list, from id to the list slot of the item carrying it.
+ * The list owner changes the list first and then tells the index, through added, replaced and removed.
+ * Ids map to positions that keep list order but do not move when an item before them is removed,
+ * a remove only empties its position and a tree of filled position counts (Fenwick tree) turns a position
+ * into a slot and back in O(log n), so a delete never renumbers the items after it.
+ * The positions are packed again once half of them are empty, lookups are O(1) again until the next remove.
+ * Ids may repeat, an id then points at the first item carrying it and the other items carrying it are counted,
+ * so deleting or replacing that item moves the id on to the next one instead of losing it.
+ * Only ids carried more than once are ever looked for by scanning the list.
+ * @param <T> the item type
+ * @author Andrew Burk
+ */
+final class SlotIndex<T> {
+    private final ToIntFunction<T> idOf;
+    //Id to the position of the first item carrying it.
+    private final IntIntHashMap positions;
+    //Ids carried by more than one item, to the number of extra items carrying them.
+    private final IntIntHashMap duplicates = new IntIntHashMap();
+    private boolean[] filled;
+    //Fenwick tree over the positions, 1 for a filled position and 0 for an empty one.
+    private int[] live;
+    private int used;
+    private int empty;
+
+    /**
+     * Constructor for SlotIndex - Called when new SlotIndex object is created.
+     * @param idOf reads the id of an item
+     */
+    SlotIndex(ToIntFunction<T> idOf) {
+        this(idOf, 16);
+    }
+
+    /**
+     * Constructor for SlotIndex - Sized for the items about to be added.
+     * @param idOf reads the id of an item
+     * @param expectedSize number of items expected
+     */
+    SlotIndex(ToIntFunction<T> idOf, int expectedSize) {
+        this.idOf = idOf;
+        this.positions = new IntIntHashMap(expectedSize);
+        filled = new boolean[Math.max(8, expectedSize)];
+        live = new int[filled.length + 1];
+    }
+
+    /**
+     * @param id the id to lookup
+     * @return the slot of the first item carrying the id, or IntIntHashMap.NOT_FOUND
+     */
+    int get(int id) {
+        int position = positions.get(id);
+        return position == IntIntHashMap.NOT_FOUND ? IntIntHashMap.NOT_FOUND : slotAt(position);
+    }
+
+    /**
+     * @param id the id to check
+     * @return true:false if more than one item carries the id
+     */
+    boolean isDuplicated(int id) {
+        return duplicates.containsKey(id);
+    }
+
+    /**
+     * Finds the slot of an item, through the index when it points at the item.
+     * The list is only scanned for an id carried by more than one item.
+     * @param list the indexed list
+     * @param item the item to find
+     * @return the slot of the item, or -1 if it is not in the list
+     */
+    int find(List<T> list, T item) {
+        int id = idOf.applyAsInt(item);
+        int slot = get(id);
+        if (slot != IntIntHashMap.NOT_FOUND && list.get(slot).equals(item)) {
+            return slot;
+        }
+        return isDuplicated(id) ? list.indexOf(item) : -1;
+    }
+
+    /**
+     * Called after an item is added at the end of the list.
+     * @param id id of the item added
+     * @param slot its slot, the last one
+     */
+    void added(int id, int slot) {
+        if (slot != used - empty) {
+            throw new IllegalArgumentException("Items are only added at the end of the list, slot " + slot);
+        }
+        if (used == filled.length) {
+            filled = Arrays.copyOf(filled, used * 2);
+            rebuildTree();
+        }
+        int position = used++;
+        filled[position] = true;
+        addLive(position, 1);
+        point(id, position);
+    }
+
+    /**
+     * Called after the item at a slot is replaced by one that may carry a different id.
+     * @param list the indexed list, already holding the new item
+     * @param slot the slot replaced
+     * @param oldId id of the item replaced
+     * @param newId id of the new item
+     */
+    void replaced(List<T> list, int slot, int oldId, int newId) {
+        if (oldId == newId) {
+            return;
+        }
+        int position = positionOf(slot);
+        boolean held = positions.get(oldId) == position;
+        if (held) {
+            positions.remove(oldId);
+        }
+        released(list, oldId, held);
+        point(newId, position);
+    }
+
+    /**
+     * Called after the item at a slot is removed from the list, every item after it has moved down one.
+     * Their positions stay, only the removed one is emptied.
+     * @param list the indexed list, without the removed item
+     * @param slot the slot removed
+     * @param id id of the item removed
+     */
+    void removed(List<T> list, int slot, int id) {
+        int position = positionOf(slot);
+        boolean held = positions.get(id) == position;
+        if (held) {
+            positions.remove(id);
+        }
+        filled[position] = false;
+        addLive(position, -1);
+        empty++;
+        released(list, id, held);
+        if (empty > 16 && empty * 2 > used) {
+            pack();
+        }
+    }
+
+    /**
+     * Points the id at a position holding an item carrying it, unless it already points at an earlier one.
+     */
+    private void point(int id, int position) {
+        int first = positions.putIfAbsent(id, position);
+        if (first == IntIntHashMap.NOT_FOUND) {
+            return;
+        }
+        int extra = duplicates.get(id);
+        duplicates.put(id, extra == IntIntHashMap.NOT_FOUND ? 1 : extra + 1);
+        if (position < first) {
+            positions.put(id, position);
+        }
+    }
+
+    /**
+     * One item carrying the id has left the list, points the id at the next item carrying it if it held the id.
+     */
+    private void released(List<T> list, int id, boolean held) {
+        int extra = duplicates.get(id);
+        if (extra == IntIntHashMap.NOT_FOUND) {
+            return;
+        }
+        if (extra == 1) {
+            duplicates.remove(id);
+        } else {
+            duplicates.put(id, extra - 1);
+        }
+        if (held) {
+            for (int i = 0; i < list.size(); i++) {
+                if (idOf.applyAsInt(list.get(i)) == id) {
+                    positions.put(id, positionOf(i));
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the list slot of a filled position
+     */
+    private int slotAt(int position) {
+        if (empty == 0) {
+            return position;
+        }
+        int count = 0;
+        for (int i = position + 1; i > 0; i -= i & -i) {
+            count += live[i];
+        }
+        return count - 1;
+    }
+
+    /**
+     * @return the position of the item at a list slot
+     */
+    private int positionOf(int slot) {
+        if (empty == 0) {
+            return slot;
+        }
+        //Walk down the tree to the position with slot + 1 filled positions up to and including it.
+        int position = 0;
+        int remaining = slot + 1;
+        for (int step = Integer.highestOneBit(filled.length); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= filled.length && live[next] < remaining) {
+                position = next;
+                remaining -= live[next];
+            }
+        }
+        return position;
+    }
+
+    private void addLive(int position, int delta) {
+        for (int i = position + 1; i < live.length; i += i & -i) {
+            live[i] += delta;
+        }
+    }
+
+    private void rebuildTree() {
+        live = new int[filled.length + 1];
+        for (int i = 1; i <= filled.length; i++) {
+            if (filled[i - 1]) {
+                live[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent <= filled.length) {
+                live[parent] += live[i];
+            }
+        }
+    }
+
+    /**
+     * Renumbers the positions to the slots, the items do not move so no list is read.
+     */
+    private void pack() {
+        positions.replaceValues(this::slotAt);
+        int size = used - empty;
+        filled = new boolean[Math.max(8, Integer.highestOneBit(Math.max(1, size)) * 2)];
+        Arrays.fill(filled, 0, size, true);
+        used = size;
+        empty = 0;
+        rebuildTree();
+    }
+}
@@ -0,0 +1,41 @@
+package Model;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Result of a search run off the thread that changes the Inventory (Inventory.searchPartSlots, searchProductSlots).
+ * Holds the slots found and the change count of the list searched, slots of a search that is no longer
+ * current were found in a list that has changed since and should be found again.
+ * @author Andrew Burk
+ */
+public final class SlotSearch {
+    private final int[] slots;
+    private final IntSupplier changes;
+    private final int changesSeen;
+
+    /**
+     * Constructor for SlotSearch - Called when new SlotSearch object is created.
+     * @param slots slots of the matching rows, in display order
+     * @param changes reads the change count of the list searched
+     * @param changesSeen the change count the slots were found at
+     */
+    SlotSearch(int[] slots, IntSupplier changes, int changesSeen) {
+        this.slots = slots;
+        this.changes = changes;
+        this.changesSeen = changesSeen;
+    }
+
+    /**
+     * @return slots of the matching rows, in display order
+     */
+    public int[] getSlots() {
+        return slots;
+    }
+
+    /**
+     * @return true:false if the list has not changed since the search ran
+     */
+    public boolean isCurrent() {
+        return changes.getAsInt() == changesSeen;
+    }
+}
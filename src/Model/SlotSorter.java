@@ -0,0 +1,161 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Sorts list slots by a column for the Inventory queries.
+ * Each slot's key is turned into an int (its own value for ids and stock, its rank for names and prices),
+ * packed with the slot into a long and the longs are sorted, so no objects are created per row
+ * and equal keys keep list order.
+ * @author Andrew Burk
+ */
+final class SlotSorter {
+
+    /**
+     * Reads the sort columns of a list by slot.
+     */
+    interface Keys {
+        int idAt(int slot);
+
+        String nameAt(int slot);
+
+        int stockAt(int slot);
+
+        double priceAt(int slot);
+    }
+
+    private SlotSorter() {
+    }
+
+    /**
+     * @param list the list to read
+     * @param priceOf reads an element's price
+     * @param <E> the element type
+     * @return keys read from the list elements
+     */
+    static <E extends StockItem> Keys keysOf(List<E> list, ToDoubleFunction<E> priceOf) {
+        return new Keys() {
+            @Override
+            public int idAt(int slot) {
+                return list.get(slot).getId();
+            }
+
+            @Override
+            public String nameAt(int slot) {
+                return list.get(slot).getName();
+            }
+
+            @Override
+            public int stockAt(int slot) {
+                return list.get(slot).getStock();
+            }
+
+            @Override
+            public double priceAt(int slot) {
+                return priceOf.applyAsDouble(list.get(slot));
+            }
+        };
+    }
+
+    /**
+     * @param storage the part storage to read
+     * @return keys read through the storage, without creating parts
+     */
+    static Keys keysOf(PartStorage storage) {
+        return new Keys() {
+            @Override
+            public int idAt(int slot) {
+                return storage.idAt(slot);
+            }
+
+            @Override
+            public String nameAt(int slot) {
+                return storage.nameAt(slot);
+            }
+
+            @Override
+            public int stockAt(int slot) {
+                return storage.stockAt(slot);
+            }
+
+            @Override
+            public double priceAt(int slot) {
+                return storage.priceAt(slot);
+            }
+        };
+    }
+
+    /**
+     * @param size list size
+     * @return every slot in list order
+     */
+    static int[] allSlots(int size) {
+        int[] slots = new int[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = i;
+        }
+        return slots;
+    }
+
+    /**
+     * @param slots the slots to sort, sorted in place
+     * @param column the column to sort by
+     * @param descending true to sort high to low
+     * @param keys reads the column
+     */
+    static void sort(int[] slots, InventoryColumn column, boolean descending, Keys keys) {
+        int[] sortKeys = new int[slots.length];
+        switch (column) {
+            case ID:
+                for (int i = 0; i < slots.length; i++) {
+                    sortKeys[i] = keys.idAt(slots[i]);
+                }
+                break;
+            case STOCK:
+                for (int i = 0; i < slots.length; i++) {
+                    sortKeys[i] = keys.stockAt(slots[i]);
+                }
+                break;
+            case PRICE: {
+                double[] prices = new double[slots.length];
+                for (int i = 0; i < slots.length; i++) {
+                    prices[i] = keys.priceAt(slots[i]);
+                }
+                double[] ordered = prices.clone();
+                Arrays.sort(ordered);
+                for (int i = 0; i < slots.length; i++) {
+                    sortKeys[i] = Arrays.binarySearch(ordered, prices[i]);
+                }
+                break;
+            }
+            default: {
+                String[] names = new String[slots.length];
+                for (int i = 0; i < slots.length; i++) {
+                    String name = keys.nameAt(slots[i]);
+                    names[i] = name == null ? "" : name;
+                }
+                String[] ordered = names.clone();
+                Arrays.sort(ordered);
+                for (int i = 0; i < slots.length; i++) {
+                    sortKeys[i] = Arrays.binarySearch(ordered, names[i]);
+                }
+                break;
+            }
+        }
+
+        long[] packed = new long[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            //Descending flips the key and keeps list order for equal keys.
+            long key = descending ? ~sortKeys[i] : sortKeys[i];
+            packed[i] = (key << 32) | (i & 0xFFFFFFFFL);
+        }
+        Arrays.parallelSort(packed);
+        int[] sorted = new int[slots.length];
+        for (int i = 0; i < packed.length; i++) {
+            sorted[i] = slots[(int) packed[i]];
+        }
+        System.arraycopy(sorted, 0, slots, 0, slots.length);
+    }
+}
@@ -0,0 +1,43 @@
+package Model;
+
+/**
+ * Interface for anything held in stock with min and max levels, Part and Product.
+ * @author Andrew Burk
+ */
+public interface StockItem {
+
+    /**
+     * @return the id, unique among items of the same class
+     */
+    int getId();
+
+    /**
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * @return the price
+     */
+    double getPrice();
+
+    /**
+     * @return the stock
+     */
+    int getStock();
+
+    /**
+     * @param stock the stock to set
+     */
+    void setStock(int stock);
+
+    /**
+     * @return the min
+     */
+    int getMin();
+
+    /**
+     * @return the max
+     */
+    int getMax();
+}
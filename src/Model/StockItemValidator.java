@@ -0,0 +1,366 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validation of part and product fields entered as text, shared by the editors and the bulk importer.
+ * Each field is trimmed and parsed once by a hand written scanner instead of a regular expression,
+ * then the rules between fields (min, max and stock) are checked on the parsed values.
+ * Every broken rule is reported, not only the first. Failures are kept as bits of an int, so validating a valid row
+ * into a reused Validation creates no objects beyond the trimmed name and identifier,
+ * and one Validation per thread can check millions of rows.
+ * @author Andrew Burk
+ */
+public final class StockItemValidator {
+
+    /**
+     * The rules checked, in the order they are reported.
+     */
+    public enum Rule {
+        NAME_REQUIRED("Must include a Name"),
+        STOCK_WHOLE_NUMBER("Stock must be greater than 0"),
+        PRICE_NUMBER("Must Enter a Cost"),
+        MAX_WHOLE_NUMBER("Maximum must be greater than 0"),
+        MIN_WHOLE_NUMBER("Minimum must be greater than 0"),
+        MAX_BELOW_MIN("Maximum must be greater than Minimum"),
+        STOCK_ABOVE_MAX("Inventory Level Must Be Less Than Max."),
+        STOCK_BELOW_MIN("Inventory Level Must Be More Than Min."),
+        COMPANY_NAME_REQUIRED("Must Enter a Company Name"),
+        MACHINE_ID_WHOLE_NUMBER("Invalid Machine Id");
+
+        private final String message;
+
+        Rule(String message) {
+            this.message = message;
+        }
+
+        /**
+         * @return the message shown to the user
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private static final Rule[] RULES = Rule.values();
+    //Returned by the scanner for text that is not a whole number that fits in an int.
+    private static final long NOT_WHOLE = -1;
+
+    private StockItemValidator() {
+    }
+
+    /**
+     * @param name part name
+     * @param stock inventory level
+     * @param price cost
+     * @param min minimum stock
+     * @param max maximum stock
+     * @param identifier machine id for an in house part, company name for an outsourced part
+     * @param inHouse true:false if the part is made in house
+     * @return the parsed fields and broken rules
+     */
+    public static Validation validatePart(String name, String stock, String price, String min, String max, String identifier, boolean inHouse) {
+        return validatePart(name, stock, price, min, max, identifier, inHouse, new Validation());
+    }
+
+    /**
+     * Same as validatePart, into a Validation reused between rows.
+     * @param name part name
+     * @param stock inventory level
+     * @param price cost
+     * @param min minimum stock
+     * @param max maximum stock
+     * @param identifier machine id for an in house part, company name for an outsourced part
+     * @param inHouse true:false if the part is made in house
+     * @param into cleared and filled with the result
+     * @return into
+     */
+    public static Validation validatePart(String name, String stock, String price, String min, String max, String identifier,
+                                          boolean inHouse, Validation into) {
+        validateItem(name, stock, price, min, max, into);
+        if (inHouse) {
+            long machineId = wholeNumber(identifier);
+            if (machineId == NOT_WHOLE) {
+                into.fail(Rule.MACHINE_ID_WHOLE_NUMBER);
+            } else {
+                into.machineId = (int) machineId;
+            }
+        } else {
+            into.companyName = identifier == null ? "" : identifier.trim();
+            if (into.companyName.isEmpty()) {
+                into.fail(Rule.COMPANY_NAME_REQUIRED);
+            }
+        }
+        return into;
+    }
+
+    /**
+     * @param name product name
+     * @param stock inventory level
+     * @param price price
+     * @param min minimum stock
+     * @param max maximum stock
+     * @return the parsed fields and broken rules
+     */
+    public static Validation validateProduct(String name, String stock, String price, String min, String max) {
+        return validateProduct(name, stock, price, min, max, new Validation());
+    }
+
+    /**
+     * Same as validateProduct, into a Validation reused between rows.
+     * @param name product name
+     * @param stock inventory level
+     * @param price price
+     * @param min minimum stock
+     * @param max maximum stock
+     * @param into cleared and filled with the result
+     * @return into
+     */
+    public static Validation validateProduct(String name, String stock, String price, String min, String max, Validation into) {
+        validateItem(name, stock, price, min, max, into);
+        return into;
+    }
+
+    private static void validateItem(String name, String stock, String price, String min, String max, Validation into) {
+        into.clear();
+        into.name = name == null ? "" : name.trim();
+        if (into.name.isEmpty()) {
+            into.fail(Rule.NAME_REQUIRED);
+        }
+        long stockValue = wholeNumber(stock);
+        if (stockValue == NOT_WHOLE) {
+            into.fail(Rule.STOCK_WHOLE_NUMBER);
+        }
+        if (isDecimal(price)) {
+            into.price = Double.parseDouble(price);
+        } else {
+            into.fail(Rule.PRICE_NUMBER);
+        }
+        long maxValue = wholeNumber(max);
+        if (maxValue == NOT_WHOLE) {
+            into.fail(Rule.MAX_WHOLE_NUMBER);
+        }
+        long minValue = wholeNumber(min);
+        if (minValue == NOT_WHOLE) {
+            into.fail(Rule.MIN_WHOLE_NUMBER);
+        }
+
+        //Rules between fields only apply to the fields that parsed.
+        if (maxValue != NOT_WHOLE && minValue != NOT_WHOLE && maxValue < minValue) {
+            into.fail(Rule.MAX_BELOW_MIN);
+        }
+        if (stockValue != NOT_WHOLE && maxValue != NOT_WHOLE && stockValue > maxValue) {
+            into.fail(Rule.STOCK_ABOVE_MAX);
+        }
+        if (stockValue != NOT_WHOLE && minValue != NOT_WHOLE && stockValue < minValue) {
+            into.fail(Rule.STOCK_BELOW_MIN);
+        }
+        into.stock = (int) stockValue;
+        into.min = (int) minValue;
+        into.max = (int) maxValue;
+    }
+
+    /**
+     * Same as the pattern \d+ on the trimmed text, limited to values that fit in an int.
+     * @return the value, or NOT_WHOLE
+     */
+    private static long wholeNumber(String text) {
+        if (text == null) {
+            return NOT_WHOLE;
+        }
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return NOT_WHOLE;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return NOT_WHOLE;
+            }
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                return NOT_WHOLE;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Same as the pattern \d+(\.\d+)? on the trimmed text.
+     */
+    private static boolean isDecimal(String text) {
+        if (text == null) {
+            return false;
+        }
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int digits = 0;
+        int i = start;
+        while (i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+            digits++;
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i == end) {
+            return true;
+        }
+        if (text.charAt(i) != '.') {
+            return false;
+        }
+        i++;
+        int fraction = 0;
+        while (i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+            fraction++;
+        }
+        return fraction > 0 && i == end;
+    }
+
+    /**
+     * Parsed fields and broken rules of one part or product.
+     * The parsed value of a field is only meaningful when its own rule passed.
+     */
+    public static final class Validation {
+        private int failures;
+        private String name;
+        private int stock;
+        private double price;
+        private int min;
+        private int max;
+        private int machineId;
+        private String companyName;
+
+        private void clear() {
+            failures = 0;
+            name = null;
+            stock = 0;
+            price = 0;
+            min = 0;
+            max = 0;
+            machineId = 0;
+            companyName = null;
+        }
+
+        private void fail(Rule rule) {
+            failures |= 1 << rule.ordinal();
+        }
+
+        /**
+         * @return true:false if no rule was broken
+         */
+        public boolean isValid() {
+            return failures == 0;
+        }
+
+        /**
+         * @param rule the rule to check
+         * @return true:false if the rule was broken
+         */
+        public boolean failed(Rule rule) {
+            return (failures & 1 << rule.ordinal()) != 0;
+        }
+
+        /**
+         * @return the broken rules, in report order
+         */
+        public List<Rule> getErrors() {
+            List<Rule> errors = new ArrayList<>(Integer.bitCount(failures));
+            for (Rule rule : RULES) {
+                if (failed(rule)) {
+                    errors.add(rule);
+                }
+            }
+            return errors;
+        }
+
+        /**
+         * @return the messages of the broken rules, one per line, empty if valid
+         */
+        public String getMessage() {
+            return getMessage("\n");
+        }
+
+        /**
+         * @param delimiter put between the messages
+         * @return the messages of the broken rules, empty if valid
+         */
+        public String getMessage(String delimiter) {
+            StringBuilder message = new StringBuilder();
+            for (Rule rule : RULES) {
+                if (failed(rule)) {
+                    if (message.length() > 0) {
+                        message.append(delimiter);
+                    }
+                    message.append(rule.getMessage());
+                }
+            }
+            return message.toString();
+        }
+
+        /**
+         * @return the trimmed name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the stock
+         */
+        public int getStock() {
+            return stock;
+        }
+
+        /**
+         * @return the price
+         */
+        public double getPrice() {
+            return price;
+        }
+
+        /**
+         * @return the min
+         */
+        public int getMin() {
+            return min;
+        }
+
+        /**
+         * @return the max
+         */
+        public int getMax() {
+            return max;
+        }
+
+        /**
+         * @return the machine id of an in house part
+         */
+        public int getMachineId() {
+            return machineId;
+        }
+
+        /**
+         * @return the trimmed company name of an outsourced part
+         */
+        public String getCompanyName() {
+            return companyName;
+        }
+    }
+}
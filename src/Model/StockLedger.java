@@ -0,0 +1,435 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stock movement ledger with atomic receive, reserve, release, consume and adjust operations on parts and products.
+ * Each item has a counter of its stock on hand and the part of it reserved for orders, changed by compare and set,
+ * so order threads working on the same item never block each other and never lose an update.
+ * The rules are checked inside the compare and set:
+ * receipts may not take the stock above max, reservations may not take the unreserved stock below min,
+ * consumption and release only use reserved stock, and adjustments keep the stock between the reserved stock and max.
+ * Every applied operation is appended to the movement history, a refused operation returns false and is not recorded.
+ * The new stock is then set on the Inventory's part or product and reported to its listeners
+ * (stockChanged, which the InventoryStore logs), several operations in a row are reported once.
+ * Reservations are held in memory only. Replacing a part or product through the Inventory sets the counter
+ * to the replacement's stock and keeps its reservations.
+ * Use a ConcurrentInventory when orders are processed on several threads, it locks the listener calls.
+ * @author Andrew Burk
+ */
+public class StockLedger implements InventoryListener {
+
+    /**
+     * Kinds of stock movement.
+     */
+    public enum MovementType {
+        /** Stock received, adds to the stock. */
+        RECEIPT,
+        /** Stock set aside for an order. */
+        RESERVE,
+        /** Reserved stock returned to the unreserved stock. */
+        RELEASE,
+        /** Reserved stock used up, removed from the stock. */
+        CONSUME,
+        /** Correction of the stock by any amount, such as a count or a replaced part or product. */
+        ADJUSTMENT
+    }
+
+    private final Inventory inv;
+    //Counter per item, parts and products keyed apart by the high bits.
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final Queue<Movement> movements = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Constructor for StockLedger - Called when new StockLedger object is created, listens to the Inventory.
+     * Use Inventory.getStockLedger to share one ledger.
+     * @param inv the Inventory holding the parts and products
+     */
+    StockLedger(Inventory inv) {
+        this.inv = inv;
+        inv.addListener(this);
+    }
+
+    /**
+     * @param item the part or product
+     * @param quantity units received
+     * @param reference what the movement is for, such as a purchase order, or null
+     * @return true:false if applied, false if the stock would go above max
+     */
+    public boolean receive(StockItem item, int quantity, String reference) {
+        return apply(item, MovementType.RECEIPT, checkQuantity(quantity), reference);
+    }
+
+    /**
+     * @param item the part or product
+     * @param quantity units to set aside
+     * @param reference what the movement is for, such as an order, or null
+     * @return true:false if applied, false if the unreserved stock would go below min
+     */
+    public boolean reserve(StockItem item, int quantity, String reference) {
+        return apply(item, MovementType.RESERVE, checkQuantity(quantity), reference);
+    }
+
+    /**
+     * @param item the part or product
+     * @param quantity reserved units to give back
+     * @param reference what the movement is for, or null
+     * @return true:false if applied, false if fewer units are reserved
+     */
+    public boolean release(StockItem item, int quantity, String reference) {
+        return apply(item, MovementType.RELEASE, checkQuantity(quantity), reference);
+    }
+
+    /**
+     * @param item the part or product
+     * @param quantity reserved units used up
+     * @param reference what the movement is for, or null
+     * @return true:false if applied, false if fewer units are reserved
+     */
+    public boolean consume(StockItem item, int quantity, String reference) {
+        return apply(item, MovementType.CONSUME, checkQuantity(quantity), reference);
+    }
+
+    /**
+     * @param item the part or product
+     * @param change units to add, or remove when negative
+     * @param reference reason for the correction, or null
+     * @return true:false if applied, false if the stock would go below the reserved stock, below 0 or above max
+     */
+    public boolean adjust(StockItem item, int change, String reference) {
+        if (change == 0) {
+            throw new IllegalArgumentException("Adjustment must not be 0");
+        }
+        return apply(item, MovementType.ADJUSTMENT, change, reference);
+    }
+
+    /**
+     * @param item the part or product
+     * @return units in stock, reserved or not
+     */
+    public int getOnHand(StockItem item) {
+        return counterFor(item).state.get().onHand;
+    }
+
+    /**
+     * @param item the part or product
+     * @return units reserved for orders
+     */
+    public int getReserved(StockItem item) {
+        return counterFor(item).state.get().reserved;
+    }
+
+    /**
+     * @param item the part or product
+     * @return units in stock that are not reserved
+     */
+    public int getAvailable(StockItem item) {
+        State state = counterFor(item).state.get();
+        return state.onHand - state.reserved;
+    }
+
+    /**
+     * @return every movement recorded, in the order they were recorded
+     */
+    public List<Movement> getMovements() {
+        return new ArrayList<>(movements);
+    }
+
+    /**
+     * @param item the part or product
+     * @return the movements of the item, in the order they were applied to it
+     */
+    public List<Movement> getMovements(StockItem item) {
+        boolean product = item instanceof Product;
+        List<Movement> history = new ArrayList<>();
+        for (Movement movement : movements) {
+            if (movement.product == product && movement.itemId == item.getId()) {
+                history.add(movement);
+            }
+        }
+        history.sort(Comparator.comparingLong(Movement::getVersion));
+        return history;
+    }
+
+    @Override
+    public void partUpdated(Part oldPart, Part newPart) {
+        replaced(oldPart, newPart);
+    }
+
+    @Override
+    public void partDeleted(Part part) {
+        counters.remove(keyOf(part));
+    }
+
+    @Override
+    public void productUpdated(Product oldProduct, Product newProduct) {
+        replaced(oldProduct, newProduct);
+    }
+
+    @Override
+    public void productDeleted(Product product) {
+        counters.remove(keyOf(product));
+    }
+
+    /**
+     * Takes the replacement's stock as the counter's stock, recorded as an adjustment.
+     */
+    private void replaced(StockItem oldItem, StockItem newItem) {
+        Counter counter = keyOf(oldItem) == keyOf(newItem) ? counters.get(keyOf(oldItem)) : counters.remove(keyOf(oldItem));
+        if (counter == null) {
+            return;
+        }
+        State state;
+        State next;
+        do {
+            state = counter.state.get();
+            next = new State(newItem.getStock(), Math.min(state.reserved, Math.max(newItem.getStock(), 0)), state.version + 1);
+        } while (!counter.state.compareAndSet(state, next));
+        counters.put(keyOf(newItem), counter);
+        if (next.onHand != state.onHand) {
+            record(MovementType.ADJUSTMENT, newItem, next.onHand - state.onHand, next, "Replaced");
+        }
+    }
+
+    private boolean apply(StockItem item, MovementType type, int quantity, String reference) {
+        Counter counter = counterFor(item);
+        StockItem current = current(item);
+        State state;
+        State next;
+        do {
+            state = counter.state.get();
+            next = next(type, state, quantity, current.getMin(), current.getMax());
+            if (next == null) {
+                return false;
+            }
+        } while (!counter.state.compareAndSet(state, next));
+        record(type, item, quantity, next, reference);
+        publish(counter, item);
+        return true;
+    }
+
+    /**
+     * @return the state after the movement, or null if it breaks a rule
+     */
+    private static State next(MovementType type, State state, int quantity, int min, int max) {
+        long onHand = state.onHand;
+        long reserved = state.reserved;
+        switch (type) {
+            case RECEIPT:
+                onHand += quantity;
+                if (onHand > max) {
+                    return null;
+                }
+                break;
+            case RESERVE:
+                reserved += quantity;
+                if (onHand - reserved < min) {
+                    return null;
+                }
+                break;
+            case RELEASE:
+                reserved -= quantity;
+                break;
+            case CONSUME:
+                onHand -= quantity;
+                reserved -= quantity;
+                break;
+            default:
+                onHand += quantity;
+                if (quantity > 0 && onHand > max) {
+                    return null;
+                }
+                break;
+        }
+        if (reserved < 0 || onHand < reserved) {
+            return null;
+        }
+        return new State((int) onHand, (int) reserved, state.version + 1);
+    }
+
+    private void record(MovementType type, StockItem item, int quantity, State state, String reference) {
+        movements.add(new Movement(sequence.getAndIncrement(), System.currentTimeMillis(), type, item instanceof Product,
+                item.getId(), quantity, state.onHand, state.reserved, state.version, reference));
+    }
+
+    /**
+     * Sets the counter's latest stock on the Inventory item. Only one thread publishes at a time per item,
+     * a thread finding a publish already pending leaves its change to that one, which reads the counter after it.
+     * The counter is read inside Inventory.changeStock, so with a ConcurrentInventory it is read under the write lock
+     * and the last publish always sets the latest stock.
+     */
+    private void publish(Counter counter, StockItem item) {
+        if (!counter.publishPending.compareAndSet(false, true)) {
+            return;
+        }
+        counter.publishPending.set(false);
+        StockItem current = lookup(item);
+        if (current != null) {
+            inv.changeStock(current, () -> counter.state.get().onHand);
+        }
+    }
+
+    private Counter counterFor(StockItem item) {
+        return counters.computeIfAbsent(keyOf(item), key -> new Counter(current(item).getStock()));
+    }
+
+    /**
+     * @return the Inventory's part or product with the item's id
+     * @throws IllegalArgumentException it is not in the Inventory
+     */
+    private StockItem current(StockItem item) {
+        StockItem current = lookup(item);
+        if (current == null) {
+            throw new IllegalArgumentException((item instanceof Product ? "Product " : "Part ") + item.getId() + " is not in the Inventory");
+        }
+        return current;
+    }
+
+    private StockItem lookup(StockItem item) {
+        return item instanceof Product ? inv.lookupProduct(item.getId()) : inv.lookupPart(item.getId());
+    }
+
+    private static long keyOf(StockItem item) {
+        return (item instanceof Product ? 1L << 32 : 0L) | (item.getId() & 0xFFFFFFFFL);
+    }
+
+    private static int checkQuantity(int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+        return quantity;
+    }
+
+    /**
+     * Stock of one item, swapped whole by compare and set.
+     */
+    private static final class Counter {
+        private final AtomicReference<State> state;
+        private final AtomicBoolean publishPending = new AtomicBoolean();
+
+        private Counter(int onHand) {
+            state = new AtomicReference<>(new State(onHand, 0, 0));
+        }
+    }
+
+    private static final class State {
+        private final int onHand;
+        private final int reserved;
+        private final long version;
+
+        private State(int onHand, int reserved, long version) {
+            this.onHand = onHand;
+            this.reserved = reserved;
+            this.version = version;
+        }
+    }
+
+    /**
+     * One applied stock movement.
+     */
+    public static final class Movement {
+        private final long sequence;
+        private final long time;
+        private final MovementType type;
+        private final boolean product;
+        private final int itemId;
+        private final int quantity;
+        private final int onHand;
+        private final int reserved;
+        private final long version;
+        private final String reference;
+
+        private Movement(long sequence, long time, MovementType type, boolean product, int itemId, int quantity,
+                         int onHand, int reserved, long version, String reference) {
+            this.sequence = sequence;
+            this.time = time;
+            this.type = type;
+            this.product = product;
+            this.itemId = itemId;
+            this.quantity = quantity;
+            this.onHand = onHand;
+            this.reserved = reserved;
+            this.version = version;
+            this.reference = reference;
+        }
+
+        /**
+         * @return position in the ledger
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * @return when it was recorded, in epoch milliseconds
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * @return the kind of movement
+         */
+        public MovementType getType() {
+            return type;
+        }
+
+        /**
+         * @return true:false if the item is a product
+         */
+        public boolean isProduct() {
+            return product;
+        }
+
+        /**
+         * @return the part or product id
+         */
+        public int getItemId() {
+            return itemId;
+        }
+
+        /**
+         * @return units moved, negative for an adjustment down
+         */
+        public int getQuantity() {
+            return quantity;
+        }
+
+        /**
+         * @return stock on hand after the movement
+         */
+        public int getOnHand() {
+            return onHand;
+        }
+
+        /**
+         * @return reserved stock after the movement
+         */
+        public int getReserved() {
+            return reserved;
+        }
+
+        /**
+         * @return the item's counter version after the movement, its movements applied in this order
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return what the movement was for, or null
+         */
+        public String getReference() {
+            return reference;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package Model;
+
+/**
+ * Filter for Inventory.queryParts and queryProducts, price and stock ranges combined with a name search.
+ * Each call narrows the query, calling the same kind of bound twice keeps the narrower one.
+ * For example new StockQuery().priceBelow(5).stockBelow(20) for parts under $5 with less than 20 in stock.
+ * @author Andrew Burk
+ */
+public final class StockQuery {
+    //Lower bounds are inclusive, upper bounds exclusive.
+    private double minPrice = Double.NEGATIVE_INFINITY;
+    private double maxPrice = Double.POSITIVE_INFINITY;
+    private long minStock = Long.MIN_VALUE;
+    private long maxStock = Long.MAX_VALUE;
+    private String name = "";
+
+    /**
+     * @param price lowest price to match
+     * @return this query
+     */
+    public StockQuery priceAtLeast(double price) {
+        minPrice = Math.max(minPrice, price);
+        return this;
+    }
+
+    /**
+     * @param price prices below this match
+     * @return this query
+     */
+    public StockQuery priceBelow(double price) {
+        maxPrice = Math.min(maxPrice, price);
+        return this;
+    }
+
+    /**
+     * @param min lowest price to match
+     * @param max highest price to match
+     * @return this query
+     */
+    public StockQuery priceBetween(double min, double max) {
+        return priceAtLeast(min).priceBelow(Math.nextUp(max));
+    }
+
+    /**
+     * @param stock lowest stock to match
+     * @return this query
+     */
+    public StockQuery stockAtLeast(int stock) {
+        minStock = Math.max(minStock, stock);
+        return this;
+    }
+
+    /**
+     * @param stock stock levels below this match
+     * @return this query
+     */
+    public StockQuery stockBelow(int stock) {
+        maxStock = Math.min(maxStock, stock);
+        return this;
+    }
+
+    /**
+     * @param min lowest stock to match
+     * @param max highest stock to match
+     * @return this query
+     */
+    public StockQuery stockBetween(int min, int max) {
+        stockAtLeast(min);
+        maxStock = Math.min(maxStock, (long) max + 1);
+        return this;
+    }
+
+    /**
+     * @param text text the name contains, same as the search boxes, null or empty for any name
+     * @return this query
+     */
+    public StockQuery nameContains(String text) {
+        name = text == null ? "" : text;
+        return this;
+    }
+
+    /**
+     * @param item a part or product
+     * @return true:false if the item matches every bound and the name
+     */
+    public boolean matches(StockItem item) {
+        double price = item.getPrice();
+        int stock = item.getStock();
+        return price >= minPrice && price < maxPrice && stock >= minStock && stock < maxStock
+                && (name.isEmpty() || (item.getName() != null && item.getName().contains(name)));
+    }
+
+    double getMinPrice() {
+        return minPrice;
+    }
+
+    double getMaxPrice() {
+        return maxPrice;
+    }
+
+    long getMinStock() {
+        return minStock;
+    }
+
+    long getMaxStock() {
+        return maxStock;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean hasPriceRange() {
+        return minPrice != Double.NEGATIVE_INFINITY || maxPrice != Double.POSITIVE_INFINITY;
+    }
+
+    boolean hasStockRange() {
+        return minStock != Long.MIN_VALUE || maxStock != Long.MAX_VALUE;
+    }
+
+    /**
+     * @return true:false if no item can match, an empty range
+     */
+    boolean isEmpty() {
+        return !(minPrice < maxPrice) || minStock >= maxStock;
+    }
+}
@@ -0,0 +1,842 @@
+package Server;
+
+import Model.ConcurrentInventory;
+import Model.InHouse;
+import Model.Inventory;
+import Model.Outsourced;
+import Model.Part;
+import Model.Product;
+import Model.StockItemValidator;
+import Util.LatencyHistogram;
+import Util.ThreadPools;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless HTTP/JSON service over a ConcurrentInventory, on the JDK HttpServer.
+ * Each request runs on its own virtual thread when the JDK has them (21+), otherwise on a cached pool.
+ * Responses always carry a Content-Length, so HTTP/1.1 clients keep their connections open between requests.
+ *
+ * GET /parts?search=&amp;offset=&amp;limit=, POST /parts, GET|PUT|DELETE /parts/{id}, GET /parts/{id}/products,
+ * the same for /products, GET /products/{id}/parts, PUT|DELETE /products/{id}/parts/{partId} ({"quantity":n}),
+ * POST /batch, GET /metrics and GET /health.
+ * A request body over 8 MB is answered 413 and the connection closed.
+ *
+ * Parts and products are flat JSON objects with the fields of the bulk import format,
+ * checked with the same rules as the editors (StockItemValidator), a new one without an id takes the next id.
+ * A batch is one request per line ({"method":"POST","path":"/parts","body":{...}}) run in order,
+ * answered with one {"status":n,"body":...} line each, so many changes cost one round trip.
+ * Every request is timed per route, GET /metrics reports the histograms.
+ * Changes that check before they change (ids in use, parts in use) and every association read or change
+ * run inside Inventory.batch, so they are atomic against the other requests.
+ * @author Andrew Burk
+ */
+public class InventoryServer {
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 10_000;
+    /** Longest request body read, a longer one is answered 413 without reading the rest. */
+    static final int MAX_BODY_BYTES = 8 << 20;
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+    private static final String BATCH_TYPE = "application/x-ndjson; charset=utf-8";
+
+    private final ConcurrentInventory inv;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ConcurrentHashMap<String, LatencyHistogram> routeTimes = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Constructor for InventoryServer - Called when new InventoryServer object is created, binds the address.
+     * @param inv the Inventory to serve
+     * @param address address to listen on, port 0 picks a free port
+     * @throws IOException failed to bind the address
+     */
+    public InventoryServer(ConcurrentInventory inv, InetSocketAddress address) throws IOException {
+        this.inv = inv;
+        //Headers and body go out as separate writes, without TCP_NODELAY a kept alive client waits on delayed ACKs.
+        //Read once by the JDK server, so set before the first server is created.
+        System.getProperties().putIfAbsent("sun.net.httpserver.nodelay", "true");
+        this.server = HttpServer.create(address, 0);
+        this.handlers = ThreadPools.newPerTaskExecutor("inventory-http");
+        server.createContext("/", this::handle);
+        server.setExecutor(handlers);
+    }
+
+    /**
+     * Starts answering requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops answering requests.
+     * @param delaySeconds longest time to wait for requests in progress
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        handlers.shutdown();
+    }
+
+    /**
+     * @return the port listened on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return time taken per route, keyed like "GET /parts/{id}"
+     */
+    public Map<String, LatencyHistogram> getRouteTimes() {
+        return Collections.unmodifiableMap(new TreeMap<>(routeTimes));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        requests.increment();
+        Response response;
+        String contentType = JSON_TYPE;
+        try {
+            byte[] bodyBytes = readBody(exchange);
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getRawPath();
+            if (bodyBytes == null) {
+                response = Response.error(413, "unmatched", "Request body is over " + MAX_BODY_BYTES + " bytes");
+                //The rest of the body is left unread, so the connection cannot carry another request.
+                exchange.getResponseHeaders().set("Connection", "close");
+            } else if (path.equals("/batch")) {
+                String body = new String(bodyBytes, StandardCharsets.UTF_8);
+                response = method.equals("POST") ? batch(body) : Response.methodNotAllowed("/batch");
+                contentType = BATCH_TYPE;
+            } else {
+                String body = new String(bodyBytes, StandardCharsets.UTF_8);
+                response = dispatch(method, path, exchange.getRequestURI().getRawQuery(), body);
+            }
+        } catch (RuntimeException e) {
+            response = Response.error(500, "unmatched", e.toString());
+        }
+        if (response.status >= 500) {
+            failures.increment();
+        }
+        byte[] bytes = response.json == null ? null : response.json.getBytes(StandardCharsets.UTF_8);
+        if (bytes != null) {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+        }
+        exchange.sendResponseHeaders(response.status, bytes == null ? -1 : bytes.length);
+        if (bytes != null) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        exchange.close();
+        time(response.route, start);
+    }
+
+    /**
+     * Reads the body, refusing it up front when its Content-Length is too long and otherwise reading at most one byte past the limit.
+     * @return the body, or null if it is longer than MAX_BODY_BYTES
+     */
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length != null) {
+            try {
+                if (Long.parseLong(length.trim()) > MAX_BODY_BYTES) {
+                    return null;
+                }
+            } catch (NumberFormatException e) {
+                //Left to the bounded read below.
+            }
+        }
+        byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+        return body.length > MAX_BODY_BYTES ? null : body;
+    }
+
+    /**
+     * Runs one request, from the HTTP server or a batch line.
+     */
+    private Response dispatch(String method, String path, String query, String bodyText) {
+        Object body;
+        try {
+            body = Json.parse(bodyText == null ? "" : bodyText);
+        } catch (IllegalArgumentException e) {
+            return Response.error(400, method + " " + path, "Bad JSON: " + e.getMessage());
+        }
+        return dispatch(method, path, query, body);
+    }
+
+    private Response dispatch(String method, String path, String query, Object body) {
+        String[] segments = path.startsWith("/") ? path.substring(1).split("/") : path.split("/");
+        if (segments.length == 1 && segments[0].isEmpty()) {
+            segments = new String[0];
+        }
+        try {
+            if (segments.length == 0 || (segments.length == 1 && segments[0].equals("health"))) {
+                return method.equals("GET") ? Response.ok("GET /health", "{\"status\":\"ok\"}") : Response.methodNotAllowed("/health");
+            }
+            Map<String, String> parameters = parameters(query);
+            switch (segments[0]) {
+                case "metrics":
+                    if (segments.length != 1) {
+                        break;
+                    }
+                    return method.equals("GET") ? metrics() : Response.methodNotAllowed("/metrics");
+                case "parts":
+                    return parts(method, segments, parameters, body);
+                case "products":
+                    return products(method, segments, parameters, body);
+                default:
+                    break;
+            }
+            return Response.error(404, "unmatched", "No such resource " + path);
+        } catch (IllegalArgumentException e) {
+            return Response.error(400, method + " /" + (segments.length > 0 ? segments[0] : ""), e.getMessage());
+        }
+    }
+
+    private Response parts(String method, String[] segments, Map<String, String> parameters, Object body) {
+        if (segments.length == 1) {
+            switch (method) {
+                case "GET":
+                    return listParts(parameters);
+                case "POST":
+                    return createPart(body);
+                default:
+                    return Response.methodNotAllowed("/parts");
+            }
+        }
+        int id = id(segments[1]);
+        if (segments.length == 2) {
+            switch (method) {
+                case "GET": {
+                    Part part = inv.lookupPart(id);
+                    return part == null ? notFound("GET /parts/{id}", "Part", id) : Response.ok("GET /parts/{id}", partJson(new StringBuilder(), part).toString());
+                }
+                case "PUT":
+                    return replacePart(id, body);
+                case "DELETE":
+                    return deletePart(id);
+                default:
+                    return Response.methodNotAllowed("/parts/{id}");
+            }
+        }
+        if (segments.length == 3 && segments[2].equals("products")) {
+            if (!method.equals("GET")) {
+                return Response.methodNotAllowed("/parts/{id}/products");
+            }
+            if (inv.lookupPart(id) == null) {
+                return notFound("GET /parts/{id}/products", "Part", id);
+            }
+            return Response.ok("GET /parts/{id}/products", productsJson(inv.lookupProductsUsingPart(id)));
+        }
+        return Response.error(404, "unmatched", "No such resource");
+    }
+
+    private Response products(String method, String[] segments, Map<String, String> parameters, Object body) {
+        if (segments.length == 1) {
+            switch (method) {
+                case "GET":
+                    return listProducts(parameters);
+                case "POST":
+                    return createProduct(body);
+                default:
+                    return Response.methodNotAllowed("/products");
+            }
+        }
+        int id = id(segments[1]);
+        if (segments.length == 2) {
+            switch (method) {
+                case "GET": {
+                    Product product = inv.lookupProduct(id);
+                    return product == null ? notFound("GET /products/{id}", "Product", id)
+                            : Response.ok("GET /products/{id}", productJson(new StringBuilder(), product).toString());
+                }
+                case "PUT":
+                    return replaceProduct(id, body);
+                case "DELETE":
+                    return deleteProduct(id);
+                default:
+                    return Response.methodNotAllowed("/products/{id}");
+            }
+        }
+        if (segments[2].equals("parts")) {
+            if (segments.length == 3) {
+                return method.equals("GET") ? associatedParts(id) : Response.methodNotAllowed("/products/{id}/parts");
+            }
+            if (segments.length == 4) {
+                int partId = id(segments[3]);
+                switch (method) {
+                    case "PUT":
+                        return associate(id, partId, body);
+                    case "DELETE":
+                        return dissociate(id, partId);
+                    default:
+                        return Response.methodNotAllowed("/products/{id}/parts/{partId}");
+                }
+            }
+        }
+        return Response.error(404, "unmatched", "No such resource");
+    }
+
+    /**
+     * Lists every part a page at a time, or the parts found by id or name.
+     */
+    private Response listParts(Map<String, String> parameters) {
+        String search = parameters.getOrDefault("search", "").trim();
+        int offset = offset(parameters);
+        int limit = limit(parameters);
+        int total;
+        List<Part> items;
+        if (search.isEmpty()) {
+            //Only the requested page is copied out of the live list.
+            ConcurrentInventory.Page<Part> page = inv.pageOfParts(offset, limit);
+            total = page.getTotal();
+            items = page.getItems();
+        } else {
+            List<Part> found;
+            if (Inventory.isId(search)) {
+                Part part = inv.lookupPart(Integer.parseInt(search));
+                found = part == null ? Collections.emptyList() : Collections.singletonList(part);
+            } else {
+                found = inv.lookupPart(search);
+                if (found == null) {
+                    found = Collections.emptyList(); //Null when there are no parts at all.
+                }
+            }
+            total = found.size();
+            items = found.subList(Math.min(total, offset), (int) Math.min(total, (long) offset + limit));
+        }
+        StringBuilder json = page(total, parameters);
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            partJson(json, items.get(i));
+        }
+        return Response.ok("GET /parts", json.append("]}").toString());
+    }
+
+    private Response listProducts(Map<String, String> parameters) {
+        String search = parameters.getOrDefault("search", "").trim();
+        int offset = offset(parameters);
+        int limit = limit(parameters);
+        int total;
+        List<Product> items;
+        if (search.isEmpty()) {
+            //Only the requested page is copied out of the live list.
+            ConcurrentInventory.Page<Product> page = inv.pageOfProducts(offset, limit);
+            total = page.getTotal();
+            items = page.getItems();
+        } else {
+            List<Product> found;
+            if (Inventory.isId(search)) {
+                Product product = inv.lookupProduct(Integer.parseInt(search));
+                found = product == null ? Collections.emptyList() : Collections.singletonList(product);
+            } else {
+                found = inv.lookupProduct(search);
+                if (found == null) {
+                    found = Collections.emptyList(); //Null when there are no products at all.
+                }
+            }
+            total = found.size();
+            items = found.subList(Math.min(total, offset), (int) Math.min(total, (long) offset + limit));
+        }
+        StringBuilder json = page(total, parameters);
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            productJson(json, items.get(i));
+        }
+        return Response.ok("GET /products", json.append("]}").toString());
+    }
+
+    private Response createPart(Object body) {
+        Map<String, Object> fields = object(body);
+        Integer requestedId = optionalId(fields);
+        Part[] created = new Part[1];
+        StockItemValidator.Validation validation = validatePart(fields);
+        if (!validation.isValid()) {
+            return invalid("POST /parts", validation);
+        }
+        inv.batch(inventory -> {
+            if (requestedId != null && inventory.lookupPart(requestedId) != null) {
+                return;
+            }
+            int id = requestedId != null ? requestedId : inventory.getPartIdSequence().next();
+            created[0] = newPart(id, fields, validation);
+            inventory.addPart(created[0]);
+        });
+        if (created[0] == null) {
+            return Response.error(409, "POST /parts", "Part " + requestedId + " already exists");
+        }
+        return new Response(201, "POST /parts", partJson(new StringBuilder(), created[0]).toString());
+    }
+
+    private Response replacePart(int id, Object body) {
+        Map<String, Object> fields = object(body);
+        StockItemValidator.Validation validation = validatePart(fields);
+        if (!validation.isValid()) {
+            return invalid("PUT /parts/{id}", validation);
+        }
+        Part part = newPart(id, fields, validation);
+        if (!inv.replacePart(id, part)) {
+            return notFound("PUT /parts/{id}", "Part", id);
+        }
+        return Response.ok("PUT /parts/{id}", partJson(new StringBuilder(), part).toString());
+    }
+
+    private Response deletePart(int id) {
+        int[] status = new int[1];
+        inv.batch(inventory -> {
+            Part part = inventory.lookupPart(id);
+            if (part == null) {
+                status[0] = 404;
+            } else if (inventory.isPartInUse(id)) {
+                //Same rule as the main screen, parts on a product stay.
+                status[0] = 409;
+            } else {
+                inventory.deletePart(part);
+                status[0] = 204;
+            }
+        });
+        if (status[0] == 404) {
+            return notFound("DELETE /parts/{id}", "Part", id);
+        }
+        if (status[0] == 409) {
+            return Response.error(409, "DELETE /parts/{id}", "Part " + id + " is associated with a product");
+        }
+        return new Response(204, "DELETE /parts/{id}", null);
+    }
+
+    private Response createProduct(Object body) {
+        Map<String, Object> fields = object(body);
+        Integer requestedId = optionalId(fields);
+        StockItemValidator.Validation validation = validateProduct(fields);
+        if (!validation.isValid()) {
+            return invalid("POST /products", validation);
+        }
+        Product[] created = new Product[1];
+        inv.batch(inventory -> {
+            if (requestedId != null && inventory.lookupProduct(requestedId) != null) {
+                return;
+            }
+            int id = requestedId != null ? requestedId : inventory.getProductIdSequence().next();
+            created[0] = newProduct(id, validation);
+            inventory.addProduct(created[0]);
+        });
+        if (created[0] == null) {
+            return Response.error(409, "POST /products", "Product " + requestedId + " already exists");
+        }
+        return new Response(201, "POST /products", productJson(new StringBuilder(), created[0]).toString());
+    }
+
+    /**
+     * Replaces the product fields, keeping its associated parts and sub-assemblies like the Modify Product screen.
+     */
+    private Response replaceProduct(int id, Object body) {
+        Map<String, Object> fields = object(body);
+        StockItemValidator.Validation validation = validateProduct(fields);
+        if (!validation.isValid()) {
+            return invalid("PUT /products/{id}", validation);
+        }
+        Product product = newProduct(id, validation);
+        boolean[] replaced = new boolean[1];
+        inv.batch(inventory -> {
+            Product old = inventory.lookupProduct(id);
+            if (old == null || !inventory.replaceProduct(id, product)) {
+                return;
+            }
+            for (Part part : old.getAllAssociatedParts()) {
+                product.addAssociatedPart(part, Math.max(1, old.getAssociatedPartQuantity(part)));
+            }
+            for (Product subAssembly : old.getAllSubAssemblies()) {
+                product.addSubAssembly(subAssembly, old.getSubAssemblyQuantity(subAssembly));
+            }
+            replaced[0] = true;
+        });
+        if (!replaced[0]) {
+            return notFound("PUT /products/{id}", "Product", id);
+        }
+        return Response.ok("PUT /products/{id}", productJson(new StringBuilder(), product).toString());
+    }
+
+    private Response deleteProduct(int id) {
+        int[] status = new int[1];
+        inv.batch(inventory -> {
+            Product product = inventory.lookupProduct(id);
+            if (product == null) {
+                status[0] = 404;
+            } else if (!product.getAllAssociatedParts().isEmpty()) {
+                //Same rule as the main screen, remove the parts first.
+                status[0] = 409;
+            } else {
+                inventory.deleteProduct(product);
+                status[0] = 204;
+            }
+        });
+        if (status[0] == 404) {
+            return notFound("DELETE /products/{id}", "Product", id);
+        }
+        if (status[0] == 409) {
+            return Response.error(409, "DELETE /products/{id}", "Product " + id + " has associated parts");
+        }
+        return new Response(204, "DELETE /products/{id}", null);
+    }
+
+    private Response associatedParts(int id) {
+        StringBuilder json = new StringBuilder("[");
+        boolean[] found = new boolean[1];
+        inv.batch(inventory -> {
+            Product product = inventory.lookupProduct(id);
+            if (product == null) {
+                return;
+            }
+            found[0] = true;
+            boolean first = true;
+            for (Part part : product.getAllAssociatedParts()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append("{\"quantity\":").append(product.getAssociatedPartQuantity(part)).append(",\"part\":");
+                partJson(json, part).append('}');
+            }
+        });
+        if (!found[0]) {
+            return notFound("GET /products/{id}/parts", "Product", id);
+        }
+        return Response.ok("GET /products/{id}/parts", json.append(']').toString());
+    }
+
+    private Response associate(int productId, int partId, Object body) {
+        String route = "PUT /products/{id}/parts/{partId}";
+        int quantity = 1;
+        if (body != null) {
+            Object value = object(body).get("quantity");
+            if (value != null) {
+                quantity = wholeNumber(value, "quantity");
+            }
+        }
+        if (quantity < 1) {
+            return Response.error(400, route, "Quantity must be at least 1");
+        }
+        int units = quantity;
+        String[] missing = new String[1];
+        inv.batch(inventory -> {
+            Product product = inventory.lookupProduct(productId);
+            Part part = inventory.lookupPart(partId);
+            if (product == null) {
+                missing[0] = "Product " + productId;
+            } else if (part == null) {
+                missing[0] = "Part " + partId;
+            } else {
+                product.addAssociatedPart(part, units);
+            }
+        });
+        if (missing[0] != null) {
+            return Response.error(404, route, missing[0] + " not found");
+        }
+        return Response.ok(route, "{\"productId\":" + productId + ",\"partId\":" + partId + ",\"quantity\":" + units + "}");
+    }
+
+    private Response dissociate(int productId, int partId) {
+        String route = "DELETE /products/{id}/parts/{partId}";
+        boolean[] removed = new boolean[1];
+        inv.batch(inventory -> {
+            Product product = inventory.lookupProduct(productId);
+            Part part = inventory.lookupPart(partId);
+            if (product != null && part != null && product.getAssociatedPartQuantity(part) > 0) {
+                removed[0] = product.deleteAssociatedPart(part);
+            }
+        });
+        if (!removed[0]) {
+            return Response.error(404, route, "Part " + partId + " is not associated with product " + productId);
+        }
+        return new Response(204, route, null);
+    }
+
+    /**
+     * Runs each line of the body as a request, in order, and answers each with a line.
+     */
+    private Response batch(String body) {
+        StringBuilder out = new StringBuilder();
+        int lines = 0;
+        for (String line : body.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            long start = System.nanoTime();
+            lines++;
+            Response response;
+            try {
+                Map<String, Object> request = object(Json.parse(line));
+                Object method = request.get("method");
+                Object target = request.get("path");
+                if (!(method instanceof String) || !(target instanceof String)) {
+                    throw new IllegalArgumentException("A batch line needs \"method\" and \"path\"");
+                }
+                String path = (String) target;
+                int queryStart = path.indexOf('?');
+                response = dispatch((String) method, queryStart < 0 ? path : path.substring(0, queryStart),
+                        queryStart < 0 ? null : path.substring(queryStart + 1), request.get("body"));
+            } catch (IllegalArgumentException e) {
+                response = Response.error(400, "batch line", e.getMessage());
+            }
+            time(response.route, start);
+            out.append("{\"status\":").append(response.status).append(",\"body\":")
+                    .append(response.json == null ? "null" : response.json).append("}\n");
+        }
+        return Response.ok("POST /batch", out.toString());
+    }
+
+    private Response metrics() {
+        Map<String, Object> routes = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> route : routeTimes.entrySet()) {
+            LatencyHistogram times = route.getValue();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", times.getCount());
+            summary.put("meanMs", times.getMeanNanos() / 1e6);
+            //Percentiles are bucket upper bounds, never report one above the slowest request.
+            summary.put("p50Ms", Math.min(times.getPercentileNanos(50), times.getMaxNanos()) / 1e6);
+            summary.put("p99Ms", Math.min(times.getPercentileNanos(99), times.getMaxNanos()) / 1e6);
+            summary.put("maxMs", times.getMaxNanos() / 1e6);
+            routes.put(route.getKey(), summary);
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("requests", requests.sum());
+        metrics.put("serverErrors", failures.sum());
+        metrics.put("routes", routes);
+        StringBuilder json = new StringBuilder();
+        Json.append(json, metrics);
+        return Response.ok("GET /metrics", json.toString());
+    }
+
+    private void time(String route, long start) {
+        routeTimes.computeIfAbsent(route, LatencyHistogram::new).recordSince(start);
+    }
+
+    private static StringBuilder page(int total, Map<String, String> parameters) {
+        return new StringBuilder(256).append("{\"total\":").append(total).append(",\"offset\":").append(offset(parameters))
+                .append(",\"items\":[");
+    }
+
+    private static int offset(Map<String, String> parameters) {
+        return Math.max(0, number(parameters.get("offset"), 0, "offset"));
+    }
+
+    private static int limit(Map<String, String> parameters) {
+        return Math.max(0, Math.min(MAX_LIMIT, number(parameters.get("limit"), DEFAULT_LIMIT, "limit")));
+    }
+
+    private static int number(String value, int otherwise, String name) {
+        if (value == null || value.isEmpty()) {
+            return otherwise;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " is not a whole number: " + value);
+        }
+    }
+
+    private static int id(String segment) {
+        try {
+            return Integer.parseInt(segment);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an id: " + segment);
+        }
+    }
+
+    private static Map<String, String> parameters(String query) {
+        if (query == null || query.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> parameters = new HashMap<>();
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            try {
+                parameters.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return parameters;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> object(Object body) {
+        if (!(body instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return (Map<String, Object>) body;
+    }
+
+    private static Integer optionalId(Map<String, Object> fields) {
+        Object id = fields.get("id");
+        if (id == null) {
+            return null;
+        }
+        int value = wholeNumber(id, "id");
+        if (value < 1) {
+            throw new IllegalArgumentException("id must be at least 1");
+        }
+        return value;
+    }
+
+    private static int wholeNumber(Object value, String name) {
+        if (value instanceof Long && (Long) value == ((Long) value).intValue()) {
+            return ((Long) value).intValue();
+        }
+        throw new IllegalArgumentException(name + " is not a whole number: " + value);
+    }
+
+    /**
+     * @return the field as the text the validator reads, a whole double without its ".0"
+     */
+    private static String text(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (value instanceof Double) {
+            double number = (Double) value;
+            if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+                return Long.toString((long) number);
+            }
+        }
+        return value == null ? null : value.toString();
+    }
+
+    private static boolean isOutsourced(Map<String, Object> fields) {
+        Object type = fields.get("type");
+        if (type == null) {
+            return fields.containsKey("companyName");
+        }
+        if (type.equals("Outsourced")) {
+            return true;
+        }
+        if (type.equals("InHouse")) {
+            return false;
+        }
+        throw new IllegalArgumentException("type must be InHouse or Outsourced");
+    }
+
+    private static StockItemValidator.Validation validatePart(Map<String, Object> fields) {
+        boolean outsourced = isOutsourced(fields);
+        return StockItemValidator.validatePart(text(fields, "name"), text(fields, "stock"), text(fields, "price"),
+                text(fields, "min"), text(fields, "max"), text(fields, outsourced ? "companyName" : "machineId"), !outsourced);
+    }
+
+    private static StockItemValidator.Validation validateProduct(Map<String, Object> fields) {
+        return StockItemValidator.validateProduct(text(fields, "name"), text(fields, "stock"), text(fields, "price"),
+                text(fields, "min"), text(fields, "max"));
+    }
+
+    private static Part newPart(int id, Map<String, Object> fields, StockItemValidator.Validation part) {
+        if (isOutsourced(fields)) {
+            return new Outsourced(id, part.getName(), part.getPrice(), part.getStock(), part.getMin(), part.getMax(), part.getCompanyName());
+        }
+        return new InHouse(id, part.getName(), part.getPrice(), part.getStock(), part.getMin(), part.getMax(), part.getMachineId());
+    }
+
+    private static Product newProduct(int id, StockItemValidator.Validation product) {
+        return new Product(id, product.getName(), product.getPrice(), product.getStock(), product.getMin(), product.getMax());
+    }
+
+    private static Response invalid(String route, StockItemValidator.Validation validation) {
+        StringBuilder json = new StringBuilder("{\"errors\":[");
+        boolean first = true;
+        for (StockItemValidator.Rule rule : validation.getErrors()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            Json.appendString(json, rule.getMessage());
+        }
+        return new Response(400, route, json.append("]}").toString());
+    }
+
+    private static Response notFound(String route, String kind, int id) {
+        return Response.error(404, route, kind + " " + id + " not found");
+    }
+
+    private static StringBuilder partJson(StringBuilder json, Part part) {
+        boolean outsourced = part instanceof Outsourced;
+        json.append("{\"type\":\"").append(outsourced ? "Outsourced" : "InHouse").append("\",\"id\":").append(part.getId())
+                .append(",\"name\":");
+        Json.appendString(json, part.getName() == null ? "" : part.getName());
+        json.append(",\"price\":").append(part.getPrice()).append(",\"stock\":").append(part.getStock())
+                .append(",\"min\":").append(part.getMin()).append(",\"max\":").append(part.getMax());
+        if (outsourced) {
+            json.append(",\"companyName\":");
+            Json.appendString(json, ((Outsourced) part).getCompanyName() == null ? "" : ((Outsourced) part).getCompanyName());
+        } else if (part instanceof InHouse) {
+            json.append(",\"machineId\":").append(((InHouse) part).getMachineId());
+        }
+        return json.append('}');
+    }
+
+    private static StringBuilder productJson(StringBuilder json, Product product) {
+        json.append("{\"id\":").append(product.getId()).append(",\"name\":");
+        Json.appendString(json, product.getName() == null ? "" : product.getName());
+        return json.append(",\"price\":").append(product.getPrice()).append(",\"stock\":").append(product.getStock())
+                .append(",\"min\":").append(product.getMin()).append(",\"max\":").append(product.getMax()).append('}');
+    }
+
+    private static String productsJson(List<Product> products) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < products.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            productJson(json, products.get(i));
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Status, JSON body and the route it is timed under.
+     */
+    private static final class Response {
+        private final int status;
+        private final String route;
+        private final String json;
+
+        private Response(int status, String route, String json) {
+            this.status = status;
+            this.route = route;
+            this.json = json;
+        }
+
+        private static Response ok(String route, String json) {
+            return new Response(200, route, json);
+        }
+
+        private static Response error(int status, String route, String message) {
+            StringBuilder json = new StringBuilder("{\"error\":");
+            Json.appendString(json, message == null ? "" : message);
+            return new Response(status, route, json.append('}').toString());
+        }
+
+        private static Response methodNotAllowed(String route) {
+            return error(405, "unmatched", "Method not allowed on " + route);
+        }
+    }
+}
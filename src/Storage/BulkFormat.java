@@ -0,0 +1,336 @@
+package Storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Line formats for bulk import and export, one record per line.
+ * A record is a type followed by its fields, in the order given by fieldNames:
+ * InHouse and Outsourced parts, Products, and Associations of a part with a product.
+ * CSV lines start with the type and quote fields holding commas, quotes or line breaks.
+ * JSON lines are flat objects with a "type" member and one member per field.
+ * @author Andrew Burk
+ */
+public enum BulkFormat {
+    CSV, JSON_LINES;
+
+    static final String IN_HOUSE = "InHouse";
+    static final String OUTSOURCED = "Outsourced";
+    static final String PRODUCT = "Product";
+    static final String ASSOCIATION = "Association";
+    static final String CSV_HEADER = "type,id,name,price,stock,min,max,machineId/companyName";
+
+    private static final String[] IN_HOUSE_FIELDS = { "id", "name", "price", "stock", "min", "max", "machineId" };
+    private static final String[] OUTSOURCED_FIELDS = { "id", "name", "price", "stock", "min", "max", "companyName" };
+    private static final String[] PRODUCT_FIELDS = { "id", "name", "price", "stock", "min", "max" };
+    private static final String[] ASSOCIATION_FIELDS = { "productId", "partId" };
+
+    /**
+     * @param fileName the file name
+     * @return JSON_LINES for .jsonl and .ndjson files, otherwise CSV
+     */
+    public static BulkFormat forFile(String fileName) {
+        String lower = fileName.toLowerCase();
+        return lower.endsWith(".jsonl") || lower.endsWith(".ndjson") ? JSON_LINES : CSV;
+    }
+
+    /**
+     * @param type record type
+     * @return the field names of the record type, or null for an unknown type
+     */
+    static String[] fieldNames(String type) {
+        switch (type) {
+            case IN_HOUSE:
+                return IN_HOUSE_FIELDS;
+            case OUTSOURCED:
+                return OUTSOURCED_FIELDS;
+            case PRODUCT:
+                return PRODUCT_FIELDS;
+            case ASSOCIATION:
+                return ASSOCIATION_FIELDS;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the first line of an exported file, or null if the format has none
+     */
+    String header() {
+        return this == CSV ? CSV_HEADER : null;
+    }
+
+    /**
+     * @param type record type
+     * @param fields the field values in fieldNames order, numbers already formatted, null is written empty
+     * @return the record as one line, without the line break
+     */
+    String format(String type, String... fields) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] == null) {
+                fields[i] = "";
+            }
+        }
+        StringBuilder line = new StringBuilder(64);
+        if (this == CSV) {
+            line.append(type);
+            for (String field : fields) {
+                line.append(',');
+                appendCsv(line, field);
+            }
+            return line.toString();
+        }
+        String[] names = fieldNames(type);
+        line.append("{\"type\":");
+        appendJsonString(line, type);
+        for (int i = 0; i < fields.length; i++) {
+            line.append(",\"").append(names[i]).append("\":");
+            if (isText(names[i])) {
+                appendJsonString(line, fields[i]);
+            } else {
+                line.append(fields[i]);
+            }
+        }
+        return line.append('}').toString();
+    }
+
+    /**
+     * Splits one line into the record type followed by its fields in fieldNames order.
+     * @param line the line to parse
+     * @return the type and the field values
+     * @throws IllegalArgumentException the line is not a valid record
+     */
+    String[] parse(String line) {
+        String[] record = this == CSV ? parseCsv(line) : parseJson(line);
+        String[] names = fieldNames(record[0]);
+        if (names == null) {
+            throw new IllegalArgumentException("Unknown record type " + record[0]);
+        }
+        if (record.length != names.length + 1) {
+            throw new IllegalArgumentException(record[0] + " needs " + names.length + " fields, found " + (record.length - 1));
+        }
+        return record;
+    }
+
+    private static boolean isText(String fieldName) {
+        return fieldName.equals("name") || fieldName.equals("companyName");
+    }
+
+    private static void appendCsv(StringBuilder line, String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            line.append(field);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private static String[] parseCsv(String line) {
+        List<String> fields = new ArrayList<>(9);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    private static void appendJsonString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Reads a flat JSON object of strings and numbers, members may come in any order.
+     */
+    private static String[] parseJson(String line) {
+        JsonCursor cursor = new JsonCursor(line);
+        List<String> keys = new ArrayList<>(9);
+        List<String> values = new ArrayList<>(9);
+        cursor.expect('{');
+        if (!cursor.skip('}')) {
+            do {
+                keys.add(cursor.string());
+                cursor.expect(':');
+                values.add(cursor.value());
+            } while (cursor.skip(','));
+            cursor.expect('}');
+        }
+        cursor.end();
+
+        int typeIndex = keys.indexOf("type");
+        if (typeIndex < 0) {
+            throw new IllegalArgumentException("Missing \"type\"");
+        }
+        String type = values.get(typeIndex);
+        String[] names = fieldNames(type);
+        if (names == null) {
+            throw new IllegalArgumentException("Unknown record type " + type);
+        }
+        String[] record = new String[names.length + 1];
+        record[0] = type;
+        for (int i = 0; i < names.length; i++) {
+            int index = keys.indexOf(names[i]);
+            if (index < 0) {
+                throw new IllegalArgumentException(type + " is missing \"" + names[i] + "\"");
+            }
+            record[i + 1] = values.get(index);
+        }
+        return record;
+    }
+
+    private static class JsonCursor {
+        private final String text;
+        private int position;
+
+        private JsonCursor(String text) {
+            this.text = text;
+        }
+
+        private void whitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private boolean skip(char c) {
+            whitespace();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!skip(c)) {
+                throw new IllegalArgumentException("Expected '" + c + "' at column " + (position + 1));
+            }
+        }
+
+        private void end() {
+            whitespace();
+            if (position != text.length()) {
+                throw new IllegalArgumentException("Unexpected text at column " + (position + 1));
+            }
+        }
+
+        /**
+         * @return a string member as text, or a number, true, false or null as written
+         */
+        private String value() {
+            whitespace();
+            if (position < text.length() && text.charAt(position) == '"') {
+                return string();
+            }
+            int start = position;
+            while (position < text.length() && ",}".indexOf(text.charAt(position)) < 0 && !Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw new IllegalArgumentException("Expected a value at column " + (position + 1));
+            }
+            return text.substring(start, position);
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw new IllegalArgumentException("Bad \\u escape");
+                        }
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string");
+        }
+    }
+}
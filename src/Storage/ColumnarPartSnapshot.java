@@ -0,0 +1,270 @@
+package Storage;
+
+import Model.InHouse;
+import Model.Outsourced;
+import Model.Part;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Columnar snapshot file of the parts, opened through FileChannel.map so nothing is deserialized up front.
+ * Layout (little endian): a header, then one column per field over all rows
+ * (price, id, stock, min, max, name, extra, kind) and a string dictionary holding the names and company names.
+ * The extra column holds the machine id of an InHouse part or the dictionary entry of an Outsourced company name.
+ * Part objects are only created when a row is read with partAt.
+ * A file is mapped as one buffer, so it holds at most Integer.MAX_VALUE bytes (about 40 million parts with short names).
+ * @author Andrew Burk
+ */
+class ColumnarPartSnapshot {
+    private static final int MAGIC = 0x494E5643; //"INVC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    //Bytes per row over every column: price, six int columns and kind.
+    private static final int ROW_BYTES = 8 + 4 * 6 + 1;
+    private static final byte IN_HOUSE = 0;
+    private static final byte OUTSOURCED = 1;
+
+    private final ByteBuffer buffer;
+    private final int rows;
+    private final int priceColumn;
+    private final int idColumn;
+    private final int stockColumn;
+    private final int minColumn;
+    private final int maxColumn;
+    private final int nameColumn;
+    private final int extraColumn;
+    private final int kindColumn;
+    private final int dictionaryOffsets;
+    private final int dictionaryBytes;
+    private final String[] dictionary;
+
+    private ColumnarPartSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a columnar part snapshot");
+        }
+        rows = buffer.getInt(8);
+        int dictionarySize = buffer.getInt(12);
+        //Offsets are worked out in long, so a damaged header cannot wrap them round to offsets inside the file.
+        long dictionaryStart = HEADER_BYTES + (long) rows * ROW_BYTES;
+        long stringsStart = dictionaryStart + ((long) dictionarySize + 1) * 4;
+        if (rows < 0 || dictionarySize < 0 || stringsStart > buffer.capacity()
+                || stringsStart + Integer.toUnsignedLong(buffer.getInt((int) stringsStart - 4)) != buffer.capacity()) {
+            throw new IOException("Columnar part snapshot header does not match the file length of " + buffer.capacity()
+                    + " bytes (" + rows + " rows, " + dictionarySize + " strings)");
+        }
+        priceColumn = HEADER_BYTES;
+        idColumn = priceColumn + rows * 8;
+        stockColumn = idColumn + rows * 4;
+        minColumn = stockColumn + rows * 4;
+        maxColumn = minColumn + rows * 4;
+        nameColumn = maxColumn + rows * 4;
+        extraColumn = nameColumn + rows * 4;
+        kindColumn = extraColumn + rows * 4;
+        dictionaryOffsets = (int) dictionaryStart;
+        dictionaryBytes = (int) stringsStart;
+        dictionary = new String[dictionarySize];
+    }
+
+    /**
+     * Maps a snapshot file read only. The mapping stays valid after the file is replaced or deleted.
+     * @param file the snapshot file
+     * @return the opened snapshot
+     * @throws IOException failed to map the file
+     */
+    static ColumnarPartSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Columnar part snapshot " + file + " is larger than one mapping (" + channel.size() + " bytes)");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ColumnarPartSnapshot(mapped);
+        }
+    }
+
+    /**
+     * @return the number of rows
+     */
+    int size() {
+        return rows;
+    }
+
+    int idAt(int row) {
+        return buffer.getInt(idColumn + row * 4);
+    }
+
+    double priceAt(int row) {
+        return buffer.getDouble(priceColumn + row * 8);
+    }
+
+    int stockAt(int row) {
+        return buffer.getInt(stockColumn + row * 4);
+    }
+
+    int minAt(int row) {
+        return buffer.getInt(minColumn + row * 4);
+    }
+
+    int maxAt(int row) {
+        return buffer.getInt(maxColumn + row * 4);
+    }
+
+    String nameAt(int row) {
+        return string(buffer.getInt(nameColumn + row * 4));
+    }
+
+    boolean isOutsourced(int row) {
+        return buffer.get(kindColumn + row) == OUTSOURCED;
+    }
+
+    int machineIdAt(int row) {
+        return buffer.getInt(extraColumn + row * 4);
+    }
+
+    String companyNameAt(int row) {
+        return string(buffer.getInt(extraColumn + row * 4));
+    }
+
+    /**
+     * @param row the row to read
+     * @return a new Part holding the row
+     */
+    Part partAt(int row) {
+        if (isOutsourced(row)) {
+            return new Outsourced(idAt(row), nameAt(row), priceAt(row), stockAt(row), minAt(row), maxAt(row), companyNameAt(row));
+        }
+        return new InHouse(idAt(row), nameAt(row), priceAt(row), stockAt(row), minAt(row), maxAt(row), machineIdAt(row));
+    }
+
+    /**
+     * Strings are decoded once and kept, repeated company names share one String.
+     */
+    private String string(int entry) {
+        String value = dictionary[entry];
+        if (value == null) {
+            int start = buffer.getInt(dictionaryOffsets + entry * 4);
+            int end = buffer.getInt(dictionaryOffsets + (entry + 1) * 4);
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(dictionaryBytes + start + i);
+            }
+            value = new String(bytes, StandardCharsets.UTF_8);
+            dictionary[entry] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Encodes parts in the columnar layout.
+     * Rows of a LazyPartList that were never used are copied from its snapshot without creating Part objects.
+     * @param parts the parts to encode
+     * @return the file contents
+     * @throws IOException the parts do not fit in one snapshot file
+     */
+    static byte[] encode(List<Part> parts) throws IOException {
+        int rows = parts.size();
+        double[] prices = new double[rows];
+        int[] ids = new int[rows];
+        int[] stock = new int[rows];
+        int[] min = new int[rows];
+        int[] max = new int[rows];
+        int[] names = new int[rows];
+        int[] extra = new int[rows];
+        byte[] kinds = new byte[rows];
+        StringDictionary dictionary = new StringDictionary();
+
+        LazyPartList lazy = parts instanceof LazyPartList ? (LazyPartList) parts : null;
+        for (int i = 0; i < rows; i++) {
+            if (lazy != null && !lazy.isCreated(i)) {
+                ColumnarPartSnapshot source = lazy.getSnapshot();
+                int row = lazy.rowAt(i);
+                prices[i] = source.priceAt(row);
+                ids[i] = source.idAt(row);
+                stock[i] = source.stockAt(row);
+                min[i] = source.minAt(row);
+                max[i] = source.maxAt(row);
+                names[i] = dictionary.entry(source.nameAt(row));
+                kinds[i] = source.isOutsourced(row) ? OUTSOURCED : IN_HOUSE;
+                extra[i] = source.isOutsourced(row) ? dictionary.entry(source.companyNameAt(row)) : source.machineIdAt(row);
+                continue;
+            }
+            Part part = parts.get(i);
+            prices[i] = part.getPrice();
+            ids[i] = part.getId();
+            stock[i] = part.getStock();
+            min[i] = part.getMin();
+            max[i] = part.getMax();
+            names[i] = dictionary.entry(part.getName());
+            if (part instanceof Outsourced) {
+                kinds[i] = OUTSOURCED;
+                extra[i] = dictionary.entry(((Outsourced) part).getCompanyName());
+            } else {
+                kinds[i] = IN_HOUSE;
+                extra[i] = ((InHouse) part).getMachineId();
+            }
+        }
+
+        long size = HEADER_BYTES + (long) rows * ROW_BYTES + (dictionary.count + 1L) * 4 + dictionary.length;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(rows + " parts need " + size + " bytes, more than one columnar part snapshot holds");
+        }
+        ByteBuffer out = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(dictionary.count).putLong(0);
+        for (double price : prices) {
+            out.putDouble(price);
+        }
+        for (int[] column : new int[][] { ids, stock, min, max, names, extra }) {
+            for (int value : column) {
+                out.putInt(value);
+            }
+        }
+        out.put(kinds);
+        for (int i = 0; i <= dictionary.count; i++) {
+            out.putInt(dictionary.offsets[i]);
+        }
+        out.put(dictionary.bytes, 0, dictionary.length);
+        return out.array();
+    }
+
+    /**
+     * Builds the string dictionary while encoding, each distinct string is stored once.
+     */
+    private static class StringDictionary {
+        private final HashMap<String, Integer> entries = new HashMap<>();
+        private int[] offsets = new int[64];
+        private byte[] bytes = new byte[1024];
+        private int count;
+        private int length;
+
+        private int entry(String value) {
+            String key = value == null ? "" : value;
+            Integer existing = entries.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+            if (count + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            while (length + encoded.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            System.arraycopy(encoded, 0, bytes, length, encoded.length);
+            offsets[count] = length;
+            length += encoded.length;
+            offsets[count + 1] = length;
+            entries.put(key, count);
+            return count++;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package Storage;
+
+import Model.InHouse;
+import Model.Inventory;
+import Model.Outsourced;
+import Model.Part;
+import Model.Product;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streaming bulk export of the Inventory (see BulkFormat for the line formats).
+ * Writes every part, then every product, then one association line per associated part,
+ * so the file can be read back in order by InventoryImporter.
+ * Lines are written as they are formatted, nothing is buffered beyond the writer.
+ * Call on the thread that owns the Inventory.
+ * @author Andrew Burk
+ */
+public class InventoryExporter {
+    private final Inventory inv;
+
+    /**
+     * Constructor for InventoryExporter - Called when new InventoryExporter object is created.
+     * @param inv the Inventory to export
+     */
+    public InventoryExporter(Inventory inv) {
+        this.inv = inv;
+    }
+
+    /**
+     * Exports to a UTF-8 file, the format is chosen from the file name (see BulkFormat.forFile).
+     * @param file the file to write, replaced if it exists
+     * @return the number of records written
+     * @throws IOException failed to write
+     */
+    public long exportFile(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            return exportTo(writer, BulkFormat.forFile(file.getFileName().toString()));
+        }
+    }
+
+    /**
+     * @param writer where to write the records, flushed but not closed
+     * @param format the line format
+     * @return the number of records written
+     * @throws IOException failed to write
+     */
+    public long exportTo(Writer writer, BulkFormat format) throws IOException {
+        BufferedWriter out = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer, 1 << 16);
+        long records = 0;
+        if (format.header() != null) {
+            out.write(format.header());
+            out.newLine();
+        }
+        for (Part part : inv.getAllParts()) {
+            out.write(formatPart(format, part));
+            out.newLine();
+            records++;
+        }
+        for (Product product : inv.getAllProducts()) {
+            out.write(format.format(BulkFormat.PRODUCT, String.valueOf(product.getId()), product.getName(),
+                    String.valueOf(product.getPrice()), String.valueOf(product.getStock()),
+                    String.valueOf(product.getMin()), String.valueOf(product.getMax())));
+            out.newLine();
+            records++;
+        }
+        for (Product product : inv.getAllProducts()) {
+            String productId = String.valueOf(product.getId());
+            for (Part part : product.getAllAssociatedParts()) {
+                out.write(format.format(BulkFormat.ASSOCIATION, productId, String.valueOf(part.getId())));
+                out.newLine();
+                records++;
+            }
+        }
+        out.flush();
+        return records;
+    }
+
+    private static String formatPart(BulkFormat format, Part part) {
+        String id = String.valueOf(part.getId());
+        String price = String.valueOf(part.getPrice());
+        String stock = String.valueOf(part.getStock());
+        String min = String.valueOf(part.getMin());
+        String max = String.valueOf(part.getMax());
+        if (part instanceof Outsourced) {
+            return format.format(BulkFormat.OUTSOURCED, id, part.getName(), price, stock, min, max, ((Outsourced) part).getCompanyName());
+        }
+        return format.format(BulkFormat.IN_HOUSE, id, part.getName(), price, stock, min, max, String.valueOf(((InHouse) part).getMachineId()));
+    }
+}
@@ -0,0 +1,296 @@
+package Storage;
+
+import Model.InHouse;
+import Model.Inventory;
+import Model.Outsourced;
+import Model.Part;
+import Model.Product;
+import Model.StockItemValidator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streaming bulk import of parts, products and associations (see BulkFormat for the line formats).
+ * The calling thread reads the file in chunks of lines, the chunks are parsed in parallel
+ * and applied to the Inventory in file order, one addParts/addProducts batch per chunk,
+ * so the lists fire one change event per chunk instead of one per row.
+ * At most a few chunks per thread are held in memory at once, whatever the file size.
+ * Associations must come after the part and product they link.
+ * Parts and products are checked with the same rules as the editors (StockItemValidator), each parser thread reusing one Validation.
+ * Import stops at the first bad line with an IOException naming the line and all of its errors, chunks before it stay imported.
+ * Call on the thread that owns the Inventory.
+ * @author Andrew Burk
+ */
+public class InventoryImporter {
+    private static final int CHUNK_LINES = 4096;
+
+    private final Inventory inv;
+    private final int threads;
+    private long partCount;
+    private long productCount;
+    private long associationCount;
+
+    /**
+     * Constructor for InventoryImporter - Parses with one thread per processor.
+     * @param inv the Inventory to import into
+     */
+    public InventoryImporter(Inventory inv) {
+        this(inv, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for InventoryImporter - Called when new InventoryImporter object is created.
+     * @param inv the Inventory to import into
+     * @param threads number of parsing threads
+     */
+    public InventoryImporter(Inventory inv, int threads) {
+        this.inv = inv;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Imports a UTF-8 file, the format is chosen from the file name (see BulkFormat.forFile).
+     * @param file the file to import
+     * @return the number of records imported
+     * @throws IOException failed to read the file or a line is not a valid record
+     */
+    public long importFile(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader, BulkFormat.forFile(file.getFileName().toString()));
+        }
+    }
+
+    /**
+     * @param reader the records to import
+     * @param format the line format
+     * @return the number of records imported
+     * @throws IOException failed to read or a line is not a valid record
+     */
+    public long importFrom(Reader reader, BulkFormat format) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+        long before = getRecordCount();
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "inventory-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+        try {
+            long lineNumber = 0;
+            String line;
+            Chunk chunk = new Chunk(format);
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (format == BulkFormat.CSV) {
+                    //A quoted field can hold line breaks, keep reading until the quotes are balanced.
+                    while (countQuotes(line) % 2 != 0) {
+                        String next = lines.readLine();
+                        if (next == null) {
+                            break;
+                        }
+                        line = line + "\n" + next;
+                        lineNumber++;
+                    }
+                }
+                chunk.lineNumbers[chunk.lines.size()] = lineNumber;
+                chunk.lines.add(line);
+                if (chunk.lines.size() == CHUNK_LINES) {
+                    pending.add(parsers.submit(chunk::parse));
+                    chunk = new Chunk(format);
+                    //Bounded read ahead, apply the oldest chunk before reading more.
+                    if (pending.size() >= threads * 2) {
+                        apply(await(pending.poll()));
+                    }
+                }
+            }
+            if (!chunk.lines.isEmpty()) {
+                pending.add(parsers.submit(chunk::parse));
+            }
+            while (!pending.isEmpty()) {
+                apply(await(pending.poll()));
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+        return getRecordCount() - before;
+    }
+
+    /**
+     * @return parts imported so far
+     */
+    public long getPartCount() {
+        return partCount;
+    }
+
+    /**
+     * @return products imported so far
+     */
+    public long getProductCount() {
+        return productCount;
+    }
+
+    /**
+     * @return associations imported so far
+     */
+    public long getAssociationCount() {
+        return associationCount;
+    }
+
+    /**
+     * @return records of every type imported so far
+     */
+    public long getRecordCount() {
+        return partCount + productCount + associationCount;
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Parts and products first, then the associations, which may refer to either.
+     */
+    private void apply(Chunk chunk) throws IOException {
+        if (!chunk.parts.isEmpty()) {
+            inv.addParts(chunk.parts);
+            partCount += chunk.parts.size();
+        }
+        if (!chunk.products.isEmpty()) {
+            inv.addProducts(chunk.products);
+            productCount += chunk.products.size();
+        }
+        Map<Product, List<Part>> associations = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.associationCount; i++) {
+            Product product = inv.lookupProduct(chunk.associationProductIds[i]);
+            Part part = inv.lookupPart(chunk.associationPartIds[i]);
+            if (product == null || part == null) {
+                throw new IOException("Line " + chunk.associationLines[i] + ": association refers to a missing " + (product == null ? "product" : "part"));
+            }
+            associations.computeIfAbsent(product, key -> new ArrayList<>()).add(part);
+        }
+        for (Map.Entry<Product, List<Part>> entry : associations.entrySet()) {
+            entry.getKey().addAssociatedParts(entry.getValue());
+            associationCount += entry.getValue().size();
+        }
+    }
+
+    private static int countQuotes(String line) {
+        int quotes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    /**
+     * A run of lines, parsed on a parser thread into objects ready to add.
+     */
+    private static class Chunk {
+        private final BulkFormat format;
+        private final List<String> lines = new ArrayList<>(CHUNK_LINES);
+        private final long[] lineNumbers = new long[CHUNK_LINES];
+        private final List<Part> parts = new ArrayList<>();
+        private final List<Product> products = new ArrayList<>();
+        private long[] associationLines = new long[0];
+        private int[] associationProductIds = new int[0];
+        private int[] associationPartIds = new int[0];
+        private int associationCount;
+        private final StockItemValidator.Validation validation = new StockItemValidator.Validation();
+
+        private Chunk(BulkFormat format) {
+            this.format = format;
+        }
+
+        private Chunk parse() {
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.isEmpty() || (format == BulkFormat.CSV && line.equals(BulkFormat.CSV_HEADER))) {
+                    continue;
+                }
+                try {
+                    parseRecord(format.parse(line), lineNumbers[i]);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Line " + lineNumbers[i] + ": " + e.getMessage(), e);
+                }
+            }
+            lines.clear();
+            return this;
+        }
+
+        private void parseRecord(String[] record, long lineNumber) {
+            switch (record[0]) {
+                case BulkFormat.IN_HOUSE: {
+                    StockItemValidator.Validation part = checked(StockItemValidator.validatePart(record[2], record[4], record[3],
+                            record[5], record[6], record[7], true, validation));
+                    parts.add(new InHouse(integer(record, 1), part.getName(), part.getPrice(), part.getStock(),
+                            part.getMin(), part.getMax(), part.getMachineId()));
+                    break;
+                }
+                case BulkFormat.OUTSOURCED: {
+                    StockItemValidator.Validation part = checked(StockItemValidator.validatePart(record[2], record[4], record[3],
+                            record[5], record[6], record[7], false, validation));
+                    parts.add(new Outsourced(integer(record, 1), part.getName(), part.getPrice(), part.getStock(),
+                            part.getMin(), part.getMax(), part.getCompanyName()));
+                    break;
+                }
+                case BulkFormat.PRODUCT: {
+                    StockItemValidator.Validation product = checked(StockItemValidator.validateProduct(record[2], record[4], record[3],
+                            record[5], record[6], validation));
+                    products.add(new Product(integer(record, 1), product.getName(), product.getPrice(), product.getStock(),
+                            product.getMin(), product.getMax()));
+                    break;
+                }
+                default:
+                    if (associationCount == associationLines.length) {
+                        int capacity = Math.max(16, associationCount * 2);
+                        associationLines = Arrays.copyOf(associationLines, capacity);
+                        associationProductIds = Arrays.copyOf(associationProductIds, capacity);
+                        associationPartIds = Arrays.copyOf(associationPartIds, capacity);
+                    }
+                    associationLines[associationCount] = lineNumber;
+                    associationProductIds[associationCount] = integer(record, 1);
+                    associationPartIds[associationCount] = integer(record, 2);
+                    associationCount++;
+            }
+        }
+
+        private static int integer(String[] record, int field) {
+            try {
+                return Integer.parseInt(record[field].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(BulkFormat.fieldNames(record[0])[field - 1] + " is not a whole number: " + record[field]);
+            }
+        }
+
+        private static StockItemValidator.Validation checked(StockItemValidator.Validation validation) {
+            if (!validation.isValid()) {
+                throw new IllegalArgumentException(validation.getMessage("; "));
+            }
+            return validation;
+        }
+    }
+}
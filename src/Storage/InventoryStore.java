@@ -0,0 +1,485 @@
+package Storage;
+
+import Model.Inventory;
+import Model.InventoryListener;
+import Model.Part;
+import Model.Product;
+import Model.StockItem;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Local storage engine for the Inventory, no external database needed.
+ * Every change reported to InventoryListener is appended to a write-ahead log (group committed, see WriteAheadLog).
+ * Every CHECKPOINT_INTERVAL records a compact binary snapshot is written and the log is emptied,
+ * once the change that logged the last of them has finished (see InventoryListener.changesFinished).
+ * The parts go in a separate columnar file (see ColumnarPartSnapshot) that is memory mapped on startup,
+ * so opening a large catalog only reads the id column, parts are created as they are used.
+ * On startup the latest snapshot is loaded and only the log records after it are replayed.
+ * @author Andrew Burk
+ */
+public class InventoryStore implements InventoryListener, AutoCloseable {
+    private static final int SNAPSHOT_MAGIC = 0x494E5653; //"INVS"
+    private static final int SNAPSHOT_VERSION = 4;
+    private static final int CHECKPOINT_INTERVAL = 50_000;
+    private static final String SNAPSHOT_FILE = "inventory.snapshot";
+    private static final String LOG_FILE = "inventory.wal";
+    private static final String PARTS_FILE_PREFIX = "parts-";
+    private static final String PARTS_FILE_SUFFIX = ".columns";
+
+    private final Path directory;
+    private final Inventory inv;
+    private final LazyPartList mappedParts;
+    private final WriteAheadLog log;
+    private final boolean recovered;
+    private int recordsSinceCheckpoint;
+    //Set when a checkpoint is due, written when the change running has finished.
+    private boolean checkpointDue;
+    private CompletableFuture<Long> pendingCheckpoint = CompletableFuture.completedFuture(0L);
+
+    private InventoryStore(Path directory, Inventory inv, LazyPartList mappedParts, WriteAheadLog log, boolean recovered) {
+        this.directory = directory;
+        this.inv = inv;
+        this.mappedParts = mappedParts;
+        this.log = log;
+        this.recovered = recovered;
+    }
+
+    /**
+     * Opens the store in a directory, recovering the Inventory from the snapshot and write-ahead log found there.
+     * @param directory the data directory, created if missing
+     * @return the opened store
+     * @throws IOException failed to read the stored data
+     */
+    public static InventoryStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        Path logFile = directory.resolve(LOG_FILE);
+
+        Inventory inv = new Inventory();
+        LazyPartList mappedParts = null;
+        long snapshotSequence = 0;
+        boolean recovered = false;
+        if (Files.exists(snapshotFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Not an inventory snapshot: " + snapshotFile);
+                }
+                int version = in.readInt();
+                snapshotSequence = in.readLong();
+                if (version >= 2) {
+                    mappedParts = new LazyPartList(ColumnarPartSnapshot.open(directory.resolve(in.readUTF())));
+                    inv = new Inventory(mappedParts);
+                } else {
+                    //Version 1 snapshots held the parts inline.
+                    int partCount = in.readInt();
+                    for (int i = 0; i < partCount; i++) {
+                        inv.addPart(RecordCodec.readPart(in));
+                    }
+                }
+                //Version 4 keeps the id sequences, so ids of records deleted before the snapshot stay used.
+                int lastPartId = version >= 4 ? in.readInt() : 0;
+                int lastProductId = version >= 4 ? in.readInt() : 0;
+                int productCount = in.readInt();
+                for (int i = 0; i < productCount; i++) {
+                    inv.addProduct(RecordCodec.readProduct(in, inv, version >= 3));
+                }
+                inv.getPartIdSequence().observe(lastPartId);
+                inv.getProductIdSequence().observe(lastProductId);
+            }
+            recovered = true;
+        }
+        Inventory recovering = inv;
+        long lastSequence = WriteAheadLog.replay(logFile, snapshotSequence, (sequence, type, payload) -> apply(recovering, type, payload));
+        recovered |= lastSequence > snapshotSequence;
+
+        InventoryStore store = new InventoryStore(directory, inv, mappedParts, new WriteAheadLog(logFile, lastSequence + 1), recovered);
+        inv.addListener(store);
+        return store;
+    }
+
+    /**
+     * @return the Inventory kept by this store
+     */
+    public Inventory getInventory() {
+        return inv;
+    }
+
+    /**
+     * @return true if data was found on disk when the store was opened
+     */
+    public boolean isRecovered() {
+        return recovered;
+    }
+
+    /**
+     * Writes a snapshot of the current Inventory and empties the write-ahead log once it is installed.
+     * Call on the thread that changes the Inventory, so the snapshot matches the records logged so far.
+     * The snapshot is encoded on this thread before it is queued, so changes pause for as long as the encoding takes,
+     * which grows with the Inventory, and so does the change that triggers an automatic checkpoint.
+     * Encoding it later on the log writer would take in changes logged after it, and replaying those
+     * (an association add) on top of the snapshot would apply them twice.
+     * @throws UncheckedIOException the write-ahead log has failed
+     */
+    public void checkpoint() {
+        checkLog();
+        long sequence = log.getLastSequence();
+        String partsFile = PARTS_FILE_PREFIX + sequence + PARTS_FILE_SUFFIX;
+        LinkedHashMap<Path, byte[]> files = new LinkedHashMap<>();
+        try {
+            //Unused rows of a mapped snapshot are copied column to column without creating parts.
+            files.put(directory.resolve(partsFile), ColumnarPartSnapshot.encode(mappedParts != null ? mappedParts : inv.getAllParts()));
+            files.put(directory.resolve(SNAPSHOT_FILE), encodeSnapshot(inv, sequence, partsFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pendingCheckpoint = log.checkpoint(files);
+        pendingCheckpoint.thenRun(() -> deleteOldPartsFiles(partsFile));
+        recordsSinceCheckpoint = 0;
+        checkpointDue = false;
+    }
+
+    /**
+     * Waits until every change made so far is durable on disk.
+     * @throws IOException the log failed to write
+     */
+    public void sync() throws IOException {
+        log.sync();
+    }
+
+    /**
+     * Writes a final snapshot and closes the log.
+     * @throws IOException failed to write
+     */
+    @Override
+    public void close() throws IOException {
+        inv.removeListener(this);
+        try {
+            checkpoint();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            log.close();
+        }
+    }
+
+    @Override
+    public void partAdded(Part part) {
+        logPart(part.getId(), part);
+    }
+
+    @Override
+    public void partUpdated(Part oldPart, Part newPart) {
+        logPart(oldPart.getId(), newPart);
+    }
+
+    @Override
+    public void partDeleted(Part part) {
+        logIds(RecordCodec.PART_DELETE, part.getId());
+    }
+
+    @Override
+    public void productAdded(Product product) {
+        logProduct(product.getId(), product);
+    }
+
+    @Override
+    public void productUpdated(Product oldProduct, Product newProduct) {
+        logProduct(oldProduct.getId(), newProduct);
+    }
+
+    @Override
+    public void productDeleted(Product product) {
+        logIds(RecordCodec.PRODUCT_DELETE, product.getId());
+    }
+
+    @Override
+    public void associatedPartAdded(Product product, Part part) {
+        logIds(RecordCodec.ASSOCIATION_ADD, product.getId(), part.getId());
+    }
+
+    @Override
+    public void associatedPartDeleted(Product product, Part part) {
+        logIds(RecordCodec.ASSOCIATION_DELETE, product.getId(), part.getId());
+    }
+
+    @Override
+    public void associatedPartQuantityChanged(Product product, Part part, int quantity) {
+        logIds(RecordCodec.ASSOCIATION_QUANTITY, product.getId(), part.getId(), quantity);
+    }
+
+    @Override
+    public void subAssemblyAdded(Product product, Product subAssembly, int quantity) {
+        logIds(RecordCodec.SUB_ASSEMBLY_ADD, product.getId(), subAssembly.getId(), quantity);
+    }
+
+    @Override
+    public void subAssemblyDeleted(Product product, Product subAssembly) {
+        logIds(RecordCodec.SUB_ASSEMBLY_DELETE, product.getId(), subAssembly.getId());
+    }
+
+    @Override
+    public void stockChanged(StockItem item, int oldStock, int newStock) {
+        logIds(item instanceof Product ? RecordCodec.PRODUCT_STOCK : RecordCodec.PART_STOCK, item.getId(), newStock);
+    }
+
+    /**
+     * Writes a due checkpoint. Never in the middle of a change, as product.addAssociatedParts adds every part
+     * before it reports them, a snapshot taken between its events would hold associations still logged after it,
+     * and replaying those would add them twice.
+     */
+    @Override
+    public void changesFinished() {
+        //Automatic checkpoints wait for the previous one, so snapshots never pile up in memory during a burst.
+        if (checkpointDue && pendingCheckpoint.isDone() && log.getFailure() == null) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * A put record carries the id it replaces, so an update that changes the id replays correctly.
+     */
+    private void logPart(int replacedId, Part part) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(replacedId);
+            RecordCodec.writePart(out, part);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(RecordCodec.PART_PUT, bytes.toByteArray());
+    }
+
+    private void logProduct(int replacedId, Product product) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(replacedId);
+            RecordCodec.writeProduct(out, product);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(RecordCodec.PRODUCT_BOM_PUT, bytes.toByteArray());
+    }
+
+    private void logIds(byte type, int... ids) {
+        byte[] payload = new byte[ids.length * 4];
+        for (int i = 0; i < ids.length; i++) {
+            payload[i * 4] = (byte) (ids[i] >>> 24);
+            payload[i * 4 + 1] = (byte) (ids[i] >>> 16);
+            payload[i * 4 + 2] = (byte) (ids[i] >>> 8);
+            payload[i * 4 + 3] = (byte) ids[i];
+        }
+        append(type, payload);
+    }
+
+    /**
+     * Thrown into the change that reports it, the change is made in memory but is not saved.
+     * @throws UncheckedIOException the write-ahead log has failed
+     */
+    private void append(byte type, byte[] payload) {
+        checkLog();
+        log.append(type, payload);
+        if (++recordsSinceCheckpoint >= CHECKPOINT_INTERVAL) {
+            checkpointDue = true;
+        }
+    }
+
+    private void checkLog() {
+        IOException failure = log.getFailure();
+        if (failure != null) {
+            throw new UncheckedIOException("The write-ahead log failed, changes are no longer saved", failure);
+        }
+    }
+
+    /**
+     * Applies one log record to the Inventory during recovery (the store is not listening yet).
+     */
+    private static void apply(Inventory inv, byte type, DataInputStream in) throws IOException {
+        switch (type) {
+            case RecordCodec.PART_PUT: {
+                int replacedId = in.readInt();
+                Part part = RecordCodec.readPart(in);
+                if (!inv.replacePart(replacedId, part)) {
+                    inv.addPart(part);
+                }
+                break;
+            }
+            case RecordCodec.PART_DELETE:
+                inv.deletePart(inv.lookupPart(in.readInt()));
+                break;
+            case RecordCodec.PRODUCT_PUT:
+            case RecordCodec.PRODUCT_BOM_PUT: {
+                int replacedId = in.readInt();
+                Product product = RecordCodec.readProduct(in, inv, type == RecordCodec.PRODUCT_BOM_PUT);
+                if (!inv.replaceProduct(replacedId, product)) {
+                    inv.addProduct(product);
+                }
+                break;
+            }
+            case RecordCodec.PRODUCT_DELETE:
+                inv.deleteProduct(inv.lookupProduct(in.readInt()));
+                break;
+            case RecordCodec.ASSOCIATION_ADD: {
+                Product product = inv.lookupProduct(in.readInt());
+                Part part = inv.lookupPart(in.readInt());
+                if (product != null && part != null) {
+                    product.addAssociatedPart(part);
+                }
+                break;
+            }
+            case RecordCodec.ASSOCIATION_DELETE: {
+                Product product = inv.lookupProduct(in.readInt());
+                int partId = in.readInt();
+                if (product != null) {
+                    for (Part part : product.getAllAssociatedParts()) {
+                        if (part.getId() == partId) {
+                            product.deleteAssociatedPart(part);
+                            break;
+                        }
+                    }
+                }
+                break;
+            }
+            case RecordCodec.ASSOCIATION_QUANTITY: {
+                Product product = inv.lookupProduct(in.readInt());
+                int partId = in.readInt();
+                int quantity = in.readInt();
+                if (product != null) {
+                    for (Part part : product.getAllAssociatedParts()) {
+                        if (part.getId() == partId) {
+                            product.addAssociatedPart(part, quantity);
+                            break;
+                        }
+                    }
+                }
+                break;
+            }
+            case RecordCodec.SUB_ASSEMBLY_ADD: {
+                Product product = inv.lookupProduct(in.readInt());
+                Product subAssembly = inv.lookupProduct(in.readInt());
+                int quantity = in.readInt();
+                if (product != null && subAssembly != null && subAssembly != product && !subAssembly.containsSubAssembly(product)) {
+                    product.addSubAssembly(subAssembly, quantity);
+                }
+                break;
+            }
+            case RecordCodec.SUB_ASSEMBLY_DELETE: {
+                Product product = inv.lookupProduct(in.readInt());
+                int subAssemblyId = in.readInt();
+                if (product != null) {
+                    for (Product subAssembly : product.getAllSubAssemblies()) {
+                        if (subAssembly.getId() == subAssemblyId) {
+                            product.deleteSubAssembly(subAssembly);
+                            break;
+                        }
+                    }
+                }
+                break;
+            }
+            case RecordCodec.PART_STOCK: {
+                Part part = inv.lookupPart(in.readInt());
+                int stock = in.readInt();
+                if (part != null) {
+                    part.setStock(stock);
+                }
+                break;
+            }
+            case RecordCodec.PRODUCT_STOCK: {
+                Product product = inv.lookupProduct(in.readInt());
+                int stock = in.readInt();
+                if (product != null) {
+                    product.setStock(stock);
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown log record type " + type);
+        }
+    }
+
+    private static byte[] encodeSnapshot(Inventory inv, long sequence, String partsFile) throws IOException {
+        List<Product> products = subAssembliesFirst(inv);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + products.size() * 48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(sequence);
+            out.writeUTF(partsFile);
+            out.writeInt(inv.getPartIdSequence().getLastId());
+            out.writeInt(inv.getProductIdSequence().getLastId());
+            out.writeInt(products.size());
+            for (Product product : products) {
+                RecordCodec.writeProduct(out, product);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Orders the products so every sub-assembly comes before the products containing it,
+     * a product read from the snapshot can then link its sub-assemblies by id straight away.
+     */
+    private static List<Product> subAssembliesFirst(Inventory inv) {
+        List<Product> products = inv.getAllProducts();
+        List<Product> ordered = new ArrayList<>(products.size());
+        Set<Product> visited = new HashSet<>();
+        ArrayDeque<Product> path = new ArrayDeque<>();
+        ArrayDeque<Iterator<Product>> pending = new ArrayDeque<>();
+        for (Product root : products) {
+            if (!visited.add(root)) {
+                continue;
+            }
+            path.push(root);
+            pending.push(root.getAllSubAssemblies().iterator());
+            while (!path.isEmpty()) {
+                if (pending.peek().hasNext()) {
+                    Product next = inv.lookupProduct(pending.peek().next().getId());
+                    if (next != null && visited.add(next)) {
+                        path.push(next);
+                        pending.push(next.getAllSubAssemblies().iterator());
+                    }
+                } else {
+                    pending.pop();
+                    ordered.add(path.pop());
+                }
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Removes parts files of older snapshots. A file still mapped by this process may refuse to go on some systems,
+     * it is then removed after a later checkpoint.
+     */
+    private void deleteOldPartsFiles(String currentPartsFile) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PARTS_FILE_PREFIX + "*" + PARTS_FILE_SUFFIX)) {
+            for (Path file : files) {
+                if (!file.getFileName().toString().equals(currentPartsFile)) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        //Still in use, try again next time.
+                    }
+                }
+            }
+        } catch (IOException e) {
+            //The directory could not be listed, the old files are only disk space and go after a later checkpoint.
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package Storage;
+
+import Model.Part;
+import Model.PartStorage;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Part list over a mapped ColumnarPartSnapshot, used as the Inventory part storage.
+ * Each element is either a snapshot row that has not been used yet or a Part object.
+ * A row becomes a Part the first time get is called for it, ids and names are read straight from the columns.
+ * Parts added later are held as objects like an ArrayList would.
+ * Changes need a single thread, but reads may run on several threads at once (the UI thread and background
+ * searches), a row used by two of them at the same time still becomes one Part, published safely to both.
+ * @author Andrew Burk
+ */
+class LazyPartList extends AbstractList<Part> implements PartStorage, RandomAccess {
+    private static final int NO_ROW = -1;
+    private static final VarHandle PARTS = MethodHandles.arrayElementVarHandle(Part[].class);
+
+    private final ColumnarPartSnapshot snapshot;
+    private Part[] parts;
+    private int[] rows;
+    private int size;
+
+    /**
+     * Constructor for LazyPartList - Starts with every snapshot row, none of them created yet.
+     * @param snapshot the mapped snapshot
+     */
+    LazyPartList(ColumnarPartSnapshot snapshot) {
+        this.snapshot = snapshot;
+        size = snapshot.size();
+        parts = new Part[Math.max(size, 16)];
+        rows = new int[parts.length];
+        for (int i = 0; i < size; i++) {
+            rows[i] = i;
+        }
+    }
+
+    @Override
+    public Part get(int index) {
+        checkIndex(index);
+        Part part = created(index);
+        return part != null ? part : create(index);
+    }
+
+    /**
+     * @return the Part created for the element, or null for an unused row
+     */
+    private Part created(int index) {
+        return (Part) PARTS.getAcquire(parts, index);
+    }
+
+    private synchronized Part create(int index) {
+        Part part = created(index);
+        if (part == null) {
+            part = snapshot.partAt(rows[index]);
+            PARTS.setRelease(parts, index, part);
+        }
+        return part;
+    }
+
+    @Override
+    public int idAt(int index) {
+        checkIndex(index);
+        Part part = created(index);
+        return part != null ? part.getId() : snapshot.idAt(rows[index]);
+    }
+
+    @Override
+    public String nameAt(int index) {
+        checkIndex(index);
+        Part part = created(index);
+        return part != null ? part.getName() : snapshot.nameAt(rows[index]);
+    }
+
+    @Override
+    public int stockAt(int index) {
+        checkIndex(index);
+        Part part = created(index);
+        return part != null ? part.getStock() : snapshot.stockAt(rows[index]);
+    }
+
+    @Override
+    public double priceAt(int index) {
+        checkIndex(index);
+        Part part = created(index);
+        return part != null ? part.getPrice() : snapshot.priceAt(rows[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Part set(int index, Part part) {
+        Part old = get(index);
+        parts[index] = part;
+        rows[index] = NO_ROW;
+        return old;
+    }
+
+    @Override
+    public void add(int index, Part part) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (size == parts.length) {
+            parts = Arrays.copyOf(parts, size + (size >> 1));
+            rows = Arrays.copyOf(rows, parts.length);
+        }
+        System.arraycopy(parts, index, parts, index + 1, size - index);
+        System.arraycopy(rows, index, rows, index + 1, size - index);
+        parts[index] = part;
+        rows[index] = NO_ROW;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Part remove(int index) {
+        Part old = get(index);
+        System.arraycopy(parts, index + 1, parts, index, size - index - 1);
+        System.arraycopy(rows, index + 1, rows, index, size - index - 1);
+        size--;
+        parts[size] = null;
+        modCount++;
+        return old;
+    }
+
+    /**
+     * @param index list index
+     * @return true if the element is a Part object rather than an unused snapshot row
+     */
+    boolean isCreated(int index) {
+        checkIndex(index);
+        return created(index) != null;
+    }
+
+    /**
+     * @param index list index of an element that was not created yet
+     * @return its snapshot row
+     */
+    int rowAt(int index) {
+        checkIndex(index);
+        return rows[index];
+    }
+
+    /**
+     * @return the mapped snapshot
+     */
+    ColumnarPartSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package Storage;
+
+import Model.InHouse;
+import Model.Inventory;
+import Model.Outsourced;
+import Model.Part;
+import Model.Product;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Binary encoding of parts and products shared by the write-ahead log and the snapshots.
+ * Associated parts are stored by part id and linked back to the Inventory parts when read.
+ * @author Andrew Burk
+ */
+final class RecordCodec {
+    static final byte PART_PUT = 1;
+    static final byte PART_DELETE = 2;
+    static final byte PRODUCT_PUT = 3;
+    static final byte PRODUCT_DELETE = 4;
+    static final byte ASSOCIATION_ADD = 5;
+    static final byte ASSOCIATION_DELETE = 6;
+    static final byte PRODUCT_BOM_PUT = 7;
+    static final byte ASSOCIATION_QUANTITY = 8;
+    static final byte SUB_ASSEMBLY_ADD = 9;
+    static final byte SUB_ASSEMBLY_DELETE = 10;
+    static final byte PART_STOCK = 11;
+    static final byte PRODUCT_STOCK = 12;
+
+    private static final byte IN_HOUSE = 0;
+    private static final byte OUTSOURCED = 1;
+
+    private RecordCodec() {
+    }
+
+    /**
+     * @param out output to write to
+     * @param part the part to write
+     * @throws IOException failed to write
+     */
+    static void writePart(DataOutput out, Part part) throws IOException {
+        out.writeByte(part instanceof Outsourced ? OUTSOURCED : IN_HOUSE);
+        out.writeInt(part.getId());
+        out.writeUTF(part.getName());
+        out.writeDouble(part.getPrice());
+        out.writeInt(part.getStock());
+        out.writeInt(part.getMin());
+        out.writeInt(part.getMax());
+        if (part instanceof Outsourced) {
+            out.writeUTF(((Outsourced) part).getCompanyName());
+        } else {
+            out.writeInt(((InHouse) part).getMachineId());
+        }
+    }
+
+    /**
+     * @param in input to read from
+     * @return the part read
+     * @throws IOException failed to read
+     */
+    static Part readPart(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        int id = in.readInt();
+        String name = in.readUTF();
+        double price = in.readDouble();
+        int stock = in.readInt();
+        int min = in.readInt();
+        int max = in.readInt();
+        if (kind == OUTSOURCED) {
+            return new Outsourced(id, name, price, stock, min, max, in.readUTF());
+        }
+        return new InHouse(id, name, price, stock, min, max, in.readInt());
+    }
+
+    /**
+     * Writes the product fields, the ids and quantities of its associated parts,
+     * then the ids and quantities of its sub-assemblies (the bill of materials format).
+     * @param out output to write to
+     * @param product the product to write
+     * @throws IOException failed to write
+     */
+    static void writeProduct(DataOutput out, Product product) throws IOException {
+        out.writeInt(product.getId());
+        out.writeUTF(product.getName());
+        out.writeDouble(product.getPrice());
+        out.writeInt(product.getStock());
+        out.writeInt(product.getMin());
+        out.writeInt(product.getMax());
+        List<Part> parts = product.getAllAssociatedParts();
+        out.writeInt(parts.size());
+        for (Part part : parts) {
+            out.writeInt(part.getId());
+            out.writeInt(product.getAssociatedPartQuantity(part));
+        }
+        List<Product> subAssemblies = product.getAllSubAssemblies();
+        out.writeInt(subAssemblies.size());
+        for (Product subAssembly : subAssemblies) {
+            out.writeInt(subAssembly.getId());
+            out.writeInt(product.getSubAssemblyQuantity(subAssembly));
+        }
+    }
+
+    /**
+     * Reads a product and links the parts and sub-assemblies found in the inventory (missing ones are skipped).
+     * @param in input to read from
+     * @param inv inventory holding the associated parts and sub-assemblies
+     * @param billOfMaterials true for the writeProduct format, false for the older format of part ids only
+     * @return the product read
+     * @throws IOException failed to read
+     */
+    static Product readProduct(DataInput in, Inventory inv, boolean billOfMaterials) throws IOException {
+        Product product = new Product(in.readInt(), in.readUTF(), in.readDouble(), in.readInt(), in.readInt(), in.readInt());
+        int partCount = in.readInt();
+        for (int i = 0; i < partCount; i++) {
+            Part part = inv.lookupPart(in.readInt());
+            int quantity = billOfMaterials ? in.readInt() : 1;
+            if (part != null) {
+                product.addAssociatedPart(part);
+                if (quantity != 1) {
+                    product.addAssociatedPart(part, quantity);
+                }
+            }
+        }
+        if (billOfMaterials) {
+            int subAssemblyCount = in.readInt();
+            for (int i = 0; i < subAssemblyCount; i++) {
+                Product subAssembly = inv.lookupProduct(in.readInt());
+                int quantity = in.readInt();
+                if (subAssembly != null && subAssembly.getId() != product.getId() && !subAssembly.containsSubAssembly(product)) {
+                    product.addSubAssembly(subAssembly, quantity);
+                }
+            }
+        }
+        return product;
+    }
+}
@@ -0,0 +1,335 @@
+package Storage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of Inventory changes.
+ * Each record is framed as [length][crc32][sequence][type][payload].
+ * A single writer thread drains everything queued since its last write and makes it durable with one fsync
+ * (group commit), so the commit latency is at most about two fsyncs no matter how many changes arrive.
+ * Checkpoints are queued in the same order as the records, which lets the writer install a snapshot and
+ * truncate the log knowing exactly which records the snapshot covers.
+ * @author Andrew Burk
+ */
+class WriteAheadLog implements Closeable {
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final long STOP = -1;
+
+    private final FileChannel channel;
+    private final LinkedBlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private long nextSequence;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    /**
+     * Handler for records read back during recovery.
+     */
+    interface RecordHandler {
+        void apply(long sequence, byte type, DataInputStream payload) throws IOException;
+    }
+
+    /**
+     * Constructor for WriteAheadLog - Opens the log for appending, call replay first to recover it.
+     * @param file the log file
+     * @param nextSequence sequence number for the next record
+     * @throws IOException failed to open the file
+     */
+    WriteAheadLog(Path file, long nextSequence) throws IOException {
+        this.nextSequence = nextSequence;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        writer = new Thread(this::writeLoop, "inventory-wal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Reads every intact record after a sequence number.
+     * Stops at the first torn or corrupt record (a crash mid-write) and cuts the file back to the last good record.
+     * @param file the log file
+     * @param afterSequence records up to and including this sequence are already in the snapshot
+     * @param handler receives each record
+     * @return the last sequence number seen in the log, or afterSequence if there was none
+     * @throws IOException failed to read the file
+     */
+    static long replay(Path file, long afterSequence, RecordHandler handler) throws IOException {
+        if (!Files.exists(file)) {
+            return afterSequence;
+        }
+        long lastSequence = afterSequence;
+        long goodBytes = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (true) {
+                byte[] body;
+                try {
+                    int length = in.readInt();
+                    int crc = in.readInt();
+                    if (length < 9 || length > MAX_RECORD_BYTES) {
+                        break;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                    if (crc(body, 0, length) != crc) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+                long sequence = record.readLong();
+                byte type = record.readByte();
+                if (sequence > afterSequence) {
+                    handler.apply(sequence, type, record);
+                }
+                lastSequence = Math.max(lastSequence, sequence);
+                goodBytes += HEADER_BYTES + body.length;
+            }
+        }
+        if (goodBytes < Files.size(file)) {
+            try (FileChannel truncate = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncate.truncate(goodBytes);
+            }
+        }
+        return lastSequence;
+    }
+
+    /**
+     * Queues a record, the future completes once the record is on disk.
+     * @param type the record type
+     * @param payload the record payload
+     * @return future holding the record sequence number
+     */
+    synchronized CompletableFuture<Long> append(byte type, byte[] payload) {
+        CompletableFuture<Long> durable = new CompletableFuture<>();
+        if (closed || failure != null) {
+            durable.completeExceptionally(failure != null ? failure : new IOException("Write-ahead log is closed"));
+            return durable;
+        }
+        long sequence = nextSequence++;
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + 9 + payload.length);
+        frame.putInt(9 + payload.length);
+        frame.putInt(0); //crc placeholder
+        frame.putLong(sequence);
+        frame.put(type);
+        frame.put(payload);
+        frame.putInt(4, crc(frame.array(), HEADER_BYTES, 9 + payload.length));
+        frame.flip();
+        queue.add(new Entry(sequence, frame, null, durable));
+        return durable;
+    }
+
+    /**
+     * Queues a checkpoint. Once every record before it is on disk the snapshot files are installed
+     * in order and the log is emptied, so the last file should be the one that refers to the others.
+     * @param snapshotFiles the encoded snapshot files by path, covering every record appended so far
+     * @return future completing once the snapshot is installed
+     */
+    synchronized CompletableFuture<Long> checkpoint(LinkedHashMap<Path, byte[]> snapshotFiles) {
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        if (closed || failure != null) {
+            done.completeExceptionally(failure != null ? failure : new IOException("Write-ahead log is closed"));
+            return done;
+        }
+        queue.add(new Entry(nextSequence - 1, null, snapshotFiles, done));
+        return done;
+    }
+
+    /**
+     * Once the writer fails nothing more is written, the records queued with it and after it are lost.
+     * @return the error that stopped the log, or null while it is writing
+     */
+    IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return the sequence number of the last record appended
+     */
+    synchronized long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    /**
+     * Waits until every record appended so far is on disk.
+     * @throws IOException the log failed to write
+     */
+    void sync() throws IOException {
+        CompletableFuture<Long> barrier;
+        synchronized (this) {
+            barrier = new CompletableFuture<>();
+            if (closed) {
+                return;
+            }
+            queue.add(new Entry(nextSequence - 1, null, null, barrier));
+        }
+        await(barrier);
+    }
+
+    /**
+     * Flushes the queued records and stops the writer thread.
+     * @throws IOException the log failed to write
+     */
+    @Override
+    public void close() throws IOException {
+        CompletableFuture<Long> stopped = new CompletableFuture<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(new Entry(STOP, null, null, stopped));
+        }
+        try {
+            await(stopped);
+        } finally {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    static void await(CompletableFuture<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for the write-ahead log", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Writer thread: takes one entry, drains whatever else queued up meanwhile, writes it all and fsyncs once.
+     */
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch);
+            stopping = batch.get(batch.size() - 1).sequence == STOP;
+            try {
+                writeBatch(batch);
+            } catch (IOException e) {
+                //Every later append, checkpoint and sync fails with this, see getFailure.
+                failure = e;
+                for (Entry entry : batch) {
+                    entry.done.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<Entry> batch) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        int start = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Entry entry = batch.get(i);
+            if (entry.snapshotFiles != null) {
+                //Everything before the checkpoint must be durable before the log is emptied.
+                writeRecords(batch, start, i);
+                installSnapshot(entry);
+                start = i + 1;
+            }
+        }
+        writeRecords(batch, start, batch.size());
+    }
+
+    private void writeRecords(List<Entry> batch, int from, int to) throws IOException {
+        if (from >= to) {
+            return;
+        }
+        boolean wrote = false;
+        for (int i = from; i < to; i++) {
+            ByteBuffer frame = batch.get(i).frame;
+            if (frame != null) {
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+                wrote = true;
+            }
+        }
+        if (wrote) {
+            channel.force(false);
+        }
+        for (int i = from; i < to; i++) {
+            batch.get(i).done.complete(batch.get(i).sequence);
+        }
+    }
+
+    private void installSnapshot(Entry entry) throws IOException {
+        for (Map.Entry<Path, byte[]> file : entry.snapshotFiles.entrySet()) {
+            Path target = file.getKey();
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer contents = ByteBuffer.wrap(file.getValue());
+                while (contents.hasRemaining()) {
+                    out.write(contents);
+                }
+                out.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        //Records covered by the snapshot are no longer needed. A crash before this point just replays them as already applied.
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        entry.done.complete(entry.sequence);
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A queued record, checkpoint or sync barrier.
+     */
+    private static class Entry {
+        private final long sequence;
+        private final ByteBuffer frame;
+        private final LinkedHashMap<Path, byte[]> snapshotFiles;
+        private final CompletableFuture<Long> done;
+
+        private Entry(long sequence, ByteBuffer frame, LinkedHashMap<Path, byte[]> snapshotFiles, CompletableFuture<Long> done) {
+            this.sequence = sequence;
+            this.frame = frame;
+            this.snapshotFiles = snapshotFiles;
+            this.done = done;
+        }
+    }
+}
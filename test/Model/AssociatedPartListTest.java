@@ -0,0 +1,127 @@
+package Model;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AssociatedPartList must behave like an ArrayList of the same parts under adds, inserts, sets and removes,
+ * including repeated parts, across the packing of its empty slots, and its change events must replay to the same list.
+ * @author Andrew Burk
+ */
+class AssociatedPartListTest {
+    private static final Part[] PARTS = new Part[12];
+
+    static {
+        for (int i = 0; i < PARTS.length; i++) {
+            PARTS[i] = new InHouse(i + 1, "Part " + (i + 1), 1, 1, 0, 10, 1);
+        }
+    }
+
+    @Test
+    void matchesAnArrayListUnderRandomChanges() {
+        Random random = new Random(12);
+        AssociatedPartList list = new AssociatedPartList();
+        List<Part> expected = new ArrayList<>();
+        List<Part> replayed = new ArrayList<>();
+        list.addListener(replayOnto(replayed));
+
+        for (int change = 0; change < 20_000; change++) {
+            //Few distinct parts, so most of them are in the list several times.
+            Part part = PARTS[random.nextInt(PARTS.length)];
+            int choice = random.nextInt(10);
+            if (choice < 4 || expected.isEmpty()) {
+                list.add(part);
+                expected.add(part);
+            } else if (choice == 4) {
+                int index = random.nextInt(expected.size() + 1);
+                list.add(index, part);
+                expected.add(index, part);
+            } else if (choice == 5) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.set(index, part), list.set(index, part));
+            } else if (choice < 8) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), list.remove(index));
+            } else {
+                assertEquals(expected.remove(part), list.remove(part));
+            }
+            assertMatches(expected, list);
+            if (change % 1_000 == 0) {
+                assertEquals(expected, replayed);
+            }
+        }
+        assertEquals(expected, replayed);
+    }
+
+    @Test
+    void findsPartsAfterRemovesEmptiedSlots() {
+        AssociatedPartList list = new AssociatedPartList();
+        List<Part> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add(PARTS[i % PARTS.length]);
+            expected.add(PARTS[i % PARTS.length]);
+        }
+        //Up to the packing threshold and one past it, removing from the front so every later index moves.
+        for (int removed = 0; removed <= 17; removed++) {
+            assertEquals(expected.remove(0), list.remove(0));
+            assertMatches(expected, list);
+        }
+        //Past half empty, packed again.
+        while (expected.size() > 20) {
+            int middle = expected.size() / 2;
+            assertEquals(expected.remove(middle), list.remove(middle));
+            assertMatches(expected, list);
+        }
+        list.add(3, PARTS[0]);
+        expected.add(3, PARTS[0]);
+        assertMatches(expected, list);
+    }
+
+    @Test
+    void containsAndRemoveOfMissingParts() {
+        AssociatedPartList list = new AssociatedPartList();
+        list.add(PARTS[0]);
+        list.add(PARTS[0]);
+        assertTrue(list.contains(PARTS[0]));
+        assertFalse(list.contains(PARTS[1]));
+        assertFalse(list.remove(PARTS[1]));
+        assertTrue(list.remove(PARTS[0]));
+        assertTrue(list.contains(PARTS[0]));
+        assertTrue(list.remove(PARTS[0]));
+        assertFalse(list.contains(PARTS[0]));
+        assertThrows(NullPointerException.class, () -> list.add(null));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.add(1, PARTS[0]));
+    }
+
+    private static void assertMatches(List<Part> expected, AssociatedPartList list) {
+        assertEquals(expected.size(), list.size());
+        assertEquals(expected, new ArrayList<>(list));
+        for (Part part : PARTS) {
+            assertEquals(expected.indexOf(part), list.indexOf(part), part.getName());
+            assertEquals(expected.lastIndexOf(part), list.lastIndexOf(part), part.getName());
+            assertEquals(expected.contains(part), list.contains(part), part.getName());
+        }
+    }
+
+    private static ListChangeListener<Part> replayOnto(List<Part> replayed) {
+        return change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    throw new AssertionError("Associated parts are never permuted");
+                }
+                replayed.subList(change.getFrom(), change.getFrom() + change.getRemovedSize()).clear();
+                replayed.addAll(change.getFrom(), change.getAddedSubList());
+            }
+        };
+    }
+}
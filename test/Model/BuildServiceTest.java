@@ -0,0 +1,118 @@
+package Model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Builds through the BuildService are all or nothing:
+ * a refused build leaves every stock, reservation and movement record as it was.
+ * @author Andrew Burk
+ */
+class BuildServiceTest {
+    private Inventory inv;
+    private StockLedger ledger;
+    private BuildService service;
+    private Part bolt;
+    private Part nut;
+    private Product frame;
+
+    @BeforeEach
+    void setUp() {
+        inv = new Inventory();
+        bolt = new InHouse(1, "Bolt", 0.25, 20, 2, 100, 1);
+        nut = new InHouse(2, "Nut", 0.05, 10, 0, 100, 1);
+        inv.addPart(bolt);
+        inv.addPart(nut);
+        frame = new Product(10, "Frame", 20, 0, 0, 5);
+        inv.addProduct(frame);
+        frame.addAssociatedPart(bolt, 4);
+        frame.addAssociatedPart(nut, 2);
+        ledger = inv.getStockLedger();
+        service = new BuildService(inv);
+    }
+
+    @Test
+    void buildMovesEveryStockAtOnce() {
+        BuildService.BuildResult result = service.build(frame, 2);
+        assertEquals(BuildService.Status.BUILT, result.getStatus());
+        assertNull(result.getShortItem());
+        assertEquals(12, bolt.getStock());
+        assertEquals(6, nut.getStock());
+        assertEquals(2, frame.getStock());
+        assertEquals(0, ledger.getReserved(bolt));
+        assertEquals(0, ledger.getReserved(nut));
+    }
+
+    @Test
+    void buildShortOfOnePartChangesNothing() {
+        //Enough nuts, but 20 bolts would leave fewer than the bolt min.
+        BuildService.BuildResult result = service.build(frame, 5);
+        assertEquals(BuildService.Status.SHORT_OF_STOCK, result.getStatus());
+        assertSame(bolt, result.getShortItem());
+        assertUnchanged();
+    }
+
+    @Test
+    void buildAboveTheProductMaxChangesNothing() {
+        assertTrue(ledger.receive(frame, 4, "PO 1"));
+        BuildService.BuildResult result = service.build(frame, 2);
+        assertEquals(BuildService.Status.OVER_MAX, result.getStatus());
+        assertEquals(20, bolt.getStock());
+        assertEquals(10, nut.getStock());
+        assertEquals(4, frame.getStock());
+        assertEquals(0, ledger.getReserved(bolt));
+        assertEquals(0, ledger.getReserved(nut));
+    }
+
+    @Test
+    void buildRollsBackWhenAReservationIsLostBeforeConsume() {
+        //Someone else releases the nut reservation while the build holds it, between the product receipt and the consume.
+        inv.addListener(new InventoryListener() {
+            private boolean released;
+
+            @Override
+            public void stockChanged(StockItem item, int oldStock, int newStock) {
+                if (item == frame && !released) {
+                    released = true;
+                    ledger.release(nut, 1, "Someone else");
+                }
+            }
+        });
+        BuildService.BuildResult result = service.build(frame, 2);
+        assertEquals(BuildService.Status.RESERVATION_LOST, result.getStatus());
+        assertSame(nut, result.getShortItem());
+        assertUnchanged();
+
+        assertEquals(BuildService.Status.BUILT, service.build(frame, 2).getStatus());
+        assertEquals(2, frame.getStock());
+    }
+
+    @Test
+    void batchBuildsEachOrderOnItsOwn() {
+        BuildService.BatchResult batch = service.buildAll(List.of(
+                new BuildService.BuildOrder(frame, 3), new BuildService.BuildOrder(frame, 3), new BuildService.BuildOrder(frame, 1)));
+        assertEquals(BuildService.Status.BUILT, batch.getResults().get(0).getStatus());
+        assertEquals(BuildService.Status.SHORT_OF_STOCK, batch.getResults().get(1).getStatus());
+        assertEquals(BuildService.Status.BUILT, batch.getResults().get(2).getStatus());
+        assertEquals(2, batch.getBuiltCount());
+        assertEquals(4, frame.getStock());
+        assertEquals(4, bolt.getStock());
+        assertEquals(2, nut.getStock());
+    }
+
+    private void assertUnchanged() {
+        assertEquals(20, bolt.getStock());
+        assertEquals(10, nut.getStock());
+        assertEquals(0, frame.getStock());
+        assertEquals(0, ledger.getReserved(bolt));
+        assertEquals(0, ledger.getReserved(nut));
+        assertEquals(0, ledger.getReserved(frame));
+    }
+}
@@ -0,0 +1,126 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Buildable units and bottlenecks must follow every stock, part, product and association change
+ * the same as computing each product again from scratch.
+ * @author Andrew Burk
+ */
+class BuildabilityCalculatorTest {
+    @Test
+    void unitsAndBottleneckFromTheStock() {
+        Inventory inv = new Inventory();
+        Part bolt = part(1, 40);
+        Part gear = part(2, 9);
+        inv.addPart(bolt);
+        inv.addPart(gear);
+        Product frame = new Product(10, "Frame", 1, 1, 0, 10);
+        Product empty = new Product(11, "Empty", 1, 1, 0, 10);
+        inv.addProduct(frame);
+        inv.addProduct(empty);
+        frame.addAssociatedPart(bolt, 4);
+        frame.addAssociatedPart(gear);
+        //A repeated association counts its quantity again.
+        frame.addAssociatedPart(gear);
+
+        BuildabilityCalculator calculator = inv.getBuildability();
+        assertEquals(4, calculator.getBuildableUnits(10));
+        assertEquals(2, calculator.getBuildability(10).getBottleneckPartId());
+        assertEquals(BuildabilityCalculator.NO_PARTS, calculator.getBuildableUnits(11));
+        assertEquals(BuildabilityCalculator.NO_PARTS, calculator.getBuildability(11).getBottleneckPartId());
+        assertEquals(0, calculator.getBuildableUnits(99));
+        assertNull(calculator.getBuildability(99));
+
+        //Raising the bottleneck hands it on to the next part.
+        inv.getStockLedger().adjust(gear, 91, "count");
+        assertEquals(10, calculator.getBuildableUnits(10));
+        assertEquals(1, calculator.getBuildability(10).getBottleneckPartId());
+        //Lowering another part below the units makes it the bottleneck.
+        inv.getStockLedger().adjust(gear, -95, "count");
+        assertEquals(2, calculator.getBuildableUnits(10));
+        assertEquals(2, calculator.getBuildability(10).getBottleneckPartId());
+
+        assertEquals(Map.of(1, 12, 2, 21), calculator.getShortages(10, 13));
+        assertTrue(calculator.getShortages(10, 2).isEmpty());
+        assertTrue(calculator.getShortages(99, 5).isEmpty());
+
+        //A deleted part counts as no stock.
+        inv.deletePart(bolt);
+        assertEquals(0, calculator.getBuildableUnits(10));
+        assertEquals(1, calculator.getBuildability(10).getBottleneckPartId());
+        inv.deleteProduct(frame);
+        assertNull(calculator.getBuildability(10));
+    }
+
+    @Test
+    void matchesAFullComputationUnderChurn() {
+        Random random = new Random(14);
+        Inventory inv = new Inventory();
+        for (int id = 1; id <= 30; id++) {
+            inv.addPart(part(id, random.nextInt(200)));
+        }
+        for (int id = 100; id < 120; id++) {
+            inv.addProduct(new Product(id, "Product " + id, 1, 1, 0, 10));
+        }
+        BuildabilityCalculator calculator = inv.getBuildability();
+
+        for (int change = 0; change < 5_000; change++) {
+            List<Part> parts = inv.getAllParts();
+            List<Product> products = inv.getAllProducts();
+            Part part = parts.get(random.nextInt(parts.size()));
+            Product product = products.get(random.nextInt(products.size()));
+            switch (random.nextInt(6)) {
+                case 0:
+                    inv.getStockLedger().adjust(part, random.nextInt(2) == 0 ? -1 - random.nextInt(part.getStock() + 1) : 1 + random.nextInt(20), "count");
+                    break;
+                case 1:
+                    product.addAssociatedPart(part, 1 + random.nextInt(5));
+                    break;
+                case 2:
+                    product.deleteAssociatedPart(part);
+                    break;
+                case 3:
+                    inv.replacePart(part.getId(), part(part.getId(), random.nextInt(200)));
+                    break;
+                case 4:
+                    if (random.nextInt(4) == 0) {
+                        inv.deletePart(part);
+                        inv.addPart(part(part.getId(), random.nextInt(200)));
+                    }
+                    break;
+                default:
+                    product.addAssociatedPart(part);
+                    break;
+            }
+            if (change % 50 == 0) {
+                assertMatchesFullComputation(inv, calculator);
+            }
+        }
+        assertMatchesFullComputation(inv, calculator);
+    }
+
+    private static void assertMatchesFullComputation(Inventory inv, BuildabilityCalculator calculator) {
+        BuildabilityCalculator fresh = new BuildabilityCalculator(inv);
+        try {
+            for (Product product : inv.getAllProducts()) {
+                assertEquals(fresh.getBuildableUnits(product.getId()), calculator.getBuildableUnits(product.getId()), product.getName());
+                assertEquals(fresh.getShortages(product.getId(), 50), calculator.getShortages(product.getId(), 50), product.getName());
+            }
+        } finally {
+            fresh.close();
+        }
+    }
+
+    private static Part part(int id, int stock) {
+        return new InHouse(id, "Part " + id, 1, stock, 0, 1_000, 1);
+    }
+}
@@ -0,0 +1,130 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CompactPartStorage must hold the same parts as an ArrayList through any adds, sets and removes,
+ * its flyweights must read and write their record, and holds must find the copy of a part it was given.
+ * @author Andrew Burk
+ */
+class CompactPartStorageTest {
+    @Test
+    void matchesAnArrayList() {
+        Random random = new Random(23);
+        CompactPartStorage storage = new CompactPartStorage(4);
+        List<Part> expected = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            int choice = random.nextInt(10);
+            if (choice < 5 || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                Part part = part(step, random);
+                expected.add(index, part);
+                storage.add(index, part);
+            } else if (choice < 7) {
+                int index = random.nextInt(expected.size());
+                Part part = part(step, random);
+                assertEquals(describe(expected.set(index, part)), describe(storage.set(index, part)));
+            } else if (choice < 9) {
+                int index = random.nextInt(expected.size());
+                assertEquals(describe(expected.remove(index)), describe(storage.remove(index)));
+            } else if (random.nextInt(200) == 0) {
+                expected.clear();
+                storage.clear();
+            }
+        }
+        assertEquals(expected.size(), storage.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Part part = expected.get(i);
+            assertEquals(describe(part), describe(storage.get(i)));
+            assertEquals(part.getId(), storage.idAt(i));
+            assertEquals(part.getName(), storage.nameAt(i));
+            assertEquals(part.getStock(), storage.stockAt(i));
+            assertEquals(part.getPrice(), storage.priceAt(i));
+            assertTrue(storage.holds(i, part));
+        }
+        //Three company names, each kept once.
+        assertEquals(3, storage.getCompanyCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> storage.get(storage.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> storage.add(storage.size() + 1, part(0, random)));
+    }
+
+    @Test
+    void flyweightsReadAndWriteTheirRecord() {
+        CompactPartStorage storage = new CompactPartStorage();
+        storage.add(new InHouse(1, "Bolt", 0.25, 20, 0, 100, 7));
+        storage.add(new Outsourced(2, "Gear", 3.5, 5, 0, 50, null));
+        Part bolt = storage.get(0);
+        assertEquals(bolt, storage.get(0));
+        assertEquals(bolt.hashCode(), storage.get(0).hashCode());
+        assertNotEquals(bolt, storage.get(1));
+        //The same record of another storage is another part.
+        CompactPartStorage other = new CompactPartStorage();
+        other.add(new InHouse(1, "Bolt", 0.25, 20, 0, 100, 7));
+        assertNotEquals(bolt, other.get(0));
+
+        bolt.setStock(15);
+        ((InHouse) bolt).setMachineID(9);
+        assertEquals(15, storage.stockAt(0));
+        assertEquals(9, ((InHouse) storage.get(0)).getMachineId());
+        Outsourced gear = (Outsourced) storage.get(1);
+        assertNull(gear.getCompanyName());
+        gear.setCompanyName("Acme");
+        assertEquals("Acme", ((Outsourced) storage.get(1)).getCompanyName());
+
+        //Records are never reused, so old flyweights keep reading the part they were made for.
+        storage.set(0, new InHouse(1, "Bolt", 0.30, 40, 0, 100, 7));
+        storage.remove(1);
+        assertEquals(15, bolt.getStock());
+        assertEquals("Gear", gear.getName());
+        assertEquals(40, storage.stockAt(0));
+        assertEquals(3, storage.getRecordCount());
+    }
+
+    @Test
+    void holdsFindsTheCopyOfAPart() {
+        CompactPartStorage storage = new CompactPartStorage();
+        InHouse bolt = new InHouse(1, "Bolt", 0.25, 20, 0, 100, 7);
+        Outsourced gear = new Outsourced(2, "Gear", 3.5, 5, 0, 50, "Acme");
+        storage.add(bolt);
+        storage.add(gear);
+        assertTrue(storage.holds(0, bolt));
+        assertTrue(storage.holds(0, storage.get(0)));
+        assertTrue(storage.holds(1, new Outsourced(2, "Gear", 3.5, 5, 0, 50, "Acme")));
+        assertFalse(storage.holds(0, new InHouse(1, "Bolt", 0.25, 20, 0, 100, 8)));
+        assertFalse(storage.holds(0, new Outsourced(1, "Bolt", 0.25, 20, 0, 100, "Acme")));
+        assertFalse(storage.holds(1, new Outsourced(2, "Gear", 3.5, 5, 0, 50, "Other")));
+        assertFalse(storage.holds(1, storage.get(0)));
+
+        //The Inventory finds and deletes the part it was given, though it holds a copy.
+        Inventory inv = new Inventory(storage);
+        assertEquals("Gear", inv.lookupPart(2).getName());
+        assertTrue(inv.deletePart(gear));
+        assertNull(inv.lookupPart(2));
+        assertEquals(1, storage.size());
+    }
+
+    private static Part part(int id, Random random) {
+        String name = random.nextInt(20) == 0 ? null : "Part " + random.nextInt(100);
+        if (random.nextBoolean()) {
+            return new InHouse(id, name, random.nextInt(100) / 4.0, random.nextInt(50), 0, 100, random.nextInt(10));
+        }
+        String[] companies = {"Acme", "Gears Inc", "Bolts Ltd"};
+        return new Outsourced(id, name, random.nextInt(100) / 4.0, random.nextInt(50), 0, 100, companies[random.nextInt(companies.length)]);
+    }
+
+    private static String describe(Part part) {
+        String detail = part instanceof Outsourced ? "Outsourced " + ((Outsourced) part).getCompanyName() : "InHouse " + ((InHouse) part).getMachineId();
+        return part.getId() + " " + part.getName() + " " + part.getPrice() + " " + part.getStock() + " " + part.getMin() + " " + part.getMax() + " " + detail;
+    }
+}
@@ -0,0 +1,186 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writer threads add, replace and delete parts and products in their own id ranges, some inside batches,
+ * while reader threads run id lookups, name searches, range queries and snapshots and check what they see.
+ * Afterwards every writer's parts must be exactly the ones its own model expects,
+ * and the UI views, updated on one thread standing in for the JavaFX thread, must match a final snapshot.
+ * @author Andrew Burk
+ */
+class ConcurrentInventoryTest {
+    private static final int ID_RANGE = 1_000_000;
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int OPERATIONS = 5_000;
+
+    @Test
+    void writersAndReadersSeeConsistentInventory() throws Exception {
+        ExecutorService uiThread = Executors.newSingleThreadExecutor();
+        ExecutorService threads = Executors.newFixedThreadPool(WRITERS + READERS);
+        ConcurrentInventory inv = new ConcurrentInventory(uiThread);
+        List<Map<Integer, String>> expected = new ArrayList<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                Map<Integer, String> model = new HashMap<>();
+                expected.add(model);
+                int base = (w + 1) * ID_RANGE;
+                writers.add(threads.submit(() -> write(inv, model, base, new Random(base))));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                Random random = new Random(r);
+                readers.add(threads.submit(() -> read(inv, writing, failures, random)));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+            assertEquals(List.of(), failures);
+
+            //Every writer's parts must match its own model.
+            ConcurrentInventory.Snapshot snapshot = inv.snapshot();
+            for (int w = 0; w < WRITERS; w++) {
+                Map<Integer, String> actual = new HashMap<>();
+                for (Part part : snapshot.getParts()) {
+                    if (part.getId() / ID_RANGE == w + 1) {
+                        actual.put(part.getId(), part.getName());
+                    }
+                }
+                assertEquals(expected.get(w), actual, "Writer " + w);
+                for (Map.Entry<Integer, String> entry : expected.get(w).entrySet()) {
+                    Part part = inv.lookupPart(entry.getKey());
+                    assertNotNull(part, "Part " + entry.getKey());
+                    assertEquals(entry.getValue(), part.getName());
+                }
+            }
+
+            //The UI views must catch up to the same contents.
+            List<List<?>> views = uiThread.submit(() -> List.<List<?>>of(
+                    new ArrayList<>(inv.getAllParts()), new ArrayList<>(inv.getAllProducts()))).get(60, TimeUnit.SECONDS);
+            assertEquals(snapshot.getParts(), views.get(0));
+            assertEquals(snapshot.getProducts(), views.get(1));
+        } finally {
+            writing.set(false);
+            threads.shutdownNow();
+            uiThread.shutdownNow();
+        }
+    }
+
+    private static void write(Inventory inv, Map<Integer, String> model, int base, Random random) {
+        List<Integer> live = new ArrayList<>();
+        int nextId = base;
+        for (int i = 0; i < OPERATIONS; i++) {
+            int choice = random.nextInt(10);
+            if (choice < 5 || live.isEmpty()) {
+                int id = nextId++;
+                String name = "Part " + id;
+                inv.addPart(id % 2 == 0 ? new InHouse(id, name, 1.5, 5, 1, 10, id % 100)
+                        : new Outsourced(id, name, 2.5, 5, 1, 10, "Vendor " + (id % 7)));
+                model.put(id, name);
+                live.add(id);
+            } else if (choice < 7) {
+                int id = live.get(random.nextInt(live.size()));
+                String name = "Renamed " + id + " " + i;
+                inv.replacePart(id, new InHouse(id, name, 1.5, 5, 1, 10, 1));
+                model.put(id, name);
+            } else if (choice < 9) {
+                int id = live.remove(random.nextInt(live.size()));
+                inv.deletePart(inv.lookupPart(id));
+                model.remove(id);
+            } else {
+                //A batch adds a product and two parts associated with it.
+                int productId = nextId++;
+                int first = nextId++;
+                int second = nextId++;
+                inv.batch(b -> {
+                    Product product = new Product(productId, "Product " + productId, 9.99, 1, 0, 5);
+                    b.addProduct(product);
+                    Part a = new InHouse(first, "Part " + first, 1, 1, 0, 5, 1);
+                    Part c = new InHouse(second, "Part " + second, 1, 1, 0, 5, 1);
+                    b.addPart(a);
+                    b.addPart(c);
+                    product.addAssociatedPart(a);
+                    product.addAssociatedPart(c);
+                });
+                model.put(first, "Part " + first);
+                model.put(second, "Part " + second);
+                live.add(first);
+                live.add(second);
+            }
+        }
+    }
+
+    private static void read(ConcurrentInventory inv, AtomicBoolean writing, List<String> failures, Random random) {
+        while (writing.get() && failures.isEmpty()) {
+            int id = (1 + random.nextInt(WRITERS)) * ID_RANGE + random.nextInt(1000);
+            Part part = inv.lookupPart(id);
+            if (part != null && part.getId() != id) {
+                failures.add("lookupPart(" + id + ") returned part " + part.getId());
+            }
+            if (random.nextInt(50) == 0) {
+                List<Part> found = inv.lookupPart("Part " + id, false, true);
+                if (found != null) {
+                    for (Part match : found) {
+                        if (!match.getName().startsWith("Part " + id)) {
+                            failures.add("Search for Part " + id + " returned " + match.getName());
+                        }
+                    }
+                }
+            }
+            if (random.nextInt(100) == 0) {
+                //The range index is walked without a lock while the writers change it.
+                Set<Integer> ids = new HashSet<>();
+                inv.queryParts(new StockQuery().priceBelow(2)).forEach(match -> {
+                    if (match.getPrice() >= 2) {
+                        failures.add("Range query returned part " + match.getId() + " at " + match.getPrice());
+                    }
+                    if (!ids.add(match.getId())) {
+                        failures.add("Range query returned part " + match.getId() + " twice");
+                    }
+                });
+            }
+            if (random.nextInt(500) == 0) {
+                //A snapshot never holds the same id twice, and every batch product has both its parts.
+                ConcurrentInventory.Snapshot snapshot = inv.snapshot();
+                Set<Integer> ids = new HashSet<>();
+                for (Part p : snapshot.getParts()) {
+                    if (!ids.add(p.getId())) {
+                        failures.add("Snapshot holds id " + p.getId() + " twice");
+                    }
+                }
+                for (Product product : snapshot.getProducts()) {
+                    if (snapshot.getAssociatedParts(product).size() != 2) {
+                        failures.add("Snapshot caught product " + product.getId() + " mid batch");
+                    }
+                }
+            }
+        }
+        assertTrue(failures.isEmpty());
+    }
+}
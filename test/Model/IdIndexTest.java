@@ -0,0 +1,108 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The id indexes behind Inventory.lookupPart(int) and lookupProduct(int) must find the first item in the list
+ * carrying an id, the same as a scan, through adds, replaces and deletes, also while several items carry the same id.
+ * @author Andrew Burk
+ */
+class IdIndexTest {
+    @Test
+    void deletingOneOfTwoPartsWithAnIdFindsTheOther() {
+        Inventory inv = new Inventory();
+        Part first = new InHouse(1, "Bolt", 1, 1, 0, 10, 1);
+        Part second = new InHouse(1, "Bolt copy", 1, 1, 0, 10, 1);
+        inv.addPart(new InHouse(2, "Nut", 1, 1, 0, 10, 1));
+        inv.addPart(first);
+        inv.addPart(second);
+
+        assertSame(first, inv.lookupPart(1));
+        inv.deletePart(first);
+        assertSame(second, inv.lookupPart(1));
+        inv.deletePart(second);
+        assertNull(inv.lookupPart(1));
+        assertSame(inv.getAllParts().get(0), inv.lookupPart(2));
+    }
+
+    @Test
+    void replacingTheIndexedProductFindsTheOtherWithItsId() {
+        Inventory inv = new Inventory();
+        Product first = new Product(5, "Frame", 1, 1, 0, 10);
+        Product second = new Product(5, "Frame copy", 1, 1, 0, 10);
+        inv.addProduct(first);
+        inv.addProduct(second);
+
+        inv.updateProduct(0, new Product(6, "Fork", 1, 1, 0, 10));
+        assertSame(second, inv.lookupProduct(5));
+        assertEquals("Fork", inv.lookupProduct(6).getName());
+        inv.deleteProduct(second);
+        assertNull(inv.lookupProduct(5));
+    }
+
+    @Test
+    void concurrentInventoryFindsTheRemainingPartWithAnId() {
+        ConcurrentInventory inv = new ConcurrentInventory(Runnable::run);
+        Part first = new InHouse(1, "Bolt", 1, 1, 0, 10, 1);
+        Part second = new InHouse(1, "Bolt copy", 1, 1, 0, 10, 1);
+        inv.addPart(first);
+        inv.addPart(second);
+        inv.deletePart(first);
+        assertSame(second, inv.lookupPart(1));
+        assertEquals(List.of(second), inv.getAllParts());
+    }
+
+    @Test
+    void lookupsMatchAScanUnderChurnWithRepeatedIds() {
+        Random random = new Random(3);
+        Inventory inv = new Inventory();
+        for (int change = 0; change < 20_000; change++) {
+            List<Part> parts = inv.getAllParts();
+            //Ids from a small range, so many of them are carried by several parts at once.
+            int id = 1 + random.nextInt(200);
+            int choice = random.nextInt(4);
+            if (choice < 2 || parts.isEmpty()) {
+                inv.addPart(new InHouse(id, "Part " + change, 1, 1, 0, 10, 1));
+            } else if (choice == 2) {
+                inv.deletePart(parts.get(random.nextInt(parts.size())));
+            } else {
+                inv.updatePart(random.nextInt(parts.size()), new InHouse(id, "Part " + change, 1, 1, 0, 10, 1));
+            }
+            if (change % 100 == 0) {
+                assertMatchesScan(inv);
+            }
+        }
+        assertMatchesScan(inv);
+    }
+
+    private static void assertMatchesScan(Inventory inv) {
+        List<Part> parts = new ArrayList<>(inv.getAllParts());
+        for (int id = 1; id <= 200; id++) {
+            Part expected = null;
+            for (Part part : parts) {
+                if (part.getId() == id) {
+                    expected = part;
+                    break;
+                }
+            }
+            if (expected == null) {
+                assertNull(inv.lookupPart(id), "Part " + id);
+            } else {
+                assertSame(expected, inv.lookupPart(id), "Part " + id);
+                assertTrue(inv.deletePart(expected) && inv.getAllParts().size() == parts.size() - 1);
+                inv.addPart(expected);
+                parts.remove(expected);
+                parts.add(expected);
+            }
+        }
+    }
+}
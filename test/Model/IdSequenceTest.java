@@ -0,0 +1,70 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ids handed out by IdSequence are unique across threads and never reuse ids seen in the Inventory.
+ * @author Andrew Burk
+ */
+class IdSequenceTest {
+    @Test
+    void handsOutUniqueIdsFromManyThreads() throws Exception {
+        IdSequence ids = new IdSequence();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Integer>>> handedOut = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                handedOut.add(threads.submit(() -> {
+                    List<Integer> mine = new ArrayList<>();
+                    for (int i = 0; i < 10_000; i++) {
+                        if (i % 100 == 0) {
+                            int first = ids.nextBlock(10);
+                            for (int id = first; id < first + 10; id++) {
+                                mine.add(id);
+                            }
+                        } else {
+                            mine.add(ids.next());
+                        }
+                    }
+                    return mine;
+                }));
+            }
+            Set<Integer> seen = new HashSet<>();
+            for (Future<List<Integer>> thread : handedOut) {
+                for (int id : thread.get()) {
+                    assertTrue(seen.add(id), "Id " + id + " handed out twice");
+                }
+            }
+            assertEquals(seen.size(), ids.getLastId());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void movesPastIdsAddedToTheInventory() {
+        Inventory inv = new Inventory();
+        inv.addPart(new InHouse(41, "Bolt", 1, 1, 0, 10, 1));
+        inv.updatePart(0, new InHouse(57, "Bolt", 1, 1, 0, 10, 1));
+        inv.addProduct(new Product(8, "Frame", 1, 1, 0, 10));
+        assertEquals(58, inv.getPartIdSequence().next());
+        assertEquals(9, inv.getProductIdSequence().next());
+
+        //Observing a lower id never moves the sequence back.
+        inv.getPartIdSequence().observe(3);
+        assertEquals(59, inv.getPartIdSequence().next());
+        assertThrows(IllegalArgumentException.class, () -> inv.getPartIdSequence().nextBlock(0));
+    }
+}
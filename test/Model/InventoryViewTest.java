@@ -0,0 +1,129 @@
+package Model;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * A filtered, sorted or hiding InventoryView must keep showing what a fresh query would show while the Inventory
+ * adds many parts at once, replaces and deletes them, and its change events must replay to the same rows.
+ * @author Andrew Burk
+ */
+class InventoryViewTest {
+    @Test
+    void bulkAddsLandWhereAFreshQueryPutsThem() {
+        Random random = new Random(18);
+        for (InventoryColumn sortBy : new InventoryColumn[] {null, InventoryColumn.PRICE, InventoryColumn.NAME, InventoryColumn.STOCK}) {
+            Inventory inv = new Inventory();
+            InventoryView<Part> view = InventoryView.ofParts(inv);
+            boolean descending = random.nextBoolean();
+            view.setSort(sortBy, descending);
+            view.setFilter("a");
+            List<Part> replayed = new ArrayList<>(view);
+            view.addListener(replayOnto(replayed));
+
+            int nextId = 1;
+            for (int round = 0; round < 30; round++) {
+                List<Part> batch = new ArrayList<>();
+                for (int i = random.nextInt(40); i > 0; i--) {
+                    batch.add(part(nextId++, random));
+                }
+                inv.addParts(batch);
+                List<Part> parts = inv.getAllParts();
+                if (random.nextInt(3) == 0 && !parts.isEmpty()) {
+                    inv.deletePart(parts.get(random.nextInt(parts.size())));
+                }
+                if (random.nextInt(3) == 0 && !parts.isEmpty()) {
+                    int slot = random.nextInt(parts.size());
+                    inv.updatePart(slot, part(parts.get(slot).getId(), random));
+                }
+                assertEquals(fresh(inv, "a", sortBy, descending), describe(view), sortBy + (descending ? " descending" : ""));
+                assertEquals(describe(view), describe(replayed));
+            }
+        }
+    }
+
+    @Test
+    void hiddenRowsStayOutOfTheView() {
+        Inventory inv = new Inventory();
+        for (int id = 1; id <= 20; id++) {
+            inv.addPart(new InHouse(id, "Part " + id, id, 1, 0, 10, 1));
+        }
+        AssociatedPartList hidden = new AssociatedPartList();
+        hidden.add(inv.lookupPart(3));
+        hidden.add(inv.lookupPart(12));
+        InventoryView<Part> view = InventoryView.ofParts(inv);
+        view.setHidden(hidden);
+        assertEquals(18, view.size());
+        assertFalse(view.contains(inv.lookupPart(3)));
+
+        view.setFilter("Part 1");
+        assertEquals(List.of(1, 10, 11, 13, 14, 15, 16, 17, 18, 19), ids(view));
+        view.show("Part 2", inv.queryPartSlots("Part 2", null, false));
+        assertEquals(List.of(2, 20), ids(view));
+
+        view.setFilter("");
+        hidden.remove(inv.lookupPart(3));
+        view.refresh();
+        assertEquals(19, view.size());
+        //A hidden part added again by the Inventory stays hidden.
+        Part twelve = inv.lookupPart(12);
+        inv.deletePart(twelve);
+        inv.addPart(twelve);
+        assertEquals(19, view.size());
+        assertFalse(view.contains(twelve));
+    }
+
+    /**
+     * @return the rows a new view with the same filter and sort shows
+     */
+    private static List<String> fresh(Inventory inv, String filter, InventoryColumn sortBy, boolean descending) {
+        InventoryView<Part> fresh = InventoryView.ofParts(inv);
+        fresh.setSort(sortBy, descending);
+        fresh.setFilter(filter);
+        return describe(fresh);
+    }
+
+    private static Part part(int id, Random random) {
+        String name = (random.nextBoolean() ? "Bar " : "Bolt ") + random.nextInt(50);
+        return new InHouse(id, name, random.nextInt(20), random.nextInt(20), 0, 100, 1);
+    }
+
+    private static List<String> describe(List<Part> parts) {
+        List<String> rows = new ArrayList<>();
+        for (Part part : parts) {
+            rows.add(describe(part));
+        }
+        return rows;
+    }
+
+    private static String describe(Part part) {
+        return part.getId() + " " + part.getName() + " " + part.getPrice() + " " + part.getStock();
+    }
+
+    private static List<Integer> ids(List<Part> parts) {
+        List<Integer> ids = new ArrayList<>();
+        for (Part part : parts) {
+            ids.add(part.getId());
+        }
+        return ids;
+    }
+
+    private static ListChangeListener<Part> replayOnto(List<Part> replayed) {
+        return change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    throw new AssertionError("The view reports sorts as replacements");
+                }
+                replayed.subList(change.getFrom(), change.getFrom() + change.getRemovedSize()).clear();
+                replayed.addAll(change.getFrom(), change.getAddedSubList());
+            }
+        };
+    }
+}
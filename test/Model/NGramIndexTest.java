@@ -0,0 +1,105 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The Inventory name searches go through the n-gram index, they must find exactly what a scan
+ * with String.contains (or startsWith) finds, however many adds, updates and deletes came before.
+ * @author Andrew Burk
+ */
+class NGramIndexTest {
+    //A small alphabet so short searches match many names and long ones a few.
+    private static final String LETTERS = "abcAB ";
+
+    @Test
+    void searchesMatchAScanUnderChurn() {
+        Random random = new Random(7);
+        Inventory inv = new Inventory();
+        int nextId = 1;
+        for (int i = 0; i < 500; i++) {
+            inv.addPart(part(nextId++, random));
+        }
+        //Enough deletes and updates to rebuild the index several times on the way.
+        for (int round = 0; round < 40; round++) {
+            for (int change = 0; change < 250; change++) {
+                List<Part> parts = inv.getAllParts();
+                int choice = random.nextInt(4);
+                if (choice == 0 || parts.isEmpty()) {
+                    inv.addPart(part(nextId++, random));
+                } else if (choice == 1) {
+                    inv.deletePart(parts.get(random.nextInt(parts.size())));
+                } else if (choice == 2) {
+                    Part old = parts.get(random.nextInt(parts.size()));
+                    inv.replacePart(old.getId(), part(old.getId(), random));
+                } else {
+                    //An update that also changes the id.
+                    inv.updatePart(random.nextInt(parts.size()), part(nextId++, random));
+                }
+            }
+            for (int search = 0; search < 20; search++) {
+                String text = name(random, 1 + random.nextInt(5));
+                assertSameMatches(inv, text, false, false);
+                assertSameMatches(inv, text, true, false);
+                assertSameMatches(inv, text, false, true);
+                assertSameMatches(inv, text, true, true);
+            }
+        }
+    }
+
+    @Test
+    void updatesDoNotDuplicateResults() {
+        Inventory inv = new Inventory();
+        for (int id = 1; id <= 10; id++) {
+            inv.addPart(new InHouse(id, "Widget " + id, 1, 1, 0, 10, 1));
+        }
+        //Each update leaves stale entries behind until the index rebuilds, none may show up twice.
+        for (int update = 0; update < 500; update++) {
+            int id = 1 + update % 10;
+            inv.replacePart(id, new InHouse(id, "Widget " + id, 1, 1, 0, 10, 1));
+            assertEquals(10, inv.lookupPart("Widget").size());
+        }
+    }
+
+    @Test
+    void findsNothingForAGramNoNameHas() {
+        Inventory inv = new Inventory();
+        inv.addPart(new InHouse(1, "Bolt", 1, 1, 0, 10, 1));
+        assertTrue(inv.lookupPart("xyz").isEmpty());
+        assertEquals(1, inv.lookupPart("bolt", true, true).size());
+        assertTrue(inv.lookupPart("bolt", false, false).isEmpty());
+    }
+
+    private static void assertSameMatches(Inventory inv, String text, boolean ignoreCase, boolean prefixOnly) {
+        String folded = text.toLowerCase();
+        List<Integer> expected = inv.getAllParts().stream()
+                .filter(part -> {
+                    String name = ignoreCase ? part.getName().toLowerCase() : part.getName();
+                    String wanted = ignoreCase ? folded : text;
+                    return prefixOnly ? name.startsWith(wanted) : name.contains(wanted);
+                })
+                .map(Part::getId).sorted().collect(Collectors.toList());
+        List<Part> found = inv.lookupPart(text, ignoreCase, prefixOnly);
+        List<Integer> actual = found == null ? new ArrayList<>() : found.stream().map(Part::getId).sorted().collect(Collectors.toList());
+        assertEquals(expected, actual, "Search for \"" + text + "\" ignoreCase " + ignoreCase + " prefixOnly " + prefixOnly);
+    }
+
+    private static Part part(int id, Random random) {
+        return new InHouse(id, name(random, 3 + random.nextInt(10)), 1, 1, 0, 10, 1);
+    }
+
+    private static String name(Random random, int length) {
+        StringBuilder name = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            name.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return name.toString();
+    }
+}
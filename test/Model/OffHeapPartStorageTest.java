@@ -0,0 +1,158 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * OffHeapPartStorage must hold the same parts as an ArrayList while its slots are freed and reused,
+ * a flyweight of a removed part must refuse to read the part that took its slot, and holds must find
+ * the copy of a part it was given.
+ * @author Andrew Burk
+ */
+class OffHeapPartStorageTest {
+    @Test
+    void matchesAnArrayListWhileReusingSlots() {
+        Random random = new Random(24);
+        OffHeapPartStorage storage = new OffHeapPartStorage(4);
+        List<Part> expected = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            int choice = random.nextInt(10);
+            if (choice < 5 || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                Part part = part(step, random);
+                expected.add(index, part);
+                storage.add(index, part);
+            } else if (choice < 7) {
+                int index = random.nextInt(expected.size());
+                Part part = part(step, random);
+                assertEquals(describe(expected.set(index, part)), describe(storage.set(index, part)));
+            } else if (choice < 9) {
+                int index = random.nextInt(expected.size());
+                assertEquals(describe(expected.remove(index)), describe(storage.remove(index)));
+            } else if (random.nextInt(200) == 0) {
+                expected.clear();
+                storage.clear();
+            }
+        }
+        assertEquals(expected.size(), storage.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Part part = expected.get(i);
+            assertEquals(describe(part), describe(storage.get(i)));
+            assertEquals(part.getId(), storage.idAt(i));
+            assertEquals(part.getName(), storage.nameAt(i));
+            assertEquals(part.getStock(), storage.stockAt(i));
+            assertEquals(part.getPrice(), storage.priceAt(i));
+            assertTrue(storage.holds(i, part));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> storage.get(storage.size()));
+    }
+
+    @Test
+    void freedSlotsAreReusedBeforeNewOnes() {
+        OffHeapPartStorage storage = new OffHeapPartStorage();
+        for (int id = 1; id <= 10; id++) {
+            storage.add(new InHouse(id, "Part " + id, 1, 1, 0, 10, 1));
+        }
+        long offHeapBytes = storage.getOffHeapBytes();
+        storage.remove(3);
+        storage.remove(3);
+        assertEquals(2, storage.getFreeSlotCount());
+        //Replacing takes a free slot for the new part and frees the old one.
+        storage.set(0, new InHouse(1, "Part 1", 2, 1, 0, 10, 1));
+        assertEquals(2, storage.getFreeSlotCount());
+        storage.add(new InHouse(11, "Part 11", 1, 1, 0, 10, 1));
+        storage.add(new InHouse(12, "Part 12", 1, 1, 0, 10, 1));
+        assertEquals(0, storage.getFreeSlotCount());
+        storage.clear();
+        assertEquals(10, storage.getFreeSlotCount());
+        assertEquals(offHeapBytes, storage.getOffHeapBytes());
+
+        //Company names are written to the arena once.
+        long arenaBytes = storage.getArenaBytes();
+        storage.add(new Outsourced(1, "", 1, 1, 0, 10, "Acme"));
+        storage.add(new Outsourced(2, "", 1, 1, 0, 10, "Acme"));
+        assertEquals(arenaBytes + 4, storage.getArenaBytes());
+    }
+
+    @Test
+    void staleFlyweightsRefuseAReusedSlot() {
+        OffHeapPartStorage storage = new OffHeapPartStorage();
+        storage.add(new InHouse(1, "Bolt", 0.25, 20, 0, 100, 7));
+        storage.add(new Outsourced(2, "Gear", 3.5, 5, 0, 50, "Acme"));
+        Part bolt = storage.get(0);
+        Outsourced gear = (Outsourced) storage.get(1);
+        assertEquals(bolt, storage.get(0));
+        assertEquals(bolt.hashCode(), storage.get(0).hashCode());
+        bolt.setStock(15);
+        assertEquals(15, storage.stockAt(0));
+
+        //Removed, the part reads what it held until its slot is taken.
+        storage.remove(1);
+        assertEquals("Acme", gear.getCompanyName());
+        storage.add(new InHouse(3, "Nut", 0.05, 10, 0, 100, 1));
+        assertThrows(IllegalStateException.class, gear::getName);
+        assertThrows(IllegalStateException.class, () -> gear.setStock(1));
+        assertEquals("Nut", storage.nameAt(1));
+
+        //A replaced part keeps its slot until the next add.
+        storage.set(0, new InHouse(1, "Bolt", 0.30, 40, 0, 100, 7));
+        assertEquals(15, bolt.getStock());
+        Part replacement = storage.get(0);
+        storage.add(new InHouse(4, "Washer", 0.01, 10, 0, 100, 1));
+        assertThrows(IllegalStateException.class, bolt::getStock);
+        assertNotEquals(bolt, storage.get(2));
+        assertEquals(40, replacement.getStock());
+    }
+
+    @Test
+    void holdsFindsTheCopyOfAPart() {
+        OffHeapPartStorage storage = new OffHeapPartStorage();
+        InHouse bolt = new InHouse(1, "Bolt", 0.25, 20, 0, 100, 7);
+        Outsourced gear = new Outsourced(2, "Gear", 3.5, 5, 0, 50, "Acme");
+        storage.add(bolt);
+        storage.add(gear);
+        assertTrue(storage.holds(0, bolt));
+        assertTrue(storage.holds(0, storage.get(0)));
+        assertTrue(storage.holds(1, new Outsourced(2, "Gear", 3.5, 5, 0, 50, "Acme")));
+        assertFalse(storage.holds(0, new InHouse(1, "Bolt", 0.25, 20, 0, 100, 8)));
+        assertFalse(storage.holds(0, new Outsourced(1, "Bolt", 0.25, 20, 0, 100, "Acme")));
+        assertFalse(storage.holds(1, storage.get(0)));
+
+        //A flyweight of the part that had the slot before is not the part now in it.
+        Part old = storage.get(1);
+        storage.set(1, new Outsourced(2, "Gear", 3.5, 5, 0, 50, "Acme"));
+        storage.add(new InHouse(3, "Nut", 0.05, 10, 0, 100, 1));
+        assertFalse(storage.holds(2, old));
+
+        //The Inventory finds and deletes the part it was given, though it holds a copy.
+        Inventory inv = new Inventory(storage);
+        assertEquals("Gear", inv.lookupPart(2).getName());
+        assertTrue(inv.deletePart(bolt));
+        assertNull(inv.lookupPart(1));
+        assertEquals(2, storage.size());
+    }
+
+    private static Part part(int id, Random random) {
+        String name = random.nextInt(20) == 0 ? null : "Part " + random.nextInt(100) + (random.nextInt(10) == 0 ? " é" : "");
+        if (random.nextBoolean()) {
+            return new InHouse(id, name, random.nextInt(100) / 4.0, random.nextInt(50), 0, 100, random.nextInt(10));
+        }
+        String[] companies = {"Acme", "Gears Inc", null};
+        return new Outsourced(id, name, random.nextInt(100) / 4.0, random.nextInt(50), 0, 100, companies[random.nextInt(companies.length)]);
+    }
+
+    private static String describe(Part part) {
+        String detail = part instanceof Outsourced ? "Outsourced " + ((Outsourced) part).getCompanyName() : "InHouse " + ((InHouse) part).getMachineId();
+        return part.getId() + " " + part.getName() + " " + part.getPrice() + " " + part.getStock() + " " + part.getMin() + " " + part.getMax() + " " + detail;
+    }
+}
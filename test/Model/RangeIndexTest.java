@@ -0,0 +1,120 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The price and stock range indexes behind Inventory.queryParts and queryProducts must answer
+ * exactly what a scan with StockQuery.matches answers, while adds, updates, deletes and stock movements keep them up to date.
+ * @author Andrew Burk
+ */
+class RangeIndexTest {
+    @Test
+    void partQueriesMatchAScanUnderChurn() {
+        Random random = new Random(11);
+        Inventory inv = new Inventory();
+        for (int id = 1; id <= 3000; id++) {
+            inv.addPart(part(id, random));
+        }
+        //Build the indexes first, so every change after this is applied to them rather than built in.
+        inv.queryParts(new StockQuery()).count();
+        for (int round = 0; round < 20; round++) {
+            for (int change = 0; change < 1000; change++) {
+                int id = 1 + random.nextInt(3000);
+                Part part = inv.lookupPart(id);
+                if (part == null) {
+                    inv.addPart(part(id, random));
+                    continue;
+                }
+                int choice = random.nextInt(5);
+                if (choice == 0) {
+                    inv.deletePart(part);
+                } else if (choice == 1) {
+                    inv.replacePart(id, part(id, random));
+                } else if (choice == 2) {
+                    inv.getStockLedger().receive(part, 1 + random.nextInt(5), "PO");
+                } else if (choice == 3) {
+                    inv.getStockLedger().adjust(part, -1 - random.nextInt(5), "Count");
+                } else {
+                    //Several entries with the same price and stock.
+                    inv.replacePart(id, new InHouse(id, part.getName(), 5, 5, 0, 1000, 1));
+                }
+            }
+            for (int query = 0; query < 25; query++) {
+                assertSameMatches(inv.getAllParts(), inv::queryParts, randomQuery(random));
+            }
+        }
+    }
+
+    @Test
+    void productQueriesFollowStockMovements() {
+        Random random = new Random(13);
+        Inventory inv = new Inventory();
+        for (int id = 1; id <= 500; id++) {
+            inv.addProduct(new Product(id, "Product " + id, random.nextInt(50), random.nextInt(20), 0, 1000));
+        }
+        inv.queryProducts(new StockQuery()).count();
+        for (int change = 0; change < 5000; change++) {
+            Product product = inv.lookupProduct(1 + random.nextInt(500));
+            if (product == null) {
+                continue;
+            }
+            if (random.nextInt(10) == 0) {
+                inv.deleteProduct(product);
+            } else {
+                inv.getStockLedger().receive(product, 1 + random.nextInt(3), "Build");
+            }
+            if (change % 250 == 0) {
+                assertSameMatches(inv.getAllProducts(), inv::queryProducts, randomQuery(random));
+            }
+        }
+        for (int query = 0; query < 50; query++) {
+            assertSameMatches(inv.getAllProducts(), inv::queryProducts, randomQuery(random));
+        }
+    }
+
+    @Test
+    void betweenIncludesBothEndsAndBelowExcludesItsBound() {
+        Inventory inv = new Inventory();
+        for (int id = 1; id <= 10; id++) {
+            inv.addPart(new InHouse(id, "Part " + id, id, id, 0, 100, 1));
+        }
+        assertEquals(List.of(3, 4, 5), ids(inv.queryParts(new StockQuery().priceBetween(3, 5))));
+        assertEquals(List.of(1, 2), ids(inv.queryParts(new StockQuery().stockBelow(3))));
+        assertEquals(List.of(10), ids(inv.queryParts(new StockQuery().stockAtLeast(10).priceAtLeast(10))));
+        assertEquals(List.of(), ids(inv.queryParts(new StockQuery().priceBelow(4).stockAtLeast(4))));
+    }
+
+    private static <T extends StockItem> void assertSameMatches(List<T> items, Function<StockQuery, Stream<T>> query, StockQuery filter) {
+        List<Integer> expected = items.stream().filter(filter::matches).map(StockItem::getId).sorted().collect(Collectors.toList());
+        assertEquals(expected, ids(query.apply(filter)));
+    }
+
+    private static List<Integer> ids(Stream<? extends StockItem> items) {
+        return items.map(StockItem::getId).sorted().collect(Collectors.toList());
+    }
+
+    private static StockQuery randomQuery(Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return new StockQuery().priceBetween(random.nextInt(50), random.nextInt(50));
+            case 1:
+                return new StockQuery().stockBetween(random.nextInt(20), random.nextInt(30));
+            case 2:
+                return new StockQuery().priceBelow(random.nextInt(50)).stockAtLeast(random.nextInt(20));
+            default:
+                return new StockQuery().priceAtLeast(random.nextInt(50)).stockBelow(random.nextInt(20)).nameContains("1");
+        }
+    }
+
+    private static Part part(int id, Random random) {
+        return new InHouse(id, "Part " + id, random.nextInt(50) + random.nextInt(4) * 0.25, random.nextInt(20), 0, 1000, 1);
+    }
+}
@@ -0,0 +1,126 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The below min tree and view must hold the same items in the same order as a scan of the Inventory,
+ * and alerts must reach the sink in batches, only for items newly below min and still below it when sent.
+ * @author Andrew Burk
+ */
+class ReorderMonitorTest {
+    @Test
+    void belowMinMatchesAScanUnderChurn() {
+        Random random = new Random(15);
+        Inventory inv = new Inventory();
+        for (int id = 1; id <= 40; id++) {
+            inv.addPart(new InHouse(id, "Part " + id, 1, 5 + random.nextInt(20), 10, 50, 1));
+            inv.addProduct(new Product(id, "Product " + id, 1, 5 + random.nextInt(20), 10, 50));
+        }
+        ReorderMonitor monitor = inv.getReorderMonitor();
+        assertEquals(scan(inv), describe(monitor.getBelowMinView()));
+
+        for (int change = 0; change < 5_000; change++) {
+            boolean product = random.nextBoolean();
+            List<? extends StockItem> items = product ? inv.getAllProducts() : inv.getAllParts();
+            StockItem item = items.get(random.nextInt(items.size()));
+            int choice = random.nextInt(10);
+            if (choice < 7) {
+                int amount = random.nextInt(2) == 0 ? -1 - random.nextInt(Math.max(1, item.getStock())) : 1 + random.nextInt(10);
+                inv.getStockLedger().adjust(item, amount, "count");
+            } else if (choice < 9) {
+                if (product) {
+                    inv.replaceProduct(item.getId(), new Product(item.getId(), item.getName(), 1, random.nextInt(30), 10, 50));
+                } else {
+                    inv.replacePart(item.getId(), new InHouse(item.getId(), item.getName(), 1, random.nextInt(30), 10, 50, 1));
+                }
+            } else if (product) {
+                inv.deleteProduct((Product) item);
+                inv.addProduct(new Product(item.getId(), item.getName(), 1, random.nextInt(30), 10, 50));
+            } else {
+                inv.deletePart((Part) item);
+                inv.addPart(new InHouse(item.getId(), item.getName(), 1, random.nextInt(30), 10, 50, 1));
+            }
+            if (change % 100 == 0) {
+                List<String> expected = scan(inv);
+                assertEquals(expected, describe(monitor.getBelowMinView()));
+                assertEquals(expected.size(), monitor.getBelowMinCount());
+                assertEquals(expected.subList(0, Math.min(5, expected.size())), describe(monitor.getMostUrgent(5)));
+            }
+        }
+        assertEquals(scan(inv), describe(monitor.getBelowMinView()));
+    }
+
+    @Test
+    void alertsAreSentInBatchesOfItemsStillBelowMin() {
+        Inventory inv = new Inventory();
+        for (int id = 1; id <= 5; id++) {
+            inv.addPart(new InHouse(id, "Part " + id, 1, 20, 10, 50, 1));
+        }
+        inv.addPart(new InHouse(9, "Already low", 1, 2, 10, 50, 1));
+        ReorderMonitor monitor = inv.getReorderMonitor();
+        List<List<String>> sent = new ArrayList<>();
+        monitor.setAlertSink(alerts -> sent.add(describe(alerts)), 3);
+        StockLedger ledger = inv.getStockLedger();
+
+        ledger.adjust(inv.lookupPart(1), -15, "count");
+        ledger.adjust(inv.lookupPart(2), -18, "count");
+        //An item already below min going lower raises no new alert.
+        ledger.adjust(inv.lookupPart(9), -1, "count");
+        assertTrue(sent.isEmpty());
+        ledger.adjust(inv.lookupPart(3), -11, "count");
+        assertEquals(List.of(List.of("part 2 8", "part 1 5", "part 3 1")), sent);
+
+        ledger.adjust(inv.lookupPart(4), -12, "count");
+        ledger.adjust(inv.lookupPart(5), -19, "count");
+        //Back at min before the batch went out, dropped from it.
+        ledger.adjust(inv.lookupPart(5), 9, "count");
+        monitor.flushAlerts();
+        assertEquals(List.of("part 4 2"), sent.get(1));
+        monitor.flushAlerts();
+        assertEquals(2, sent.size());
+
+        assertThrows(IllegalArgumentException.class, () -> monitor.setAlertSink(alerts -> { }, 0));
+    }
+
+    /**
+     * @return the items below min as describe gives them, ordered as the monitor should order them
+     */
+    private static List<String> scan(Inventory inv) {
+        List<StockItem> low = new ArrayList<>();
+        for (Part part : inv.getAllParts()) {
+            if (part.getStock() < part.getMin()) {
+                low.add(part);
+            }
+        }
+        for (Product product : inv.getAllProducts()) {
+            if (product.getStock() < product.getMin()) {
+                low.add(product);
+            }
+        }
+        low.sort(Comparator.comparingInt((StockItem item) -> item.getMin() - item.getStock()).reversed()
+                .thenComparing(item -> item instanceof Product)
+                .thenComparingInt(StockItem::getId));
+        List<String> described = new ArrayList<>();
+        for (StockItem item : low) {
+            described.add((item instanceof Product ? "product " : "part ") + item.getId() + " " + (item.getMin() - item.getStock()));
+        }
+        return described;
+    }
+
+    private static List<String> describe(List<ReorderMonitor.StockAlert> alerts) {
+        List<String> described = new ArrayList<>();
+        for (ReorderMonitor.StockAlert alert : alerts) {
+            described.add((alert.isProduct() ? "product " : "part ") + alert.getItem().getId() + " " + alert.getDeficit());
+        }
+        return described;
+    }
+}
@@ -0,0 +1,85 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Background searches (searchPartSlots, searchProductSlots) must answer like queryPartSlots and queryProductSlots,
+ * stop being current once their list or its stock changes, and stay safe while the Inventory changes on another thread.
+ * @author Andrew Burk
+ */
+class SlotSearchTest {
+    @Test
+    void searchesMatchTheQueriesUntilTheListChanges() {
+        Inventory inv = new Inventory();
+        for (int id = 1; id <= 50; id++) {
+            inv.addPart(new InHouse(id, "Gear " + id, id, 100 - id, 0, 200, 1));
+            inv.addProduct(new Product(id, "Frame " + id, id, id, 0, 200));
+        }
+
+        SlotSearch parts = inv.searchPartSlots("Gear 1", InventoryColumn.STOCK, false);
+        assertArrayEquals(inv.queryPartSlots("Gear 1", InventoryColumn.STOCK, false), parts.getSlots());
+        SlotSearch product = inv.searchProductSlots("7", null, false);
+        assertArrayEquals(new int[] {6}, product.getSlots());
+        assertTrue(parts.isCurrent() && product.isCurrent());
+
+        inv.getStockLedger().adjust(inv.lookupPart(3), 5, "count");
+        assertFalse(parts.isCurrent());
+        assertTrue(product.isCurrent());
+        inv.deleteProduct(inv.lookupProduct(1));
+        assertFalse(product.isCurrent());
+    }
+
+    @Test
+    void searchesRunWhileAnotherThreadChangesTheInventory() throws Exception {
+        Inventory inv = new Inventory();
+        for (int id = 1; id <= 2_000; id++) {
+            inv.addPart(new InHouse(id, "Gear " + id, 1, 1, 0, 10, 1));
+        }
+        ExecutorService searcher = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> searches = searcher.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    SlotSearch found = inv.searchPartSlots("Gear " + (1 + i % 200), InventoryColumn.NAME, i % 2 == 0);
+                    for (int slot : found.getSlots()) {
+                        assertTrue(slot >= 0);
+                    }
+                }
+            });
+            for (int change = 0; change < 2_000; change++) {
+                Part part = inv.lookupPart(1 + change % 2_000);
+                inv.deletePart(part);
+                inv.addPart(part);
+            }
+            searches.get(30, TimeUnit.SECONDS);
+        } finally {
+            searcher.shutdownNow();
+        }
+        SlotSearch found = inv.searchPartSlots("Gear 12", null, false);
+        assertTrue(found.isCurrent());
+        assertArrayEquals(inv.queryPartSlots("Gear 12", null, false), found.getSlots());
+    }
+
+    @Test
+    void concurrentInventorySearchesAnswerForTheViews() {
+        ConcurrentInventory inv = new ConcurrentInventory(Runnable::run);
+        inv.addPart(new InHouse(1, "Bolt", 1, 1, 0, 10, 1));
+        inv.addPart(new InHouse(2, "Nut", 1, 1, 0, 10, 1));
+        inv.addPart(new InHouse(3, "Bolt long", 1, 1, 0, 10, 1));
+
+        SlotSearch found = inv.searchPartSlots("Bolt", null, false);
+        assertArrayEquals(new int[] {0, 2}, found.getSlots());
+        assertTrue(found.isCurrent());
+        inv.deletePart(inv.lookupPart(2));
+        assertFalse(found.isCurrent());
+        assertArrayEquals(new int[] {0, 1}, inv.searchPartSlots("Bolt", null, false).getSlots());
+    }
+}
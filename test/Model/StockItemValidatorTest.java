@@ -0,0 +1,141 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The hand written scanners must accept exactly what the patterns \d+ and \d+(\.\d+)? accept on the trimmed text,
+ * and every broken rule must be reported, in order, whether the Validation is new or reused.
+ * @author Andrew Burk
+ */
+class StockItemValidatorTest {
+    private static final String[] FIELDS = {
+        null, "", " ", "0", "7", "12", " 42 ", "\t9\n", "-3", "+3", "1.5", "1.", ".5", "1.2.3", "abc", "4 2",
+        "2147483647", "2147483648", "99999999999", "0007", "١", "1e3", "10.25"
+    };
+
+    @Test
+    void matchesThePatternsOnRandomFields() {
+        Random random = new Random(20);
+        StockItemValidator.Validation reused = new StockItemValidator.Validation();
+        for (int row = 0; row < 20_000; row++) {
+            String name = random.nextInt(5) == 0 ? " " : "Bolt";
+            String stock = pick(random);
+            String price = pick(random);
+            String min = pick(random);
+            String max = pick(random);
+            String identifier = pick(random);
+            boolean inHouse = random.nextBoolean();
+
+            List<StockItemValidator.Rule> expected = expectedErrors(name, stock, price, min, max);
+            if (inHouse && whole(identifier) < 0) {
+                expected.add(StockItemValidator.Rule.MACHINE_ID_WHOLE_NUMBER);
+            }
+            if (!inHouse && (identifier == null || identifier.trim().isEmpty())) {
+                expected.add(StockItemValidator.Rule.COMPANY_NAME_REQUIRED);
+            }
+            String fields = String.join("|", String.valueOf(stock), String.valueOf(price), String.valueOf(min), String.valueOf(max), String.valueOf(identifier));
+            StockItemValidator.Validation validation = StockItemValidator.validatePart(name, stock, price, min, max, identifier, inHouse, reused);
+            assertSame(reused, validation);
+            assertEquals(expected, validation.getErrors(), fields);
+            assertEquals(expected.isEmpty(), validation.isValid(), fields);
+            assertEquals(expectedErrors(name, stock, price, min, max), StockItemValidator.validateProduct(name, stock, price, min, max).getErrors(), fields);
+            if (validation.isValid()) {
+                assertEquals(whole(stock), validation.getStock());
+                assertEquals(whole(min), validation.getMin());
+                assertEquals(whole(max), validation.getMax());
+                assertEquals(Double.parseDouble(price), validation.getPrice());
+            }
+        }
+    }
+
+    @Test
+    void parsesAValidPart() {
+        StockItemValidator.Validation validation = StockItemValidator.validatePart("  Bolt ", " 5", "0.25 ", "1", "10", " Acme ", false);
+        assertTrue(validation.isValid());
+        assertEquals("", validation.getMessage());
+        assertEquals("Bolt", validation.getName());
+        assertEquals(5, validation.getStock());
+        assertEquals(0.25, validation.getPrice());
+        assertEquals(1, validation.getMin());
+        assertEquals(10, validation.getMax());
+        assertEquals("Acme", validation.getCompanyName());
+        assertEquals(77, StockItemValidator.validatePart("Bolt", "5", "1", "1", "10", "77", true).getMachineId());
+    }
+
+    @Test
+    void reportsEveryBrokenRuleInOrder() {
+        StockItemValidator.Validation validation = StockItemValidator.validatePart("", "20", "free", "9", "4", "", false);
+        assertFalse(validation.isValid());
+        assertEquals(List.of(StockItemValidator.Rule.NAME_REQUIRED, StockItemValidator.Rule.PRICE_NUMBER,
+                StockItemValidator.Rule.MAX_BELOW_MIN, StockItemValidator.Rule.STOCK_ABOVE_MAX,
+                StockItemValidator.Rule.COMPANY_NAME_REQUIRED), validation.getErrors());
+        assertEquals("Must include a Name; Must Enter a Cost; Maximum must be greater than Minimum; "
+                + "Inventory Level Must Be Less Than Max.; Must Enter a Company Name", validation.getMessage("; "));
+        //Rules between fields are skipped when a field did not parse.
+        assertEquals(List.of(StockItemValidator.Rule.MIN_WHOLE_NUMBER),
+                StockItemValidator.validateProduct("Frame", "3", "1", "x", "5").getErrors());
+        //A reused Validation forgets the last row.
+        StockItemValidator.validatePart("Bolt", "1", "1", "1", "1", "1", true, validation);
+        assertTrue(validation.isValid());
+    }
+
+    private static String pick(Random random) {
+        return FIELDS[random.nextInt(FIELDS.length)];
+    }
+
+    /**
+     * The rules shared by parts and products, checked the way the editors checked them with patterns.
+     */
+    private static List<StockItemValidator.Rule> expectedErrors(String name, String stock, String price, String min, String max) {
+        List<StockItemValidator.Rule> errors = new ArrayList<>();
+        if (name.trim().isEmpty()) {
+            errors.add(StockItemValidator.Rule.NAME_REQUIRED);
+        }
+        long stockValue = whole(stock);
+        long minValue = whole(min);
+        long maxValue = whole(max);
+        if (stockValue < 0) {
+            errors.add(StockItemValidator.Rule.STOCK_WHOLE_NUMBER);
+        }
+        if (price == null || !price.trim().matches("\\d+(\\.\\d+)?")) {
+            errors.add(StockItemValidator.Rule.PRICE_NUMBER);
+        }
+        if (maxValue < 0) {
+            errors.add(StockItemValidator.Rule.MAX_WHOLE_NUMBER);
+        }
+        if (minValue < 0) {
+            errors.add(StockItemValidator.Rule.MIN_WHOLE_NUMBER);
+        }
+        if (maxValue >= 0 && minValue >= 0 && maxValue < minValue) {
+            errors.add(StockItemValidator.Rule.MAX_BELOW_MIN);
+        }
+        if (stockValue >= 0 && maxValue >= 0 && stockValue > maxValue) {
+            errors.add(StockItemValidator.Rule.STOCK_ABOVE_MAX);
+        }
+        if (stockValue >= 0 && minValue >= 0 && stockValue < minValue) {
+            errors.add(StockItemValidator.Rule.STOCK_BELOW_MIN);
+        }
+        return errors;
+    }
+
+    /**
+     * @return the value of a whole number that fits in an int, -1 for anything else
+     */
+    private static long whole(String text) {
+        if (text == null || !text.trim().matches("\\d+")) {
+            return -1;
+        }
+        BigInteger value = new BigInteger(text.trim());
+        return value.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0 ? -1 : value.longValue();
+    }
+}
@@ -0,0 +1,192 @@
+package Model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every StockLedger operation is all or nothing: a refused movement leaves the stock, reservations and history
+ * as they were, and threads reserving and consuming the same item never lose an update or over reserve it.
+ * @author Andrew Burk
+ */
+class StockLedgerTest {
+    private static final int THREADS = 8;
+
+    private Inventory inv;
+    private StockLedger ledger;
+    private Part bolt;
+    private Part nut;
+
+    @BeforeEach
+    void setUp() {
+        inv = new Inventory();
+        bolt = new InHouse(1, "Bolt", 0.25, 20, 2, 100, 1);
+        nut = new InHouse(2, "Nut", 0.05, 10, 0, 100, 1);
+        inv.addPart(bolt);
+        inv.addPart(nut);
+        ledger = inv.getStockLedger();
+    }
+
+    @Test
+    void reserveRefusesToGoBelowMinAndChangesNothing() {
+        assertFalse(ledger.reserve(bolt, 19, "Order 1"));
+        assertEquals(0, ledger.getReserved(bolt));
+        assertEquals(20, bolt.getStock());
+        assertTrue(ledger.getMovements(bolt).isEmpty());
+
+        assertTrue(ledger.reserve(bolt, 18, "Order 2"));
+        assertEquals(18, ledger.getReserved(bolt));
+        assertEquals(2, ledger.getAvailable(bolt));
+        assertEquals(20, bolt.getStock());
+    }
+
+    @Test
+    void consumeAndReleaseOnlyTakeReservedStock() {
+        assertFalse(ledger.consume(nut, 1, "Order 1"));
+        assertTrue(ledger.reserve(nut, 4, "Order 1"));
+        assertFalse(ledger.release(nut, 5, "Order 1"));
+        assertTrue(ledger.consume(nut, 3, "Order 1"));
+        assertTrue(ledger.release(nut, 1, "Order 1"));
+        assertEquals(7, nut.getStock());
+        assertEquals(0, ledger.getReserved(nut));
+        assertEquals(3, ledger.getMovements(nut).size());
+    }
+
+    @Test
+    void receiveAndAdjustStayWithinTheLimits() {
+        assertFalse(ledger.receive(nut, 91, "PO 1"));
+        assertTrue(ledger.reserve(nut, 6, "Order 1"));
+        //The stock may not drop below what is reserved.
+        assertFalse(ledger.adjust(nut, -5, "Count"));
+        assertTrue(ledger.adjust(nut, -4, "Count"));
+        assertEquals(6, nut.getStock());
+        assertEquals(6, ledger.getReserved(nut));
+        assertThrows(IllegalArgumentException.class, () -> ledger.reserve(nut, 0, "Order 2"));
+        assertThrows(IllegalArgumentException.class, () -> ledger.adjust(nut, 0, "Count"));
+        assertThrows(IllegalArgumentException.class, () -> ledger.receive(new InHouse(9, "Gone", 1, 1, 0, 5, 1), 1, "PO 2"));
+    }
+
+    @Test
+    void replacingAPartKeepsItsReservations() {
+        assertTrue(ledger.reserve(nut, 4, "Order 1"));
+        inv.replacePart(2, new InHouse(2, "Nut", 0.05, 30, 0, 100, 1));
+        assertEquals(30, ledger.getOnHand(nut));
+        assertEquals(4, ledger.getReserved(nut));
+        //A replacement with less stock than is reserved cuts the reservation down to it.
+        inv.replacePart(2, new InHouse(2, "Nut", 0.05, 3, 0, 100, 1));
+        assertEquals(3, ledger.getReserved(nut));
+        assertEquals(StockLedger.MovementType.ADJUSTMENT, ledger.getMovements(nut).get(2).getType());
+    }
+
+    @Test
+    void concurrentReservesNeverOverReserve() throws Exception {
+        ConcurrentInventory shared = new ConcurrentInventory(Runnable::run);
+        Part gear = new InHouse(3, "Gear", 1, 1_000, 0, 5_000, 1);
+        shared.addPart(gear);
+        StockLedger sharedLedger = shared.getStockLedger();
+        AtomicInteger reserved = new AtomicInteger();
+        run(thread -> {
+            for (int i = 0; i < 200; i++) {
+                if (sharedLedger.reserve(gear, 1, "Order " + thread)) {
+                    reserved.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(1_000, reserved.get());
+        assertEquals(1_000, sharedLedger.getReserved(gear));
+        assertEquals(0, sharedLedger.getAvailable(gear));
+        assertEquals(1_000, sharedLedger.getMovements(gear).size());
+    }
+
+    @Test
+    void concurrentMovementsReplayToTheFinalStock() throws Exception {
+        ConcurrentInventory shared = new ConcurrentInventory(Runnable::run);
+        Part gear = new InHouse(3, "Gear", 1, 500, 10, 5_000, 1);
+        shared.addPart(gear);
+        StockLedger sharedLedger = shared.getStockLedger();
+        run(thread -> {
+            Random random = new Random(thread);
+            for (int i = 0; i < 2_000; i++) {
+                int quantity = 1 + random.nextInt(5);
+                switch (random.nextInt(4)) {
+                    case 0:
+                        sharedLedger.receive(gear, quantity, "PO");
+                        break;
+                    case 1:
+                        sharedLedger.adjust(gear, -quantity, "Count");
+                        break;
+                    default:
+                        if (sharedLedger.reserve(gear, quantity, "Order")) {
+                            if (random.nextBoolean()) {
+                                assertTrue(sharedLedger.consume(gear, quantity, "Order"));
+                            } else {
+                                assertTrue(sharedLedger.release(gear, quantity, "Order"));
+                            }
+                        }
+                        break;
+                }
+            }
+        });
+
+        //Replaying the history from the starting stock gives each recorded state in turn, with no version skipped.
+        int onHand = 500;
+        int reservedNow = 0;
+        long version = 0;
+        for (StockLedger.Movement movement : sharedLedger.getMovements(gear)) {
+            int quantity = movement.getQuantity();
+            switch (movement.getType()) {
+                case RECEIPT:
+                case ADJUSTMENT:
+                    onHand += quantity;
+                    break;
+                case RESERVE:
+                    reservedNow += quantity;
+                    break;
+                case RELEASE:
+                    reservedNow -= quantity;
+                    break;
+                default:
+                    onHand -= quantity;
+                    reservedNow -= quantity;
+                    break;
+            }
+            assertEquals(++version, movement.getVersion());
+            assertEquals(onHand, movement.getOnHand());
+            assertEquals(reservedNow, movement.getReserved());
+            assertTrue(onHand - reservedNow >= 0 && onHand <= 5_000);
+        }
+        assertEquals(0, reservedNow);
+        assertEquals(onHand, sharedLedger.getOnHand(gear));
+        assertEquals(onHand, shared.lookupPart(3).getStock());
+    }
+
+    private static void run(IntConsumer worker) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                running.add(threads.submit(() -> worker.accept(thread)));
+            }
+            for (Future<?> future : running) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package Server;
+
+import Model.ConcurrentInventory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Each route must answer with the status and JSON the service documents, batches must run their lines in order,
+ * and a body over the limit must be refused without being read.
+ * @author Andrew Burk
+ */
+class InventoryServerTest {
+    private static final String BOLT = "{\"name\":\"Bolt\",\"price\":0.25,\"stock\":20,\"min\":2,\"max\":100,\"machineId\":7}";
+
+    private ConcurrentInventory inv;
+    private InventoryServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        inv = new ConcurrentInventory(Runnable::run);
+        server = new InventoryServer(inv, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void createsReadsAndDeletesParts() throws Exception {
+        HttpResponse<String> created = send("POST", "/parts", BOLT);
+        assertEquals(201, created.statusCode());
+        Map<String, Object> part = object(created.body());
+        assertEquals("InHouse", part.get("type"));
+        assertEquals(1L, part.get("id"));
+        assertEquals(7L, part.get("machineId"));
+        assertEquals("Bolt", inv.lookupPart(1).getName());
+
+        assertEquals(part, object(send("GET", "/parts/1", null).body()));
+        assertEquals(409, send("POST", "/parts", BOLT.replace("{", "{\"id\":1,")).statusCode());
+        assertEquals(201, send("POST", "/parts", "{\"name\":\"Nut\",\"price\":1,\"stock\":1,\"min\":0,\"max\":5,\"companyName\":\"Acme\"}").statusCode());
+
+        Map<String, Object> page = object(send("GET", "/parts?search=Nu&limit=5", null).body());
+        assertEquals(1L, page.get("total"));
+        assertEquals("Outsourced", object(((List<?>) page.get("items")).get(0)).get("type"));
+
+        HttpResponse<String> replaced = send("PUT", "/parts/1", BOLT.replace("\"stock\":20", "\"stock\":30"));
+        assertEquals(200, replaced.statusCode());
+        assertEquals(30, inv.lookupPart(1).getStock());
+        assertEquals(204, send("DELETE", "/parts/1", null).statusCode());
+        assertEquals(404, send("GET", "/parts/1", null).statusCode());
+    }
+
+    @Test
+    void refusesBadRequests() throws Exception {
+        HttpResponse<String> invalid = send("POST", "/parts", "{\"name\":\"\",\"price\":\"free\",\"stock\":3,\"min\":0,\"max\":5,\"machineId\":1}");
+        assertEquals(400, invalid.statusCode());
+        assertEquals(List.of("Must include a Name", "Must Enter a Cost"), object(invalid.body()).get("errors"));
+        assertEquals(400, send("POST", "/parts", "{\"name\":").statusCode());
+        assertEquals(400, send("GET", "/parts/abc", null).statusCode());
+        assertEquals(400, send("GET", "/parts?limit=many", null).statusCode());
+        assertEquals(404, send("GET", "/orders", null).statusCode());
+        assertEquals(404, send("GET", "/products/3", null).statusCode());
+        assertEquals(405, send("DELETE", "/parts", null).statusCode());
+        assertEquals(405, send("GET", "/batch", null).statusCode());
+        assertEquals("ok", object(send("GET", "/health", null).body()).get("status"));
+    }
+
+    @Test
+    void associationsKeepPartsInUse() throws Exception {
+        send("POST", "/parts", BOLT);
+        assertEquals(201, send("POST", "/products", "{\"id\":5,\"name\":\"Frame\",\"price\":10,\"stock\":1,\"min\":0,\"max\":5}").statusCode());
+        assertEquals(404, send("PUT", "/products/5/parts/9", "{\"quantity\":2}").statusCode());
+        assertEquals(400, send("PUT", "/products/5/parts/1", "{\"quantity\":0}").statusCode());
+        assertTrue(send("PUT", "/products/5/parts/1", "{\"quantity\":3}").statusCode() < 300);
+
+        List<?> parts = (List<?>) Json.parse(send("GET", "/products/5/parts", null).body());
+        assertEquals(3L, object(parts.get(0)).get("quantity"));
+        assertEquals(5L, object(((List<?>) Json.parse(send("GET", "/parts/1/products", null).body())).get(0)).get("id"));
+        assertEquals(409, send("DELETE", "/parts/1", null).statusCode());
+        assertEquals(409, send("DELETE", "/products/5", null).statusCode());
+
+        assertTrue(send("DELETE", "/products/5/parts/1", null).statusCode() < 300);
+        assertEquals(204, send("DELETE", "/parts/1", null).statusCode());
+        assertEquals(204, send("DELETE", "/products/5", null).statusCode());
+    }
+
+    @Test
+    void batchRunsEachLineInOrder() throws Exception {
+        String body = "{\"method\":\"POST\",\"path\":\"/parts\",\"body\":" + BOLT + "}\n"
+                + "\n"
+                + "{\"method\":\"GET\",\"path\":\"/parts?search=Bolt\"}\n"
+                + "not json\n"
+                + "{\"method\":\"DELETE\",\"path\":\"/parts/1\"}\n";
+        HttpResponse<String> response = send("POST", "/batch", body);
+        assertEquals(200, response.statusCode());
+        String[] lines = response.body().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals(201L, object(Json.parse(lines[0])).get("status"));
+        assertEquals(1L, object(object(Json.parse(lines[1])).get("body")).get("total"));
+        assertEquals(400L, object(Json.parse(lines[2])).get("status"));
+        assertEquals(204L, object(Json.parse(lines[3])).get("status"));
+        assertEquals(0, inv.getAllParts().size());
+
+        Map<String, Object> metrics = object(send("GET", "/metrics", null).body());
+        assertEquals(0L, metrics.get("serverErrors"));
+        assertTrue(object(metrics.get("routes")).containsKey("POST /batch"));
+    }
+
+    @Test
+    void refusesABodyOverTheLimit() throws Exception {
+        //Refused from its Content-Length alone, none of the body is ever sent.
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST /batch HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + (InventoryServer.MAX_BODY_BYTES + 1L)
+                    + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            String statusLine = in.readLine();
+            assertTrue(statusLine.startsWith("HTTP/1.1 413"), statusLine);
+        }
+        //Refused by the bounded read when the length is not known up front.
+        byte[] body = new byte[InventoryServer.MAX_BODY_BYTES + 1];
+        HttpRequest chunked = HttpRequest.newBuilder(uri("/batch"))
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(body))).build();
+        assertEquals(413, client.send(chunked, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(200, send("POST", "/batch", "").statusCode());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+
+    private static Map<String, Object> object(String json) {
+        return object(Json.parse(json));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> object(Object value) {
+        return (Map<String, Object>) value;
+    }
+}
@@ -0,0 +1,51 @@
+package Server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Json must read what it writes back to the same values, and refuse text that is not JSON.
+ * @author Andrew Burk
+ */
+class JsonTest {
+    @Test
+    void readsWhatItWrites() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("name", "Bolt \"M6\"\\\n\t\u0001é");
+        value.put("stock", 12L);
+        value.put("price", 0.25);
+        value.put("inHouse", true);
+        value.put("company", null);
+        value.put("parts", Arrays.asList(1L, -2L, List.of(), new LinkedHashMap<>()));
+        StringBuilder json = new StringBuilder();
+        Json.append(json, value);
+        assertEquals(value, Json.parse(json.toString()));
+        //Numbers outside JSON are written as null.
+        StringBuilder nan = new StringBuilder();
+        Json.append(nan, List.of(Double.NaN, Double.POSITIVE_INFINITY));
+        assertEquals("[null,null]", nan.toString());
+    }
+
+    @Test
+    void readsNumbersAndEscapes() {
+        assertEquals(List.of(7L, 1.5, -3e2, 2147483648L), Json.parse(" [7, 1.5, -3e2, 2147483648] "));
+        assertEquals("Aé😀/", Json.parse("\"\\u0041\\u00e9\\ud83d\\ude00\\/\""));
+        assertNull(Json.parse("   "));
+        assertNull(Json.parse("null"));
+    }
+
+    @Test
+    void refusesWhatIsNotJson() {
+        for (String text : new String[] {"{", "[1,]", "{\"a\" 1}", "tru", "\"open", "1 2", "{'a':1}", "[01x]"}) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parse(text), text);
+        }
+    }
+}
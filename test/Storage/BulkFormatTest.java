@@ -0,0 +1,148 @@
+package Storage;
+
+import Model.InHouse;
+import Model.Inventory;
+import Model.Outsourced;
+import Model.Part;
+import Model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CSV and JSON lines records read back exactly what was written, including quotes, escapes and line breaks,
+ * and malformed lines are refused with the line they came from.
+ * @author Andrew Burk
+ */
+class BulkFormatTest {
+    private static final String[] AWKWARD_NAMES = {
+        "Plain", "Comma, inside", "Say \"cheese\"", "Two\nlines", "Back\\slash", "Tab\there", "Bell\u0007ring", "\u00dcn\u00efc\u00f6d\u00e9 \u2713", "", "\"", ",,"
+    };
+
+    @Test
+    void formatAndParseRoundTrip() {
+        for (BulkFormat format : BulkFormat.values()) {
+            for (String name : AWKWARD_NAMES) {
+                String[] fields = { "7", name, "1.5", "3", "0", "10", "Acme, \"Ltd\"" };
+                String line = format.format(BulkFormat.OUTSOURCED, fields.clone());
+                String[] record = format.parse(line);
+                assertEquals(BulkFormat.OUTSOURCED, record[0]);
+                assertArrayEquals(fields, Arrays.copyOfRange(record, 1, record.length), format + " " + line);
+            }
+        }
+    }
+
+    @Test
+    void nullFieldsAreWrittenEmpty() {
+        assertEquals("Product,1,,2.0,1,0,5", BulkFormat.CSV.format(BulkFormat.PRODUCT, "1", null, "2.0", "1", "0", "5"));
+        assertEquals("", BulkFormat.JSON_LINES.parse(BulkFormat.JSON_LINES.format(BulkFormat.PRODUCT, "1", null, "2.0", "1", "0", "5"))[2]);
+    }
+
+    @Test
+    void jsonMembersMayComeInAnyOrder() {
+        String[] record = BulkFormat.JSON_LINES.parse("{\"partId\": 4, \"type\": \"Association\", \"productId\": 9}");
+        assertArrayEquals(new String[] { BulkFormat.ASSOCIATION, "9", "4" }, record);
+        assertEquals("\u00e9", BulkFormat.JSON_LINES.parse("{\"type\":\"Association\",\"productId\":\"\\u00e9\",\"partId\":1}")[1]);
+    }
+
+    @Test
+    void refusesMalformedLines() {
+        String[] csv = {
+            "InHouse,1,\"Unterminated,1.0,1,0,5,3",
+            "InHouse,1,Bolt,1.0,1,0,5",
+            "InHouse,1,Bolt,1.0,1,0,5,3,extra",
+            "Widget,1,Bolt",
+        };
+        for (String line : csv) {
+            assertThrows(IllegalArgumentException.class, () -> BulkFormat.CSV.parse(line), line);
+        }
+        String[] json = {
+            "{\"id\":1}",
+            "{\"type\":\"Widget\"}",
+            "{\"type\":\"Association\",\"productId\":1}",
+            "{\"type\":\"Association\",\"productId\":1,\"partId\":2} trailing",
+            "{\"type\":\"Association\",\"productId\":1,\"partId\":2",
+            "{\"type\":\"Association\",\"productId\":\"\\u00\",\"partId\":2}",
+            "{\"type\":\"Association\",\"productId\":\"open,\"partId\":2}",
+            "{\"type\":\"Association\",\"productId\":,\"partId\":2}",
+            "[1,2]",
+        };
+        for (String line : json) {
+            assertThrows(IllegalArgumentException.class, () -> BulkFormat.JSON_LINES.parse(line), line);
+        }
+    }
+
+    @Test
+    void chosenFromTheFileName() {
+        assertEquals(BulkFormat.JSON_LINES, BulkFormat.forFile("parts.JSONL"));
+        assertEquals(BulkFormat.JSON_LINES, BulkFormat.forFile("parts.ndjson"));
+        assertEquals(BulkFormat.CSV, BulkFormat.forFile("parts.csv"));
+        assertEquals(BulkFormat.CSV, BulkFormat.forFile("parts"));
+    }
+
+    @Test
+    void exportThenImportKeepsEveryRecord() throws IOException {
+        Inventory inv = new Inventory();
+        for (int i = 0; i < AWKWARD_NAMES.length; i++) {
+            String name = AWKWARD_NAMES[i].isEmpty() ? "Blank" : AWKWARD_NAMES[i];
+            inv.addPart(i % 2 == 0 ? new InHouse(i + 1, name, 1.25, 2, 0, 10, i) : new Outsourced(i + 1, name, 0.5, 3, 1, 9, "Co \"" + name + "\""));
+        }
+        Product product = new Product(100, "Frame, \"large\"\nmodel", 99.99, 1, 0, 5);
+        inv.addProduct(product);
+        product.addAssociatedPart(inv.lookupPart(2));
+        product.addAssociatedPart(inv.lookupPart(4));
+
+        for (BulkFormat format : BulkFormat.values()) {
+            StringWriter written = new StringWriter();
+            long records = new InventoryExporter(inv).exportTo(written, format);
+            assertEquals(AWKWARD_NAMES.length + 3, records);
+
+            Inventory imported = new Inventory();
+            InventoryImporter importer = new InventoryImporter(imported, 2);
+            assertEquals(records, importer.importFrom(new StringReader(written.toString()), format));
+            assertEquals(describe(inv), describe(imported), format.name());
+        }
+    }
+
+    @Test
+    void reportsTheLineOfABadRecord() {
+        String csv = BulkFormat.CSV_HEADER + "\nInHouse,1,Bolt,1.0,1,0,5,3\nInHouse,2,\"Two\nlines\",1.0,1,0,5,3\nInHouse,3,Nut,cheap,1,0,5,3\n";
+        IOException failure = assertThrows(IOException.class,
+                () -> new InventoryImporter(new Inventory()).importFrom(new StringReader(csv), BulkFormat.CSV));
+        assertTrue(failure.getMessage().contains("Line 5"), failure.getMessage());
+
+        String jsonl = "{\"type\":\"Product\",\"id\":1,\"name\":\"Frame\",\"price\":1,\"stock\":1,\"min\":0,\"max\":5}\n"
+                + "{\"type\":\"Association\",\"productId\":1,\"partId\":42}\n";
+        IOException missing = assertThrows(IOException.class,
+                () -> new InventoryImporter(new Inventory()).importFrom(new StringReader(jsonl), BulkFormat.JSON_LINES));
+        assertTrue(missing.getMessage().contains("Line 2"), missing.getMessage());
+    }
+
+    private static List<String> describe(Inventory inv) {
+        List<String> records = new ArrayList<>();
+        for (Part part : inv.getAllParts()) {
+            String source = part instanceof Outsourced ? ((Outsourced) part).getCompanyName() : "machine " + ((InHouse) part).getMachineId();
+            records.add(part.getId() + "|" + part.getName() + "|" + part.getPrice() + "|" + part.getStock()
+                    + "|" + part.getMin() + "-" + part.getMax() + "|" + source);
+        }
+        for (Product product : inv.getAllProducts()) {
+            StringBuilder record = new StringBuilder(product.getId() + "|" + product.getName() + "|" + product.getPrice()
+                    + "|" + product.getStock() + "|" + product.getMin() + "-" + product.getMax());
+            for (Part part : product.getAllAssociatedParts()) {
+                record.append("|part ").append(part.getId());
+            }
+            records.add(record.toString());
+        }
+        return records;
+    }
+}
@@ -0,0 +1,87 @@
+package Storage;
+
+import Model.InHouse;
+import Model.Outsourced;
+import Model.Part;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Columnar part snapshots read back what was encoded, and damaged files are refused when opened
+ * instead of being read at offsets the header made up.
+ * @author Andrew Burk
+ */
+class ColumnarPartSnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackTheEncodedParts() throws IOException {
+        List<Part> parts = List.of(
+                new InHouse(1, "Bolt", 0.25, 100, 0, 1000, 7),
+                new Outsourced(2, "Gear", 3.50, 20, 1, 100, "Gears Inc"),
+                new Outsourced(3, "Gear", 4.00, 5, 0, 50, "Gears Inc"));
+        ColumnarPartSnapshot snapshot = ColumnarPartSnapshot.open(write("parts.columns", ColumnarPartSnapshot.encode(parts)));
+
+        assertEquals(3, snapshot.size());
+        LazyPartList lazy = new LazyPartList(snapshot);
+        assertEquals("Gear", lazy.nameAt(2));
+        assertFalse(lazy.isCreated(2));
+        for (int i = 0; i < parts.size(); i++) {
+            Part expected = parts.get(i);
+            Part read = lazy.get(i);
+            assertEquals(expected.getClass(), read.getClass());
+            assertEquals(expected.getId() + expected.getName() + expected.getPrice() + expected.getStock() + expected.getMin() + expected.getMax(),
+                    read.getId() + read.getName() + read.getPrice() + read.getStock() + read.getMin() + read.getMax());
+        }
+        assertEquals("Gears Inc", ((Outsourced) lazy.get(1)).getCompanyName());
+        assertEquals(7, ((InHouse) lazy.get(0)).getMachineId());
+
+        //Encoding the lazy list copies unused rows straight from the columns.
+        ColumnarPartSnapshot copy = ColumnarPartSnapshot.open(write("copy.columns", ColumnarPartSnapshot.encode(new LazyPartList(snapshot))));
+        assertEquals(3, copy.idAt(2));
+        assertTrue(copy.isOutsourced(1));
+    }
+
+    @Test
+    void readsAnEmptySnapshot() throws IOException {
+        assertEquals(0, ColumnarPartSnapshot.open(write("empty.columns", ColumnarPartSnapshot.encode(List.of()))).size());
+    }
+
+    @Test
+    void refusesHeadersThatDoNotMatchTheFileLength() throws IOException {
+        byte[] good = ColumnarPartSnapshot.encode(List.of(new InHouse(1, "Bolt", 0.25, 100, 0, 1000, 7)));
+
+        //A row count large enough to wrap int offsets round.
+        byte[] wrapping = withHeaderInt(good, 8, 0x4000_0000);
+        assertThrows(IOException.class, () -> ColumnarPartSnapshot.open(write("wrapping.columns", wrapping)));
+        assertThrows(IOException.class, () -> ColumnarPartSnapshot.open(write("negative.columns", withHeaderInt(good, 8, -1))));
+        assertThrows(IOException.class, () -> ColumnarPartSnapshot.open(write("strings.columns", withHeaderInt(good, 12, 5))));
+        assertThrows(IOException.class, () -> ColumnarPartSnapshot.open(write("truncated.columns", Arrays.copyOf(good, good.length - 1))));
+        assertThrows(IOException.class, () -> ColumnarPartSnapshot.open(write("padded.columns", Arrays.copyOf(good, good.length + 8))));
+        assertThrows(IOException.class, () -> ColumnarPartSnapshot.open(write("short.columns", new byte[10])));
+    }
+
+    private Path write(String name, byte[] bytes) throws IOException {
+        return Files.write(directory.resolve(name), bytes);
+    }
+
+    private static byte[] withHeaderInt(byte[] file, int offset, int value) {
+        byte[] copy = file.clone();
+        ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+        return copy;
+    }
+}
@@ -0,0 +1,239 @@
+package Storage;
+
+import Model.InHouse;
+import Model.Inventory;
+import Model.Outsourced;
+import Model.Part;
+import Model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recovery of the InventoryStore from its snapshot and write-ahead log, and replay of damaged logs.
+ * A crash is a store that is synced but never closed, the next open reads the same directory.
+ * @author Andrew Burk
+ */
+class InventoryStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysTheLogAfterACrash() throws IOException {
+        InventoryStore store = InventoryStore.open(directory);
+        Inventory inv = store.getInventory();
+        makeChanges(inv);
+        store.sync();
+
+        InventoryStore reopened = InventoryStore.open(directory);
+        assertTrue(reopened.isRecovered());
+        assertSameContents(inv, reopened.getInventory());
+        reopened.close();
+    }
+
+    @Test
+    void replaysOnlyTheLogAfterTheCheckpoint() throws IOException {
+        InventoryStore store = InventoryStore.open(directory);
+        Inventory inv = store.getInventory();
+        makeChanges(inv);
+        store.checkpoint();
+        //Changes after the checkpoint, including ones to records already in the snapshot.
+        inv.replacePart(2, new Outsourced(2, "Washer", 0.10, 40, 0, 500, "Acme"));
+        inv.getStockLedger().receive(inv.lookupPart(1), 5, "PO-1");
+        inv.addPart(new InHouse(4, "Spring", 0.75, 12, 0, 100, 3));
+        inv.lookupProduct(10).addAssociatedPart(inv.lookupPart(4), 4);
+        inv.lookupProduct(11).deleteSubAssembly(inv.lookupProduct(10));
+        store.sync();
+
+        InventoryStore reopened = InventoryStore.open(directory);
+        assertSameContents(inv, reopened.getInventory());
+        reopened.close();
+    }
+
+    @Test
+    void closeWritesASnapshotThatReopensTheSame() throws IOException {
+        InventoryStore store = InventoryStore.open(directory);
+        Inventory inv = store.getInventory();
+        makeChanges(inv);
+        store.close();
+        assertEquals(0, Files.size(directory.resolve("inventory.wal")));
+
+        InventoryStore reopened = InventoryStore.open(directory);
+        assertSameContents(inv, reopened.getInventory());
+        reopened.close();
+    }
+
+    @Test
+    void checkpointsOnlyOnceABulkAssociationHasFinished() throws IOException {
+        InventoryStore store = InventoryStore.open(directory);
+        Inventory inv = store.getInventory();
+        Product product = new Product(1, "Frame", 20, 1, 0, 50);
+        inv.addProduct(product);
+        //With the product, one record short of the automatic checkpoint, the associations below cross it.
+        List<Part> parts = new ArrayList<>();
+        for (int id = 1; id <= 49_998; id++) {
+            parts.add(new InHouse(id, "Part " + id, 1, 1, 0, 10, 1));
+        }
+        inv.addParts(parts);
+        product.addAssociatedParts(parts.subList(0, 10));
+        store.sync();
+
+        InventoryStore reopened = InventoryStore.open(directory);
+        assertEquals(10, reopened.getInventory().lookupProduct(1).getAllAssociatedParts().size());
+        assertSameContents(inv, reopened.getInventory());
+        reopened.close();
+    }
+
+    @Test
+    void keepsIdsOfDeletedRecordsUsedAfterARestart() throws IOException {
+        InventoryStore store = InventoryStore.open(directory);
+        Inventory inv = store.getInventory();
+        Part part = new InHouse(inv.getPartIdSequence().next(), "Bolt", 0.25, 10, 0, 100, 1);
+        inv.addPart(part);
+        inv.deletePart(part);
+        store.close();
+
+        InventoryStore reopened = InventoryStore.open(directory);
+        assertTrue(reopened.getInventory().getPartIdSequence().next() > part.getId());
+        reopened.close();
+    }
+
+    @Test
+    void cutsATornRecordOffTheEndOfTheLog() throws Exception {
+        Path file = directory.resolve("test.wal");
+        WriteAheadLog log = new WriteAheadLog(file, 1);
+        for (int i = 0; i < 3; i++) {
+            log.append(RecordCodec.PART_DELETE, new byte[] {0, 0, 0, (byte) i}).get();
+        }
+        log.close();
+        long goodBytes = Files.size(file);
+        //Half a record, as left by a crash in the middle of a write.
+        Files.write(file, new byte[] {0, 0, 0, 13, 1, 2}, StandardOpenOption.APPEND);
+
+        List<Long> replayed = new ArrayList<>();
+        long last = WriteAheadLog.replay(file, 0, (sequence, type, payload) -> replayed.add(sequence));
+        assertEquals(List.of(1L, 2L, 3L), replayed);
+        assertEquals(3, last);
+        assertEquals(goodBytes, Files.size(file));
+
+        //Appends carry on after the last good record.
+        WriteAheadLog reopened = new WriteAheadLog(file, last + 1);
+        assertEquals(4L, reopened.append(RecordCodec.PART_DELETE, new byte[4]).get());
+        reopened.close();
+    }
+
+    @Test
+    void stopsAtACorruptRecord() throws Exception {
+        Path file = directory.resolve("test.wal");
+        WriteAheadLog log = new WriteAheadLog(file, 1);
+        for (int i = 0; i < 3; i++) {
+            log.append(RecordCodec.PART_DELETE, new byte[] {0, 0, 0, (byte) i}).get();
+        }
+        log.close();
+        //Each record is 8 header bytes, 9 bytes of sequence and type and 4 of payload, flip a payload byte of the second.
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[21 + 20] ^= 0x55;
+        Files.write(file, bytes);
+
+        List<Long> replayed = new ArrayList<>();
+        WriteAheadLog.replay(file, 0, (sequence, type, payload) -> replayed.add(sequence));
+        assertEquals(List.of(1L), replayed);
+        assertEquals(21, Files.size(file));
+    }
+
+    @Test
+    void skipsRecordsTheSnapshotAlreadyHolds() throws Exception {
+        Path file = directory.resolve("test.wal");
+        WriteAheadLog log = new WriteAheadLog(file, 1);
+        for (int i = 0; i < 5; i++) {
+            log.append(RecordCodec.PART_DELETE, new byte[4]);
+        }
+        log.sync();
+        log.close();
+
+        List<Long> replayed = new ArrayList<>();
+        assertEquals(5, WriteAheadLog.replay(file, 3, (sequence, type, payload) -> replayed.add(sequence)));
+        assertEquals(List.of(4L, 5L), replayed);
+    }
+
+    @Test
+    void refusesAppendsOnceClosed() throws IOException {
+        WriteAheadLog log = new WriteAheadLog(directory.resolve("test.wal"), 1);
+        log.close();
+        ExecutionException refused = assertThrows(ExecutionException.class, () -> log.append(RecordCodec.PART_DELETE, new byte[4]).get());
+        assertTrue(refused.getCause() instanceof IOException);
+    }
+
+    private static void makeChanges(Inventory inv) {
+        inv.addPart(new InHouse(1, "Bolt", 0.25, 100, 0, 1000, 7));
+        inv.addPart(new InHouse(2, "Nut", 0.05, 200, 0, 1000, 7));
+        inv.addPart(new Outsourced(3, "Gear", 3.50, 20, 0, 100, "Gears Inc"));
+        inv.addPart(new InHouse(9, "Scrap", 1, 1, 0, 10, 1));
+        inv.deletePart(inv.lookupPart(9));
+
+        Product frame = new Product(10, "Frame", 20, 1, 0, 50);
+        Product bike = new Product(11, "Bike", 150, 0, 0, 20);
+        inv.addProduct(frame);
+        inv.addProduct(bike);
+        frame.addAssociatedPart(inv.lookupPart(1), 8);
+        frame.addAssociatedPart(inv.lookupPart(2));
+        bike.addAssociatedPart(inv.lookupPart(3), 2);
+        bike.addSubAssembly(frame, 1);
+
+        inv.getStockLedger().receive(inv.lookupPart(3), 10, "PO-7");
+        inv.replaceProduct(11, copyOf(bike, "Bicycle"));
+    }
+
+    private static Product copyOf(Product product, String name) {
+        Product copy = new Product(product.getId(), name, product.getPrice(), product.getStock(), product.getMin(), product.getMax());
+        for (Part part : product.getAllAssociatedParts()) {
+            copy.addAssociatedPart(part, product.getAssociatedPartQuantity(part));
+        }
+        for (Product subAssembly : product.getAllSubAssemblies()) {
+            copy.addSubAssembly(subAssembly, product.getSubAssemblyQuantity(subAssembly));
+        }
+        return copy;
+    }
+
+    private static void assertSameContents(Inventory expected, Inventory actual) {
+        assertEquals(describeParts(expected), describeParts(actual));
+        assertEquals(describeProducts(expected), describeProducts(actual));
+    }
+
+    private static List<String> describeParts(Inventory inv) {
+        List<String> parts = new ArrayList<>();
+        for (Part part : inv.getAllParts()) {
+            String source = part instanceof Outsourced ? ((Outsourced) part).getCompanyName() : "machine " + ((InHouse) part).getMachineId();
+            parts.add(part.getId() + " " + part.getName() + " " + part.getPrice() + " " + part.getStock()
+                    + " " + part.getMin() + "-" + part.getMax() + " " + source);
+        }
+        return parts;
+    }
+
+    private static List<String> describeProducts(Inventory inv) {
+        List<String> products = new ArrayList<>();
+        for (Product product : inv.getAllProducts()) {
+            StringBuilder description = new StringBuilder(product.getId() + " " + product.getName() + " " + product.getPrice()
+                    + " " + product.getStock() + " " + product.getMin() + "-" + product.getMax());
+            for (Part part : product.getAllAssociatedParts()) {
+                description.append(" part ").append(part.getId()).append('x').append(product.getAssociatedPartQuantity(part));
+            }
+            for (Product subAssembly : product.getAllSubAssemblies()) {
+                description.append(" sub ").append(subAssembly.getId()).append('x').append(product.getSubAssemblyQuantity(subAssembly));
+            }
+            products.add(description.toString());
+        }
+        return products;
+    }
+}